@@ -93,7 +93,7 @@ public class CucumberInstrumentationCore {
         resourceLoader = new AndroidResourceLoader(context);
 
         List<Backend> backends = new ArrayList<Backend>();
-        ObjectFactory delegateObjectFactory = JavaBackend.loadObjectFactory(classFinder);
+        ObjectFactory delegateObjectFactory = JavaBackend.loadObjectFactory(classFinder, classLoader);
         AndroidObjectFactory objectFactory = new AndroidObjectFactory(delegateObjectFactory, instrumentation);
         backends.add(new JavaBackend(objectFactory, classFinder));
         runtime = new Runtime(resourceLoader, classLoader, backends, runtimeOptions);
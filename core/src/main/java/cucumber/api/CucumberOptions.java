@@ -59,4 +59,39 @@ public @interface CucumberOptions {
      * @return what format should the snippets use. underscore, camelcase
      */
     SnippetType snippets() default SnippetType.UNDERSCORE;
+
+    /**
+     * @return the number of threads scenarios are run on
+     */
+    int threads() default 1;
+
+    /**
+     * @return whether or not to run formatters on a separate thread
+     */
+    boolean asyncFormatters() default false;
+
+    /**
+     * @return the directory where parsed features are kept between runs. Empty to parse features every run.
+     */
+    String featureCache() default "";
+
+    /**
+     * @return the files and directories to leave out when looking for features in directories, such as "target/"
+     */
+    String[] exclude() default {};
+
+    /**
+     * @return the number of threads feature directories are listed on
+     */
+    int scanThreads() default 1;
+
+    /**
+     * @return the part of the scenarios to run, such as "3/40" for the third of 40 parts. Empty to run them all.
+     */
+    String shard() default "";
+
+    /**
+     * @return a report of the json formatter from an earlier run, used to balance the shards by duration
+     */
+    String shardDurations() default "";
 }
@@ -0,0 +1,63 @@
+package cucumber.api.cli;
+
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.daemon.DaemonProtocol;
+import cucumber.runtime.daemon.DaemonServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts a daemon that keeps backends, glue and parsed features loaded between runs. Runs are started with
+ * {@link DaemonClient}, which takes the same options as {@link Main}.
+ * <pre>
+ * java -cp CUCUMBER_JARS cucumber.api.cli.Daemon [--port PORT] [--token-file FILE] [--feature-cache DIR] --classpath PATH
+ * </pre>
+ * PATH lists the directories and jars with the glue code, separated like the class path. They are loaded in a
+ * class loader of their own and reloaded when they change, so they must not be on the class path of the daemon.
+ * <p/>
+ * The daemon only listens on the loopback interface, and only serves clients that send the token it writes to
+ * FILE, which only the user who started it can read. FILE defaults to {@code ~/.cucumber/daemon-PORT.token}.
+ */
+public class Daemon {
+
+    public static void main(String[] argv) throws IOException {
+        int port = DaemonProtocol.DEFAULT_PORT;
+        File tokenFile = null;
+        File featureCache = null;
+        List<File> classpath = new ArrayList<File>();
+        for (int i = 0; i < argv.length; i++) {
+            if (argv[i].equals("--port")) {
+                port = Integer.parseInt(argv[++i]);
+            } else if (argv[i].equals("--token-file")) {
+                tokenFile = new File(argv[++i]);
+            } else if (argv[i].equals("--feature-cache")) {
+                featureCache = new File(argv[++i]);
+            } else if (argv[i].equals("--classpath") || argv[i].equals("-cp")) {
+                for (String entry : argv[++i].split(File.pathSeparator)) {
+                    classpath.add(new File(entry));
+                }
+            } else {
+                throw new CucumberException("Unknown option: " + argv[i]);
+            }
+        }
+        if (featureCache == null) {
+            featureCache = File.createTempFile("cucumber-daemon", "features");
+            featureCache.delete();
+            featureCache.mkdirs();
+        }
+
+        ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+        if (tokenFile == null) {
+            tokenFile = DaemonProtocol.defaultTokenFile(serverSocket.getLocalPort());
+        }
+        String token = DaemonProtocol.createTokenFile(tokenFile);
+        tokenFile.deleteOnExit();
+        System.out.println("Cucumber daemon listening on port " + serverSocket.getLocalPort());
+        new DaemonServer(serverSocket, token, classpath, featureCache).serve();
+    }
+}
@@ -0,0 +1,72 @@
+package cucumber.api.cli;
+
+import cucumber.runtime.daemon.DaemonProtocol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs features in a {@link Daemon}, printing what the run prints and exiting with its exit status.
+ * <pre>
+ * java -cp CUCUMBER_CORE_JAR cucumber.api.cli.DaemonClient [--port PORT] [--token-file FILE] [--stop] [CUCUMBER_OPTIONS]
+ * </pre>
+ * CUCUMBER_OPTIONS are the same as for {@link Main}. Relative feature paths are resolved by the daemon, so start
+ * it from the same directory. {@code --stop} stops the daemon. FILE is the token file of the daemon, which
+ * defaults to {@code ~/.cucumber/daemon-PORT.token}.
+ */
+public class DaemonClient {
+
+    public static void main(String[] argv) throws IOException {
+        List<String> args = new ArrayList<String>(Arrays.asList(argv));
+        int port = DaemonProtocol.DEFAULT_PORT;
+        File tokenFile = null;
+        boolean stop = false;
+        while (!args.isEmpty() && (args.get(0).equals("--port") || args.get(0).equals("--token-file") || args.get(0).equals("--stop"))) {
+            String arg = args.remove(0);
+            if (arg.equals("--port")) {
+                port = Integer.parseInt(args.remove(0));
+            } else if (arg.equals("--token-file")) {
+                tokenFile = new File(args.remove(0));
+            } else {
+                stop = true;
+            }
+        }
+        if (tokenFile == null) {
+            tokenFile = DaemonProtocol.defaultTokenFile(port);
+        }
+        System.exit(run(port, DaemonProtocol.readTokenFile(tokenFile), stop ? null : args, System.out, System.err));
+    }
+
+    /**
+     * @param token the token of the daemon
+     * @param args  the options of the run, or null to stop the daemon
+     * @param out   where to print what the run prints to {@link System#out}
+     * @param err   where to print what the run prints to {@link System#err}
+     * @return the exit status of the run
+     */
+    static byte run(int port, String token, List<String> args, OutputStream out, OutputStream err) throws IOException {
+        Socket socket = new Socket(InetAddress.getByName(null), port);
+        try {
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (args == null) {
+                DaemonProtocol.writeStop(request, token);
+            } else {
+                DaemonProtocol.writeRequest(request, token, args);
+            }
+            DataInputStream response = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            return DaemonProtocol.readResponse(response, out, err);
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -1,18 +1,22 @@
 package cucumber.api.cli;
 
 import cucumber.runtime.ClassFinder;
+import cucumber.runtime.RemoteWorker;
 import cucumber.runtime.Runtime;
 import cucumber.runtime.RuntimeOptions;
-import cucumber.runtime.io.MultiLoader;
 import cucumber.runtime.io.ResourceLoader;
 import cucumber.runtime.io.ResourceLoaderClassFinder;
+import cucumber.runtime.watch.Watcher;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import static java.util.Arrays.asList;
 
 public class Main {
+    private static final long WATCH_INTERVAL_MILLIS = 200;
 
     public static void main(String[] argv) throws Throwable {
         byte exitstatus = run(argv, Thread.currentThread().getContextClassLoader());
@@ -24,16 +28,38 @@ public class Main {
      *
      * @param argv        runtime options. See details in the {@code cucumber.api.cli.Usage.txt} resource.
      * @param classLoader classloader used to load the runtime
-     * @return 0 if execution was successful, 1 if it was not (test failures)
+     * @return 0 if execution was successful, 1 if it was not (test failures). With --watch this only returns
+     *         when the thread is interrupted. With --worker this is 0 once the coordinator has no more scenarios.
      * @throws IOException if resources couldn't be loaded during the run.
      */
     public static byte run(String[] argv, ClassLoader classLoader) throws IOException {
         RuntimeOptions runtimeOptions = new RuntimeOptions(new ArrayList<String>(asList(argv)));
+        if (runtimeOptions.isWatch()) {
+            new Watcher(asList(argv), classLoader, classDirectories(), WATCH_INTERVAL_MILLIS).watch();
+            return 0;
+        }
 
-        ResourceLoader resourceLoader = new MultiLoader(classLoader);
+        ResourceLoader resourceLoader = runtimeOptions.resourceLoader(classLoader);
         ClassFinder classFinder = new ResourceLoaderClassFinder(resourceLoader, classLoader);
         Runtime runtime = new Runtime(resourceLoader, classFinder, classLoader, runtimeOptions);
+        if (runtimeOptions.getWorker() != null) {
+            // Failures are reported by the coordinator
+            new RemoteWorker(runtime, runtimeOptions.cucumberFeatures(resourceLoader))
+                    .run(runtimeOptions.getWorker(), runtimeOptions.getLeaseTimeout() * 1000L);
+            return 0;
+        }
         runtime.run();
         return runtime.exitStatus();
     }
+
+    private static List<File> classDirectories() {
+        List<File> directories = new ArrayList<File>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            File file = new File(entry);
+            if (file.isDirectory()) {
+                directories.add(file);
+            }
+        }
+        return directories;
+    }
 }
@@ -0,0 +1,95 @@
+package cucumber.api.cli;
+
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.formatter.JSONReportMerger;
+import cucumber.runtime.formatter.JUnitReportMerger;
+import cucumber.runtime.io.UTF8OutputStreamWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the JSON or JUnit XML reports of sharded, forked or distributed runs into one report.
+ * <pre>
+ * java -cp CUCUMBER_JARS cucumber.api.cli.Merge --out FILE REPORT...
+ * </pre>
+ * The reports must all be JSON reports (written by the {@code json} or {@code json-stream} formatter), or all
+ * JUnit reports (written by the {@code junit} formatter). The reports are streamed, so they can be larger than
+ * the heap. See {@link JSONReportMerger} and {@link JUnitReportMerger} for how they are merged.
+ */
+public class Merge {
+
+    public static void main(String[] argv) throws IOException {
+        File out = null;
+        List<File> reports = new ArrayList<File>();
+        for (int i = 0; i < argv.length; i++) {
+            if (argv[i].equals("--out") || argv[i].equals("-o")) {
+                out = new File(argv[++i]);
+            } else if (argv[i].startsWith("-")) {
+                throw new CucumberException("Unknown option: " + argv[i]);
+            } else {
+                reports.add(new File(argv[i]));
+            }
+        }
+        if (out == null || reports.isEmpty()) {
+            throw new CucumberException("Usage: cucumber.api.cli.Merge --out FILE REPORT...");
+        }
+        merge(reports, out);
+    }
+
+    public static void merge(List<File> reports, File out) throws IOException {
+        Boolean json = null;
+        for (File report : reports) {
+            Boolean reportIsJson = isJson(report);
+            if (reportIsJson == null) {
+                // Empty, so it can be merged as either
+                continue;
+            }
+            if (json != null && !json.equals(reportIsJson)) {
+                throw new CucumberException("Can't merge JSON and JUnit reports: " + report);
+            }
+            json = reportIsJson;
+        }
+
+        Writer writer = new BufferedWriter(new UTF8OutputStreamWriter(new FileOutputStream(out)));
+        try {
+            if (json == null || json) {
+                new JSONReportMerger().merge(reports, writer);
+            } else {
+                new JUnitReportMerger().merge(reports, writer);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return true for a JSON report, false for an XML report, or null for an empty one
+     */
+    private static Boolean isJson(File report) throws IOException {
+        InputStream in = new FileInputStream(report);
+        try {
+            int c;
+            while ((c = in.read()) != -1) {
+                if (c == '[') {
+                    return true;
+                } else if (c == '<') {
+                    return false;
+                } else if (!Character.isWhitespace(c) && c != 0xEF && c != 0xBB && c != 0xBF) {
+                    // Other than white space and a UTF-8 byte order mark
+                    throw new CucumberException("Not a JSON or JUnit report: " + report);
+                }
+            }
+            return null;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cucumber.api.cli;
+
+import cucumber.runtime.BinaryLogReader;
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.RuntimeOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes reports from a log written by the {@code binlog} formatter, without running anything.
+ * <pre>
+ * java -cp CUCUMBER_JARS cucumber.api.cli.Render [--format FORMAT[:PATH_OR_URL]]... [--monochrome] [--strict] LOG
+ * </pre>
+ * The options mean the same as for {@link Main}. Errors are shown as they were during the run, and the classes
+ * of the glue don't have to be on the class path.
+ */
+public class Render {
+
+    public static void main(String[] argv) throws IOException {
+        run(argv, Thread.currentThread().getContextClassLoader());
+    }
+
+    public static void run(String[] argv, ClassLoader classLoader) throws IOException {
+        List<String> options = new ArrayList<String>();
+        File log = null;
+        for (int i = 0; i < argv.length; i++) {
+            String arg = argv[i];
+            if (arg.equals("--format") || arg.equals("-f")) {
+                options.add(arg);
+                options.add(argv[++i]);
+            } else if (arg.equals("--monochrome") || arg.equals("-m") || arg.equals("--strict") || arg.equals("-s")) {
+                options.add(arg);
+            } else if (arg.startsWith("-") || log != null) {
+                throw new CucumberException("Unknown option: " + arg);
+            } else {
+                log = new File(arg);
+            }
+        }
+        if (log == null) {
+            throw new CucumberException("Usage: cucumber.api.cli.Render [--format FORMAT[:PATH_OR_URL]]... [--monochrome] [--strict] LOG");
+        }
+
+        RuntimeOptions runtimeOptions = new RuntimeOptions(options);
+        new BinaryLogReader(log).replay(runtimeOptions.formatter(classLoader), runtimeOptions.reporter(classLoader));
+    }
+}
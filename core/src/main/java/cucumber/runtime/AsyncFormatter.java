@@ -0,0 +1,132 @@
+package cucumber.runtime;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Passes formatter and reporter events on to another formatter and reporter from a dedicated thread,
+ * so slow formatters don't add to the duration of steps.
+ * <p/>
+ * Events are put on a bounded queue. When the queue is full, the thread that sends an event waits for
+ * room, so formatters that can't keep up slow the run down instead of using up memory. Events are
+ * passed on in the order they were sent. If a formatter throws, the remaining events are dropped and
+ * the error is rethrown from {@link #done()} or {@link #close()}.
+ */
+class AsyncFormatter extends EventRecorder {
+    static final int DEFAULT_CAPACITY = 1024;
+
+    private final Formatter formatter;
+    private final Reporter reporter;
+    private final BlockingQueue<Event> queue;
+    private Thread thread;
+    private volatile Throwable error;
+    private boolean errorThrown;
+
+    AsyncFormatter(Formatter formatter, Reporter reporter) {
+        this(formatter, reporter, DEFAULT_CAPACITY);
+    }
+
+    AsyncFormatter(Formatter formatter, Reporter reporter, int capacity) {
+        this.formatter = formatter;
+        this.reporter = reporter;
+        this.queue = new ArrayBlockingQueue<Event>(capacity);
+    }
+
+    @Override
+    void record(Event event) {
+        startThread();
+        try {
+            queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CucumberException("Interrupted while waiting for the formatters", e);
+        }
+    }
+
+    @Override
+    public void done() {
+        super.done();
+        flush();
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        try {
+            flush();
+        } finally {
+            stopThread();
+        }
+    }
+
+    /**
+     * Waits until all the events sent so far have been passed on.
+     *
+     * @throws CucumberException if a formatter has thrown
+     */
+    void flush() {
+        Flush flush = new Flush();
+        record(flush);
+        try {
+            flush.latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CucumberException("Interrupted while waiting for the formatters", e);
+        }
+        if (error != null && !errorThrown) {
+            errorThrown = true;
+            throw new CucumberException("A formatter failed", error);
+        }
+    }
+
+    private synchronized void startThread() {
+        if (thread == null) {
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            }, "cucumber-formatters");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private synchronized void stopThread() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Event event;
+            try {
+                event = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (error == null || event instanceof Flush) {
+                    event.replay(formatter, reporter);
+                }
+            } catch (Throwable t) {
+                error = t;
+            }
+        }
+    }
+
+    private static class Flush extends Event {
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        void replay(Formatter formatter, Reporter reporter) {
+            latch.countDown();
+        }
+    }
+}
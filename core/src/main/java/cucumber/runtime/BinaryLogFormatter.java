@@ -0,0 +1,88 @@
+package cucumber.runtime;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes all formatter and reporter events of a run to a binary log, in the format of {@link EventWriter}, so
+ * reports can be made afterwards with {@link BinaryLogReader}. Writing the log is a buffered append of a few
+ * bytes per event, which is cheaper than running the formatters during the run.
+ * <p/>
+ * The log starts with {@link #MAGIC} and {@link #VERSION}. Embeddings, such as screenshots, are appended to
+ * another file next to the log, named like the log with {@code .embeddings} added, and the log only refers to
+ * them by offset and length. The log is flushed at the end of every feature.
+ */
+public class BinaryLogFormatter extends EventWriter {
+    static final int MAGIC = 0x43554B4C; // "CUKL"
+    static final int VERSION = 1;
+    static final int EMBEDDING_REFERENCE = EventWriter.FIRST_FREE_TAG;
+
+    private final OutputStream log;
+    private final File embeddingsFile;
+    private OutputStream embeddings;
+    private long embeddingsLength = 0;
+
+    public BinaryLogFormatter(File log) throws IOException {
+        this(log, new BufferedOutputStream(new FileOutputStream(log)));
+    }
+
+    private BinaryLogFormatter(File log, OutputStream out) throws IOException {
+        super(out);
+        this.log = out;
+        this.embeddingsFile = embeddingsFile(log);
+        embeddingsFile.delete();
+        getOutput().writeInt(MAGIC);
+        writeVarint(VERSION);
+    }
+
+    static File embeddingsFile(File log) {
+        return new File(log.getPath() + ".embeddings");
+    }
+
+    @Override
+    public void embedding(String mimeType, byte[] data) {
+        try {
+            if (embeddings == null) {
+                embeddings = new BufferedOutputStream(new FileOutputStream(embeddingsFile));
+            }
+            embeddings.write(data);
+            getOutput().writeByte(EMBEDDING_REFERENCE);
+            writeString(mimeType);
+            writeVarint(embeddingsLength);
+            writeVarint(data.length);
+            embeddingsLength += data.length;
+        } catch (IOException e) {
+            throw new CucumberException("Failed to write embedding", e);
+        }
+    }
+
+    @Override
+    public void eof() {
+        super.eof();
+        try {
+            // Embeddings first, so the log never refers to embeddings that aren't there
+            if (embeddings != null) {
+                embeddings.flush();
+            }
+        } catch (IOException e) {
+            throw new CucumberException("Failed to write embedding", e);
+        }
+        flush();
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        try {
+            if (embeddings != null) {
+                embeddings.close();
+            }
+            log.close();
+        } catch (IOException e) {
+            throw new CucumberException("Failed to write binary log", e);
+        }
+    }
+}
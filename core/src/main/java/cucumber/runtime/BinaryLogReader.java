@@ -0,0 +1,81 @@
+package cucumber.runtime;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Replays a log written by {@link BinaryLogFormatter} to formatters, which then write the same reports they
+ * would have written during the run.
+ * <p/>
+ * A log of a run that didn't finish, because the JVM died, is replayed up to its last complete event, and
+ * followed by {@link Formatter#done()} and {@link Formatter#close()}, so the formatters still write what they
+ * have.
+ */
+public class BinaryLogReader {
+    private final File log;
+
+    public BinaryLogReader(File log) {
+        this.log = log;
+    }
+
+    public void replay(Formatter formatter, Reporter reporter) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(log));
+        RandomAccessFile embeddings = null;
+        try {
+            EventReader events = new EventReader(in);
+            if (events.getInput().readInt() != BinaryLogFormatter.MAGIC) {
+                throw new CucumberException("Not a binary log: " + log);
+            }
+            long version = events.readVarint();
+            if (version != BinaryLogFormatter.VERSION) {
+                throw new CucumberException(String.format("Unsupported version %d of the binary log: %s", version, log));
+            }
+
+            boolean done = false;
+            boolean closed = false;
+            int tag;
+            try {
+                while ((tag = events.read(formatter, reporter)) != -1) {
+                    if (tag == BinaryLogFormatter.EMBEDDING_REFERENCE) {
+                        String mimeType = events.readString();
+                        long offset = events.readVarint();
+                        byte[] data = new byte[(int) events.readVarint()];
+                        if (embeddings == null) {
+                            embeddings = new RandomAccessFile(BinaryLogFormatter.embeddingsFile(log), "r");
+                        }
+                        embeddings.seek(offset);
+                        embeddings.readFully(data);
+                        reporter.embedding(mimeType, data);
+                    } else if (tag == EventWriter.DONE) {
+                        done = true;
+                    } else if (tag == EventWriter.CLOSE) {
+                        closed = true;
+                    } else if (tag >= EventWriter.FIRST_FREE_TAG) {
+                        throw new IOException("Unknown event: " + tag);
+                    }
+                }
+            } catch (EOFException e) {
+                // The run didn't finish writing the log
+            }
+            if (!done) {
+                formatter.done();
+            }
+            if (!closed) {
+                formatter.close();
+            }
+        } finally {
+            if (embeddings != null) {
+                embeddings.close();
+            }
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package cucumber.runtime;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+
+import java.util.List;
+
+/**
+ * Passes every event on to all the formatters of a {@link RuntimeOptions}, with plain method calls.
+ * The formatters are looked up for each event, so formatters added later still get the events that follow.
+ */
+class CompositeFormatter implements Formatter {
+    private final RuntimeOptions runtimeOptions;
+
+    CompositeFormatter(RuntimeOptions runtimeOptions) {
+        this.runtimeOptions = runtimeOptions;
+    }
+
+    @Override
+    public void syntaxError(String state, String event, List<String> legalEvents, String uri, Integer line) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.syntaxError(state, event, legalEvents, uri, line);
+        }
+    }
+
+    @Override
+    public void uri(String uri) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.uri(uri);
+        }
+    }
+
+    @Override
+    public void feature(Feature feature) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.feature(feature);
+        }
+    }
+
+    @Override
+    public void scenarioOutline(ScenarioOutline scenarioOutline) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.scenarioOutline(scenarioOutline);
+        }
+    }
+
+    @Override
+    public void examples(Examples examples) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.examples(examples);
+        }
+    }
+
+    @Override
+    public void startOfScenarioLifeCycle(Scenario scenario) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.startOfScenarioLifeCycle(scenario);
+        }
+    }
+
+    @Override
+    public void background(Background background) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.background(background);
+        }
+    }
+
+    @Override
+    public void scenario(Scenario scenario) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.scenario(scenario);
+        }
+    }
+
+    @Override
+    public void step(Step step) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.step(step);
+        }
+    }
+
+    @Override
+    public void endOfScenarioLifeCycle(Scenario scenario) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.endOfScenarioLifeCycle(scenario);
+        }
+    }
+
+    @Override
+    public void done() {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.done();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.close();
+        }
+    }
+
+    @Override
+    public void eof() {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            formatter.eof();
+        }
+    }
+}
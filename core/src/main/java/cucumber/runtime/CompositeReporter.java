@@ -0,0 +1,72 @@
+package cucumber.runtime;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+
+/**
+ * Passes every event on to the formatters of a {@link RuntimeOptions} that are also a {@link Reporter},
+ * with plain method calls.
+ */
+class CompositeReporter implements Reporter {
+    private final RuntimeOptions runtimeOptions;
+
+    CompositeReporter(RuntimeOptions runtimeOptions) {
+        this.runtimeOptions = runtimeOptions;
+    }
+
+    @Override
+    public void before(Match match, Result result) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            if (formatter instanceof Reporter) {
+                ((Reporter) formatter).before(match, result);
+            }
+        }
+    }
+
+    @Override
+    public void result(Result result) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            if (formatter instanceof Reporter) {
+                ((Reporter) formatter).result(result);
+            }
+        }
+    }
+
+    @Override
+    public void after(Match match, Result result) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            if (formatter instanceof Reporter) {
+                ((Reporter) formatter).after(match, result);
+            }
+        }
+    }
+
+    @Override
+    public void match(Match match) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            if (formatter instanceof Reporter) {
+                ((Reporter) formatter).match(match);
+            }
+        }
+    }
+
+    @Override
+    public void embedding(String mimeType, byte[] data) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            if (formatter instanceof Reporter) {
+                ((Reporter) formatter).embedding(mimeType, data);
+            }
+        }
+    }
+
+    @Override
+    public void write(String text) {
+        for (Formatter formatter : runtimeOptions.getFormatters()) {
+            if (formatter instanceof Reporter) {
+                ((Reporter) formatter).write(text);
+            }
+        }
+    }
+}
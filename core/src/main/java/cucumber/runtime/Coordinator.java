@@ -0,0 +1,217 @@
+package cucumber.runtime;
+
+import cucumber.runtime.model.CucumberFeature;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.List;
+
+/**
+ * Hands out the scenarios of a run to {@link RemoteWorker}s that connect over TCP, so they can be spread over
+ * several machines. Workers take a batch whenever they are done with the previous one, so faster workers run
+ * more scenarios. The formatters, stats and exit status are the ones of this process, like with
+ * {@link ForkExecutor}.
+ * <p/>
+ * The protocol, with numbers in network byte order and strings as {@link DataOutputStream#writeUTF(String)}:
+ * <pre>
+ * worker:      MAGIC VERSION
+ * coordinator: LEASE_MILLIS
+ * coordinator: WAIT                      at least once per lease while other workers run the last batches
+ *              COUNT PATH_LINE*          a batch, or none left when COUNT is 0
+ * worker:      HEARTBEAT                 at least once per lease
+ *              SCENARIO PATH_LINE LENGTH EVENTS
+ *              BATCH_FINISHED            then the coordinator sends the next batch
+ * </pre>
+ * The EVENTS of a scenario are written by an {@link EventWriter} of their own, followed by the steps the
+ * scenario found undefined, like {@link ForkWorker} writes them.
+ * <p/>
+ * A batch is leased to its worker. When nothing comes from a worker for a whole lease, or its connection
+ * breaks, the scenarios of its batch that hadn't finished are handed out again. Likewise a worker gives up on
+ * a coordinator it hears nothing from for a whole lease.
+ */
+class Coordinator {
+    static final int MAGIC = 0x43554B45;
+    static final int VERSION = 2;
+    static final int HEARTBEAT = 1;
+    static final int SCENARIO = 2;
+    static final int BATCH_FINISHED = 3;
+    static final int WAIT = -1;
+    static final int MAX_BATCH_SIZE = 25;
+    /**
+     * The most a worker may send for one scenario, which is mostly embeddings such as screenshots.
+     */
+    static final int MAX_EVENTS_LENGTH = 256 * 1024 * 1024;
+
+    private final Runtime runtime;
+    private final long leaseMillis;
+    private final ServerSocket serverSocket;
+
+    /**
+     * @param address     where to listen. Port 0 picks a free port.
+     * @param leaseMillis how long a worker may stay silent
+     */
+    Coordinator(Runtime runtime, InetSocketAddress address, long leaseMillis) {
+        this.runtime = runtime;
+        this.leaseMillis = leaseMillis;
+        try {
+            this.serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(address);
+        } catch (IOException e) {
+            throw new CucumberException("Failed to listen for workers on " + address, e);
+        }
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void run(List<CucumberFeature> features, Formatter formatter, Reporter reporter) {
+        final ScenarioQueue queue = new ScenarioQueue(runtime, features, formatter, reporter);
+        final int batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, queue.size() / 16));
+        System.err.println(String.format("Waiting for workers on port %d to run %d scenarios", getPort(), queue.size()));
+
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = serverSocket.accept();
+                        Thread connection = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                serve(socket, queue, batchSize);
+                            }
+                        }, "cucumber-coordinator-" + socket.getRemoteSocketAddress());
+                        connection.setDaemon(true);
+                        connection.start();
+                    }
+                } catch (IOException e) {
+                    // Closed once all scenarios have run
+                }
+            }
+        }, "cucumber-coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        try {
+            queue.awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CucumberException("Interrupted while waiting for workers", e);
+        } finally {
+            close();
+        }
+    }
+
+    void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignore) {
+            // Nothing to do
+        }
+    }
+
+    private void serve(Socket socket, ScenarioQueue queue, int batchSize) {
+        ScenarioQueue.Batch batch = null;
+        try {
+            socket.setSoTimeout((int) leaseMillis);
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a worker of this version");
+            }
+            out.writeLong(leaseMillis);
+            out.flush();
+
+            long keepAliveMillis = Math.max(1, leaseMillis / 3);
+            while (true) {
+                while (!queue.awaitBatch(keepAliveMillis)) {
+                    out.writeInt(WAIT);
+                    out.flush();
+                }
+                batch = queue.take(batchSize);
+                if (batch == null) {
+                    break;
+                }
+                out.writeInt(batch.getIds().size());
+                for (String id : batch.getIds()) {
+                    out.writeUTF(id);
+                }
+                out.flush();
+                runBatch(batch, in);
+                batch.done();
+                batch = null;
+            }
+            out.writeInt(0);
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println(String.format("Lost worker %s: %s", socket.getRemoteSocketAddress(), e.getMessage()));
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            queue.abort();
+        } finally {
+            if (batch != null) {
+                batch.lost("Worker " + socket.getRemoteSocketAddress() + " was lost");
+            }
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+                // Nothing to do
+            }
+        }
+    }
+
+    private void runBatch(ScenarioQueue.Batch batch, DataInputStream in) throws IOException {
+        while (true) {
+            int message = in.read();
+            if (message == HEARTBEAT) {
+                continue;
+            } else if (message == SCENARIO) {
+                RemoteScenario scenario = batch.start(in.readUTF());
+                int length = in.readInt();
+                if (length < 0 || length > MAX_EVENTS_LENGTH) {
+                    throw new IOException("Bad length of scenario events: " + length);
+                }
+                readEvents(scenario, EventReader.readBytes(in, length));
+                batch.finished(scenario);
+            } else if (message == BATCH_FINISHED) {
+                return;
+            } else if (message == -1) {
+                throw new SocketException("Connection closed");
+            } else {
+                throw new IOException("Unexpected message from worker: " + message);
+            }
+        }
+    }
+
+    private static void readEvents(RemoteScenario scenario, byte[] bytes) throws IOException {
+        EventReader events = new EventReader(new ByteArrayInputStream(bytes));
+        int tag;
+        try {
+            while ((tag = events.read(scenario, scenario)) != -1) {
+                if (tag == ForkWorker.UNDEFINED_STEP) {
+                    scenario.readUndefinedStep(events);
+                } else if (tag >= EventWriter.FIRST_FREE_TAG) {
+                    throw new IOException("Unexpected event from worker: " + tag);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Malformed events, which only lose this worker instead of aborting the run
+            throw new IOException("Malformed events from worker: " + e);
+        }
+    }
+}
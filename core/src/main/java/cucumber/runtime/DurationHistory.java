@@ -0,0 +1,267 @@
+package cucumber.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers how long each scenario took in the last few runs, keyed by {@code path:line} where an example of a
+ * scenario outline has the line of its row. Kept in {@code durations} in the {@code --dotcucumber} directory.
+ * <p/>
+ * The file is a version header followed by records of a key and a duration in nanoseconds. A run only appends the
+ * durations it measured. When the file holds a lot more records than are kept, it is written again with only the
+ * kept ones. A record that was cut off by a crash is ignored. Like {@link FeatureCache}, the history never fails a
+ * run: a file that can't be read counts as empty, and one that can't be written is left alone. Runs that save
+ * at the same time may lose each other's durations when one of them writes the file again.
+ */
+public class DurationHistory {
+    static final String FILE_NAME = "durations";
+    private static final int FORMAT_VERSION = 1;
+    // How many durations are kept per scenario, and how many must be known to call a duration slow
+    private static final int KEPT_DURATIONS = 5;
+    private static final int MIN_DURATIONS_FOR_SLOW = 3;
+    private static final int SLOW_FACTOR = 2;
+    private static final int COMPACT_FACTOR = 2;
+
+    private final File file;
+    private final Map<String, LinkedList<Long>> durations = new HashMap<String, LinkedList<Long>>();
+    private final ByteArrayOutputStream newRecords = new ByteArrayOutputStream();
+    private int recordsInFile;
+    private int newRecordCount;
+
+    /**
+     * Reads the history in a file, if there is one.
+     *
+     * @param file where the durations are kept
+     */
+    public DurationHistory(File file) {
+        this.file = file;
+        read();
+    }
+
+    /**
+     * @param dotCucumber the --dotcucumber directory, or null
+     * @return the history in the directory, or null if it isn't a directory on the file system
+     */
+    public static DurationHistory inDotCucumber(URL dotCucumber) {
+        if (dotCucumber == null || !"file".equals(dotCucumber.getProtocol())) {
+            return null;
+        }
+        try {
+            return new DurationHistory(new File(new File(dotCucumber.toURI()), FILE_NAME));
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void read() {
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != FORMAT_VERSION) {
+                    return;
+                }
+                while (true) {
+                    String scenario = in.readUTF();
+                    long duration = in.readLong();
+                    add(scenario, duration);
+                    recordsInFile++;
+                }
+            } finally {
+                in.close();
+            }
+        } catch (EOFException endOfFile) {
+            // Done, or the last record was cut off
+        } catch (IOException ignore) {
+            // Keep what could be read
+        }
+    }
+
+    private void add(String scenario, long duration) {
+        LinkedList<Long> scenarioDurations = durations.get(scenario);
+        if (scenarioDurations == null) {
+            scenarioDurations = new LinkedList<Long>();
+            durations.put(scenario, scenarioDurations);
+        }
+        scenarioDurations.addLast(duration);
+        if (scenarioDurations.size() > KEPT_DURATIONS) {
+            scenarioDurations.removeFirst();
+        }
+    }
+
+    /**
+     * Adds a duration, which is written by the next {@link #save()}.
+     *
+     * @param scenario {@code path:line} of the scenario
+     * @param duration nanoseconds it took
+     */
+    public synchronized void record(String scenario, long duration) {
+        add(scenario, duration);
+        try {
+            DataOutputStream out = new DataOutputStream(newRecords);
+            out.writeUTF(scenario);
+            out.writeLong(duration);
+            newRecordCount++;
+        } catch (IOException e) {
+            throw new CucumberException(e);
+        }
+    }
+
+    /**
+     * @return the median of the last durations of the scenario, or null if it never ran
+     */
+    public synchronized Long median(String scenario) {
+        LinkedList<Long> scenarioDurations = durations.get(scenario);
+        return scenarioDurations == null ? null : median(scenarioDurations);
+    }
+
+    private static Long median(Collection<Long> values) {
+        List<Long> sorted = new ArrayList<Long>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    /**
+     * @return the median of the last durations of every scenario, by {@code path:line}
+     */
+    public synchronized Map<String, Long> medians() {
+        Map<String, Long> medians = new HashMap<String, Long>();
+        for (Map.Entry<String, LinkedList<Long>> scenario : durations.entrySet()) {
+            medians.put(scenario.getKey(), median(scenario.getValue()));
+        }
+        return medians;
+    }
+
+    /**
+     * Sorts scenarios so the ones that take longest come first, which makes the work spread evenly when it is
+     * handed out in that order. Scenarios that never ran count as the median of the ones that did.
+     *
+     * @param scenarios {@code path:line} of the scenarios
+     * @return the scenarios, longest first. Scenarios that take as long stay in the same order.
+     */
+    public synchronized List<String> longestFirst(Collection<String> scenarios) {
+        final Map<String, Long> medians = medians();
+        List<Long> known = new ArrayList<Long>();
+        for (String scenario : scenarios) {
+            if (medians.containsKey(scenario)) {
+                known.add(medians.get(scenario));
+            }
+        }
+        final long unknown = known.isEmpty() ? 0 : median(known);
+        List<String> sorted = new ArrayList<String>(scenarios);
+        Collections.sort(sorted, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                long durationA = medians.containsKey(a) ? medians.get(a) : unknown;
+                long durationB = medians.containsKey(b) ? medians.get(b) : unknown;
+                return durationA == durationB ? 0 : durationA > durationB ? -1 : 1;
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * Tells whether a duration is a lot longer than usual. Call it before the duration is recorded.
+     *
+     * @param scenario {@code path:line} of the scenario
+     * @param duration nanoseconds it took this time
+     * @return whether it took more than twice the median of the last few runs
+     */
+    public synchronized boolean isSlow(String scenario, long duration) {
+        LinkedList<Long> scenarioDurations = durations.get(scenario);
+        return scenarioDurations != null && scenarioDurations.size() >= MIN_DURATIONS_FOR_SLOW &&
+                duration > SLOW_FACTOR * median(scenarioDurations);
+    }
+
+    /**
+     * Appends the recorded durations to the file, or writes the file again if it has grown too big.
+     */
+    public synchronized void save() {
+        if (newRecordCount == 0) {
+            return;
+        }
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            return;
+        }
+        try {
+            if (recordsInFile == 0 || recordsInFile + newRecordCount > COMPACT_FACTOR * keptRecords()) {
+                compact(directory);
+            } else {
+                append();
+                recordsInFile += newRecordCount;
+            }
+            newRecords.reset();
+            newRecordCount = 0;
+        } catch (IOException ignore) {
+            // The durations of this run are lost
+        }
+    }
+
+    private int keptRecords() {
+        int count = 0;
+        for (LinkedList<Long> scenarioDurations : durations.values()) {
+            count += scenarioDurations.size();
+        }
+        return count;
+    }
+
+    private void append() throws IOException {
+        FileOutputStream out = new FileOutputStream(file, true);
+        try {
+            // One write, so runs that save at the same time don't mix their records
+            out.write(newRecords.toByteArray());
+        } finally {
+            out.close();
+        }
+    }
+
+    private void compact(File directory) throws IOException {
+        // Write to a file of our own and rename it, so nobody reads a file that is half written
+        File tempFile = File.createTempFile(FILE_NAME, ".tmp", directory);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try {
+                out.writeInt(FORMAT_VERSION);
+                for (Map.Entry<String, LinkedList<Long>> scenario : durations.entrySet()) {
+                    for (Long duration : scenario.getValue()) {
+                        out.writeUTF(scenario.getKey());
+                        out.writeLong(duration);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+            if (!tempFile.renameTo(file)) {
+                // Some file systems don't replace existing files
+                file.delete();
+                tempFile.renameTo(file);
+            }
+            recordsInFile = keptRecords();
+        } finally {
+            tempFile.delete();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package cucumber.runtime;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each scenario took in a {@link DurationHistory}: the durations of its hooks, background steps
+ * and steps. Remembers the scenarios that took a lot longer than usual.
+ */
+class DurationRecorder implements Formatter, Reporter {
+    private final DurationHistory durationHistory;
+    private final List<String> slowScenarios = new ArrayList<String>();
+    private String uri;
+    private String scenario;
+    private long duration;
+
+    DurationRecorder(DurationHistory durationHistory) {
+        this.durationHistory = durationHistory;
+    }
+
+    /**
+     * @return descriptions of the scenarios that took more than twice as long as usual
+     */
+    List<String> getSlowScenarios() {
+        return slowScenarios;
+    }
+
+    @Override
+    public void uri(String uri) {
+        this.uri = uri;
+    }
+
+    @Override
+    public void startOfScenarioLifeCycle(Scenario scenario) {
+        this.scenario = uri + ":" + scenario.getLine();
+        duration = 0;
+    }
+
+    @Override
+    public void before(Match match, Result result) {
+        add(result);
+    }
+
+    @Override
+    public void result(Result result) {
+        add(result);
+    }
+
+    @Override
+    public void after(Match match, Result result) {
+        add(result);
+    }
+
+    private void add(Result result) {
+        if (scenario != null && result.getDuration() != null) {
+            duration += result.getDuration();
+        }
+    }
+
+    @Override
+    public void endOfScenarioLifeCycle(Scenario scenario) {
+        if (durationHistory.isSlow(this.scenario, duration)) {
+            slowScenarios.add(String.format("%s took %d ms, usually %d ms", this.scenario,
+                    TimeUnit.NANOSECONDS.toMillis(duration), TimeUnit.NANOSECONDS.toMillis(durationHistory.median(this.scenario))));
+        }
+        durationHistory.record(this.scenario, duration);
+        this.scenario = null;
+    }
+
+    @Override
+    public void feature(Feature feature) {
+    }
+
+    @Override
+    public void background(Background background) {
+    }
+
+    @Override
+    public void scenario(Scenario scenario) {
+    }
+
+    @Override
+    public void scenarioOutline(ScenarioOutline scenarioOutline) {
+    }
+
+    @Override
+    public void examples(Examples examples) {
+    }
+
+    @Override
+    public void step(Step step) {
+    }
+
+    @Override
+    public void eof() {
+    }
+
+    @Override
+    public void syntaxError(String state, String event, List<String> legalEvents, String uri, Integer line) {
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void match(Match match) {
+    }
+
+    @Override
+    public void embedding(String mimeType, byte[] data) {
+    }
+
+    @Override
+    public void write(String text) {
+    }
+}
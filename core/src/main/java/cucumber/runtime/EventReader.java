@@ -0,0 +1,439 @@
+package cucumber.runtime;
+
+import cucumber.api.PendingException;
+import cucumber.runtime.model.ExampleStep;
+import gherkin.I18n;
+import gherkin.formatter.Argument;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import gherkin.formatter.model.DocString;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.ExamplesTableRow;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the events written by {@link EventWriter}, and replays them to a {@link Formatter} and {@link Reporter}.
+ * <p/>
+ * Matches of step definitions come back as {@link StepDefinitionMatch}es that can't be run, but that tell the
+ * pattern, step and location like the original did.
+ */
+class EventReader {
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<String>();
+
+    EventReader(InputStream in) {
+        this.in = in instanceof DataInputStream ? (DataInputStream) in : new DataInputStream(in);
+    }
+
+    /**
+     * Reads the next tag, and if it is an event, the event, which is replayed.
+     *
+     * @return the tag, or -1 at the end of the stream. Tags from {@link EventWriter#FIRST_FREE_TAG} up are left
+     * for the caller to read the rest of.
+     * @throws IOException if the stream can't be read or ends in the middle of an event
+     */
+    int read(Formatter formatter, Reporter reporter) throws IOException {
+        int tag = in.read();
+        switch (tag) {
+            case EventWriter.URI:
+                formatter.uri(readString());
+                break;
+            case EventWriter.FEATURE:
+                formatter.feature(new Feature(readComments(), readTags(), readString(), readString(), readString(), readInteger(), readString()));
+                break;
+            case EventWriter.BACKGROUND:
+                formatter.background(new Background(readComments(), readString(), readString(), readString(), readInteger()));
+                break;
+            case EventWriter.SCENARIO:
+                formatter.scenario(readScenario());
+                break;
+            case EventWriter.SCENARIO_OUTLINE:
+                formatter.scenarioOutline(new ScenarioOutline(readComments(), readTags(), readString(), readString(), readString(), readInteger(), readString()));
+                break;
+            case EventWriter.EXAMPLES:
+                formatter.examples(readExamples());
+                break;
+            case EventWriter.STEP:
+                formatter.step(readStep());
+                break;
+            case EventWriter.EOF:
+                formatter.eof();
+                break;
+            case EventWriter.SYNTAX_ERROR:
+                formatter.syntaxError(readString(), readString(), readStrings(), readString(), readInteger());
+                break;
+            case EventWriter.START_OF_SCENARIO_LIFE_CYCLE:
+                formatter.startOfScenarioLifeCycle(readScenario());
+                break;
+            case EventWriter.END_OF_SCENARIO_LIFE_CYCLE:
+                formatter.endOfScenarioLifeCycle(readScenario());
+                break;
+            case EventWriter.DONE:
+                formatter.done();
+                break;
+            case EventWriter.CLOSE:
+                formatter.close();
+                break;
+            case EventWriter.BEFORE:
+                reporter.before(readMatch(), readResult());
+                break;
+            case EventWriter.RESULT:
+                reporter.result(readResult());
+                break;
+            case EventWriter.AFTER:
+                reporter.after(readMatch(), readResult());
+                break;
+            case EventWriter.MATCH:
+                reporter.match(readMatch());
+                break;
+            case EventWriter.EMBEDDING:
+                reporter.embedding(readString(), readBytes());
+                break;
+            case EventWriter.WRITE:
+                reporter.write(new String(readBytes(), "UTF-8"));
+                break;
+            default:
+                if (tag != -1 && tag < EventWriter.FIRST_FREE_TAG) {
+                    throw new IOException("Unknown event: " + tag);
+                }
+        }
+        return tag;
+    }
+
+    private Scenario readScenario() throws IOException {
+        return new Scenario(readComments(), readTags(), readString(), readString(), readString(), readInteger(), readString());
+    }
+
+    private Examples readExamples() throws IOException {
+        List<Comment> comments = readComments();
+        List<Tag> tags = readTags();
+        String keyword = readString();
+        String name = readString();
+        String description = readString();
+        Integer line = readInteger();
+        String id = readString();
+        List<ExamplesTableRow> rows = null;
+        int size = readSize();
+        if (size != -1) {
+            rows = new ArrayList<ExamplesTableRow>();
+            for (int i = 0; i < size; i++) {
+                rows.add(new ExamplesTableRow(readComments(), readStrings(), readInteger(), readString()));
+            }
+        }
+        return new Examples(comments, tags, keyword, name, description, line, id, rows);
+    }
+
+    private Step readStep() throws IOException {
+        List<Comment> comments = readComments();
+        String keyword = readString();
+        String name = readString();
+        Integer line = readInteger();
+        List<DataTableRow> rows = null;
+        int size = readSize();
+        if (size != -1) {
+            rows = new ArrayList<DataTableRow>();
+            for (int i = 0; i < size; i++) {
+                rows.add(new DataTableRow(readComments(), readStrings(), readInteger()));
+            }
+        }
+        DocString docString = null;
+        if (in.readBoolean()) {
+            docString = new DocString(readString(), readString(), readInteger());
+        }
+        int matchedColumns = readSize();
+        if (matchedColumns != -1) {
+            Set<Integer> columns = new HashSet<Integer>();
+            for (int i = 0; i < matchedColumns; i++) {
+                columns.add(readInteger());
+            }
+            return new ExampleStep(comments, keyword, name, line, rows, docString, columns);
+        }
+        return new Step(comments, keyword, name, line, rows, docString);
+    }
+
+    private Match readMatch() throws IOException {
+        int kind = in.readUnsignedByte();
+        if (kind == 0) {
+            return Match.UNDEFINED;
+        }
+        List<Argument> arguments = null;
+        int size = readSize();
+        if (size != -1) {
+            arguments = new ArrayList<Argument>();
+            for (int i = 0; i < size; i++) {
+                arguments.add(new Argument(readInteger(), readString()));
+            }
+        }
+        String location = readString();
+        if (kind == 1) {
+            return new Match(arguments, location);
+        }
+        String pattern = readString();
+        String stepName = readString();
+        String keywordAndName = readString();
+        String featurePath = readString();
+        Integer line = readInteger();
+        String keyword = keywordAndName.substring(0, keywordAndName.length() - stepName.length());
+        Step step = new Step(null, keyword, stepName, line, null, null);
+        return new StepDefinitionMatch(arguments, new RecordedStepDefinition(pattern, location), featurePath, step, null);
+    }
+
+    private Result readResult() throws IOException {
+        String status = readString();
+        Long duration = in.readBoolean() ? readVarint() : null;
+        if (!in.readBoolean()) {
+            if (duration == null && Result.UNDEFINED.getStatus().equals(status)) {
+                return Result.UNDEFINED;
+            }
+            if (duration == null && Result.SKIPPED.getStatus().equals(status)) {
+                return Result.SKIPPED;
+            }
+            return new Result(status, duration, (String) null);
+        }
+        String errorMessage = new String(readBytes(), "UTF-8");
+        if (!in.readBoolean()) {
+            return new Result(status, duration, errorMessage);
+        }
+        return new Result(status, duration, readError(status, errorMessage), null);
+    }
+
+    /**
+     * @return a {@link PendingException} for a pending result, and otherwise a {@link RecordedError}, with the
+     * message and stack trace of the error that was written
+     */
+    private Throwable readError(String status, String errorMessage) throws IOException {
+        String className = readString();
+        String message = readString();
+        int length = readLength();
+        List<StackTraceElement> stackTrace = new ArrayList<StackTraceElement>();
+        for (int i = 0; i < length; i++) {
+            stackTrace.add(new StackTraceElement(readString(), readString(), readString(), readLength() - 2));
+        }
+        Throwable error = Stats.PENDING.equals(status) ? new PendingException(message) : new RecordedError(className, message, errorMessage);
+        error.setStackTrace(stackTrace.toArray(new StackTraceElement[stackTrace.size()]));
+        return error;
+    }
+
+    private List<Comment> readComments() throws IOException {
+        int size = readSize();
+        if (size == -1) {
+            return null;
+        }
+        List<Comment> comments = new ArrayList<Comment>();
+        for (int i = 0; i < size; i++) {
+            comments.add(new Comment(readString(), readInteger()));
+        }
+        return comments;
+    }
+
+    private List<Tag> readTags() throws IOException {
+        int size = readSize();
+        if (size == -1) {
+            return null;
+        }
+        List<Tag> tags = new ArrayList<Tag>();
+        for (int i = 0; i < size; i++) {
+            tags.add(new Tag(readString(), readInteger()));
+        }
+        return tags;
+    }
+
+    private List<String> readStrings() throws IOException {
+        int size = readSize();
+        if (size == -1) {
+            return null;
+        }
+        List<String> result = new ArrayList<String>();
+        for (int i = 0; i < size; i++) {
+            result.add(readString());
+        }
+        return result;
+    }
+
+    /**
+     * @return the size of a list, or -1 for null
+     */
+    private int readSize() throws IOException {
+        return readLength() - 1;
+    }
+
+    private int readLength() throws IOException {
+        long length = readVarint();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Malformed length: " + length);
+        }
+        return (int) length;
+    }
+
+    String readString() throws IOException {
+        int number = readLength();
+        if (number == 0) {
+            return null;
+        }
+        if (number == 1) {
+            String string = new String(readBytes(), "UTF-8");
+            strings.add(string);
+            return string;
+        }
+        if (number - 2 >= strings.size()) {
+            throw new IOException("Unknown string: " + (number - 2));
+        }
+        return strings.get(number - 2);
+    }
+
+    private byte[] readBytes() throws IOException {
+        return readBytes(in, readLength());
+    }
+
+    /**
+     * Reads a number of bytes that came from the stream itself. The array grows as the bytes arrive, so a
+     * broken or hostile length runs out of input before it can take much memory.
+     */
+    static byte[] readBytes(DataInputStream in, int length) throws IOException {
+        if (length <= 8192) {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return bytes;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        byte[] buffer = new byte[8192];
+        int remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new EOFException();
+            }
+            bytes.write(buffer, 0, read);
+            remaining -= read;
+        }
+        return bytes.toByteArray();
+    }
+
+    private Integer readInteger() throws IOException {
+        long value = readVarint();
+        return value == 0 ? null : (int) (value - 1);
+    }
+
+    long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number");
+    }
+
+    /**
+     * @return the stream, to read other data between events
+     */
+    DataInputStream getInput() {
+        return in;
+    }
+
+    /**
+     * Stands in for an error that was read, so formatters print it as the original was printed, with its class
+     * name and causes.
+     */
+    static class RecordedError extends CucumberException {
+        private final String className;
+        private final String text;
+
+        RecordedError(String className, String message, String text) {
+            super(message);
+            this.className = className;
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            String message = getLocalizedMessage();
+            return message == null ? className : className + ": " + message;
+        }
+
+        @Override
+        public void printStackTrace(PrintStream s) {
+            s.print(text);
+        }
+
+        @Override
+        public void printStackTrace(PrintWriter s) {
+            s.print(text);
+        }
+    }
+
+    /**
+     * Stands in for the step definition of a match that was read, so formatters can tell where it is.
+     */
+    private static class RecordedStepDefinition implements StepDefinition {
+        private final String pattern;
+        private final String location;
+
+        RecordedStepDefinition(String pattern, String location) {
+            this.pattern = pattern;
+            this.location = location;
+        }
+
+        @Override
+        public List<Argument> matchedArguments(Step step) {
+            return null;
+        }
+
+        @Override
+        public String getLocation(boolean detail) {
+            return location;
+        }
+
+        @Override
+        public Integer getParameterCount() {
+            return null;
+        }
+
+        @Override
+        public ParameterInfo getParameterType(int n, Type argumentType) {
+            return null;
+        }
+
+        @Override
+        public void execute(I18n i18n, Object[] args) {
+            throw new CucumberException("A step definition that was read from events can't be run: " + pattern);
+        }
+
+        @Override
+        public boolean isDefinedAt(StackTraceElement stackTraceElement) {
+            return false;
+        }
+
+        @Override
+        public String getPattern() {
+            return pattern;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package cucumber.runtime;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records {@link Formatter} and {@link Reporter} events so they can be replayed later,
+ * in one go, to formatters that are not thread safe.
+ */
+class EventRecorder implements Formatter, Reporter {
+    private final List<Event> events = new ArrayList<Event>();
+
+    public void replay(Formatter formatter, Reporter reporter) {
+        for (Event event : events) {
+            event.replay(formatter, reporter);
+        }
+    }
+
+    void record(Event event) {
+        events.add(event);
+    }
+
+    @Override
+    public void syntaxError(final String state, final String event, final List<String> legalEvents, final String uri, final Integer line) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.syntaxError(state, event, legalEvents, uri, line);
+            }
+        });
+    }
+
+    @Override
+    public void uri(final String uri) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.uri(uri);
+            }
+        });
+    }
+
+    @Override
+    public void feature(final Feature feature) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.feature(feature);
+            }
+        });
+    }
+
+    @Override
+    public void scenarioOutline(final ScenarioOutline scenarioOutline) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.scenarioOutline(scenarioOutline);
+            }
+        });
+    }
+
+    @Override
+    public void examples(final Examples examples) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.examples(examples);
+            }
+        });
+    }
+
+    @Override
+    public void startOfScenarioLifeCycle(final Scenario scenario) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.startOfScenarioLifeCycle(scenario);
+            }
+        });
+    }
+
+    @Override
+    public void background(final Background background) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.background(background);
+            }
+        });
+    }
+
+    @Override
+    public void scenario(final Scenario scenario) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.scenario(scenario);
+            }
+        });
+    }
+
+    @Override
+    public void step(final Step step) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.step(step);
+            }
+        });
+    }
+
+    @Override
+    public void endOfScenarioLifeCycle(final Scenario scenario) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.endOfScenarioLifeCycle(scenario);
+            }
+        });
+    }
+
+    @Override
+    public void done() {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.done();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.close();
+            }
+        });
+    }
+
+    @Override
+    public void eof() {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                formatter.eof();
+            }
+        });
+    }
+
+    @Override
+    public void before(final Match match, final Result result) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                reporter.before(match, result);
+            }
+        });
+    }
+
+    @Override
+    public void result(final Result result) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                reporter.result(result);
+            }
+        });
+    }
+
+    @Override
+    public void after(final Match match, final Result result) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                reporter.after(match, result);
+            }
+        });
+    }
+
+    @Override
+    public void match(final Match match) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                reporter.match(match);
+            }
+        });
+    }
+
+    @Override
+    public void embedding(final String mimeType, final byte[] data) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                reporter.embedding(mimeType, data);
+            }
+        });
+    }
+
+    @Override
+    public void write(final String text) {
+        record(new Event() {
+            @Override
+            void replay(Formatter formatter, Reporter reporter) {
+                reporter.write(text);
+            }
+        });
+    }
+
+    abstract static class Event {
+        abstract void replay(Formatter formatter, Reporter reporter);
+    }
+}
@@ -0,0 +1,475 @@
+package cucumber.runtime;
+
+import cucumber.runtime.model.ExampleStep;
+import gherkin.formatter.Argument;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import gherkin.formatter.model.DocString;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.ExamplesTableRow;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes {@link Formatter} and {@link Reporter} events to a compact binary stream, which {@link EventReader}
+ * replays. Each event is a tag byte followed by its fields. Numbers are variable length, and each string is
+ * written once and then referred to by number, so step names, uris and locations that repeat take a few bytes.
+ * <p/>
+ * Errors are written as the text formatters print, and as their class name, message and stack trace, which
+ * {@link EventReader} makes a {@link CucumberException} or {@link cucumber.api.PendingException} of again.
+ * They are never Java serialized, so reading events never runs code of classes named in the stream.
+ * Other bytes may be written to the same stream between events, with tags from {@link #FIRST_FREE_TAG} up.
+ */
+class EventWriter implements Formatter, Reporter {
+    static final int URI = 1;
+    static final int FEATURE = 2;
+    static final int BACKGROUND = 3;
+    static final int SCENARIO = 4;
+    static final int SCENARIO_OUTLINE = 5;
+    static final int EXAMPLES = 6;
+    static final int STEP = 7;
+    static final int EOF = 8;
+    static final int SYNTAX_ERROR = 9;
+    static final int START_OF_SCENARIO_LIFE_CYCLE = 10;
+    static final int END_OF_SCENARIO_LIFE_CYCLE = 11;
+    static final int DONE = 12;
+    static final int CLOSE = 13;
+    static final int BEFORE = 14;
+    static final int RESULT = 15;
+    static final int AFTER = 16;
+    static final int MATCH = 17;
+    static final int EMBEDDING = 18;
+    static final int WRITE = 19;
+    static final int FIRST_FREE_TAG = 64;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    EventWriter(OutputStream out) {
+        this.out = out instanceof DataOutputStream ? (DataOutputStream) out : new DataOutputStream(out);
+    }
+
+    @Override
+    public void uri(String uri) {
+        try {
+            out.writeByte(URI);
+            writeString(uri);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void feature(Feature feature) {
+        try {
+            out.writeByte(FEATURE);
+            writeComments(feature.getComments());
+            writeTags(feature.getTags());
+            writeString(feature.getKeyword());
+            writeString(feature.getName());
+            writeString(feature.getDescription());
+            writeInteger(feature.getLine());
+            writeString(feature.getId());
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void background(Background background) {
+        try {
+            out.writeByte(BACKGROUND);
+            writeComments(background.getComments());
+            writeString(background.getKeyword());
+            writeString(background.getName());
+            writeString(background.getDescription());
+            writeInteger(background.getLine());
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void scenario(Scenario scenario) {
+        writeScenario(SCENARIO, scenario);
+    }
+
+    @Override
+    public void startOfScenarioLifeCycle(Scenario scenario) {
+        writeScenario(START_OF_SCENARIO_LIFE_CYCLE, scenario);
+    }
+
+    @Override
+    public void endOfScenarioLifeCycle(Scenario scenario) {
+        writeScenario(END_OF_SCENARIO_LIFE_CYCLE, scenario);
+    }
+
+    private void writeScenario(int tag, Scenario scenario) {
+        try {
+            out.writeByte(tag);
+            writeComments(scenario.getComments());
+            writeTags(scenario.getTags());
+            writeString(scenario.getKeyword());
+            writeString(scenario.getName());
+            writeString(scenario.getDescription());
+            writeInteger(scenario.getLine());
+            writeString(scenario.getId());
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void scenarioOutline(ScenarioOutline scenarioOutline) {
+        try {
+            out.writeByte(SCENARIO_OUTLINE);
+            writeComments(scenarioOutline.getComments());
+            writeTags(scenarioOutline.getTags());
+            writeString(scenarioOutline.getKeyword());
+            writeString(scenarioOutline.getName());
+            writeString(scenarioOutline.getDescription());
+            writeInteger(scenarioOutline.getLine());
+            writeString(scenarioOutline.getId());
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void examples(Examples examples) {
+        try {
+            out.writeByte(EXAMPLES);
+            writeComments(examples.getComments());
+            writeTags(examples.getTags());
+            writeString(examples.getKeyword());
+            writeString(examples.getName());
+            writeString(examples.getDescription());
+            writeInteger(examples.getLine());
+            writeString(examples.getId());
+            List<ExamplesTableRow> rows = examples.getRows();
+            writeSize(rows);
+            if (rows != null) {
+                for (ExamplesTableRow row : rows) {
+                    writeComments(row.getComments());
+                    writeStrings(row.getCells());
+                    writeInteger(row.getLine());
+                    writeString(row.getId());
+                }
+            }
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void step(Step step) {
+        try {
+            out.writeByte(STEP);
+            writeStep(step);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private void writeStep(Step step) throws IOException {
+        writeComments(step.getComments());
+        writeString(step.getKeyword());
+        writeString(step.getName());
+        writeInteger(step.getLine());
+        List<DataTableRow> rows = step.getRows();
+        writeSize(rows);
+        if (rows != null) {
+            for (DataTableRow row : rows) {
+                writeComments(row.getComments());
+                writeStrings(row.getCells());
+                writeInteger(row.getLine());
+            }
+        }
+        DocString docString = step.getDocString();
+        out.writeBoolean(docString != null);
+        if (docString != null) {
+            writeString(docString.getContentType());
+            writeString(docString.getValue());
+            writeInteger(docString.getLine());
+        }
+        // Steps of scenario outline examples tell which columns they used, which the json formatter writes
+        Set<Integer> matchedColumns = step instanceof ExampleStep ? ((ExampleStep) step).getMatchedColumns() : null;
+        writeVarint(matchedColumns == null ? 0 : matchedColumns.size() + 1);
+        if (matchedColumns != null) {
+            for (Integer column : matchedColumns) {
+                writeInteger(column);
+            }
+        }
+    }
+
+    @Override
+    public void eof() {
+        writeTag(EOF);
+    }
+
+    @Override
+    public void syntaxError(String state, String event, List<String> legalEvents, String uri, Integer line) {
+        try {
+            out.writeByte(SYNTAX_ERROR);
+            writeString(state);
+            writeString(event);
+            writeStrings(legalEvents);
+            writeString(uri);
+            writeInteger(line);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void done() {
+        writeTag(DONE);
+    }
+
+    @Override
+    public void close() {
+        writeTag(CLOSE);
+    }
+
+    @Override
+    public void before(Match match, Result result) {
+        try {
+            out.writeByte(BEFORE);
+            writeMatch(match);
+            writeResult(result);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void result(Result result) {
+        try {
+            out.writeByte(RESULT);
+            writeResult(result);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void after(Match match, Result result) {
+        try {
+            out.writeByte(AFTER);
+            writeMatch(match);
+            writeResult(result);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void match(Match match) {
+        try {
+            out.writeByte(MATCH);
+            writeMatch(match);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void embedding(String mimeType, byte[] data) {
+        try {
+            out.writeByte(EMBEDDING);
+            writeString(mimeType);
+            writeVarint(data.length);
+            out.write(data);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    @Override
+    public void write(String text) {
+        try {
+            out.writeByte(WRITE);
+            // Written text is seldom repeated, so it isn't worth keeping
+            writeBytes(text.getBytes("UTF-8"));
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private void writeTag(int tag) {
+        try {
+            out.writeByte(tag);
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    private void writeMatch(Match match) throws IOException {
+        if (match == Match.UNDEFINED) {
+            out.writeByte(0);
+            return;
+        }
+        boolean stepDefinitionMatch = match instanceof StepDefinitionMatch;
+        out.writeByte(stepDefinitionMatch ? 2 : 1);
+        List<Argument> arguments = match.getArguments();
+        writeSize(arguments);
+        if (arguments != null) {
+            for (Argument argument : arguments) {
+                writeInteger(argument.getOffset());
+                writeString(argument.getVal());
+            }
+        }
+        writeString(match.getLocation());
+        if (stepDefinitionMatch) {
+            // What the usage formatter needs
+            StepDefinitionMatch stepMatch = (StepDefinitionMatch) match;
+            StackTraceElement stepLocation = stepMatch.getStepLocation();
+            writeString(stepMatch.getPattern());
+            writeString(stepMatch.getStepName());
+            writeString(stepLocation.getMethodName());
+            writeString(stepLocation.getFileName());
+            writeInteger(stepLocation.getLineNumber());
+        }
+    }
+
+    private void writeResult(Result result) throws IOException {
+        writeString(result.getStatus());
+        Long duration = result.getDuration();
+        out.writeBoolean(duration != null);
+        if (duration != null) {
+            writeVarint(duration);
+        }
+        Throwable error = result.getError();
+        String errorMessage = result.getErrorMessage();
+        out.writeBoolean(errorMessage != null);
+        if (errorMessage != null) {
+            writeBytes(errorMessage.getBytes("UTF-8"));
+            out.writeBoolean(error != null);
+            if (error != null) {
+                writeError(error);
+            }
+        }
+    }
+
+    private void writeError(Throwable error) throws IOException {
+        writeString(error.getClass().getName());
+        writeString(error.getMessage());
+        StackTraceElement[] stackTrace = error.getStackTrace();
+        writeVarint(stackTrace.length);
+        for (StackTraceElement element : stackTrace) {
+            writeString(element.getClassName());
+            writeString(element.getMethodName());
+            writeString(element.getFileName());
+            // Unknown lines are -1, and native methods -2
+            writeVarint(element.getLineNumber() + 2);
+        }
+    }
+
+    private void writeComments(List<Comment> comments) throws IOException {
+        writeSize(comments);
+        if (comments != null) {
+            for (Comment comment : comments) {
+                writeString(comment.getValue());
+                writeInteger(comment.getLine());
+            }
+        }
+    }
+
+    private void writeTags(List<Tag> tags) throws IOException {
+        writeSize(tags);
+        if (tags != null) {
+            for (Tag tag : tags) {
+                writeString(tag.getName());
+                writeInteger(tag.getLine());
+            }
+        }
+    }
+
+    private void writeStrings(List<String> strings) throws IOException {
+        writeSize(strings);
+        if (strings != null) {
+            for (String string : strings) {
+                writeString(string);
+            }
+        }
+    }
+
+    private void writeSize(List<?> list) throws IOException {
+        writeVarint(list == null ? 0 : list.size() + 1);
+    }
+
+    /**
+     * Writes 0 for null, the number of a string that was written before plus 2, or 1 followed by a new string.
+     */
+    void writeString(String string) throws IOException {
+        if (string == null) {
+            writeVarint(0);
+            return;
+        }
+        Integer number = strings.get(string);
+        if (number != null) {
+            writeVarint(number + 2);
+        } else {
+            strings.put(string, strings.size());
+            writeVarint(1);
+            writeBytes(string.getBytes("UTF-8"));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeInteger(Integer integer) throws IOException {
+        // Lines and offsets aren't negative
+        writeVarint(integer == null ? 0 : integer.longValue() + 1);
+    }
+
+    /**
+     * Writes a number that isn't negative in 7 bit groups, lowest first, with the high bit set on all but the
+     * last byte.
+     */
+    void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * @return the stream, to write other data between events
+     */
+    DataOutputStream getOutput() {
+        return out;
+    }
+
+    private static CucumberException failed(IOException e) {
+        return new CucumberException("Failed to write event", e);
+    }
+}
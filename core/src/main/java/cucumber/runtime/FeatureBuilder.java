@@ -13,11 +13,11 @@ import gherkin.formatter.model.ScenarioOutline;
 import gherkin.formatter.model.Step;
 import gherkin.lexer.Encoding;
 import gherkin.parser.Parser;
-import gherkin.util.FixJava;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.security.MessageDigest;
@@ -31,17 +31,31 @@ public class FeatureBuilder implements Formatter {
     private final List<CucumberFeature> cucumberFeatures;
     private final char fileSeparatorChar;
     private final MessageDigest md5;
+    private final FeatureCache featureCache;
     private final Map<String, String> pathsByChecksum = new HashMap<String, String>();
     private CucumberFeature currentCucumberFeature;
     private String featurePath;
 
     public FeatureBuilder(List<CucumberFeature> cucumberFeatures) {
-        this(cucumberFeatures, File.separatorChar);
+        this(cucumberFeatures, (FeatureCache) null);
+    }
+
+    /**
+     * @param cucumberFeatures where the parsed features are added
+     * @param featureCache     where parsed features are kept between runs, or null
+     */
+    public FeatureBuilder(List<CucumberFeature> cucumberFeatures, FeatureCache featureCache) {
+        this(cucumberFeatures, File.separatorChar, featureCache);
     }
 
     FeatureBuilder(List<CucumberFeature> cucumberFeatures, char fileSeparatorChar) {
+        this(cucumberFeatures, fileSeparatorChar, null);
+    }
+
+    FeatureBuilder(List<CucumberFeature> cucumberFeatures, char fileSeparatorChar, FeatureCache featureCache) {
         this.cucumberFeatures = cucumberFeatures;
         this.fileSeparatorChar = fileSeparatorChar;
+        this.featureCache = featureCache;
         try {
             this.md5 = MessageDigest.getInstance("MD5");
         } catch (NoSuchAlgorithmException e) {
@@ -125,14 +139,11 @@ public class FeatureBuilder implements Formatter {
         if (!filters.isEmpty()) {
             formatter = new FilterFormatter(this, filters);
         }
-        Parser parser = new Parser(formatter);
-
-        try {
-            parser.parse(gherkin, convertFileSeparatorToForwardSlash(resource.getPath()), 0);
-        } catch (Exception e) {
-            throw new CucumberException(String.format("Error parsing feature file %s", convertFileSeparatorToForwardSlash(resource.getPath())), e);
+        String uri = convertFileSeparatorToForwardSlash(resource.getPath());
+        I18n i18n = featureCache == null ? null : featureCache.replay(checksum, uri, formatter);
+        if (i18n == null) {
+            i18n = parse(gherkin, uri, checksum, formatter);
         }
-        I18n i18n = parser.getI18nLanguage();
         if (currentCucumberFeature != null) {
             // The current feature may be null if we used a very restrictive filter, say a tag that isn't used.
             // Might also happen if the feature file itself is empty.
@@ -140,6 +151,36 @@ public class FeatureBuilder implements Formatter {
         }
     }
 
+    private I18n parse(String gherkin, String uri, String checksum, Formatter formatter) {
+        Formatter recorder = featureCache == null ? formatter : featureCache.recorder(formatter);
+        Parser parser = new Parser(recorder);
+        try {
+            parser.parse(gherkin, uri, 0);
+        } catch (Exception e) {
+            throw new CucumberException(String.format("Error parsing feature file %s", uri), e);
+        }
+        I18n i18n = parser.getI18nLanguage();
+        if (featureCache != null) {
+            featureCache.store(checksum, recorder, i18n);
+        }
+        return i18n;
+    }
+
+    /**
+     * Adds the features of another builder that has parsed a single resource, unless a resource with the same
+     * content has already been parsed by this builder. This lets each resource be parsed by its own builder on
+     * any thread, while duplicates are still detected here, in the order the resources were found.
+     */
+    public void merge(FeatureBuilder other) {
+        for (Map.Entry<String, String> entry : other.pathsByChecksum.entrySet()) {
+            if (pathsByChecksum.containsKey(entry.getKey())) {
+                return;
+            }
+            pathsByChecksum.put(entry.getKey(), entry.getValue());
+        }
+        cucumberFeatures.addAll(other.cucumberFeatures);
+    }
+
     private String convertFileSeparatorToForwardSlash(String path) {
         return path.replace(fileSeparatorChar, '/');
     }
@@ -150,14 +191,29 @@ public class FeatureBuilder implements Formatter {
 
     public String read(Resource resource) {
         try {
-            String source = FixJava.readReader(new InputStreamReader(resource.getInputStream(), "UTF-8"));
+            byte[] bytes = readBytes(resource.getInputStream());
+            String source = new String(bytes, UTF8);
             String encoding = new Encoding().encoding(source);
             if (!"UTF-8".equals(encoding)) {
-                source = FixJava.readReader(new InputStreamReader(resource.getInputStream(), encoding));
+                source = new String(bytes, encoding);
             }
             return source;
         } catch (IOException e) {
             throw new CucumberException("Failed to read resource:" + resource.getPath(), e);
         }
     }
+
+    private static byte[] readBytes(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
 }
@@ -0,0 +1,510 @@
+package cucumber.runtime;
+
+import gherkin.I18n;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.BasicStatement;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import gherkin.formatter.model.DocString;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.ExamplesTableRow;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import gherkin.parser.Parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Keeps parsed features in a directory, so features that haven't changed since the last run don't have to
+ * be parsed again. Each file holds what the gherkin parser produced for one feature source, before any
+ * filters are applied, and is named after the checksum of that source. A changed source gets another
+ * checksum, and so another file. Files written with another version of gherkin or another version of this
+ * format are ignored and overwritten.
+ * <p/>
+ * The cache never fails a run: files that can't be read are treated as missing, and files that can't be
+ * written are skipped. Several threads or processes may use the same directory at the same time.
+ */
+public class FeatureCache {
+    private static final int FORMAT_VERSION = 1;
+    private static final String GHERKIN_VERSION = gherkinVersion();
+
+    private static final byte FEATURE = 1;
+    private static final byte BACKGROUND = 2;
+    private static final byte SCENARIO = 3;
+    private static final byte SCENARIO_OUTLINE = 4;
+    private static final byte EXAMPLES = 5;
+    private static final byte STEP = 6;
+    private static final byte EOF = 7;
+
+    private final File directory;
+
+    public FeatureCache(File directory) {
+        this.directory = directory;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sends the cached parser events for a feature source to a formatter.
+     *
+     * @param checksum the checksum of the feature source
+     * @param uri      the uri to send to the formatter
+     * @param formatter where the events go
+     * @return the language of the feature, or null if it isn't cached. In that case nothing was sent.
+     */
+    I18n replay(String checksum, String uri, Formatter formatter) {
+        File file = file(checksum);
+        if (!file.isFile()) {
+            return null;
+        }
+        I18n i18n;
+        List<BasicStatement> statements = new ArrayList<BasicStatement>();
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != FORMAT_VERSION || !GHERKIN_VERSION.equals(in.readUTF())) {
+                    return null;
+                }
+                i18n = new I18n(in.readUTF());
+                byte type;
+                while ((type = in.readByte()) != EOF) {
+                    statements.add(readStatement(type, in));
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+
+        formatter.uri(uri);
+        for (BasicStatement statement : statements) {
+            statement.replay(formatter);
+        }
+        formatter.eof();
+        return i18n;
+    }
+
+    /**
+     * @return a formatter that passes the events of a parser on to another formatter, and remembers them
+     * so they can be {@link #store(String, Formatter, I18n) stored}.
+     */
+    Formatter recorder(Formatter formatter) {
+        return new Recorder(formatter);
+    }
+
+    /**
+     * Stores what a {@link #recorder(Formatter) recorder} has seen.
+     *
+     * @param checksum the checksum of the feature source
+     * @param recorder the recorder the parser sent its events to
+     * @param i18n     the language of the feature
+     */
+    void store(String checksum, Formatter recorder, I18n i18n) {
+        Recorder recording = (Recorder) recorder;
+        if (recording.failed) {
+            return;
+        }
+        File tempFile = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                return;
+            }
+            // Write to a file of our own and rename it, so nobody reads a file that is half written
+            tempFile = File.createTempFile(checksum, ".tmp", directory);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+            try {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(GHERKIN_VERSION);
+                out.writeUTF(i18n.getIsoCode());
+                recording.bytes.writeTo(out);
+                out.writeByte(EOF);
+            } finally {
+                out.close();
+            }
+            File file = file(checksum);
+            if (!tempFile.renameTo(file)) {
+                // Some file systems don't replace existing files
+                file.delete();
+                tempFile.renameTo(file);
+            }
+        } catch (IOException ignore) {
+            // The feature will be parsed again next time
+        } finally {
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private File file(String checksum) {
+        return new File(directory, checksum + ".feature.bin");
+    }
+
+    private static void writeStatement(BasicStatement statement, DataOutputStream out) throws IOException {
+        if (statement instanceof Feature) {
+            Feature feature = (Feature) statement;
+            out.writeByte(FEATURE);
+            writeComments(feature.getComments(), out);
+            writeTags(feature.getTags(), out);
+            writeString(feature.getKeyword(), out);
+            writeString(feature.getName(), out);
+            writeString(feature.getDescription(), out);
+            writeInteger(feature.getLine(), out);
+            writeString(feature.getId(), out);
+        } else if (statement instanceof Background) {
+            Background background = (Background) statement;
+            out.writeByte(BACKGROUND);
+            writeComments(background.getComments(), out);
+            writeString(background.getKeyword(), out);
+            writeString(background.getName(), out);
+            writeString(background.getDescription(), out);
+            writeInteger(background.getLine(), out);
+        } else if (statement instanceof Scenario) {
+            Scenario scenario = (Scenario) statement;
+            out.writeByte(SCENARIO);
+            writeComments(scenario.getComments(), out);
+            writeTags(scenario.getTags(), out);
+            writeString(scenario.getKeyword(), out);
+            writeString(scenario.getName(), out);
+            writeString(scenario.getDescription(), out);
+            writeInteger(scenario.getLine(), out);
+            writeString(scenario.getId(), out);
+        } else if (statement instanceof ScenarioOutline) {
+            ScenarioOutline scenarioOutline = (ScenarioOutline) statement;
+            out.writeByte(SCENARIO_OUTLINE);
+            writeComments(scenarioOutline.getComments(), out);
+            writeTags(scenarioOutline.getTags(), out);
+            writeString(scenarioOutline.getKeyword(), out);
+            writeString(scenarioOutline.getName(), out);
+            writeString(scenarioOutline.getDescription(), out);
+            writeInteger(scenarioOutline.getLine(), out);
+            writeString(scenarioOutline.getId(), out);
+        } else if (statement instanceof Examples) {
+            Examples examples = (Examples) statement;
+            out.writeByte(EXAMPLES);
+            writeComments(examples.getComments(), out);
+            writeTags(examples.getTags(), out);
+            writeString(examples.getKeyword(), out);
+            writeString(examples.getName(), out);
+            writeString(examples.getDescription(), out);
+            writeInteger(examples.getLine(), out);
+            writeString(examples.getId(), out);
+            List<ExamplesTableRow> rows = examples.getRows();
+            writeSize(rows, out);
+            if (rows != null) {
+                for (ExamplesTableRow row : rows) {
+                    writeComments(row.getComments(), out);
+                    writeStrings(row.getCells(), out);
+                    writeInteger(row.getLine(), out);
+                    writeString(row.getId(), out);
+                }
+            }
+        } else if (statement instanceof Step) {
+            Step step = (Step) statement;
+            out.writeByte(STEP);
+            writeComments(step.getComments(), out);
+            writeString(step.getKeyword(), out);
+            writeString(step.getName(), out);
+            writeInteger(step.getLine(), out);
+            List<DataTableRow> rows = step.getRows();
+            writeSize(rows, out);
+            if (rows != null) {
+                for (DataTableRow row : rows) {
+                    writeComments(row.getComments(), out);
+                    writeStrings(row.getCells(), out);
+                    writeInteger(row.getLine(), out);
+                }
+            }
+            DocString docString = step.getDocString();
+            out.writeBoolean(docString != null);
+            if (docString != null) {
+                writeString(docString.getContentType(), out);
+                writeString(docString.getValue(), out);
+                out.writeInt(docString.getLine());
+            }
+        } else {
+            throw new IOException("Can't cache " + statement.getClass());
+        }
+    }
+
+    private static BasicStatement readStatement(byte type, DataInputStream in) throws IOException {
+        switch (type) {
+            case FEATURE:
+                return new Feature(readComments(in), readTags(in), readString(in), readString(in), readString(in), readInteger(in), readString(in));
+            case BACKGROUND:
+                return new Background(readComments(in), readString(in), readString(in), readString(in), readInteger(in));
+            case SCENARIO:
+                return new Scenario(readComments(in), readTags(in), readString(in), readString(in), readString(in), readInteger(in), readString(in));
+            case SCENARIO_OUTLINE:
+                return new ScenarioOutline(readComments(in), readTags(in), readString(in), readString(in), readString(in), readInteger(in), readString(in));
+            case EXAMPLES: {
+                Examples examples = new Examples(readComments(in), readTags(in), readString(in), readString(in), readString(in), readInteger(in), readString(in), null);
+                int size = in.readInt();
+                if (size >= 0) {
+                    List<ExamplesTableRow> rows = new ArrayList<ExamplesTableRow>(size);
+                    for (int i = 0; i < size; i++) {
+                        rows.add(new ExamplesTableRow(readComments(in), readStrings(in), readInteger(in), readString(in)));
+                    }
+                    examples.setRows(rows);
+                }
+                return examples;
+            }
+            case STEP: {
+                List<Comment> comments = readComments(in);
+                String keyword = readString(in);
+                String name = readString(in);
+                Integer line = readInteger(in);
+                List<DataTableRow> rows = null;
+                int size = in.readInt();
+                if (size >= 0) {
+                    rows = new ArrayList<DataTableRow>(size);
+                    for (int i = 0; i < size; i++) {
+                        rows.add(new DataTableRow(readComments(in), readStrings(in), readInteger(in)));
+                    }
+                }
+                DocString docString = null;
+                if (in.readBoolean()) {
+                    docString = new DocString(readString(in), readString(in), in.readInt());
+                }
+                return new Step(comments, keyword, name, line, rows, docString);
+            }
+            default:
+                throw new IOException("Unknown statement type: " + type);
+        }
+    }
+
+    private static void writeComments(List<Comment> comments, DataOutputStream out) throws IOException {
+        writeSize(comments, out);
+        if (comments != null) {
+            for (Comment comment : comments) {
+                writeString(comment.getValue(), out);
+                writeInteger(comment.getLine(), out);
+            }
+        }
+    }
+
+    private static List<Comment> readComments(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<Comment> comments = new ArrayList<Comment>(size);
+        for (int i = 0; i < size; i++) {
+            comments.add(new Comment(readString(in), readInteger(in)));
+        }
+        return comments;
+    }
+
+    private static void writeTags(List<Tag> tags, DataOutputStream out) throws IOException {
+        writeSize(tags, out);
+        if (tags != null) {
+            for (Tag tag : tags) {
+                writeString(tag.getName(), out);
+                writeInteger(tag.getLine(), out);
+            }
+        }
+    }
+
+    private static List<Tag> readTags(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<Tag> tags = new ArrayList<Tag>(size);
+        for (int i = 0; i < size; i++) {
+            tags.add(new Tag(readString(in), readInteger(in)));
+        }
+        return tags;
+    }
+
+    private static void writeStrings(List<String> strings, DataOutputStream out) throws IOException {
+        writeSize(strings, out);
+        if (strings != null) {
+            for (String string : strings) {
+                writeString(string, out);
+            }
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<String> strings = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(in));
+        }
+        return strings;
+    }
+
+    private static void writeSize(List<?> list, DataOutputStream out) throws IOException {
+        out.writeInt(list == null ? -1 : list.size());
+    }
+
+    private static void writeString(String string, DataOutputStream out) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = string.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeInteger(Integer integer, DataOutputStream out) throws IOException {
+        out.writeBoolean(integer != null);
+        if (integer != null) {
+            out.writeInt(integer);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static String gherkinVersion() {
+        InputStream pom = Parser.class.getResourceAsStream("/META-INF/maven/info.cukes/gherkin/pom.properties");
+        if (pom != null) {
+            try {
+                try {
+                    Properties properties = new Properties();
+                    properties.load(pom);
+                    String version = properties.getProperty("version");
+                    if (version != null) {
+                        return version;
+                    }
+                } finally {
+                    pom.close();
+                }
+            } catch (IOException ignore) {
+                // Fall back to where gherkin was loaded from
+            }
+        }
+        return String.valueOf(Parser.class.getProtectionDomain().getCodeSource().getLocation());
+    }
+
+    /**
+     * Writes the statements as they come by, because formatters further down the line may change them.
+     */
+    private static class Recorder implements Formatter {
+        private final Formatter formatter;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private boolean failed;
+
+        Recorder(Formatter formatter) {
+            this.formatter = formatter;
+        }
+
+        private void record(BasicStatement statement) {
+            try {
+                writeStatement(statement, out);
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+
+        @Override
+        public void uri(String uri) {
+            formatter.uri(uri);
+        }
+
+        @Override
+        public void feature(Feature feature) {
+            record(feature);
+            formatter.feature(feature);
+        }
+
+        @Override
+        public void background(Background background) {
+            record(background);
+            formatter.background(background);
+        }
+
+        @Override
+        public void scenario(Scenario scenario) {
+            record(scenario);
+            formatter.scenario(scenario);
+        }
+
+        @Override
+        public void scenarioOutline(ScenarioOutline scenarioOutline) {
+            record(scenarioOutline);
+            formatter.scenarioOutline(scenarioOutline);
+        }
+
+        @Override
+        public void examples(Examples examples) {
+            record(examples);
+            formatter.examples(examples);
+        }
+
+        @Override
+        public void step(Step step) {
+            record(step);
+            formatter.step(step);
+        }
+
+        @Override
+        public void eof() {
+            formatter.eof();
+        }
+
+        @Override
+        public void syntaxError(String state, String event, List<String> legalEvents, String uri, Integer line) {
+            formatter.syntaxError(state, event, legalEvents, uri, line);
+        }
+
+        @Override
+        public void startOfScenarioLifeCycle(Scenario scenario) {
+            formatter.startOfScenarioLifeCycle(scenario);
+        }
+
+        @Override
+        public void endOfScenarioLifeCycle(Scenario scenario) {
+            formatter.endOfScenarioLifeCycle(scenario);
+        }
+
+        @Override
+        public void done() {
+            formatter.done();
+        }
+
+        @Override
+        public void close() {
+            formatter.close();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package cucumber.runtime;
+
+import cucumber.runtime.model.CucumberFeature;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs scenarios in other Java processes, started with the same class path, so glue that can't run on several
+ * threads at once can still run in parallel. Each fork is a {@link ForkWorker}.
+ * <p/>
+ * The features are loaded here, and their scenarios handed out to the forks in batches by a {@link ScenarioQueue}.
+ * Forks send back the formatter events of each scenario, from which the stats, errors and undefined steps are
+ * worked out too. When a fork dies, the scenarios of its batch that hadn't finished go to a new fork.
+ */
+class ForkExecutor {
+    private final RuntimeOptions runtimeOptions;
+    private final Runtime runtime;
+    private final int forks;
+
+    ForkExecutor(Runtime runtime, RuntimeOptions runtimeOptions) {
+        this.runtime = runtime;
+        this.runtimeOptions = runtimeOptions;
+        this.forks = runtimeOptions.getForks();
+    }
+
+    public void run(List<CucumberFeature> features, Formatter formatter, Reporter reporter) {
+        final ScenarioQueue queue = new ScenarioQueue(runtime, features, formatter, reporter);
+        int forkCount = Math.min(forks, queue.size());
+        if (forkCount == 0) {
+            return;
+        }
+        final int batchSize = Math.max(1, queue.size() / (forkCount * 4));
+
+        List<Thread> threads = new ArrayList<Thread>();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        for (int i = 0; i < forkCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runBatches(queue, batchSize);
+                    } catch (Throwable t) {
+                        failures.add(t);
+                        queue.abort();
+                    }
+                }
+            }, "cucumber-fork-" + (i + 1));
+            thread.start();
+            threads.add(thread);
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CucumberException("Interrupted while running scenarios", e);
+        }
+        if (!failures.isEmpty()) {
+            throw new CucumberException(failures.get(0));
+        }
+    }
+
+    private void runBatches(ScenarioQueue queue, int batchSize) throws InterruptedException {
+        Fork fork = null;
+        try {
+            ScenarioQueue.Batch batch;
+            while ((batch = queue.take(batchSize)) != null) {
+                try {
+                    if (fork == null) {
+                        fork = new Fork(start());
+                    }
+                    fork.run(batch);
+                    batch.done();
+                } catch (IOException e) {
+                    if (fork != null) {
+                        fork.destroy();
+                        fork = null;
+                    }
+                    batch.lost("Fork crashed");
+                }
+            }
+        } finally {
+            if (fork != null) {
+                fork.close();
+            }
+        }
+    }
+
+    private Process start() throws IOException {
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ForkWorker.class.getName());
+        command.addAll(workerArguments(runtimeOptions));
+        Process process = new ProcessBuilder(command).start();
+        pump(process.getErrorStream(), System.err);
+        return process;
+    }
+
+    /**
+     * @return the options the forks need to load the same glue and features. Which scenarios run is decided
+     * here, so filters aren't passed on, and neither are formatters.
+     */
+    static List<String> workerArguments(RuntimeOptions runtimeOptions) {
+        List<String> arguments = new ArrayList<String>();
+        for (String gluePath : runtimeOptions.getGlue()) {
+            arguments.add("--glue");
+            arguments.add(gluePath);
+        }
+        if (runtimeOptions.isDryRun()) {
+            arguments.add("--dry-run");
+        }
+        if (runtimeOptions.getFeatureCache() != null) {
+            arguments.add("--feature-cache");
+            arguments.add(runtimeOptions.getFeatureCache().getDirectory().getPath());
+        }
+        for (String exclude : runtimeOptions.getExcludes()) {
+            arguments.add("--exclude");
+            arguments.add(exclude);
+        }
+        arguments.addAll(runtimeOptions.getFeaturePaths());
+        return arguments;
+    }
+
+    private static void pump(final InputStream in, final PrintStream out) {
+        Thread pump = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                byte[] buffer = new byte[4096];
+                try {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                } catch (IOException ignore) {
+                    // The fork is gone
+                } finally {
+                    out.flush();
+                }
+            }
+        }, "cucumber-fork-stderr");
+        pump.setDaemon(true);
+        pump.start();
+    }
+
+    private class Fork {
+        private final Process process;
+        private final Writer batches;
+        private final EventReader events;
+
+        Fork(Process process) throws IOException {
+            this.process = process;
+            this.batches = new OutputStreamWriter(process.getOutputStream(), "UTF-8");
+            this.events = new EventReader(new BufferedInputStream(process.getInputStream()));
+        }
+
+        /**
+         * Runs a batch.
+         *
+         * @throws IOException when the fork dies
+         */
+        void run(ScenarioQueue.Batch batch) throws IOException {
+            for (String id : batch.getIds()) {
+                batches.write(id);
+                batches.write("\n");
+            }
+            batches.write("\n");
+            batches.flush();
+
+            RemoteScenario scenario = null;
+            while (true) {
+                // Nothing should come between scenarios, but if it does, it is left out
+                EventRecorder recorder = scenario != null ? scenario : new EventRecorder();
+                int tag = events.read(recorder, recorder);
+                if (tag == -1) {
+                    throw new EOFException("Fork ended");
+                } else if (tag == ForkWorker.SCENARIO_STARTED) {
+                    scenario = batch.start(events.readString());
+                } else if (tag == ForkWorker.UNDEFINED_STEP && scenario != null) {
+                    scenario.readUndefinedStep(events);
+                } else if (tag == ForkWorker.SCENARIO_FINISHED && scenario != null) {
+                    batch.finished(scenario);
+                    scenario = null;
+                } else if (tag == ForkWorker.BATCH_FINISHED) {
+                    return;
+                } else if (tag >= EventWriter.FIRST_FREE_TAG) {
+                    throw new IOException("Unexpected message from fork: " + tag);
+                }
+            }
+        }
+
+        void close() {
+            try {
+                batches.close();
+                process.waitFor();
+            } catch (IOException e) {
+                process.destroy();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroy();
+            }
+        }
+
+        void destroy() {
+            process.destroy();
+        }
+    }
+}
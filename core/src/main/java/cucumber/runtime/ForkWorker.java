@@ -0,0 +1,122 @@
+package cucumber.runtime;
+
+import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.io.ResourceLoaderClassFinder;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenario;
+import gherkin.formatter.model.Step;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+
+/**
+ * The process {@link ForkExecutor} starts for each fork. It loads the glue and features like the main process,
+ * then reads the {@code path:line} of the scenarios to run from standard input, one batch at a time. Each
+ * batch ends with an empty line. Standard input is closed when there is nothing left to run.
+ * <p/>
+ * The events of the scenarios are written to standard output with an {@link EventWriter}. Between them go:
+ * <pre>
+ * SCENARIO_STARTED PATH_LINE   before the events of a scenario
+ * UNDEFINED_STEP STEP_EVENT    after them, for each step the scenario found undefined
+ * SCENARIO_FINISHED            once the scenario has run
+ * BATCH_FINISHED               once the whole batch has run
+ * </pre>
+ * What the glue prints to standard output goes to standard error instead.
+ */
+public class ForkWorker {
+    static final int SCENARIO_STARTED = EventWriter.FIRST_FREE_TAG;
+    static final int SCENARIO_FINISHED = EventWriter.FIRST_FREE_TAG + 1;
+    static final int UNDEFINED_STEP = EventWriter.FIRST_FREE_TAG + 2;
+    static final int BATCH_FINISHED = EventWriter.FIRST_FREE_TAG + 3;
+
+    private final Runtime runtime;
+    private final Map<String, CucumberScenario> scenarios = new HashMap<String, CucumberScenario>();
+    private int reportedUndefinedSteps = 0;
+
+    ForkWorker(Runtime runtime, List<CucumberFeature> cucumberFeatures) {
+        this.runtime = runtime;
+        List<String> ids = Shard.scenarioIds(cucumberFeatures);
+        int next = 0;
+        for (ParallelExecutor.Unit unit : ParallelExecutor.plan(cucumberFeatures)) {
+            if (unit.scenario != null) {
+                scenarios.put(ids.get(next++), unit.scenario);
+            }
+        }
+    }
+
+    public static void main(String[] argv) throws IOException {
+        EventWriter events = new EventWriter(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        System.setOut(System.err);
+
+        RuntimeOptions runtimeOptions = new RuntimeOptions(new ArrayList<String>(asList(argv)));
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        ResourceLoader resourceLoader = runtimeOptions.resourceLoader(classLoader);
+        ResourceLoaderClassFinder classFinder = new ResourceLoaderClassFinder(resourceLoader, classLoader);
+        Runtime runtime = new Runtime(resourceLoader, classFinder, classLoader, runtimeOptions);
+        ForkWorker worker = new ForkWorker(runtime, runtimeOptions.cucumberFeatures(resourceLoader));
+
+        BufferedReader batches = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+        List<String> batch;
+        while ((batch = readBatch(batches)) != null) {
+            worker.run(batch, events);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * @return the scenarios of the next batch, or null when there are no more
+     */
+    static List<String> readBatch(BufferedReader in) throws IOException {
+        List<String> batch = new ArrayList<String>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.length() == 0) {
+                return batch;
+            }
+            batch.add(line);
+        }
+        return null;
+    }
+
+    void run(List<String> batch, EventWriter events) throws IOException {
+        for (String id : batch) {
+            if (!hasScenario(id)) {
+                // The parent tells it was left out
+                continue;
+            }
+            events.getOutput().writeByte(SCENARIO_STARTED);
+            events.writeString(id);
+            runScenario(id, events);
+            events.getOutput().writeByte(SCENARIO_FINISHED);
+        }
+        events.getOutput().writeByte(BATCH_FINISHED);
+        events.flush();
+    }
+
+    boolean hasScenario(String id) {
+        return scenarios.containsKey(id);
+    }
+
+    /**
+     * Writes the events of a scenario, followed by the steps it found undefined.
+     */
+    void runScenario(String id, EventWriter events) throws IOException {
+        scenarios.get(id).run(events, events, runtime);
+        List<Step> undefinedSteps = runtime.undefinedStepsTracker.getUndefinedSteps();
+        for (Step step : undefinedSteps.subList(reportedUndefinedSteps, undefinedSteps.size())) {
+            events.getOutput().writeByte(UNDEFINED_STEP);
+            events.step(step);
+        }
+        reportedUndefinedSteps = undefinedSteps.size();
+    }
+}
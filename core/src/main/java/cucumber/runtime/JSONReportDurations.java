@@ -0,0 +1,134 @@
+package cucumber.runtime;
+
+import gherkin.deps.com.google.gson.stream.JsonReader;
+import gherkin.deps.com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads how long scenarios took from the report of the {@code json} formatter, streaming it so large reports
+ * don't have to fit in memory. A scenario's duration is that of its steps and hooks, plus the background that
+ * ran before it.
+ */
+class JSONReportDurations {
+    private JSONReportDurations() {
+    }
+
+    /**
+     * @param report a report written by the json formatter
+     * @return nanoseconds by {@code path:line}, where an example of a scenario outline has the line of its row
+     */
+    static Map<String, Long> read(File report) {
+        Map<String, Long> durations = new HashMap<String, Long>();
+        try {
+            JsonReader json = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(report), "UTF-8")));
+            try {
+                json.beginArray();
+                while (json.hasNext()) {
+                    readFeature(json, durations);
+                }
+                json.endArray();
+            } finally {
+                json.close();
+            }
+        } catch (IOException e) {
+            throw new CucumberException("Failed to read durations from " + report, e);
+        } catch (IllegalStateException e) {
+            throw new CucumberException("Not a JSON report: " + report, e);
+        }
+        return durations;
+    }
+
+    private static void readFeature(JsonReader json, Map<String, Long> durations) throws IOException {
+        String uri = null;
+        // The uri may come after the elements
+        Map<Integer, Long> byLine = new LinkedHashMap<Integer, Long>();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (name.equals("uri")) {
+                uri = json.nextString();
+            } else if (name.equals("elements")) {
+                readElements(json, byLine);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        if (uri != null) {
+            for (Map.Entry<Integer, Long> scenario : byLine.entrySet()) {
+                durations.put(uri + ":" + scenario.getKey(), scenario.getValue());
+            }
+        }
+    }
+
+    private static void readElements(JsonReader json, Map<Integer, Long> byLine) throws IOException {
+        long background = 0;
+        json.beginArray();
+        while (json.hasNext()) {
+            String type = null;
+            int line = 0;
+            long duration = 0;
+            json.beginObject();
+            while (json.hasNext()) {
+                String name = json.nextName();
+                if (name.equals("type")) {
+                    type = json.nextString();
+                } else if (name.equals("line")) {
+                    line = json.nextInt();
+                } else if (name.equals("steps") || name.equals("before") || name.equals("after")) {
+                    duration += readResultDurations(json);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            if ("background".equals(type)) {
+                background = duration;
+            } else if ("scenario".equals(type)) {
+                byLine.put(line, background + duration);
+                background = 0;
+            }
+        }
+        json.endArray();
+    }
+
+    private static long readResultDurations(JsonReader json) throws IOException {
+        long duration = 0;
+        json.beginArray();
+        while (json.hasNext()) {
+            json.beginObject();
+            while (json.hasNext()) {
+                if (json.nextName().equals("result")) {
+                    duration += readDuration(json);
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        json.endArray();
+        return duration;
+    }
+
+    private static long readDuration(JsonReader json) throws IOException {
+        long duration = 0;
+        json.beginObject();
+        while (json.hasNext()) {
+            if (json.nextName().equals("duration") && json.peek() == JsonToken.NUMBER) {
+                duration = json.nextLong();
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+        return duration;
+    }
+}
@@ -0,0 +1,14 @@
+package cucumber.runtime;
+
+import java.util.regex.Pattern;
+
+/**
+ * A {@link StepDefinition} that matches steps with a {@link JdkPatternArgumentMatcher}. Knowing the
+ * actual pattern lets {@link RuntimeGlue} skip step definitions that can't possibly match a step.
+ */
+public interface JdkPatternStepDefinition extends StepDefinition {
+    /**
+     * @return the pattern used to match step names.
+     */
+    Pattern getCompiledPattern();
+}
@@ -0,0 +1,36 @@
+package cucumber.runtime;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes the same glue method over and over again. Everything that doesn't depend on the target and the
+ * arguments is done once, up front: public methods of public classes skip the access check on every call,
+ * and calls without a timeout don't go through {@link Timeout}.
+ */
+public class MethodInvoker {
+    private final Method method;
+
+    public MethodInvoker(Method method) {
+        this.method = method;
+        if (Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            try {
+                method.setAccessible(true);
+            } catch (SecurityException ignore) {
+                // Fall back to checked invocation
+            }
+        }
+    }
+
+    public Object invoke(final Object target, long timeoutMillis, final Object... args) throws Throwable {
+        if (timeoutMillis == 0) {
+            return Utils.invokeNow(target, method, args);
+        }
+        return Timeout.timeout(new Timeout.Callback<Object>() {
+            @Override
+            public Object call() throws Throwable {
+                return Utils.invokeNow(target, method, args);
+            }
+        }, timeoutMillis);
+    }
+}
@@ -0,0 +1,171 @@
+package cucumber.runtime;
+
+import cucumber.runtime.model.CucumberExamples;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenario;
+import cucumber.runtime.model.CucumberScenarioOutline;
+import cucumber.runtime.model.CucumberTagStatement;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs scenarios on a pool of worker threads. Each worker has its own {@link Runtime}, and therefore
+ * its own backends and glue.
+ * <p/>
+ * All scenarios of all features, including the ones generated from scenario outline examples, are put
+ * on a single queue that idle workers take from. The formatter events of each scenario are recorded and
+ * replayed to the formatters in source order, so the reports are the same as the ones of a sequential run.
+ */
+class ParallelExecutor {
+    private final Runtime runtime;
+    private final int threads;
+
+    ParallelExecutor(Runtime runtime, int threads) {
+        this.runtime = runtime;
+        this.threads = threads;
+    }
+
+    public void run(List<CucumberFeature> features, Formatter formatter, Reporter reporter) {
+        final List<Unit> units = plan(features);
+        final List<Integer> queue = new ArrayList<Integer>();
+        for (int i = 0; i < units.size(); i++) {
+            if (units.get(i).scenario != null) {
+                queue.add(i);
+            }
+        }
+        final AtomicInteger next = new AtomicInteger();
+        final OrderedReplay replay = new OrderedReplay(units, formatter, reporter);
+        replay.flush();
+        int workerCount = Math.min(threads, queue.size());
+        if (workerCount == 0) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        List<Future<Void>> workers = new ArrayList<Future<Void>>();
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        Runtime worker = runtime.createWorker();
+                        int position;
+                        while ((position = next.getAndIncrement()) < queue.size()) {
+                            int index = queue.get(position);
+                            EventRecorder recorder = new EventRecorder();
+                            units.get(index).scenario.run(recorder, recorder, worker);
+                            replay.completed(index, recorder);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CucumberException("Interrupted while running scenarios", e);
+        } catch (ExecutionException e) {
+            throw new CucumberException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Flattens the features into units in source order. The formatter events that don't come from
+     * running a scenario (uri, feature, scenario outline, examples, eof) are recorded right away.
+     * This mirrors what {@link CucumberFeature#run} and {@link CucumberScenarioOutline#run} do.
+     */
+    static List<Unit> plan(List<CucumberFeature> features) {
+        List<Unit> units = new ArrayList<Unit>();
+        for (CucumberFeature feature : features) {
+            EventRecorder header = new EventRecorder();
+            header.uri(feature.getPath());
+            header.feature(feature.getGherkinFeature());
+            units.add(new Unit(header));
+
+            for (CucumberTagStatement statement : feature.getFeatureElements()) {
+                if (statement instanceof CucumberScenarioOutline) {
+                    CucumberScenarioOutline outline = (CucumberScenarioOutline) statement;
+                    EventRecorder outlineEvents = new EventRecorder();
+                    outline.format(outlineEvents);
+                    units.add(new Unit(outlineEvents));
+                    for (CucumberExamples examples : outline.getCucumberExamplesList()) {
+                        EventRecorder examplesEvents = new EventRecorder();
+                        examples.format(examplesEvents);
+                        units.add(new Unit(examplesEvents));
+                        for (CucumberScenario exampleScenario : examples.createExampleScenarios()) {
+                            units.add(new Unit(exampleScenario));
+                        }
+                    }
+                } else {
+                    units.add(new Unit((CucumberScenario) statement));
+                }
+            }
+
+            EventRecorder eof = new EventRecorder();
+            eof.eof();
+            units.add(new Unit(eof));
+        }
+        return units;
+    }
+
+    static class Unit {
+        final CucumberScenario scenario;
+        EventRecorder events;
+
+        Unit(EventRecorder events) {
+            this.scenario = null;
+            this.events = events;
+        }
+
+        Unit(CucumberScenario scenario) {
+            this.scenario = scenario;
+            this.events = null;
+        }
+    }
+
+    /**
+     * Replays units as soon as all the units before them have been replayed.
+     */
+    static class OrderedReplay {
+        private static final EventRecorder EMPTY = new EventRecorder();
+
+        private final List<Unit> units;
+        private final Formatter formatter;
+        private final Reporter reporter;
+        private int next = 0;
+
+        OrderedReplay(List<Unit> units, Formatter formatter, Reporter reporter) {
+            this.units = units;
+            this.formatter = formatter;
+            this.reporter = reporter;
+        }
+
+        synchronized void completed(int index, EventRecorder events) {
+            units.get(index).events = events;
+            flush();
+        }
+
+        synchronized void flush() {
+            while (next < units.size() && units.get(next).events != null) {
+                Unit unit = units.get(next);
+                unit.events.replay(formatter, reporter);
+                // Let the recorded events be garbage collected
+                unit.events = EMPTY;
+                next++;
+            }
+        }
+    }
+}
@@ -1,15 +1,75 @@
 package cucumber.runtime;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Constructor;
+import java.net.URL;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class Reflections {
+    /**
+     * Set to always to also scan packages when {@code META-INF/services} lists implementations, for implementations
+     * that aren't listed. Set to false to never scan packages.
+     */
+    public static final String SCAN_PACKAGES = "cucumber.discovery.scan";
+
+    enum Scan {
+        /**
+         * Scan packages as well as reading {@code META-INF/services}
+         */
+        ALWAYS,
+        /**
+         * Scan packages only when {@code META-INF/services} lists no implementations
+         */
+        FALLBACK,
+        /**
+         * Only read {@code META-INF/services}
+         */
+        NEVER
+    }
+
     private final ClassFinder classFinder;
+    private final ClassLoader classLoader;
+    private final Scan scan;
 
+    /**
+     * Finds implementations by scanning packages.
+     */
     public Reflections(ClassFinder classFinder) {
+        this(classFinder, null, Scan.ALWAYS);
+    }
+
+    /**
+     * Finds the implementations listed in {@code META-INF/services}, like {@link java.util.ServiceLoader} does, and
+     * scans packages only when none are listed. Set {@value #SCAN_PACKAGES} to always when a backend or object
+     * factory isn't listed, but one of another jar is.
+     */
+    public Reflections(ClassFinder classFinder, ClassLoader classLoader) {
+        this(classFinder, classLoader, scan(new Env("cucumber").get(SCAN_PACKAGES)));
+    }
+
+    Reflections(ClassFinder classFinder, ClassLoader classLoader, Scan scan) {
         this.classFinder = classFinder;
+        this.classLoader = classLoader;
+        this.scan = scan;
+    }
+
+    static Scan scan(String value) {
+        if (value == null) {
+            return Scan.FALLBACK;
+        } else if ("always".equals(value)) {
+            return Scan.ALWAYS;
+        } else if ("false".equals(value)) {
+            return Scan.NEVER;
+        } else {
+            throw new CucumberException(SCAN_PACKAGES + " must be always or false, not " + value);
+        }
     }
 
     public <T> T instantiateExactlyOneSubclass(Class<T> parentType, String packageName, Class[] constructorParams, Object[] constructorArgs) {
@@ -25,7 +85,7 @@ public class Reflections {
 
     public <T> Collection<? extends T> instantiateSubclasses(Class<T> parentType, String packageName, Class[] constructorParams, Object[] constructorArgs) {
         Collection<T> result = new HashSet<T>();
-        for (Class<? extends T> clazz : classFinder.getDescendants(parentType, packageName)) {
+        for (Class<? extends T> clazz : findImplementations(parentType, packageName)) {
             if (Utils.isInstantiable(clazz) && hasConstructor(clazz, constructorParams)) {
                 result.add(newInstance(constructorParams, constructorArgs, clazz));
             }
@@ -48,6 +108,62 @@ public class Reflections {
         }
     }
 
+    private <T> Collection<Class<? extends T>> findImplementations(Class<T> parentType, String packageName) {
+        Set<Class<? extends T>> result = new LinkedHashSet<Class<? extends T>>();
+        if (classLoader != null) {
+            result.addAll(loadServices(parentType));
+        }
+        if (scan == Scan.ALWAYS || (scan == Scan.FALLBACK && result.isEmpty())) {
+            result.addAll(classFinder.getDescendants(parentType, packageName));
+        }
+        return result;
+    }
+
+    /**
+     * Reads the class names in the {@code META-INF/services} files for a type. {@link java.util.ServiceLoader} can't
+     * be used, because it only calls no-argument constructors, and backends take a {@link cucumber.runtime.io.ResourceLoader}.
+     */
+    private <T> Collection<Class<? extends T>> loadServices(Class<T> parentType) {
+        Set<Class<? extends T>> result = new LinkedHashSet<Class<? extends T>>();
+        String servicesPath = "META-INF/services/" + parentType.getName();
+        try {
+            Enumeration<URL> servicesFiles = classLoader.getResources(servicesPath);
+            while (servicesFiles.hasMoreElements()) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(servicesFiles.nextElement().openStream(), "UTF-8"));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int comment = line.indexOf('#');
+                        String className = (comment == -1 ? line : line.substring(0, comment)).trim();
+                        if (className.length() > 0) {
+                            Class<? extends T> clazz = loadService(parentType, className);
+                            if (clazz != null) {
+                                result.add(clazz);
+                            }
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new CucumberException("Failed to read " + servicesPath, e);
+        }
+        return result;
+    }
+
+    private <T> Class<? extends T> loadService(Class<T> parentType, String className) {
+        try {
+            Class<?> clazz = classLoader.loadClass(className);
+            return parentType.isAssignableFrom(clazz) ? clazz.asSubclass(parentType) : null;
+        } catch (ClassNotFoundException ignore) {
+            // Same as when scanning: a class whose dependencies are missing can't be used
+            return null;
+        } catch (NoClassDefFoundError ignore) {
+            return null;
+        }
+    }
+
     private boolean hasConstructor(Class<?> clazz, Class[] paramTypes) {
         try {
             clazz.getConstructor(paramTypes);
@@ -56,6 +172,4 @@ public class Reflections {
             return false;
         }
     }
-
-
 }
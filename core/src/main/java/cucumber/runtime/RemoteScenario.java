@@ -0,0 +1,111 @@
+package cucumber.runtime;
+
+import cucumber.api.PendingException;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The events of a scenario that ran in another process, and what they add to the stats, errors and
+ * undefined steps of the {@link Runtime} here.
+ */
+class RemoteScenario extends EventRecorder {
+    private final Runtime runtime;
+    private final String id;
+    private final List<Result> stepResults = new ArrayList<Result>();
+    private final List<Result> hookResults = new ArrayList<Result>();
+    private final List<Step> undefinedSteps = new ArrayList<Step>();
+
+    RemoteScenario(Runtime runtime, String id) {
+        this.runtime = runtime;
+        this.id = id;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    @Override
+    public void before(Match match, Result result) {
+        super.before(match, result);
+        hookResults.add(result);
+    }
+
+    @Override
+    public void result(Result result) {
+        super.result(result);
+        stepResults.add(result);
+    }
+
+    @Override
+    public void after(Match match, Result result) {
+        super.after(match, result);
+        hookResults.add(result);
+    }
+
+    /**
+     * Reads a step the scenario found undefined, which must be the next event.
+     */
+    void readUndefinedStep(EventReader events) throws IOException {
+        EventRecorder step = new EventRecorder() {
+            @Override
+            public void step(Step step) {
+                undefinedSteps.add(step);
+            }
+        };
+        if (events.read(step, step) != EventWriter.STEP) {
+            throw new IOException("Expected an undefined step of " + id);
+        }
+    }
+
+    @Override
+    public void replay(Formatter formatter, Reporter reporter) {
+        // Replays are in source order, so the snippets come out in the same order as in a sequential run
+        runtime.undefinedStepsTracker.addUndefinedSteps(undefinedSteps);
+        super.replay(formatter, reporter);
+    }
+
+    /**
+     * Does what {@link Runtime} does for each step and hook, once the whole scenario has come in.
+     */
+    void addToRuntime() {
+        // Only to work out the status of the scenario
+        ScenarioImpl scenario = new ScenarioImpl(null, Collections.<Tag>emptySet(), new Scenario(null, null, null, null, null, null, null));
+        List<Result> results = new ArrayList<Result>(hookResults);
+        results.addAll(stepResults);
+        for (Result result : results) {
+            scenario.add(result);
+            addError(result);
+        }
+        for (Result result : stepResults) {
+            runtime.getStats().addStep(result);
+        }
+        for (Result result : hookResults) {
+            runtime.getStats().addHookTime(result.getDuration());
+        }
+        runtime.getStats().addScenario(scenario.getStatus());
+    }
+
+    private void addError(Result result) {
+        if (result.getErrorMessage() == null) {
+            return;
+        }
+        if (result.getError() != null) {
+            runtime.addError(result.getError());
+        } else if (Stats.PENDING.equals(result.getStatus())) {
+            // Only the message of the error was written, but it has to count as pending
+            runtime.addError(new PendingException(result.getErrorMessage()));
+        } else {
+            runtime.addError(new CucumberException(result.getErrorMessage()));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package cucumber.runtime;
+
+import cucumber.runtime.model.CucumberFeature;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the scenarios a {@link Coordinator} hands out, and sends back their events. A worker must load the same
+ * features as the coordinator, from the same paths, as scenarios are known by their {@code path:line}.
+ */
+public class RemoteWorker {
+    static final long CONNECT_RETRY_MILLIS = 500;
+    /**
+     * How long to wait for the lease once connected. After that, a silent lease means the coordinator is gone.
+     */
+    static final int HANDSHAKE_TIMEOUT_MILLIS = 60000;
+
+    private final ForkWorker worker;
+
+    /**
+     * @param runtime          runs the scenarios, with the glue of this process
+     * @param cucumberFeatures the features the coordinator has
+     */
+    public RemoteWorker(Runtime runtime, List<CucumberFeature> cucumberFeatures) {
+        this.worker = new ForkWorker(runtime, cucumberFeatures);
+    }
+
+    /**
+     * Runs batches until the coordinator has no more, connecting only once.
+     *
+     * @param coordinator where the coordinator listens
+     * @throws IOException if the coordinator can't be reached or goes away
+     */
+    public void run(InetSocketAddress coordinator) throws IOException {
+        run(coordinator, 0);
+    }
+
+    /**
+     * Runs batches until the coordinator has no more.
+     *
+     * @param coordinator   where the coordinator listens
+     * @param connectMillis how long to keep trying to connect, for workers that start before the coordinator
+     * @throws IOException if the coordinator can't be reached in time or goes away
+     */
+    public void run(InetSocketAddress coordinator, long connectMillis) throws IOException {
+        Socket socket = connect(coordinator, connectMillis);
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(Coordinator.MAGIC);
+            out.writeInt(Coordinator.VERSION);
+            out.flush();
+            long leaseMillis = in.readLong();
+            // The coordinator sends something at least once per lease while this worker waits for a batch
+            socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, Math.max(1, leaseMillis)));
+
+            Heartbeat heartbeat = new Heartbeat(socket, out, Math.max(1, leaseMillis / 3));
+            heartbeat.start();
+            try {
+                List<String> batch = readBatch(in);
+                if (batch == null) {
+                    System.err.println("The coordinator at " + coordinator + " has no scenarios left");
+                }
+                for (; batch != null; batch = readBatch(in)) {
+                    for (String id : batch) {
+                        if (worker.hasScenario(id)) {
+                            send(id, runScenario(id), out);
+                        }
+                    }
+                    synchronized (out) {
+                        out.writeByte(Coordinator.BATCH_FINISHED);
+                        out.flush();
+                    }
+                }
+            } finally {
+                heartbeat.interrupt();
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static Socket connect(InetSocketAddress coordinator, long connectMillis) throws IOException {
+        long deadline = System.currentTimeMillis() + connectMillis;
+        while (true) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(coordinator);
+                return socket;
+            } catch (IOException e) {
+                socket.close();
+                if (System.currentTimeMillis() + CONNECT_RETRY_MILLIS > deadline) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(CONNECT_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while connecting to " + coordinator);
+            }
+        }
+    }
+
+    /**
+     * @return the next batch, or null when there are no more
+     */
+    private static List<String> readBatch(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        while (count == Coordinator.WAIT) {
+            count = in.readInt();
+        }
+        if (count == 0) {
+            return null;
+        }
+        List<String> batch = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(in.readUTF());
+        }
+        return batch;
+    }
+
+    private byte[] runScenario(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventWriter events = new EventWriter(bytes);
+        worker.runScenario(id, events);
+        events.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void send(String id, byte[] events, DataOutputStream out) throws IOException {
+        synchronized (out) {
+            out.writeByte(Coordinator.SCENARIO);
+            out.writeUTF(id);
+            out.writeInt(events.length);
+            out.write(events);
+            out.flush();
+        }
+    }
+
+    /**
+     * Keeps the lease of the batch while a scenario takes long.
+     */
+    private static class Heartbeat extends Thread {
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final long intervalMillis;
+
+        Heartbeat(Socket socket, DataOutputStream out, long intervalMillis) {
+            super("cucumber-worker-heartbeat");
+            setDaemon(true);
+            this.socket = socket;
+            this.out = out;
+            this.intervalMillis = intervalMillis;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    Thread.sleep(intervalMillis);
+                    synchronized (out) {
+                        out.writeByte(Coordinator.HEARTBEAT);
+                        out.flush();
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Done
+            } catch (IOException e) {
+                // Makes the worker fail too, also when it's waiting for the next batch
+                try {
+                    socket.close();
+                } catch (IOException ignore) {
+                    // Nothing to do
+                }
+            }
+        }
+    }
+}
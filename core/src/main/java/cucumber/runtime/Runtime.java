@@ -42,25 +42,25 @@ public class Runtime implements UnreportedStepExecutor {
     private static final Object DUMMY_ARG = new Object();
     private static final byte ERRORS = 0x1;
 
+    // Stats, errors and undefined steps are shared with worker runtimes when running in parallel.
     private final Stats stats;
-    final UndefinedStepsTracker undefinedStepsTracker = new UndefinedStepsTracker();
+    final UndefinedStepsTracker undefinedStepsTracker;
 
     private final Glue glue;
     private final RuntimeOptions runtimeOptions;
 
-    private final List<Throwable> errors = new ArrayList<Throwable>();
+    private final List<Throwable> errors;
     private final Collection<? extends Backend> backends;
     private final ResourceLoader resourceLoader;
+    private final ClassFinder classFinder;
     private final ClassLoader classLoader;
     private final StopWatch stopWatch;
 
-    //TODO: These are really state machine variables, and I'm not sure the runtime is the best place for this state machine
-    //They really should be created each time a scenario is run, not in here
-    private boolean skipNextStep = false;
-    private ScenarioImpl scenarioResult = null;
+    // The state of the scenario currently running. A Runtime is only ever used by one thread at a time.
+    private ScenarioExecution scenario = null;
 
     public Runtime(ResourceLoader resourceLoader, ClassFinder classFinder, ClassLoader classLoader, RuntimeOptions runtimeOptions) {
-        this(resourceLoader, classLoader, loadBackends(resourceLoader, classFinder), runtimeOptions);
+        this(resourceLoader, classFinder, classLoader, loadBackends(resourceLoader, classFinder, classLoader), runtimeOptions, StopWatch.SYSTEM, null);
     }
 
     public Runtime(ResourceLoader resourceLoader, ClassLoader classLoader, Collection<? extends Backend> backends, RuntimeOptions runtimeOptions) {
@@ -74,25 +74,79 @@ public class Runtime implements UnreportedStepExecutor {
 
     public Runtime(ResourceLoader resourceLoader, ClassLoader classLoader, Collection<? extends Backend> backends,
                    RuntimeOptions runtimeOptions, StopWatch stopWatch, RuntimeGlue optionalGlue) {
+        this(resourceLoader, null, classLoader, backends, runtimeOptions, stopWatch, optionalGlue);
+    }
+
+    private Runtime(ResourceLoader resourceLoader, ClassFinder classFinder, ClassLoader classLoader, Collection<? extends Backend> backends,
+                    RuntimeOptions runtimeOptions, StopWatch stopWatch, RuntimeGlue optionalGlue) {
         if (backends.isEmpty()) {
             throw new CucumberException("No backends were found. Please make sure you have a backend module on your CLASSPATH.");
         }
         this.resourceLoader = resourceLoader;
+        this.classFinder = classFinder;
         this.classLoader = classLoader;
         this.backends = backends;
         this.runtimeOptions = runtimeOptions;
         this.stopWatch = stopWatch;
+        this.undefinedStepsTracker = new UndefinedStepsTracker();
+        this.errors = Collections.synchronizedList(new ArrayList<Throwable>());
         this.glue = optionalGlue != null ? optionalGlue : new RuntimeGlue(undefinedStepsTracker, new LocalizedXStreams(classLoader));
         this.stats = new Stats(runtimeOptions.isMonochrome());
+        loadGlue();
+    }
 
+    /**
+     * Creates a worker runtime with its own backends and glue, reporting into the stats, errors and
+     * undefined steps of {@code parent}.
+     */
+    private Runtime(Runtime parent, Collection<? extends Backend> backends) {
+        this.resourceLoader = parent.resourceLoader;
+        this.classFinder = parent.classFinder;
+        this.classLoader = parent.classLoader;
+        this.backends = backends;
+        this.runtimeOptions = parent.runtimeOptions;
+        this.stopWatch = parent.stopWatch;
+        this.undefinedStepsTracker = parent.undefinedStepsTracker;
+        this.errors = parent.errors;
+        this.glue = new RuntimeGlue(undefinedStepsTracker, new LocalizedXStreams(classLoader));
+        this.stats = parent.stats;
+        loadGlue();
+    }
+
+    /**
+     * Creates a runtime for another run with the backends and glue of {@code warm}, so the glue isn't loaded
+     * again. Stats, errors and undefined steps start from scratch. The two runtimes must not run at the same time.
+     *
+     * @param warm           a runtime whose glue was loaded with the same glue paths as {@code runtimeOptions}
+     * @param resourceLoader where the features are loaded from
+     * @param runtimeOptions the options of this run
+     */
+    public Runtime(Runtime warm, ResourceLoader resourceLoader, RuntimeOptions runtimeOptions) {
+        this.resourceLoader = resourceLoader;
+        this.classFinder = warm.classFinder;
+        this.classLoader = warm.classLoader;
+        this.backends = warm.backends;
+        this.runtimeOptions = runtimeOptions;
+        this.stopWatch = warm.stopWatch;
+        this.undefinedStepsTracker = warm.undefinedStepsTracker;
+        this.undefinedStepsTracker.clear();
+        this.errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        this.glue = warm.glue;
+        this.stats = new Stats(runtimeOptions.isMonochrome());
+        for (Backend backend : backends) {
+            backend.setUnreportedStepExecutor(this);
+        }
+    }
+
+    private void loadGlue() {
         for (Backend backend : backends) {
             backend.loadGlue(glue, runtimeOptions.getGlue());
             backend.setUnreportedStepExecutor(this);
         }
     }
 
-    private static Collection<? extends Backend> loadBackends(ResourceLoader resourceLoader, ClassFinder classFinder) {
-        Reflections reflections = new Reflections(classFinder);
+    private static Collection<? extends Backend> loadBackends(ResourceLoader resourceLoader, ClassFinder classFinder, ClassLoader classLoader) {
+        Reflections reflections = new Reflections(classFinder, classLoader);
         return reflections.instantiateSubclasses(Backend.class, "cucumber.runtime", new Class[]{ResourceLoader.class}, new Object[]{resourceLoader});
     }
 
@@ -104,26 +158,49 @@ public class Runtime implements UnreportedStepExecutor {
      * This is the main entry point. Used from CLI, but not from JUnit.
      */
     public void run() throws IOException {
-        for (CucumberFeature cucumberFeature : runtimeOptions.cucumberFeatures(resourceLoader)) {
-            run(cucumberFeature);
-        }
+        List<CucumberFeature> cucumberFeatures = runtimeOptions.cucumberFeatures(resourceLoader);
         Formatter formatter = runtimeOptions.formatter(classLoader);
+        Reporter reporter = runtimeOptions.reporter(classLoader);
+
+        if (runtimeOptions.getCoordinator() != null) {
+            long leaseMillis = runtimeOptions.getLeaseTimeout() * 1000L;
+            new Coordinator(this, runtimeOptions.getCoordinator(), leaseMillis).run(cucumberFeatures, formatter, reporter);
+        } else if (runtimeOptions.getForks() > 1) {
+            new ForkExecutor(this, runtimeOptions).run(cucumberFeatures, formatter, reporter);
+        } else if (canRunInParallel()) {
+            new ParallelExecutor(this, runtimeOptions.getThreads()).run(cucumberFeatures, formatter, reporter);
+        } else {
+            for (CucumberFeature cucumberFeature : cucumberFeatures) {
+                cucumberFeature.run(formatter, reporter, this);
+            }
+        }
 
         formatter.done();
         formatter.close();
         printSummary();
     }
 
-    private void run(CucumberFeature cucumberFeature) {
-        Formatter formatter = runtimeOptions.formatter(classLoader);
-        Reporter reporter = runtimeOptions.reporter(classLoader);
-        cucumberFeature.run(formatter, reporter, this);
+    /**
+     * Worker runtimes need their own backends, so we can only run in parallel when
+     * we know how to load them.
+     */
+    private boolean canRunInParallel() {
+        return runtimeOptions.getThreads() > 1 && classFinder != null;
+    }
+
+    Runtime createWorker() {
+        return new Runtime(this, loadBackends(resourceLoader, classFinder, classLoader));
     }
 
     public void printSummary() {
         // TODO: inject a SummaryPrinter in the ctor
         new SummaryPrinter(System.out).print(this);
         writeStepdefsJson();
+        runtimeOptions.saveDurations();
+    }
+
+    Stats getStats() {
+        return stats;
     }
 
     void printStats(PrintStream out) {
@@ -139,18 +216,23 @@ public class Runtime implements UnreportedStepExecutor {
             backend.buildWorld();
         }
         undefinedStepsTracker.reset();
-        //TODO: this is the initial state of the state machine, it should not go here, but into something else
-        skipNextStep = false;
-        scenarioResult = new ScenarioImpl(reporter, tags, gherkinScenario);
+        scenario = new ScenarioExecution(new ScenarioImpl(reporter, tags, gherkinScenario));
     }
 
     public void disposeBackendWorlds() {
-        stats.addScenario(scenarioResult.getStatus());
+        stats.addScenario(scenario.result.getStatus());
         for (Backend backend : backends) {
             backend.disposeWorld();
         }
     }
 
+    /**
+     * @return the scenarios that took a lot longer than in earlier runs, when durations are kept in --dotcucumber
+     */
+    public List<String> getSlowScenarios() {
+        return runtimeOptions.getSlowScenarios();
+    }
+
     public List<Throwable> getErrors() {
         return errors;
     }
@@ -219,12 +301,12 @@ public class Runtime implements UnreportedStepExecutor {
             Match match = new Match(Collections.<Argument>emptyList(), hook.getLocation(false));
             stopWatch.start();
             try {
-                hook.execute(scenarioResult);
+                hook.execute(scenario.result);
             } catch (Throwable t) {
                 error = t;
                 status = isPending(t) ? "pending" : Result.FAILED;
                 addError(t);
-                skipNextStep = true;
+                scenario.skipNextStep = true;
             } finally {
                 long duration = stopWatch.stop();
                 Result result = new Result(status, duration, error, DUMMY_ARG);
@@ -269,7 +351,7 @@ public class Runtime implements UnreportedStepExecutor {
             reporter.result(result);
             addStepToCounterAndResult(result);
             addError(e);
-            skipNextStep = true;
+            scenario.skipNextStep = true;
             return;
         }
 
@@ -279,15 +361,15 @@ public class Runtime implements UnreportedStepExecutor {
             reporter.match(Match.UNDEFINED);
             reporter.result(Result.UNDEFINED);
             addStepToCounterAndResult(Result.UNDEFINED);
-            skipNextStep = true;
+            scenario.skipNextStep = true;
             return;
         }
 
         if (runtimeOptions.isDryRun()) {
-            skipNextStep = true;
+            scenario.skipNextStep = true;
         }
 
-        if (skipNextStep) {
+        if (scenario.skipNextStep) {
             addStepToCounterAndResult(Result.SKIPPED);
             reporter.result(Result.SKIPPED);
         } else {
@@ -300,7 +382,7 @@ public class Runtime implements UnreportedStepExecutor {
                 error = t;
                 status = isPending(t) ? "pending" : Result.FAILED;
                 addError(t);
-                skipNextStep = true;
+                scenario.skipNextStep = true;
             } finally {
                 long duration = stopWatch.stop();
                 Result result = new Result(status, duration, error, DUMMY_ARG);
@@ -318,12 +400,24 @@ public class Runtime implements UnreportedStepExecutor {
     }
 
     private void addStepToCounterAndResult(Result result) {
-        scenarioResult.add(result);
+        scenario.result.add(result);
         stats.addStep(result);
     }
 
     private void addHookToCounterAndResult(Result result) {
-        scenarioResult.add(result);
+        scenario.result.add(result);
         stats.addHookTime(result.getDuration());
     }
+
+    /**
+     * The state machine of a single scenario. Created each time a scenario starts.
+     */
+    private static class ScenarioExecution {
+        private final ScenarioImpl result;
+        private boolean skipNextStep = false;
+
+        private ScenarioExecution(ScenarioImpl result) {
+            this.result = result;
+        }
+    }
 }
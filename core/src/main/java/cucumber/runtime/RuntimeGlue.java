@@ -34,6 +34,8 @@ public class RuntimeGlue implements Glue {
 
     private final UndefinedStepsTracker tracker;
     private final LocalizedXStreams localizedXStreams;
+    private final StepMatchCache stepMatchCache = new StepMatchCache();
+    private StepDefinitionIndex stepDefinitionIndex;
 
     public RuntimeGlue(UndefinedStepsTracker tracker, LocalizedXStreams localizedXStreams) {
         this.tracker = tracker;
@@ -47,6 +49,8 @@ public class RuntimeGlue implements Glue {
             throw new DuplicateStepDefinitionException(previous, stepDefinition);
         }
         stepDefinitionsByPattern.put(stepDefinition.getPattern(), stepDefinition);
+        stepDefinitionIndex = null;
+        stepMatchCache.clear();
     }
 
     @Override
@@ -73,7 +77,7 @@ public class RuntimeGlue implements Glue {
 
     @Override
     public StepDefinitionMatch stepDefinitionMatch(String featurePath, Step step, I18n i18n) {
-        List<StepDefinitionMatch> matches = stepDefinitionMatches(featurePath, step);
+        List<StepDefinitionMatch> matches = stepDefinitionMatches(featurePath, step, i18n);
         try {
             if (matches.size() == 0) {
                 tracker.addUndefinedStep(step, i18n);
@@ -89,17 +93,42 @@ public class RuntimeGlue implements Glue {
         }
     }
 
-    private List<StepDefinitionMatch> stepDefinitionMatches(String featurePath, Step step) {
-        List<StepDefinitionMatch> result = new ArrayList<StepDefinitionMatch>();
-        for (StepDefinition stepDefinition : stepDefinitionsByPattern.values()) {
-            List<Argument> arguments = stepDefinition.matchedArguments(step);
-            if (arguments != null) {
-                result.add(new StepDefinitionMatch(arguments, stepDefinition, featurePath, step, localizedXStreams));
+    private List<StepDefinitionMatch> stepDefinitionMatches(String featurePath, Step step, I18n i18n) {
+        String isoCode = i18n == null ? null : i18n.getIsoCode();
+        List<StepMatchCache.CachedMatch> cachedMatches = stepMatchCache.get(step.getName(), isoCode);
+        if (cachedMatches == null) {
+            cachedMatches = new ArrayList<StepMatchCache.CachedMatch>();
+            for (StepDefinition stepDefinition : stepDefinitionIndex().candidates(step.getName())) {
+                List<Argument> arguments = stepDefinition.matchedArguments(step);
+                if (arguments != null) {
+                    cachedMatches.add(new StepMatchCache.CachedMatch(stepDefinition, arguments));
+                }
             }
+            stepMatchCache.put(step.getName(), isoCode, cachedMatches);
+        }
+
+        List<StepDefinitionMatch> result = new ArrayList<StepDefinitionMatch>(cachedMatches.size());
+        for (StepMatchCache.CachedMatch cachedMatch : cachedMatches) {
+            result.add(new StepDefinitionMatch(cachedMatch.arguments, cachedMatch.stepDefinition, featurePath, step, localizedXStreams));
         }
         return result;
     }
 
+    /**
+     * @return the cache of step matches, which tells how often a step name didn't have to be matched again.
+     */
+    public StepMatchCache getStepMatchCache() {
+        return stepMatchCache;
+    }
+
+    private StepDefinitionIndex stepDefinitionIndex() {
+        // Built once all the glue has been loaded, which is before the first step is matched.
+        if (stepDefinitionIndex == null) {
+            stepDefinitionIndex = new StepDefinitionIndex(stepDefinitionsByPattern.values());
+        }
+        return stepDefinitionIndex;
+    }
+
     @Override
     public void writeStepdefsJson(ResourceLoader resourceLoader, List<String> featurePaths, URL dotCucumber) {
         if (dotCucumber != null) {
@@ -4,18 +4,24 @@ import cucumber.api.SnippetType;
 import cucumber.runtime.formatter.ColorAware;
 import cucumber.runtime.formatter.FormatterFactory;
 import cucumber.runtime.formatter.StrictAware;
+import cucumber.runtime.io.ExcludeGlobs;
+import cucumber.runtime.io.FileResourceLoader;
+import cucumber.runtime.io.MultiLoader;
 import cucumber.runtime.io.ResourceLoader;
 import cucumber.runtime.model.CucumberFeature;
 import gherkin.formatter.Formatter;
 import gherkin.formatter.Reporter;
 import gherkin.util.FixJava;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URL;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.regex.Pattern;
 
@@ -32,12 +38,30 @@ public class RuntimeOptions {
     private final List<String> featurePaths = new ArrayList<String>();
     private final List<String> formatterNames = new ArrayList<String>();
     private final FormatterFactory formatterFactory;
+    private final boolean exitOnHelp;
+    private boolean helpRequested;
+    private boolean versionRequested;
     private URL dotCucumber;
     private boolean dryRun;
     private boolean strict = false;
     private boolean monochrome = false;
     private SnippetType snippetType = SnippetType.UNDERSCORE;
+    private int threads = 1;
+    private int forks = 1;
+    private InetSocketAddress coordinator;
+    private InetSocketAddress worker;
+    private int leaseTimeout = 60;
+    private boolean asyncFormatters = false;
+    private AsyncFormatter asyncFormatter;
     private boolean formattersCreated = false;
+    private FeatureCache featureCache;
+    private final List<String> excludes = new ArrayList<String>();
+    private int scanThreads = 1;
+    private boolean watch = false;
+    private Shard shard;
+    private DurationHistory durationHistory;
+    private DurationRecorder durationRecorder;
+    private File shardDurations;
 
     /**
      * Create a new instance from a string of options, for example:
@@ -70,7 +94,16 @@ public class RuntimeOptions {
     }
 
     public RuntimeOptions(Env env, FormatterFactory formatterFactory, List<String> argv) {
+        this(env, formatterFactory, argv, true);
+    }
+
+    /**
+     * @param exitOnHelp false to only record --help and --version, see {@link #isHelpRequested()} and
+     *                   {@link #isVersionRequested()}, instead of printing and exiting the JVM
+     */
+    public RuntimeOptions(Env env, FormatterFactory formatterFactory, List<String> argv, boolean exitOnHelp) {
         this.formatterFactory = formatterFactory;
+        this.exitOnHelp = exitOnHelp;
 
         argv = new ArrayList<String>(argv); // in case the one passed in is unmodifiable.
         parse(argv);
@@ -94,9 +127,17 @@ public class RuntimeOptions {
             String arg = args.remove(0).trim();
 
             if (arg.equals("--help") || arg.equals("-h")) {
+                if (!exitOnHelp) {
+                    helpRequested = true;
+                    return;
+                }
                 printUsage();
                 System.exit(0);
             } else if (arg.equals("--version") || arg.equals("-v")) {
+                if (!exitOnHelp) {
+                    versionRequested = true;
+                    return;
+                }
                 System.out.println(VERSION);
                 System.exit(0);
             } else if (arg.equals("--glue") || arg.equals("-g")) {
@@ -118,6 +159,46 @@ public class RuntimeOptions {
             } else if (arg.equals("--snippets")) {
                 String nextArg = args.remove(0);
                 snippetType = SnippetType.fromString(nextArg);
+            } else if (arg.equals("--threads")) {
+                String nextArg = args.remove(0);
+                threads = Integer.parseInt(nextArg);
+                if (threads < 1) {
+                    throw new CucumberException("--threads must be at least 1: " + nextArg);
+                }
+            } else if (arg.equals("--forks")) {
+                String nextArg = args.remove(0);
+                forks = Integer.parseInt(nextArg);
+                if (forks < 1) {
+                    throw new CucumberException("--forks must be at least 1: " + nextArg);
+                }
+            } else if (arg.equals("--coordinator")) {
+                coordinator = address(arg, args.remove(0), false);
+            } else if (arg.equals("--worker")) {
+                worker = address(arg, args.remove(0), true);
+            } else if (arg.equals("--lease-timeout")) {
+                String nextArg = args.remove(0);
+                leaseTimeout = Integer.parseInt(nextArg);
+                if (leaseTimeout < 1) {
+                    throw new CucumberException("--lease-timeout must be at least 1: " + nextArg);
+                }
+            } else if (arg.equals("--no-async-formatters") || arg.equals("--async-formatters")) {
+                asyncFormatters = !arg.startsWith("--no-");
+            } else if (arg.equals("--feature-cache")) {
+                featureCache = new FeatureCache(new File(args.remove(0)));
+            } else if (arg.equals("--exclude")) {
+                excludes.add(args.remove(0));
+            } else if (arg.equals("--scan-threads")) {
+                String nextArg = args.remove(0);
+                scanThreads = Integer.parseInt(nextArg);
+                if (scanThreads < 1) {
+                    throw new CucumberException("--scan-threads must be at least 1: " + nextArg);
+                }
+            } else if (arg.equals("--shard")) {
+                shard = Shard.parse(args.remove(0));
+            } else if (arg.equals("--shard-durations")) {
+                shardDurations = new File(args.remove(0));
+            } else if (arg.equals("--watch")) {
+                watch = true;
             } else if (arg.equals("--name") || arg.equals("-n")) {
                 String nextArg = args.remove(0);
                 Pattern patternFilter = Pattern.compile(nextArg);
@@ -143,12 +224,72 @@ public class RuntimeOptions {
         }
     }
 
+    /**
+     * @param address HOST:PORT, or just PORT for the loopback interface when the host is optional
+     */
+    private static InetSocketAddress address(String option, String address, boolean hostRequired) {
+        int colon = address.lastIndexOf(':');
+        if (colon == -1 && hostRequired) {
+            throw new CucumberException(option + " must be HOST:PORT: " + address);
+        }
+        try {
+            int port = Integer.parseInt(address.substring(colon + 1));
+            if (colon == -1) {
+                // Other machines only get in when asked for with a host, such as 0.0.0.0 for all interfaces
+                return new InetSocketAddress(InetAddress.getByName(null), port);
+            }
+            return new InetSocketAddress(address.substring(0, colon), port);
+        } catch (UnknownHostException e) {
+            throw new CucumberException("Bad address for " + option + ": " + address, e);
+        } catch (IllegalArgumentException e) {
+            throw new CucumberException("Bad address for " + option + ": " + address, e);
+        }
+    }
+
+    /**
+     * @return whether --help was given, when constructed not to exit on it
+     */
+    public boolean isHelpRequested() {
+        return helpRequested;
+    }
+
+    /**
+     * @return whether --version was given, when constructed not to exit on it
+     */
+    public boolean isVersionRequested() {
+        return versionRequested;
+    }
+
     private void printUsage() {
         System.out.println(USAGE);
     }
 
+    /**
+     * @return a resource loader that walks directories with the --exclude and --scan-threads options
+     */
+    public ResourceLoader resourceLoader(ClassLoader classLoader) {
+        return new MultiLoader(classLoader, new FileResourceLoader(new ExcludeGlobs(excludes), scanThreads));
+    }
+
     public List<CucumberFeature> cucumberFeatures(ResourceLoader resourceLoader) {
-        return load(resourceLoader, featurePaths, filters, System.out);
+        List<CucumberFeature> cucumberFeatures = load(resourceLoader, featurePaths, filters, featureCache, System.out);
+        if (shard != null) {
+            cucumberFeatures = shard.select(cucumberFeatures, shardDurations());
+        }
+        return cucumberFeatures;
+    }
+
+    /**
+     * Only the --shard-durations report is used, and not the durations kept in --dotcucumber, because those
+     * differ from machine to machine. All shards must split the scenarios the same way, or some scenarios run
+     * twice and others never.
+     */
+    Map<String, Long> shardDurations() {
+        if (shardDurations != null && shardDurations.isFile()) {
+            return JSONReportDurations.read(shardDurations);
+        }
+        // The first run has no report yet
+        return Collections.emptyMap();
     }
 
     List<Formatter> getFormatters() {
@@ -159,35 +300,61 @@ public class RuntimeOptions {
                 setMonochromeOnColorAwareFormatters(formatter);
                 setStrictOnStrictAwareFormatters(formatter);
             }
+            if (!dryRun && getDurationHistory() != null) {
+                durationRecorder = new DurationRecorder(getDurationHistory());
+                formatters.add(durationRecorder);
+            }
             formattersCreated = true;
         }
         return formatters;
     }
 
+    /**
+     * @return the durations of earlier runs, kept in the --dotcucumber directory, or null without one
+     */
+    public synchronized DurationHistory getDurationHistory() {
+        if (durationHistory == null) {
+            durationHistory = DurationHistory.inDotCucumber(dotCucumber);
+        }
+        return durationHistory;
+    }
+
+    /**
+     * @return the scenarios of this run that took a lot longer than usual
+     */
+    List<String> getSlowScenarios() {
+        return durationRecorder == null ? Collections.<String>emptyList() : durationRecorder.getSlowScenarios();
+    }
+
+    /**
+     * Writes the durations of this run to the --dotcucumber directory.
+     */
+    void saveDurations() {
+        if (durationRecorder != null) {
+            getDurationHistory().save();
+        }
+    }
+
     public Formatter formatter(ClassLoader classLoader) {
-        return (Formatter) Proxy.newProxyInstance(classLoader, new Class<?>[]{Formatter.class}, new InvocationHandler() {
-            @Override
-            public Object invoke(Object target, Method method, Object[] args) throws Throwable {
-                for (Formatter formatter : getFormatters()) {
-                    Utils.invoke(formatter, method, 0, args);
-                }
-                return null;
-            }
-        });
+        if (asyncFormatters) {
+            return asyncFormatter();
+        }
+        return new CompositeFormatter(this);
     }
 
     public Reporter reporter(ClassLoader classLoader) {
-        return (Reporter) Proxy.newProxyInstance(classLoader, new Class<?>[]{Reporter.class}, new InvocationHandler() {
-            @Override
-            public Object invoke(Object target, Method method, Object[] args) throws Throwable {
-                for (Formatter formatter : formatters) {
-                    if (formatter instanceof Reporter) {
-                        Utils.invoke(formatter, method, 0, args);
-                    }
-                }
-                return null;
-            }
-        });
+        if (asyncFormatters) {
+            return asyncFormatter();
+        }
+        return new CompositeReporter(this);
+    }
+
+    private synchronized AsyncFormatter asyncFormatter() {
+        // Formatter and reporter events must go through the same queue to stay in order
+        if (asyncFormatter == null) {
+            asyncFormatter = new AsyncFormatter(new CompositeFormatter(this), new CompositeReporter(this));
+        }
+        return asyncFormatter;
     }
 
     private void setMonochromeOnColorAwareFormatters(Formatter formatter) {
@@ -239,4 +406,61 @@ public class RuntimeOptions {
     public SnippetType getSnippetType() {
         return snippetType;
     }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getForks() {
+        return forks;
+    }
+
+    /**
+     * @return where to listen for workers, or null when this run doesn't coordinate workers
+     */
+    public InetSocketAddress getCoordinator() {
+        return coordinator;
+    }
+
+    /**
+     * @return the coordinator to run scenarios for, or null when this isn't a worker
+     */
+    public InetSocketAddress getWorker() {
+        return worker;
+    }
+
+    /**
+     * @return seconds a worker may stay silent before its scenarios are handed to other workers
+     */
+    public int getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    public boolean isAsyncFormatters() {
+        return asyncFormatters;
+    }
+
+    public FeatureCache getFeatureCache() {
+        return featureCache;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    public int getScanThreads() {
+        return scanThreads;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public Shard getShard() {
+        return shard;
+    }
+
+    public File getShardDurations() {
+        return shardDurations;
+    }
 }
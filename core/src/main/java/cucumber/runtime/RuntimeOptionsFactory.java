@@ -42,6 +42,12 @@ public class RuntimeOptionsFactory {
                     addName(options, args);
                     addDotCucumber(options, args);
                     addSnippets(options, args);
+                    addThreads(options, args);
+                    addAsyncFormatters(options, args);
+                    addFeatureCache(options, args);
+                    addExcludes(options, args);
+                    addScanThreads(options, args);
+                    addShard(options, args);
                     addGlue(optionsArray, args);
                     addFeatures(optionsArray, args);
                 }
@@ -73,6 +79,59 @@ public class RuntimeOptionsFactory {
         args.add(this.<SnippetType>invoke(options, "snippets").toString());
     }
 
+    private void addThreads(Annotation options, List<String> args) {
+        // The deprecated cucumber.api.junit.Cucumber.Options doesn't have this option
+        if (hasOption(options, "threads") && this.<Integer>invoke(options, "threads") > 1) {
+            args.add("--threads");
+            args.add(String.valueOf(this.<Integer>invoke(options, "threads")));
+        }
+    }
+
+    private void addAsyncFormatters(Annotation options, List<String> args) {
+        // The deprecated cucumber.api.junit.Cucumber.Options doesn't have this option
+        if (hasOption(options, "asyncFormatters") && this.<Boolean>invoke(options, "asyncFormatters")) {
+            args.add("--async-formatters");
+        }
+    }
+
+    private void addFeatureCache(Annotation options, List<String> args) {
+        // The deprecated cucumber.api.junit.Cucumber.Options doesn't have this option
+        if (hasOption(options, "featureCache") && !this.<String>invoke(options, "featureCache").isEmpty()) {
+            args.add("--feature-cache");
+            args.add(this.<String>invoke(options, "featureCache"));
+        }
+    }
+
+    private void addExcludes(Annotation options, List<String> args) {
+        // The deprecated cucumber.api.junit.Cucumber.Options doesn't have this option
+        if (hasOption(options, "exclude")) {
+            for (String exclude : this.<String[]>invoke(options, "exclude")) {
+                args.add("--exclude");
+                args.add(exclude);
+            }
+        }
+    }
+
+    private void addScanThreads(Annotation options, List<String> args) {
+        // The deprecated cucumber.api.junit.Cucumber.Options doesn't have this option
+        if (hasOption(options, "scanThreads") && this.<Integer>invoke(options, "scanThreads") > 1) {
+            args.add("--scan-threads");
+            args.add(String.valueOf(this.<Integer>invoke(options, "scanThreads")));
+        }
+    }
+
+    private void addShard(Annotation options, List<String> args) {
+        // The deprecated cucumber.api.junit.Cucumber.Options doesn't have this option
+        if (hasOption(options, "shard") && !this.<String>invoke(options, "shard").isEmpty()) {
+            args.add("--shard");
+            args.add(this.<String>invoke(options, "shard"));
+        }
+        if (hasOption(options, "shardDurations") && !this.<String>invoke(options, "shardDurations").isEmpty()) {
+            args.add("--shard-durations");
+            args.add(this.<String>invoke(options, "shardDurations"));
+        }
+    }
+
     private void addDryRun(Annotation options, List<String> args) {
         if (this.<Boolean>invoke(options, "dryRun")) {
             args.add("--dry-run");
@@ -180,6 +239,15 @@ public class RuntimeOptionsFactory {
         return annotations;
     }
 
+    private boolean hasOption(Annotation options, String name) {
+        try {
+            options.annotationType().getMethod(name);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
     private <T> T invoke(Annotation options, String name) {
         try {
             Method method = options.annotationType().getMethod(name);
@@ -0,0 +1,194 @@
+package cucumber.runtime;
+
+import cucumber.runtime.model.CucumberFeature;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Result;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The scenarios of a run, handed out in batches to other processes by their {@code path:line}. What comes back
+ * is replayed to the formatters in source order, like {@link ParallelExecutor} does.
+ * <p/>
+ * When a process is lost, the scenarios of its batch that hadn't finished are handed out again. A scenario
+ * that is lost {@link #ATTEMPTS} times fails the run.
+ */
+class ScenarioQueue {
+    static final int ATTEMPTS = 2;
+
+    private final Runtime runtime;
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+    private final Map<String, Integer> attempts = new HashMap<String, Integer>();
+    private final LinkedList<String> queue = new LinkedList<String>();
+    private final ParallelExecutor.OrderedReplay replay;
+    private int running = 0;
+    private int remaining;
+    private boolean aborted = false;
+
+    ScenarioQueue(Runtime runtime, List<CucumberFeature> features, Formatter formatter, Reporter reporter) {
+        this.runtime = runtime;
+        List<ParallelExecutor.Unit> units = ParallelExecutor.plan(features);
+        List<String> ids = Shard.scenarioIds(features);
+        int next = 0;
+        for (int i = 0; i < units.size(); i++) {
+            if (units.get(i).scenario != null) {
+                String id = ids.get(next++);
+                indexes.put(id, i);
+                queue.add(id);
+            }
+        }
+        remaining = queue.size();
+        replay = new ParallelExecutor.OrderedReplay(units, formatter, reporter);
+        replay.flush();
+    }
+
+    synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return the next batch, or null when all scenarios have run. Waits while other batches are running,
+     * as their scenarios may have to be handed out again.
+     */
+    synchronized Batch take(int batchSize) throws InterruptedException {
+        while (queue.isEmpty() && running > 0 && !aborted) {
+            wait();
+        }
+        if (queue.isEmpty() || aborted) {
+            return null;
+        }
+        List<String> ids = new ArrayList<String>();
+        while (!queue.isEmpty() && ids.size() < batchSize) {
+            ids.add(queue.removeFirst());
+        }
+        running++;
+        return new Batch(ids);
+    }
+
+    /**
+     * Waits at most {@code millis} for {@link #take(int)} to have something to return without waiting.
+     *
+     * @return whether take won't wait
+     */
+    synchronized boolean awaitBatch(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        long left = millis;
+        while (queue.isEmpty() && running > 0 && !aborted && left > 0) {
+            wait(left);
+            left = deadline - System.currentTimeMillis();
+        }
+        return !queue.isEmpty() || running == 0 || aborted;
+    }
+
+    /**
+     * Waits until all scenarios have run.
+     */
+    synchronized void awaitCompletion() throws InterruptedException {
+        while (remaining > 0 && !aborted) {
+            wait();
+        }
+    }
+
+    /**
+     * Stops handing out scenarios, such as after an unexpected error.
+     */
+    synchronized void abort() {
+        aborted = true;
+        queue.clear();
+        notifyAll();
+    }
+
+    private synchronized void completed(String id, EventRecorder events) {
+        replay.completed(indexes.get(id), events);
+        remaining--;
+        notifyAll();
+    }
+
+    private synchronized void requeue(List<String> unfinished, String lost) {
+        for (int i = unfinished.size() - 1; i >= 0; i--) {
+            String id = unfinished.get(i);
+            Integer previous = attempts.get(id);
+            int attempt = previous == null ? 1 : previous + 1;
+            attempts.put(id, attempt);
+            if (attempt < ATTEMPTS) {
+                queue.addFirst(id);
+            } else {
+                runtime.addError(new CucumberException(lost + " while running " + id));
+                runtime.getStats().addScenario(Result.FAILED);
+                completed(id, new EventRecorder());
+            }
+        }
+    }
+
+    private synchronized void ended() {
+        running--;
+        notifyAll();
+    }
+
+    /**
+     * Scenarios handed out together.
+     */
+    class Batch {
+        private final List<String> ids;
+        private final Set<String> unfinished;
+
+        Batch(List<String> ids) {
+            this.ids = ids;
+            this.unfinished = new LinkedHashSet<String>(ids);
+        }
+
+        List<String> getIds() {
+            return ids;
+        }
+
+        /**
+         * @return where the events of the scenario go
+         * @throws IOException if the scenario isn't one of the batch that is still to run
+         */
+        RemoteScenario start(String id) throws IOException {
+            if (!unfinished.contains(id)) {
+                throw new IOException("Got a scenario that wasn't asked for: " + id);
+            }
+            return new RemoteScenario(runtime, id);
+        }
+
+        void finished(RemoteScenario scenario) {
+            scenario.addToRuntime();
+            unfinished.remove(scenario.getId());
+            completed(scenario.getId(), scenario);
+        }
+
+        /**
+         * The batch has run. Scenarios that didn't run weren't found by the other process.
+         */
+        void done() {
+            for (String id : unfinished) {
+                // Only when the other process loaded different features
+                runtime.addError(new CucumberException("Couldn't find " + id));
+                runtime.getStats().addScenario(Result.FAILED);
+                completed(id, new EventRecorder());
+            }
+            unfinished.clear();
+            ended();
+        }
+
+        /**
+         * The process running the batch is gone. The scenarios that hadn't finished are handed out again.
+         *
+         * @param lost what happened, such as "Fork crashed"
+         */
+        void lost(String lost) {
+            requeue(new ArrayList<String>(unfinished), lost);
+            unfinished.clear();
+            ended();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package cucumber.runtime;
+
+import cucumber.runtime.model.CucumberExamples;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenarioOutline;
+import cucumber.runtime.model.CucumberTagStatement;
+import gherkin.formatter.model.ExamplesTableRow;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * One of N parts of the scenarios, so a suite can be split across machines that each run
+ * {@code --shard 1/N} to {@code --shard N/N}. Every example of a scenario outline counts as a scenario of its own.
+ * <p/>
+ * Each machine works out the same partition on its own. With the durations of an earlier run, scenarios are
+ * handed out longest first, each to the shard that has the least work so far, so all shards take about as long.
+ * Scenarios without a known duration count as the median duration. Without durations, a scenario goes to the
+ * shard picked by a hash of its path and line, so it stays on the same shard as other scenarios come and go.
+ * <p/>
+ * All machines must see the same features and durations, or scenarios may run twice or not at all.
+ */
+public class Shard {
+    private static final Pattern SHARD_PATTERN = Pattern.compile("(\\d+)/(\\d+)");
+
+    private final int index;
+    private final int count;
+
+    /**
+     * @param index the shard, from 1 to {@code count}
+     * @param count the number of shards
+     */
+    public Shard(int index, int count) {
+        if (count < 1 || index < 1 || index > count) {
+            throw new CucumberException(String.format("A shard must be I/N with 1 <= I <= N: %d/%d", index, count));
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * @param shard such as {@code 3/40}
+     * @return the shard
+     */
+    public static Shard parse(String shard) {
+        Matcher matcher = SHARD_PATTERN.matcher(shard);
+        if (!matcher.matches()) {
+            throw new CucumberException("A shard must be I/N, such as 3/40: " + shard);
+        }
+        return new Shard(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Leaves out the scenarios and examples of the other shards. The features, outlines and examples tables are
+     * changed in place; the ones that have nothing left are removed.
+     *
+     * @param cucumberFeatures the features of the whole suite, which all shards must load in the same order
+     * @param durations        nanoseconds scenarios took before, by {@code path:line}. May be empty.
+     * @return the features, with only the scenarios of this shard
+     */
+    public List<CucumberFeature> select(List<CucumberFeature> cucumberFeatures, Map<String, Long> durations) {
+        List<String> scenarios = scenarioIds(cucumberFeatures);
+        Set<String> selected = hasAnyDuration(scenarios, durations) ? balance(scenarios, durations) : hash(scenarios);
+        Iterator<CucumberFeature> features = cucumberFeatures.iterator();
+        while (features.hasNext()) {
+            CucumberFeature cucumberFeature = features.next();
+            retain(cucumberFeature, selected);
+            if (cucumberFeature.getFeatureElements().isEmpty()) {
+                features.remove();
+            }
+        }
+        return cucumberFeatures;
+    }
+
+    /**
+     * @return the {@code path:line} of each scenario and example, in the order they run
+     */
+    static List<String> scenarioIds(List<CucumberFeature> cucumberFeatures) {
+        List<String> scenarios = new ArrayList<String>();
+        for (CucumberFeature cucumberFeature : cucumberFeatures) {
+            for (CucumberTagStatement statement : cucumberFeature.getFeatureElements()) {
+                if (statement instanceof CucumberScenarioOutline) {
+                    for (CucumberExamples cucumberExamples : ((CucumberScenarioOutline) statement).getCucumberExamplesList()) {
+                        List<ExamplesTableRow> rows = rows(cucumberExamples);
+                        for (int i = 1; i < rows.size(); i++) {
+                            scenarios.add(id(cucumberFeature, rows.get(i).getLine()));
+                        }
+                    }
+                } else {
+                    scenarios.add(id(cucumberFeature, statement.getGherkinModel().getLine()));
+                }
+            }
+        }
+        return scenarios;
+    }
+
+    private static String id(CucumberFeature cucumberFeature, int line) {
+        return cucumberFeature.getPath() + ":" + line;
+    }
+
+    private static boolean hasAnyDuration(List<String> scenarios, Map<String, Long> durations) {
+        for (String scenario : scenarios) {
+            if (durations.containsKey(scenario)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Set<String> hash(List<String> scenarios) {
+        Set<String> selected = new HashSet<String>();
+        for (String scenario : scenarios) {
+            CRC32 crc = new CRC32();
+            crc.update(utf8(scenario));
+            if (crc.getValue() % count == index - 1) {
+                selected.add(scenario);
+            }
+        }
+        return selected;
+    }
+
+    private Set<String> balance(List<String> scenarios, final Map<String, Long> durations) {
+        final long median = median(scenarios, durations);
+        List<String> longestFirst = new ArrayList<String>(scenarios);
+        Collections.sort(longestFirst, new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                long durationA = duration(a, durations, median);
+                long durationB = duration(b, durations, median);
+                if (durationA != durationB) {
+                    return durationA > durationB ? -1 : 1;
+                }
+                return a.compareTo(b);
+            }
+        });
+
+        long[] loads = new long[count];
+        Set<String> selected = new HashSet<String>();
+        for (String scenario : longestFirst) {
+            int leastLoaded = 0;
+            for (int i = 1; i < count; i++) {
+                if (loads[i] < loads[leastLoaded]) {
+                    leastLoaded = i;
+                }
+            }
+            loads[leastLoaded] += duration(scenario, durations, median);
+            if (leastLoaded == index - 1) {
+                selected.add(scenario);
+            }
+        }
+        return selected;
+    }
+
+    private static long duration(String scenario, Map<String, Long> durations, long median) {
+        Long duration = durations.get(scenario);
+        return duration == null ? median : duration;
+    }
+
+    private static long median(List<String> scenarios, Map<String, Long> durations) {
+        List<Long> known = new ArrayList<Long>();
+        for (String scenario : scenarios) {
+            Long duration = durations.get(scenario);
+            if (duration != null) {
+                known.add(duration);
+            }
+        }
+        Collections.sort(known);
+        return known.get(known.size() / 2);
+    }
+
+    private static void retain(CucumberFeature cucumberFeature, Set<String> selected) {
+        Iterator<CucumberTagStatement> statements = cucumberFeature.getFeatureElements().iterator();
+        while (statements.hasNext()) {
+            CucumberTagStatement statement = statements.next();
+            if (statement instanceof CucumberScenarioOutline) {
+                List<CucumberExamples> examplesList = ((CucumberScenarioOutline) statement).getCucumberExamplesList();
+                Iterator<CucumberExamples> examplesIterator = examplesList.iterator();
+                while (examplesIterator.hasNext()) {
+                    CucumberExamples cucumberExamples = examplesIterator.next();
+                    List<ExamplesTableRow> rows = rows(cucumberExamples);
+                    List<ExamplesTableRow> retained = new ArrayList<ExamplesTableRow>();
+                    for (int i = 1; i < rows.size(); i++) {
+                        if (selected.contains(id(cucumberFeature, rows.get(i).getLine()))) {
+                            retained.add(rows.get(i));
+                        }
+                    }
+                    if (retained.isEmpty()) {
+                        examplesIterator.remove();
+                    } else {
+                        retained.add(0, rows.get(0));
+                        cucumberExamples.getExamples().setRows(retained);
+                    }
+                }
+                if (examplesList.isEmpty()) {
+                    statements.remove();
+                }
+            } else if (!selected.contains(id(cucumberFeature, statement.getGherkinModel().getLine()))) {
+                statements.remove();
+            }
+        }
+    }
+
+    private static List<ExamplesTableRow> rows(CucumberExamples cucumberExamples) {
+        List<ExamplesTableRow> rows = cucumberExamples.getExamples().getRows();
+        return rows == null ? Collections.<ExamplesTableRow>emptyList() : rows;
+    }
+
+    private static byte[] utf8(String string) {
+        try {
+            return string.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new CucumberException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
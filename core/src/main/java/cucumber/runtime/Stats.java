@@ -34,7 +34,7 @@ class Stats {
         }
     }
 
-    public void printStats(PrintStream out) {
+    public synchronized void printStats(PrintStream out) {
         if (stepSubCounts.getTotal() == 0) {
             out.println("0 Scenarios");
             out.println("0 Steps");
@@ -86,16 +86,16 @@ class Stats {
         out.println(format.format(((double) (totalDuration % ONE_MINUTE)) / ONE_SECOND) + "s");
     }
 
-    public void addStep(Result result) {
+    public synchronized void addStep(Result result) {
         addResultToSubCount(stepSubCounts, result.getStatus());
         addTime(result.getDuration());
     }
 
-    public void addScenario(String resultStatus) {
+    public synchronized void addScenario(String resultStatus) {
         addResultToSubCount(scenarioSubCounts, resultStatus);
     }
 
-    public void addHookTime(Long duration) {
+    public synchronized void addHookTime(Long duration) {
         addTime(duration);
     }
 
@@ -0,0 +1,303 @@
+package cucumber.runtime;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Narrows down the step definitions that can match a step name, without running their regular expressions.
+ * <p/>
+ * For each {@link JdkPatternStepDefinition} we extract the literal fragments that any matching step name
+ * must contain. The longest whole word inside those fragments is used as an index key. A step name can
+ * only match the step definitions indexed under one of its own words, plus the ones we couldn't index.
+ * Candidates are checked for all their literal fragments before they are returned.
+ * <p/>
+ * Candidates are returned in the same order as the step definitions were given, so callers see the same
+ * matches, in the same order, as when scanning all step definitions.
+ */
+class StepDefinitionIndex {
+    private final Entry[] entries;
+    private final Map<String, BitSet> entriesByWord = new HashMap<String, BitSet>();
+    private final BitSet unindexed = new BitSet();
+
+    StepDefinitionIndex(Collection<StepDefinition> stepDefinitions) {
+        entries = new Entry[stepDefinitions.size()];
+        int i = 0;
+        for (StepDefinition stepDefinition : stepDefinitions) {
+            List<String> literals = requiredLiterals(stepDefinition);
+            entries[i] = new Entry(stepDefinition, literals);
+            String word = literals == null ? null : longestWord(literals);
+            if (word == null) {
+                unindexed.set(i);
+            } else {
+                BitSet bits = entriesByWord.get(word);
+                if (bits == null) {
+                    bits = new BitSet();
+                    entriesByWord.put(word, bits);
+                }
+                bits.set(i);
+            }
+            i++;
+        }
+    }
+
+    public List<StepDefinition> candidates(String stepName) {
+        BitSet selected = (BitSet) unindexed.clone();
+        int length = stepName.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && isWordChar(stepName.charAt(i));
+            if (wordChar && start == -1) {
+                start = i;
+            } else if (!wordChar && start != -1) {
+                BitSet bits = entriesByWord.get(stepName.substring(start, i));
+                if (bits != null) {
+                    selected.or(bits);
+                }
+                start = -1;
+            }
+        }
+
+        List<StepDefinition> result = new ArrayList<StepDefinition>();
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            if (entries[i].mayMatch(stepName)) {
+                result.add(entries[i].stepDefinition);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> requiredLiterals(StepDefinition stepDefinition) {
+        if (stepDefinition instanceof JdkPatternStepDefinition) {
+            java.util.regex.Pattern pattern = ((JdkPatternStepDefinition) stepDefinition).getCompiledPattern();
+            if (pattern != null && pattern.flags() == 0) {
+                return requiredLiterals(pattern.pattern());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds text that any string matched by {@code regex} must contain. This is deliberately conservative:
+     * anything that isn't plain literal text (groups, character classes, quantified characters, most escapes)
+     * just ends the current fragment.
+     *
+     * @param regex a regular expression
+     * @return the literal fragments, or null if the regular expression uses constructs we don't understand.
+     */
+    static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<String>();
+        StringBuilder current = new StringBuilder();
+        int length = regex.length();
+        int i = 0;
+        while (i < length) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '\\':
+                    if (i + 1 == length) {
+                        return null;
+                    }
+                    char escaped = regex.charAt(i + 1);
+                    if (Character.isLetterOrDigit(escaped)) {
+                        if ("pPxuc0kNQE".indexOf(escaped) != -1) {
+                            // Escapes spanning more characters than we care to parse
+                            return null;
+                        }
+                        addLiteral(current, literals);
+                        i += 2;
+                        while (Character.isDigit(escaped) && i < length && Character.isDigit(regex.charAt(i))) {
+                            i++;
+                        }
+                    } else {
+                        current.append(escaped);
+                        i += 2;
+                    }
+                    break;
+                case '(':
+                    if (i + 1 < length && regex.charAt(i + 1) == '?' && i + 2 < length) {
+                        char kind = regex.charAt(i + 2);
+                        if (Character.isLetter(kind) || kind == '-') {
+                            // Embedded flags such as (?i) may change the meaning of the rest of the pattern
+                            return null;
+                        }
+                    }
+                    addLiteral(current, literals);
+                    i = skipGroup(regex, i);
+                    break;
+                case '[':
+                    addLiteral(current, literals);
+                    i = skipCharacterClass(regex, i);
+                    break;
+                case '|':
+                case ')':
+                    return null;
+                case '*':
+                case '?':
+                    dropLastCharacter(current);
+                    addLiteral(current, literals);
+                    i = skipQuantifierModifier(regex, i + 1);
+                    break;
+                case '{':
+                    dropLastCharacter(current);
+                    addLiteral(current, literals);
+                    int end = regex.indexOf('}', i);
+                    if (end == -1) {
+                        return null;
+                    }
+                    i = skipQuantifierModifier(regex, end + 1);
+                    break;
+                case '+':
+                    addLiteral(current, literals);
+                    i = skipQuantifierModifier(regex, i + 1);
+                    break;
+                case '.':
+                case '^':
+                case '$':
+                    addLiteral(current, literals);
+                    i++;
+                    break;
+                default:
+                    current.append(c);
+                    i++;
+            }
+            if (i < 0) {
+                return null;
+            }
+        }
+        addLiteral(current, literals);
+        return literals;
+    }
+
+    private static void addLiteral(StringBuilder current, List<String> literals) {
+        if (current.length() > 0) {
+            literals.add(current.toString());
+            current.setLength(0);
+        }
+    }
+
+    private static void dropLastCharacter(StringBuilder current) {
+        if (current.length() > 0) {
+            current.setLength(current.length() - 1);
+        }
+    }
+
+    private static int skipQuantifierModifier(String regex, int i) {
+        if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+            return i + 1;
+        }
+        return i;
+    }
+
+    /**
+     * @return the index after the group starting at {@code start}, or -1 if it isn't closed.
+     */
+    private static int skipGroup(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            } else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+                continue;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index after the character class starting at {@code start}, or -1 if it isn't closed.
+     */
+    private static int skipCharacterClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            } else if (c == '[') {
+                depth++;
+                // A ']' right after the opening bracket (or negation) is a literal
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == '^') {
+                    i++;
+                }
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++;
+                }
+            } else if (c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the longest word that is delimited by non-word characters on both sides inside one of the
+     *         literals, or null if there is none. Such a word is always a whole word of a matching step name.
+     */
+    static String longestWord(List<String> literals) {
+        String longest = null;
+        for (String literal : literals) {
+            int start = -1;
+            for (int i = 0; i < literal.length(); i++) {
+                boolean wordChar = isWordChar(literal.charAt(i));
+                if (wordChar && start == -1) {
+                    start = i;
+                } else if (!wordChar && start != -1) {
+                    // Words touching the start of the literal may continue outside of it
+                    if (start > 0 && (longest == null || i - start > longest.length())) {
+                        longest = literal.substring(start, i);
+                    }
+                    start = -1;
+                }
+            }
+        }
+        return longest;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static class Entry {
+        private final StepDefinition stepDefinition;
+        private final List<String> literals;
+
+        Entry(StepDefinition stepDefinition, List<String> literals) {
+            this.stepDefinition = stepDefinition;
+            this.literals = literals;
+        }
+
+        boolean mayMatch(String stepName) {
+            if (literals != null) {
+                for (String literal : literals) {
+                    if (!stepName.contains(literal)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
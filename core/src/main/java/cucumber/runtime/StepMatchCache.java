@@ -0,0 +1,99 @@
+package cucumber.runtime;
+
+import gherkin.formatter.Argument;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers which step definitions matched a step name, and with which arguments. An empty list means the
+ * step is undefined, more than one entry means it is ambiguous. The least recently used entries are evicted
+ * once the cache is full.
+ * <p/>
+ * This class is not thread safe. Each {@link RuntimeGlue} has its own cache.
+ */
+public class StepMatchCache {
+    public static final int DEFAULT_MAX_SIZE = 4096;
+
+    private final Map<Key, List<CachedMatch>> matchesByKey;
+    private long hits;
+    private long misses;
+
+    public StepMatchCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public StepMatchCache(final int maxSize) {
+        this.matchesByKey = new LinkedHashMap<Key, List<CachedMatch>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<CachedMatch>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    List<CachedMatch> get(String stepName, String isoCode) {
+        List<CachedMatch> matches = matchesByKey.get(new Key(stepName, isoCode));
+        if (matches == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return matches;
+    }
+
+    void put(String stepName, String isoCode, List<CachedMatch> matches) {
+        matchesByKey.put(new Key(stepName, isoCode), matches);
+    }
+
+    void clear() {
+        matchesByKey.clear();
+    }
+
+    public int size() {
+        return matchesByKey.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    static class CachedMatch {
+        final StepDefinition stepDefinition;
+        final List<Argument> arguments;
+
+        CachedMatch(StepDefinition stepDefinition, List<Argument> arguments) {
+            this.stepDefinition = stepDefinition;
+            this.arguments = arguments;
+        }
+    }
+
+    private static class Key {
+        private final String stepName;
+        private final String isoCode;
+
+        Key(String stepName, String isoCode) {
+            this.stepName = stepName;
+            this.isoCode = isoCode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return stepName.equals(other.stepName) && (isoCode == null ? other.isoCode == null : isoCode.equals(other.isoCode));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * stepName.hashCode() + (isoCode == null ? 0 : isoCode.hashCode());
+        }
+    }
+}
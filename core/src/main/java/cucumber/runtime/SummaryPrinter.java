@@ -15,6 +15,7 @@ public class SummaryPrinter {
         printStats(runtime);
         out.println();
         printErrors(runtime);
+        printSlowScenarios(runtime);
         printSnippets(runtime);
     }
 
@@ -29,6 +30,17 @@ public class SummaryPrinter {
         }
     }
 
+    private void printSlowScenarios(cucumber.runtime.Runtime runtime) {
+        List<String> slowScenarios = runtime.getSlowScenarios();
+        if (!slowScenarios.isEmpty()) {
+            out.println("Slower than usual:");
+            for (String slowScenario : slowScenarios) {
+                out.println("  " + slowScenario);
+            }
+            out.println();
+        }
+    }
+
     private void printSnippets(cucumber.runtime.Runtime runtime) {
         List<String> snippets = runtime.getSnippets();
         if (!snippets.isEmpty()) {
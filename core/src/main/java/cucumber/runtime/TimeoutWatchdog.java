@@ -0,0 +1,98 @@
+package cucumber.runtime;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single daemon thread that interrupts threads whose deadline has passed. It is shared by all the threads
+ * running steps and hooks with a timeout, and stops once it has had nothing to watch for a while.
+ */
+class TimeoutWatchdog {
+    private static final long IDLE_MILLIS = 100;
+
+    private final Object lock = new Object();
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<Deadline>();
+    private Thread thread;
+
+    /**
+     * Interrupts the current thread after {@code timeoutMillis}, unless {@link #cancel} is called first.
+     */
+    Deadline watch(long timeoutMillis) {
+        Deadline deadline = new Deadline(Thread.currentThread(), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+        synchronized (lock) {
+            deadlines.add(deadline);
+            if (thread == null) {
+                thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        watchDeadlines();
+                    }
+                }, "cucumber-timeout-watchdog");
+                thread.setDaemon(true);
+                thread.start();
+            } else if (deadlines.peek() == deadline) {
+                lock.notify();
+            }
+        }
+        return deadline;
+    }
+
+    /**
+     * Once this returns, the thread of the deadline won't be interrupted anymore.
+     *
+     * @return whether the thread was interrupted already
+     */
+    boolean cancel(Deadline deadline) {
+        synchronized (lock) {
+            deadlines.remove(deadline);
+            return deadline.fired;
+        }
+    }
+
+    private void watchDeadlines() {
+        synchronized (lock) {
+            try {
+                while (true) {
+                    Deadline next = deadlines.peek();
+                    if (next == null) {
+                        lock.wait(IDLE_MILLIS);
+                        if (deadlines.isEmpty()) {
+                            return;
+                        }
+                        continue;
+                    }
+                    long remainingNanos = next.nanoTime - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        deadlines.poll();
+                        next.fired = true;
+                        next.thread.interrupt();
+                    } else {
+                        TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                thread = null;
+            }
+        }
+    }
+
+    static class Deadline implements Comparable<Deadline> {
+        private final Thread thread;
+        private final long nanoTime;
+        // Guarded by the lock of the watchdog
+        private boolean fired;
+
+        Deadline(Thread thread, long nanoTime) {
+            this.thread = thread;
+            this.nanoTime = nanoTime;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            long difference = nanoTime - other.nanoTime;
+            return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+        }
+    }
+}
@@ -5,17 +5,27 @@ import gherkin.I18n;
 import gherkin.formatter.model.Step;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 
 public class UndefinedStepsTracker {
-    private final List<Step> undefinedSteps = new ArrayList<Step>();
+    private final List<Step> undefinedSteps = Collections.synchronizedList(new ArrayList<Step>());
 
-    private String lastGivenWhenThenStepKeyword;
+    // Scenarios may run on several threads, each keeping track of its own last keyword.
+    private final ThreadLocal<String> lastGivenWhenThenStepKeyword = new ThreadLocal<String>();
 
     public void reset() {
-        lastGivenWhenThenStepKeyword = null;
+        lastGivenWhenThenStepKeyword.remove();
+    }
+
+    /**
+     * Forgets the undefined steps, so the tracker can be used for another run.
+     */
+    void clear() {
+        undefinedSteps.clear();
+        lastGivenWhenThenStepKeyword.remove();
     }
 
     /**
@@ -27,6 +37,10 @@ public class UndefinedStepsTracker {
     public List<String> getSnippets(Iterable<? extends Backend> backends, FunctionNameGenerator functionNameGenerator) {
         // TODO: Convert "And" and "But" to the Given/When/Then keyword above in the Gherkin source.
         List<String> snippets = new ArrayList<String>();
+        List<Step> undefinedSteps;
+        synchronized (this.undefinedSteps) {
+            undefinedSteps = new ArrayList<Step>(this.undefinedSteps);
+        }
         for (Step step : undefinedSteps) {
             for (Backend backend : backends) {
                 String snippet = backend.getSnippet(step, functionNameGenerator);
@@ -44,10 +58,10 @@ public class UndefinedStepsTracker {
     public void storeStepKeyword(Step step, I18n i18n) {
         String keyword = step.getKeyword();
         if (isGivenWhenThenKeyword(keyword, i18n)) {
-            lastGivenWhenThenStepKeyword = keyword;
+            lastGivenWhenThenStepKeyword.set(keyword);
         }
-        if (lastGivenWhenThenStepKeyword == null) {
-            lastGivenWhenThenStepKeyword = keyword;
+        if (lastGivenWhenThenStepKeyword.get() == null) {
+            lastGivenWhenThenStepKeyword.set(keyword);
         }
     }
 
@@ -69,15 +83,31 @@ public class UndefinedStepsTracker {
         if (isGivenWhenThenKeyword(step.getKeyword(), i18n)) {
             return step;
         } else {
-            if (lastGivenWhenThenStepKeyword == null) {
+            if (lastGivenWhenThenStepKeyword.get() == null) {
                 List<String> givenKeywords = new ArrayList<String>(i18n.keywords("given"));
                 givenKeywords.remove("* ");
-                lastGivenWhenThenStepKeyword = givenKeywords.get(0);
+                lastGivenWhenThenStepKeyword.set(givenKeywords.get(0));
             }
-            return new Step(step.getComments(), lastGivenWhenThenStepKeyword, step.getName(), step.getLine(), step.getRows(), step.getDocString());
+            return new Step(step.getComments(), lastGivenWhenThenStepKeyword.get(), step.getName(), step.getLine(), step.getRows(), step.getDocString());
+        }
+    }
+
+    /**
+     * @return the undefined steps so far, with And and But replaced by the keyword before them
+     */
+    List<Step> getUndefinedSteps() {
+        synchronized (undefinedSteps) {
+            return new ArrayList<Step>(undefinedSteps);
         }
     }
 
+    /**
+     * @param steps undefined steps from {@link #getUndefinedSteps()} of another tracker
+     */
+    void addUndefinedSteps(List<Step> steps) {
+        undefinedSteps.addAll(steps);
+    }
+
     public boolean hasUndefinedSteps() {
         return !undefinedSteps.isEmpty();
     }
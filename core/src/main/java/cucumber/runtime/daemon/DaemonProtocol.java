@@ -0,0 +1,194 @@
+package cucumber.runtime.daemon;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What the daemon and its clients send each other over a socket.
+ * <p/>
+ * A client sends the token of the daemon, then the number of arguments followed by each argument, or
+ * {@link #STOP} instead of the number to stop the daemon. The daemon answers with frames: {@link #OUT} and
+ * {@link #ERR} frames with the length and bytes of what the run printed, and finally an {@link #EXIT} frame with
+ * the exit status.
+ * <p/>
+ * The daemon runs whatever glue and features a client asks for, as the user who started it. The loopback port
+ * is open to every user of the machine, so the daemon writes a random token to a {@link #createTokenFile token
+ * file} that only its owner can read, and drops clients that don't send it.
+ */
+public class DaemonProtocol {
+    public static final int DEFAULT_PORT = 7897;
+    public static final int STOP = -1;
+
+    public static final byte OUT = 1;
+    public static final byte ERR = 2;
+    public static final byte EXIT = 3;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * @return where the daemon on the port keeps its token, unless told otherwise
+     */
+    public static File defaultTokenFile(int port) {
+        return new File(System.getProperty("user.home"), ".cucumber/daemon-" + port + ".token");
+    }
+
+    /**
+     * Writes a new random token to a file that only the current user can read, on file systems that support
+     * that.
+     *
+     * @return the token
+     */
+    public static String createTokenFile(File tokenFile) throws IOException {
+        byte[] random = new byte[16];
+        new SecureRandom().nextBytes(random);
+        StringBuilder token = new StringBuilder();
+        for (byte b : random) {
+            token.append(String.format("%02x", b));
+        }
+
+        File dir = tokenFile.getAbsoluteFile().getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Failed to create " + dir);
+        }
+        tokenFile.delete();
+        if (!tokenFile.createNewFile()) {
+            throw new IOException("Failed to create " + tokenFile);
+        }
+        // Before the token is written
+        tokenFile.setReadable(false, false);
+        tokenFile.setWritable(false, false);
+        tokenFile.setReadable(true, true);
+        tokenFile.setWritable(true, true);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(tokenFile), "UTF-8");
+        try {
+            writer.write(token.toString());
+        } finally {
+            writer.close();
+        }
+        return token.toString();
+    }
+
+    public static String readTokenFile(File tokenFile) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(tokenFile), "UTF-8"));
+        try {
+            String token = reader.readLine();
+            return token == null ? "" : token.trim();
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static void writeRequest(DataOutputStream out, String token, List<String> args) throws IOException {
+        out.writeUTF(token);
+        out.writeInt(args.size());
+        for (String arg : args) {
+            out.writeUTF(arg);
+        }
+        out.flush();
+    }
+
+    public static void writeStop(DataOutputStream out, String token) throws IOException {
+        out.writeUTF(token);
+        out.writeInt(STOP);
+        out.flush();
+    }
+
+    /**
+     * @param token the token of the daemon
+     * @return the arguments, or null if the client asked the daemon to stop
+     * @throws IOException when the client sent another token or a request that doesn't make sense
+     */
+    public static List<String> readRequest(DataInputStream in, String token) throws IOException {
+        if (!MessageDigest.isEqual(token.getBytes("UTF-8"), in.readUTF().getBytes("UTF-8"))) {
+            throw new IOException("Wrong token");
+        }
+        int count = in.readInt();
+        if (count == STOP) {
+            return null;
+        }
+        if (count < 0) {
+            throw new IOException("Bad number of arguments: " + count);
+        }
+        // Not sized by the count, which could be anything. A count that is too big ends with an EOFException.
+        List<String> args = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            args.add(in.readUTF());
+        }
+        return args;
+    }
+
+    /**
+     * Copies the output frames to {@code out} and {@code err} until the exit frame.
+     *
+     * @return the exit status
+     */
+    public static byte readResponse(DataInputStream in, OutputStream out, OutputStream err) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (true) {
+            byte type = in.readByte();
+            if (type == EXIT) {
+                return in.readByte();
+            }
+            int length = in.readInt();
+            byte[] bytes = length <= buffer.length ? buffer : new byte[length];
+            in.readFully(bytes, 0, length);
+            OutputStream target = type == ERR ? err : out;
+            target.write(bytes, 0, length);
+            target.flush();
+        }
+    }
+
+    public static void writeExit(DataOutputStream out, byte exitStatus) throws IOException {
+        synchronized (out) {
+            out.writeByte(EXIT);
+            out.writeByte(exitStatus);
+            out.flush();
+        }
+    }
+
+    /**
+     * @return a stream that sends everything written to it as frames of the type
+     */
+    public static OutputStream frames(final DataOutputStream out, final byte type) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return;
+                }
+                // Steps may print from several threads
+                synchronized (out) {
+                    out.writeByte(type);
+                    out.writeInt(length);
+                    out.write(bytes, offset, length);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                synchronized (out) {
+                    out.flush();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package cucumber.runtime.daemon;
+
+import cucumber.runtime.Env;
+import cucumber.runtime.Runtime;
+import cucumber.runtime.RuntimeOptions;
+import cucumber.runtime.formatter.FormatterFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs features for clients that connect to a socket, keeping backends, glue and parsed features between runs.
+ * Runs are served one at a time. While a run is going on, {@link System#out} and {@link System#err} are sent to
+ * the client.
+ */
+public class DaemonServer {
+    private final ServerSocket serverSocket;
+    private final String token;
+    private final WarmRuntime warmRuntime;
+    private final File featureCacheDirectory;
+
+    /**
+     * @param serverSocket          where clients connect
+     * @param token                 what clients must send before their request, see {@link DaemonProtocol}
+     * @param classpath             the directories and jars with the glue code, which are watched for changes
+     * @param featureCacheDirectory where parsed features are kept, unless a run has a --feature-cache of its own
+     */
+    public DaemonServer(ServerSocket serverSocket, String token, List<File> classpath, File featureCacheDirectory) {
+        this(serverSocket, token, new WarmRuntime(classpath, Thread.currentThread().getContextClassLoader()), featureCacheDirectory);
+    }
+
+    DaemonServer(ServerSocket serverSocket, String token, WarmRuntime warmRuntime, File featureCacheDirectory) {
+        this.serverSocket = serverSocket;
+        this.token = token;
+        this.warmRuntime = warmRuntime;
+        this.featureCacheDirectory = featureCacheDirectory;
+    }
+
+    /**
+     * Serves clients until one of them asks the daemon to stop.
+     */
+    public void serve() throws IOException {
+        boolean serving = true;
+        while (serving) {
+            Socket socket = serverSocket.accept();
+            try {
+                serving = serve(socket);
+            } catch (IOException e) {
+                // The client went away or sent nonsense. Wait for the next one.
+                System.err.println("Lost connection to client: " + e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("Lost connection to client: " + e);
+            } finally {
+                socket.close();
+            }
+        }
+        serverSocket.close();
+    }
+
+    private boolean serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        List<String> args = DaemonProtocol.readRequest(in, token);
+        if (args == null) {
+            DaemonProtocol.writeExit(out, (byte) 0);
+            return false;
+        }
+
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        PrintStream systemOut = System.out;
+        PrintStream systemErr = System.err;
+        PrintStream runOut = new PrintStream(DaemonProtocol.frames(out, DaemonProtocol.OUT), true, "UTF-8");
+        PrintStream runErr = new PrintStream(DaemonProtocol.frames(out, DaemonProtocol.ERR), true, "UTF-8");
+        System.setOut(runOut);
+        System.setErr(runErr);
+        byte exitStatus;
+        try {
+            exitStatus = run(args);
+        } catch (Throwable t) {
+            // Also catches linkage errors from glue that changed in the middle of a run, which the next run reloads
+            t.printStackTrace();
+            exitStatus = 2;
+        } finally {
+            runOut.flush();
+            runErr.flush();
+            System.setOut(systemOut);
+            System.setErr(systemErr);
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+        DaemonProtocol.writeExit(out, exitStatus);
+        return true;
+    }
+
+    private byte run(List<String> args) throws IOException {
+        List<String> runArgs = new ArrayList<String>();
+        runArgs.add("--feature-cache");
+        runArgs.add(featureCacheDirectory.getPath());
+        runArgs.addAll(args);
+        // Exiting on --help or --version would stop the daemon
+        RuntimeOptions runtimeOptions = new RuntimeOptions(new Env("cucumber"), new FormatterFactory(), runArgs, false);
+        if (runtimeOptions.isHelpRequested()) {
+            System.out.println(RuntimeOptions.USAGE);
+            return 0;
+        }
+        if (runtimeOptions.isVersionRequested()) {
+            System.out.println(RuntimeOptions.VERSION);
+            return 0;
+        }
+        Runtime runtime = warmRuntime.runtime(runtimeOptions);
+        runtime.run();
+        return runtime.exitStatus();
+    }
+}
@@ -0,0 +1,107 @@
+package cucumber.runtime.daemon;
+
+import cucumber.runtime.ClassFinder;
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.Runtime;
+import cucumber.runtime.RuntimeOptions;
+import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.io.ResourceLoaderClassFinder;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the backends and glue of the last run, and hands out runtimes that reuse them. Glue is loaded again,
+ * in a new class loader, when a class file on the class path changes or a run asks for other glue paths.
+ */
+class WarmRuntime {
+    private final List<File> classpath;
+    private final ClassLoader parent;
+
+    private long fingerprint;
+    private ClassLoader classLoader;
+    private List<String> gluePaths;
+    private Runtime warm;
+
+    /**
+     * @param classpath the directories and jars with the glue code. These are loaded in a class loader of their
+     *                  own, so they must not be on the class path of the daemon itself.
+     * @param parent    the class loader with Cucumber and its backends
+     */
+    WarmRuntime(List<File> classpath, ClassLoader parent) {
+        this.classpath = classpath;
+        this.parent = parent;
+    }
+
+    /**
+     * @return the class loader of the glue that was loaded last
+     */
+    ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Also makes the class loader of the glue the context class loader of the current thread, which backends and
+     * object factories use to find classes.
+     *
+     * @return a runtime for a run with the options, using the glue of the previous run when nothing changed
+     */
+    Runtime runtime(RuntimeOptions runtimeOptions) {
+        long currentFingerprint = fingerprint();
+        if (warm == null || currentFingerprint != fingerprint || !runtimeOptions.getGlue().equals(gluePaths)) {
+            ClassLoader newClassLoader = new URLClassLoader(urls(), parent);
+            Thread.currentThread().setContextClassLoader(newClassLoader);
+            ResourceLoader resourceLoader = runtimeOptions.resourceLoader(newClassLoader);
+            ClassFinder classFinder = new ResourceLoaderClassFinder(resourceLoader, newClassLoader);
+            warm = new Runtime(resourceLoader, classFinder, newClassLoader, runtimeOptions);
+            classLoader = newClassLoader;
+            fingerprint = currentFingerprint;
+            gluePaths = new ArrayList<String>(runtimeOptions.getGlue());
+            return warm;
+        }
+        Thread.currentThread().setContextClassLoader(classLoader);
+        return new Runtime(warm, runtimeOptions.resourceLoader(classLoader), runtimeOptions);
+    }
+
+    private URL[] urls() {
+        URL[] urls = new URL[classpath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = classpath.get(i).toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new CucumberException(e);
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * @return a number that changes when a file on the class path is added, removed or changed
+     */
+    long fingerprint() {
+        long fingerprint = 17;
+        for (File entry : classpath) {
+            fingerprint = fingerprint(entry, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static long fingerprint(File file, long fingerprint) {
+        fingerprint = 31 * fingerprint + file.getName().hashCode();
+        String[] names = file.list();
+        if (names == null) {
+            fingerprint = 31 * fingerprint + file.lastModified();
+            return 31 * fingerprint + file.length();
+        }
+        Arrays.sort(names);
+        for (String name : names) {
+            fingerprint = fingerprint(new File(file, name), fingerprint);
+        }
+        return fingerprint;
+    }
+}
@@ -1,5 +1,6 @@
 package cucumber.runtime.formatter;
 
+import cucumber.runtime.BinaryLogFormatter;
 import cucumber.runtime.CucumberException;
 import cucumber.runtime.io.URLOutputStream;
 import cucumber.runtime.io.UTF8OutputStreamWriter;
@@ -46,8 +47,10 @@ public class FormatterFactory {
         put("pretty", CucumberPrettyFormatter.class);
         put("progress", ProgressFormatter.class);
         put("json", CucumberJSONFormatter.class);
+        put("json-stream", StreamingJSONFormatter.class);
         put("usage", UsageFormatter.class);
         put("rerun", RerunFormatter.class);
+        put("binlog", BinaryLogFormatter.class);
     }};
     private static final Pattern FORMATTER_WITH_FILE_PATTERN = Pattern.compile("([^:]+):(.*)");
     private Appendable defaultOut = new PrintStream(System.out) {
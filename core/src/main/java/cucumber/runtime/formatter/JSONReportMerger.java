@@ -0,0 +1,280 @@
+package cucumber.runtime.formatter;
+
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.io.UTF8OutputStreamWriter;
+import gherkin.deps.com.google.gson.Gson;
+import gherkin.deps.com.google.gson.JsonElement;
+import gherkin.deps.com.google.gson.JsonObject;
+import gherkin.deps.com.google.gson.JsonParseException;
+import gherkin.deps.com.google.gson.JsonParser;
+import gherkin.deps.com.google.gson.stream.JsonReader;
+import gherkin.deps.com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges Cucumber JSON reports, such as the ones written by the {@code json} or {@code json-stream} formatter on
+ * every shard, into one report. The reports are streamed: only the fields of the current feature of each report,
+ * and its current scenario with the background before it, are kept in memory.
+ * <p/>
+ * Features are always run in the order of their paths, so the features of each report are sorted by their
+ * {@code uri}. The reports are merged like sorted lists: features with the same uri become one feature, with
+ * the fields of the first report that has it, and their scenarios are merged by line. Scenarios on the same
+ * line, such as the same scenario run on two shards, are kept in the order of the reports.
+ * <p/>
+ * The {@code json} formatter doesn't always write the uri of a feature before its elements. Then the elements
+ * are copied to a temporary file, so they can be read again once the uri is known.
+ */
+public class JSONReportMerger {
+    private final Gson gson = new Gson();
+    private final JsonParser parser = new JsonParser();
+
+    public void merge(List<File> reports, Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.setIndent("  ");
+        json.setHtmlSafe(true);
+        json.setSerializeNulls(false);
+
+        List<Report> inputs = new ArrayList<Report>();
+        try {
+            for (File report : reports) {
+                inputs.add(new Report(report));
+            }
+            json.beginArray();
+            List<Report> group;
+            while (!(group = nextFeature(inputs)).isEmpty()) {
+                writeFeature(group, json);
+                for (Report input : group) {
+                    input.nextFeature();
+                }
+            }
+            json.endArray();
+            json.flush();
+        } catch (JsonParseException e) {
+            throw new CucumberException("Failed to merge JSON reports", e);
+        } catch (IllegalStateException e) {
+            // Thrown by JsonReader when the structure isn't what a report looks like
+            throw new CucumberException("Failed to merge JSON reports", e);
+        } finally {
+            for (Report input : inputs) {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * @return the reports whose current feature has the smallest uri, in the order of the reports
+     */
+    private List<Report> nextFeature(List<Report> inputs) {
+        List<Report> group = new ArrayList<Report>();
+        for (Report input : inputs) {
+            if (input.uri == null) {
+                continue;
+            }
+            int comparison = group.isEmpty() ? -1 : input.uri.compareTo(group.get(0).uri);
+            if (comparison < 0) {
+                group.clear();
+            }
+            if (comparison <= 0) {
+                group.add(input);
+            }
+        }
+        return group;
+    }
+
+    private void writeFeature(List<Report> group, JsonWriter json) throws IOException {
+        Report first = group.get(0);
+        json.beginObject();
+        writeFields(first.fields, json);
+        json.name("elements");
+        json.beginArray();
+        for (Report input : group) {
+            input.nextScenario();
+        }
+        Report next;
+        while ((next = nextScenario(group)) != null) {
+            for (JsonElement element : next.scenario) {
+                gson.toJson(element, json);
+            }
+            next.nextScenario();
+        }
+        json.endArray();
+        writeFields(first.fieldsAfterElements, json);
+        json.endObject();
+    }
+
+    private Report nextScenario(List<Report> group) {
+        Report next = null;
+        for (Report input : group) {
+            if (input.scenario != null && (next == null || input.line < next.line)) {
+                next = input;
+            }
+        }
+        return next;
+    }
+
+    private void writeFields(Map<String, JsonElement> fields, JsonWriter json) throws IOException {
+        for (Map.Entry<String, JsonElement> field : fields.entrySet()) {
+            json.name(field.getKey());
+            gson.toJson(field.getValue(), json);
+        }
+    }
+
+    /**
+     * A report being read. Its current feature is read up to the elements, which are read one scenario at a time.
+     */
+    private class Report {
+        private final JsonReader in;
+
+        /**
+         * The uri of the current feature, or null at the end of the report.
+         */
+        private String uri;
+        private final Map<String, JsonElement> fields = new LinkedHashMap<String, JsonElement>();
+        private final Map<String, JsonElement> fieldsAfterElements = new LinkedHashMap<String, JsonElement>();
+        /**
+         * Where the elements are read from: {@link #in}, a temporary file, or null when the feature has none.
+         */
+        private JsonReader elements;
+        private File elementsFile;
+
+        /**
+         * The current scenario, preceded by its background if there is one, or null after the last one.
+         */
+        private List<JsonElement> scenario;
+        private int line;
+
+        Report(File file) throws IOException {
+            this.in = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8")));
+            if (file.length() > 0) {
+                in.beginArray();
+                nextFeature();
+            }
+        }
+
+        void nextFeature() throws IOException {
+            uri = null;
+            fields.clear();
+            fieldsAfterElements.clear();
+            elements = null;
+            if (!in.hasNext()) {
+                in.endArray();
+                return;
+            }
+            in.beginObject();
+            String id = null;
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("elements")) {
+                    if (uri != null) {
+                        elements = in;
+                        elements.beginArray();
+                        return;
+                    }
+                    spoolElements();
+                } else {
+                    JsonElement value = parser.parse(in);
+                    fields.put(name, value);
+                    if (name.equals("uri")) {
+                        uri = value.getAsString();
+                    } else if (name.equals("id")) {
+                        id = value.getAsString();
+                    }
+                }
+            }
+            in.endObject();
+            if (uri == null) {
+                uri = id == null ? "" : id;
+            }
+        }
+
+        /**
+         * Copies the elements to a temporary file, one at a time, and reads them from there.
+         */
+        private void spoolElements() throws IOException {
+            elementsFile = File.createTempFile("cucumber-json-merge", ".json");
+            elementsFile.deleteOnExit();
+            JsonWriter spool = new JsonWriter(new BufferedWriter(new UTF8OutputStreamWriter(new FileOutputStream(elementsFile))));
+            try {
+                spool.beginArray();
+                in.beginArray();
+                while (in.hasNext()) {
+                    gson.toJson(parser.parse(in), spool);
+                }
+                in.endArray();
+                spool.endArray();
+            } finally {
+                spool.close();
+            }
+            elements = new JsonReader(new BufferedReader(new InputStreamReader(new FileInputStream(elementsFile), "UTF-8")));
+            elements.beginArray();
+        }
+
+        void nextScenario() throws IOException {
+            scenario = null;
+            if (elements == null) {
+                return;
+            }
+            if (!elements.hasNext()) {
+                finishElements();
+                return;
+            }
+            scenario = new ArrayList<JsonElement>();
+            JsonElement element;
+            do {
+                element = parser.parse(elements);
+                scenario.add(element);
+            } while (isBackground(element) && elements.hasNext());
+            JsonElement elementLine = element.getAsJsonObject().get("line");
+            line = elementLine == null ? 0 : elementLine.getAsInt();
+        }
+
+        private boolean isBackground(JsonElement element) {
+            JsonElement type = ((JsonObject) element).get("type");
+            return type != null && "background".equals(type.getAsString());
+        }
+
+        private void finishElements() throws IOException {
+            elements.endArray();
+            if (elements == in) {
+                while (in.hasNext()) {
+                    fieldsAfterElements.put(in.nextName(), parser.parse(in));
+                }
+                in.endObject();
+            } else {
+                closeElementsFile();
+            }
+            elements = null;
+        }
+
+        private void closeElementsFile() {
+            if (elementsFile != null) {
+                try {
+                    elements.close();
+                } catch (IOException ignore) {
+                }
+                elementsFile.delete();
+                elementsFile = null;
+            }
+        }
+
+        void close() {
+            closeElementsFile();
+            try {
+                in.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
@@ -13,21 +13,16 @@ import gherkin.formatter.model.Result;
 import gherkin.formatter.model.Scenario;
 import gherkin.formatter.model.ScenarioOutline;
 import gherkin.formatter.model.Step;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URL;
@@ -37,24 +32,31 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
+/**
+ * Writes a JUnit XML report without keeping it in memory. Each test case is written to a temporary file
+ * as soon as the next one starts. The totals of the root element are counted along the way, so at the end
+ * the root element is written with its totals, followed by the test cases from the temporary file.
+ * <p/>
+ * The XML is written by hand rather than with StAX, because {@link javax.xml.stream.XMLStreamWriter} doesn't
+ * escape line breaks in attributes, and failure messages often have several lines.
+ */
 class JUnitFormatter implements Formatter, Reporter, StrictAware {
     private final Writer out;
-    private final Document doc;
-    private final Element rootElement;
+    private final File testCasesFile;
+    private final Writer testCasesOut;
 
     private TestCase testCase;
-    private Element root;
+    private int tests;
+    private int failures;
+    private int skipped;
+    private double totalSeconds;
 
     public JUnitFormatter(URL out) throws IOException {
         this.out = new UTF8OutputStreamWriter(new URLOutputStream(out));
         TestCase.treatSkippedAsFailure = false;
-        try {
-            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
-            rootElement = doc.createElement("testsuite");
-            doc.appendChild(rootElement);
-        } catch (ParserConfigurationException e) {
-            throw new CucumberException("Error while processing unit report", e);
-        }
+        testCasesFile = File.createTempFile("cucumber-junit", ".xml");
+        testCasesFile.deleteOnExit();
+        testCasesOut = new BufferedWriter(new UTF8OutputStreamWriter(new FileOutputStream(testCasesFile)));
     }
 
     @Override
@@ -67,8 +69,7 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
     @Override
     public void background(Background background) {
         if (!isCurrentTestCaseCreatedNameless()) {
-            testCase = new TestCase();
-            root = testCase.createElement(doc);
+            startTestCase(new TestCase());
         }
     }
 
@@ -77,19 +78,42 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
         if (isCurrentTestCaseCreatedNameless()) {
             testCase.scenario = scenario;
         } else {
-            testCase = new TestCase(scenario);
-            root = testCase.createElement(doc);
+            startTestCase(new TestCase(scenario));
         }
-        testCase.writeElement(doc, root);
-        rootElement.appendChild(root);
-
-        increaseAttributeValue(rootElement, "tests");
+        testCase.writeNames();
+        tests++;
     }
 
     private boolean isCurrentTestCaseCreatedNameless() {
         return testCase != null && testCase.scenario == null;
     }
 
+    private void startTestCase(TestCase next) {
+        finishTestCase();
+        testCase = next;
+    }
+
+    /**
+     * Writes the current test case, unless it never got a scenario. Its results can't change anymore.
+     */
+    private void finishTestCase() {
+        if (testCase != null && testCase.scenario != null) {
+            try {
+                String time = testCase.calculateTotalDurationString();
+                String status = testCase.write(testCasesOut, time);
+                if ("failure".equals(status)) {
+                    failures++;
+                } else if ("skipped".equals(status)) {
+                    skipped++;
+                }
+                totalSeconds += Double.parseDouble(time);
+            } catch (IOException e) {
+                throw new CucumberException("Error while writing unit report", e);
+            }
+        }
+        testCase = null;
+    }
+
     @Override
     public void step(Step step) {
         if (testCase != null) testCase.steps.add(step);
@@ -97,23 +121,44 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
 
     @Override
     public void done() {
+        finishTestCase();
         try {
-            // set up a transformer
-            rootElement.setAttribute("name", JUnitFormatter.class.getName());
-            rootElement.setAttribute("failures", String.valueOf(rootElement.getElementsByTagName("failure").getLength()));
-            rootElement.setAttribute("skipped", String.valueOf(rootElement.getElementsByTagName("skipped").getLength()));
-            rootElement.setAttribute("time", sumTimes(rootElement.getElementsByTagName("testcase")));
-            if (rootElement.getElementsByTagName("testcase").getLength() == 0) {
-                addDummyTestCase(); // to avoid failed Jenkins jobs
+            testCasesOut.close();
+
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+            out.write("<testsuite");
+            writeAttribute(out, "failures", String.valueOf(failures));
+            writeAttribute(out, "name", JUnitFormatter.class.getName());
+            writeAttribute(out, "skipped", String.valueOf(skipped));
+            if (tests > 0) {
+                writeAttribute(out, "tests", String.valueOf(tests));
+            }
+            writeAttribute(out, "time", formatSeconds(totalSeconds));
+            out.write(">\n");
+            if (tests == 0) {
+                writeDummyTestCase(out); // to avoid failed Jenkins jobs
+            } else {
+                copyTestCases();
             }
-            TransformerFactory transfac = TransformerFactory.newInstance();
-            Transformer trans = transfac.newTransformer();
-            trans.setOutputProperty(OutputKeys.INDENT, "yes");
-            StreamResult result = new StreamResult(out);
-            DOMSource source = new DOMSource(doc);
-            trans.transform(source, result);
-        } catch (TransformerException e) {
+            out.write("</testsuite>\n");
+            out.flush();
+        } catch (IOException e) {
             throw new CucumberException("Error while transforming.", e);
+        } finally {
+            testCasesFile.delete();
+        }
+    }
+
+    private void copyTestCases() throws IOException {
+        Reader in = new BufferedReader(new InputStreamReader(new FileInputStream(testCasesFile), "UTF-8"));
+        try {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
         }
     }
 
@@ -127,28 +172,60 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
         // NoOp
     }
 
-    private void addDummyTestCase() {
-        Element dummy = doc.createElement("testcase");
-        dummy.setAttribute("classname", "dummy");
-        dummy.setAttribute("name", "dummy");
-        rootElement.appendChild(dummy);
-        Element skipped = doc.createElement("skipped");
-        skipped.setAttribute("message", "No features found");
-        dummy.appendChild(skipped);
+    static void writeDummyTestCase(Writer out) throws IOException {
+        out.write("    <testcase classname=\"dummy\" name=\"dummy\">\n");
+        out.write("        <skipped message=\"No features found\"/>\n");
+        out.write("    </testcase>\n");
+    }
+
+    static String formatSeconds(double seconds) {
+        return TestCase.NUMBER_FORMAT.format(seconds);
+    }
+
+    static void writeAttribute(Writer out, String name, String value) throws IOException {
+        out.write(" ");
+        out.write(name);
+        out.write("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    out.write("&amp;");
+                    break;
+                case '<':
+                    out.write("&lt;");
+                    break;
+                case '>':
+                    out.write("&gt;");
+                    break;
+                case '"':
+                    out.write("&quot;");
+                    break;
+                case '\n':
+                    out.write("&#10;");
+                    break;
+                case '\r':
+                    out.write("&#13;");
+                    break;
+                case '\t':
+                    out.write("&#9;");
+                    break;
+                default:
+                    out.write(c);
+            }
+        }
+        out.write("\"");
     }
 
     @Override
     public void result(Result result) {
         testCase.results.add(result);
-
-        testCase.updateElement(doc, root);
     }
 
     @Override
     public void before(Match match, Result result) {
         if (!isCurrentTestCaseCreatedNameless()) {
-            testCase = new TestCase();
-            root = testCase.createElement(doc);
+            startTestCase(new TestCase());
         }
         handleHook(result);
     }
@@ -160,38 +237,11 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
 
     private void handleHook(Result result) {
         testCase.hookResults.add(result);
-        testCase.updateElement(doc, root);
-    }
-
-    private String sumTimes(NodeList testCaseNodes) {
-        double totalDurationSecondsForAllTimes = 0.0d;
-        for( int i = 0; i < testCaseNodes.getLength(); i++ ) {
-            try {
-                double testCaseTime =
-                        Double.parseDouble(testCaseNodes.item(i).getAttributes().getNamedItem("time").getNodeValue());
-                totalDurationSecondsForAllTimes += testCaseTime;
-            } catch ( NumberFormatException e ) {
-                throw new CucumberException(e);
-            } catch ( NullPointerException e ) {
-                throw new CucumberException(e);
-            }
-        }
-        DecimalFormat nfmt = (DecimalFormat) NumberFormat.getNumberInstance(Locale.US);
-        nfmt.applyPattern("0.######");
-        return nfmt.format(totalDurationSecondsForAllTimes);
-    }
-
-    private void increaseAttributeValue(Element element, String attribute) {
-        int value = 0;
-        if (element.hasAttribute(attribute)) {
-            value = Integer.parseInt(element.getAttribute(attribute));
-        }
-        element.setAttribute(attribute, String.valueOf(++value));
     }
 
     @Override
     public void scenarioOutline(ScenarioOutline scenarioOutline) {
-        testCase = null;
+        finishTestCase();
     }
 
     @Override
@@ -216,6 +266,11 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
 
     @Override
     public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new CucumberException("Error while closing unit report", e);
+        }
     }
 
     @Override
@@ -253,14 +308,12 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
         final List<Step> steps = new ArrayList<Step>();
         final List<Result> results = new ArrayList<Result>();
         final List<Result> hookResults = new ArrayList<Result>();
+        String className;
+        String name;
 
-        private Element createElement(Document doc) {
-            return doc.createElement("testcase");
-        }
-
-        private void writeElement(Document doc, Element tc) {
-            tc.setAttribute("classname", feature.getName());
-            tc.setAttribute("name", calculateElementName(scenario));
+        private void writeNames() {
+            className = feature.getName();
+            name = calculateElementName(scenario);
         }
 
         private String calculateElementName(Scenario scenario) {
@@ -278,8 +331,15 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
             return scenarioName.indexOf(' ') != -1;
         }
 
-        public void updateElement(Document doc, Element tc) {
-            tc.setAttribute("time", calculateTotalDurationString());
+        /**
+         * @return the name of the element that tells the outcome: failure, skipped or system-out.
+         */
+        public String write(Writer out, String time) throws IOException {
+            out.write("    <testcase");
+            writeAttribute(out, "classname", className);
+            writeAttribute(out, "name", name);
+            writeAttribute(out, "time", time);
+            out.write(">\n        ");
 
             StringBuilder sb = new StringBuilder();
             addStepAndResultListing(sb);
@@ -291,27 +351,27 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
             for (Result result : hookResults) {
                 if (failed == null && "failed".equals(result.getStatus())) failed = result;
             }
-            Element child;
+            String elementType;
             if (failed != null) {
                 addStackTrace(sb, failed);
-                child = createElementWithMessage(doc, sb, "failure", failed.getErrorMessage());
+                elementType = "failure";
+                writeElement(out, sb, elementType, failed.getErrorMessage());
             } else if (skipped != null) {
                 if (treatSkippedAsFailure) {
-                    child = createElementWithMessage(doc, sb, "failure", "The scenario has pending or undefined step(s)");
+                    elementType = "failure";
+                    writeElement(out, sb, elementType, "The scenario has pending or undefined step(s)");
                 }
                 else {
-                    child = createElement(doc, sb, "skipped");
+                    elementType = "skipped";
+                    writeElement(out, sb, elementType, null);
                 }
             } else {
-                child = createElement(doc, sb, "system-out");
+                elementType = "system-out";
+                writeElement(out, sb, elementType, null);
             }
 
-            Node existingChild = tc.getFirstChild();
-            if (existingChild == null) {
-                tc.appendChild(child);
-            } else {
-                tc.replaceChild(child, existingChild);
-            }
+            out.write("\n    </testcase>\n");
+            return elementType;
         }
 
         private String calculateTotalDurationString() {
@@ -350,18 +410,18 @@ class JUnitFormatter implements Formatter, Reporter, StrictAware {
             sb.append(sw.toString());
         }
 
-        private Element createElementWithMessage(Document doc, StringBuilder sb, String elementType, String message) {
-            Element child = createElement(doc, sb, elementType);
-            child.setAttribute("message", message);
-            return child;
-        }
-
-        private Element createElement(Document doc, StringBuilder sb, String elementType) {
-            Element child = doc.createElement(elementType);
-            child.appendChild(doc.createCDATASection(sb.toString()));
-            return child;
+        private void writeElement(Writer out, StringBuilder sb, String elementType, String message) throws IOException {
+            out.write("<");
+            out.write(elementType);
+            if (message != null) {
+                writeAttribute(out, "message", message);
+            }
+            out.write("><![CDATA[");
+            // A CDATA section can't contain its own end marker, so split it there
+            out.write(sb.toString().replace("]]>", "]]]]><![CDATA[>"));
+            out.write("]]></");
+            out.write(elementType);
+            out.write(">");
         }
-
     }
-
 }
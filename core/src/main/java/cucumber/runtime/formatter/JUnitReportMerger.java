@@ -0,0 +1,282 @@
+package cucumber.runtime.formatter;
+
+import cucumber.runtime.CucumberException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges JUnit XML reports, such as the ones written by {@link JUnitFormatter} on every shard, into one report
+ * with a single test suite. The reports are read with StAX, one test case at a time, and the test cases are
+ * written to a temporary file while the totals are counted, like {@link JUnitFormatter} does. Only where each
+ * test case is in that file is kept in memory.
+ * <p/>
+ * The test cases are grouped by class name (the feature name), so the test cases of a feature that was split
+ * over several reports end up together. The features are in the order they first appear in the reports, and
+ * the test cases of a feature in the order of the reports. The placeholder test cases of empty reports are left
+ * out.
+ */
+public class JUnitReportMerger {
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    /**
+     * Where the test cases of each class are in the temporary file, as offset and length pairs.
+     */
+    private final Map<String, List<long[]>> testCasesByClassName = new LinkedHashMap<String, List<long[]>>();
+
+    private int tests;
+    private int failures;
+    private int errors;
+    private int skipped;
+    private double totalSeconds;
+
+    public JUnitReportMerger() {
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    public void merge(List<File> reports, Writer out) throws IOException {
+        File testCasesFile = File.createTempFile("cucumber-junit-merge", ".xml");
+        testCasesFile.deleteOnExit();
+        try {
+            OutputStream testCasesOut = new BufferedOutputStream(new FileOutputStream(testCasesFile));
+            try {
+                long offset = 0;
+                for (File file : reports) {
+                    Report report = new Report(file);
+                    try {
+                        while (report.className != null) {
+                            StringWriter testCase = new StringWriter();
+                            copyTestCase(report, testCase);
+                            byte[] bytes = testCase.toString().getBytes("UTF-8");
+                            testCasesOut.write(bytes);
+                            addTestCase(report.className, offset, bytes.length);
+                            offset += bytes.length;
+                            report.advance();
+                        }
+                    } finally {
+                        report.close();
+                    }
+                }
+            } finally {
+                testCasesOut.close();
+            }
+
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+            out.write("<testsuite");
+            if (errors > 0) {
+                JUnitFormatter.writeAttribute(out, "errors", String.valueOf(errors));
+            }
+            JUnitFormatter.writeAttribute(out, "failures", String.valueOf(failures));
+            JUnitFormatter.writeAttribute(out, "name", JUnitFormatter.class.getName());
+            JUnitFormatter.writeAttribute(out, "skipped", String.valueOf(skipped));
+            if (tests > 0) {
+                JUnitFormatter.writeAttribute(out, "tests", String.valueOf(tests));
+            }
+            JUnitFormatter.writeAttribute(out, "time", JUnitFormatter.formatSeconds(totalSeconds));
+            out.write(">\n");
+            if (tests == 0) {
+                JUnitFormatter.writeDummyTestCase(out);
+            } else {
+                copyTestCases(testCasesFile, out);
+            }
+            out.write("</testsuite>\n");
+            out.flush();
+        } catch (XMLStreamException e) {
+            throw new CucumberException("Failed to merge JUnit reports", e);
+        } finally {
+            testCasesFile.delete();
+        }
+    }
+
+    private void addTestCase(String className, long offset, int length) {
+        List<long[]> testCases = testCasesByClassName.get(className);
+        if (testCases == null) {
+            testCases = new ArrayList<long[]>();
+            testCasesByClassName.put(className, testCases);
+        }
+        long[] last = testCases.isEmpty() ? null : testCases.get(testCases.size() - 1);
+        if (last != null && last[0] + last[1] == offset) {
+            // Right after the previous test case of the class, as is usual within a report
+            last[1] += length;
+        } else {
+            testCases.add(new long[]{offset, length});
+        }
+    }
+
+    /**
+     * Copies the test cases from the temporary file, grouped by class name.
+     */
+    private void copyTestCases(File testCasesFile, Writer out) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(testCasesFile, "r");
+        try {
+            for (List<long[]> testCases : testCasesByClassName.values()) {
+                for (long[] testCase : testCases) {
+                    byte[] bytes = new byte[(int) testCase[1]];
+                    in.seek(testCase[0]);
+                    in.readFully(bytes);
+                    out.write(new String(bytes, "UTF-8"));
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Copies the test case the report is at, and adds it to the totals.
+     */
+    private void copyTestCase(Report report, Writer out) throws IOException, XMLStreamException {
+        XMLStreamReader in = report.in;
+        out.write("    ");
+        writeStartElement(in, out);
+        String time = in.getAttributeValue(null, "time");
+        if (time != null && time.length() > 0) {
+            try {
+                totalSeconds += Double.parseDouble(time);
+            } catch (NumberFormatException e) {
+                throw new CucumberException(String.format("Bad time in %s: %s", report.file, time));
+            }
+        }
+        tests++;
+
+        boolean startTagOpen = true;
+        int depth = 1;
+        while (depth > 0) {
+            int event = in.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                if (startTagOpen) {
+                    out.write("/>");
+                } else {
+                    out.write("</");
+                    out.write(in.getLocalName());
+                    out.write(">");
+                }
+                startTagOpen = false;
+                depth--;
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.CHARACTERS
+                    && event != XMLStreamConstants.CDATA && event != XMLStreamConstants.SPACE) {
+                continue;
+            }
+            if (startTagOpen) {
+                out.write(">");
+                startTagOpen = false;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (depth == 1) {
+                    count(in.getLocalName());
+                }
+                writeStartElement(in, out);
+                startTagOpen = true;
+                depth++;
+            } else {
+                writeText(in.getText(), out);
+            }
+        }
+        out.write("\n");
+    }
+
+    private void count(String status) {
+        if ("failure".equals(status)) {
+            failures++;
+        } else if ("error".equals(status)) {
+            errors++;
+        } else if ("skipped".equals(status)) {
+            skipped++;
+        }
+    }
+
+    private static void writeStartElement(XMLStreamReader in, Writer out) throws IOException {
+        out.write("<");
+        out.write(in.getLocalName());
+        for (int i = 0; i < in.getAttributeCount(); i++) {
+            JUnitFormatter.writeAttribute(out, in.getAttributeLocalName(i), in.getAttributeValue(i));
+        }
+    }
+
+    private static void writeText(String text, Writer out) throws IOException {
+        if (text.trim().length() == 0) {
+            out.write(text);
+        } else {
+            out.write("<![CDATA[");
+            // A CDATA section can't contain its own end marker, so split it there
+            out.write(text.replace("]]>", "]]]]><![CDATA[>"));
+            out.write("]]>");
+        }
+    }
+
+    /**
+     * A report being read. It's always at the start of its next test case, or at the end.
+     */
+    private class Report {
+        private final File file;
+        private final InputStream stream;
+        private final XMLStreamReader in;
+        /**
+         * The class name of the next test case, or null at the end of the report.
+         */
+        private String className;
+
+        Report(File file) throws IOException, XMLStreamException {
+            this.file = file;
+            if (file.length() == 0) {
+                // Nothing was written, for example because the shard crashed
+                this.stream = null;
+                this.in = null;
+                return;
+            }
+            this.stream = new BufferedInputStream(new FileInputStream(file));
+            try {
+                this.in = inputFactory.createXMLStreamReader(stream);
+            } catch (XMLStreamException e) {
+                stream.close();
+                throw e;
+            }
+            advance();
+        }
+
+        void advance() throws XMLStreamException {
+            className = null;
+            while (in.hasNext()) {
+                if (in.next() == XMLStreamConstants.START_ELEMENT && "testcase".equals(in.getLocalName())) {
+                    String name = in.getAttributeValue(null, "classname");
+                    if (!"dummy".equals(name) || !"dummy".equals(in.getAttributeValue(null, "name"))) {
+                        className = name == null ? "" : name;
+                        return;
+                    }
+                }
+            }
+        }
+
+        void close() {
+            if (in == null) {
+                return;
+            }
+            try {
+                in.close();
+                stream.close();
+            } catch (XMLStreamException ignore) {
+            } catch (IOException ignore) {
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package cucumber.runtime.formatter;
+
+import cucumber.runtime.CucumberException;
+import gherkin.deps.com.google.gson.Gson;
+import gherkin.deps.com.google.gson.GsonBuilder;
+import gherkin.deps.com.google.gson.stream.JsonWriter;
+import gherkin.deps.net.iharder.Base64;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the same report as {@link CucumberJSONFormatter}, but writes each feature element (background or
+ * scenario) as soon as the next one starts, instead of keeping all features in memory until the end.
+ * The output is flushed at the end of every feature, and at least every second in between, so most of
+ * the report is on disk even if the JVM dies.
+ */
+class StreamingJSONFormatter implements Formatter, Reporter {
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Writer out;
+    private final JsonWriter json;
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    private String uri;
+    private boolean started = false;
+    private boolean inFeature = false;
+    private boolean inElements = false;
+    private boolean inScenarioOutline = false;
+    private Map<String, Object> featureElement;
+    private List<Map> beforeHooks = new ArrayList<Map>();
+    private long lastFlush = System.nanoTime();
+
+    public StreamingJSONFormatter(Appendable out) {
+        this.out = out instanceof Writer ? (Writer) out : new AppendableWriter(out);
+        this.json = new JsonWriter(this.out);
+        json.setIndent("  ");
+        json.setHtmlSafe(true);
+        json.setSerializeNulls(false);
+    }
+
+    @Override
+    public void uri(String uri) {
+        this.uri = uri;
+    }
+
+    @Override
+    public void feature(Feature feature) {
+        try {
+            finishFeature();
+            if (!started) {
+                json.beginArray();
+                started = true;
+            }
+            Map<String, Object> featureMap = feature.toMap();
+            featureMap.put("uri", uri);
+            json.beginObject();
+            for (Map.Entry<String, Object> entry : featureMap.entrySet()) {
+                json.name(entry.getKey());
+                writeValue(entry.getValue());
+            }
+            inFeature = true;
+        } catch (IOException e) {
+            throw new CucumberException(e);
+        }
+    }
+
+    @Override
+    public void background(Background background) {
+        startFeatureElement(background.toMap());
+    }
+
+    @Override
+    public void scenario(Scenario scenario) {
+        startFeatureElement(scenario.toMap());
+        if (beforeHooks.size() > 0) {
+            featureElement.put("before", beforeHooks);
+            beforeHooks = new ArrayList<Map>();
+        }
+    }
+
+    @Override
+    public void scenarioOutline(ScenarioOutline scenarioOutline) {
+        inScenarioOutline = true;
+    }
+
+    @Override
+    public void examples(Examples examples) {
+        // NoOp
+    }
+
+    @Override
+    public void startOfScenarioLifeCycle(Scenario scenario) {
+        inScenarioOutline = false;
+    }
+
+    @Override
+    public void endOfScenarioLifeCycle(Scenario scenario) {
+    }
+
+    @Override
+    public void step(Step step) {
+        if (!inScenarioOutline) {
+            getSteps().add(step.toMap());
+        }
+    }
+
+    @Override
+    public void match(Match match) {
+        getCurrentStep("match").put("match", match.toMap());
+    }
+
+    @Override
+    public void embedding(String mimeType, byte[] data) {
+        Map<String, String> embedding = new HashMap<String, String>();
+        embedding.put("mime_type", mimeType);
+        embedding.put("data", Base64.encodeBytes(data));
+        getList(getCurrentStep("result"), "embeddings").add(embedding);
+    }
+
+    @Override
+    public void write(String text) {
+        getList(getCurrentStep("result"), "output").add(text);
+    }
+
+    @Override
+    public void result(Result result) {
+        getCurrentStep("result").put("result", result.toMap());
+    }
+
+    @Override
+    public void before(Match match, Result result) {
+        beforeHooks.add(buildHookMap(match, result));
+    }
+
+    @Override
+    public void after(Match match, Result result) {
+        getList(featureElement, "after").add(buildHookMap(match, result));
+    }
+
+    @Override
+    public void eof() {
+        try {
+            finishFeature();
+        } catch (IOException e) {
+            throw new CucumberException(e);
+        }
+    }
+
+    @Override
+    public void done() {
+        try {
+            finishFeature();
+            if (!started) {
+                json.beginArray();
+                started = true;
+            }
+            json.endArray();
+            json.flush();
+        } catch (IOException e) {
+            throw new CucumberException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            json.close();
+        } catch (IOException e) {
+            throw new CucumberException(e);
+        }
+    }
+
+    @Override
+    public void syntaxError(String state, String event, List<String> legalEvents, String uri, Integer line) {
+        throw new UnsupportedOperationException();
+    }
+
+    private void startFeatureElement(Map<String, Object> element) {
+        try {
+            finishFeatureElement();
+            if (!inElements) {
+                json.name("elements");
+                json.beginArray();
+                inElements = true;
+            }
+            featureElement = element;
+        } catch (IOException e) {
+            throw new CucumberException(e);
+        }
+    }
+
+    private void finishFeatureElement() throws IOException {
+        if (featureElement != null) {
+            writeValue(featureElement);
+            featureElement = null;
+            if (System.nanoTime() - lastFlush > FLUSH_INTERVAL_NANOS) {
+                flush();
+            }
+        }
+    }
+
+    private void finishFeature() throws IOException {
+        finishFeatureElement();
+        if (inElements) {
+            json.endArray();
+            inElements = false;
+        }
+        if (inFeature) {
+            json.endObject();
+            inFeature = false;
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        json.flush();
+        lastFlush = System.nanoTime();
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            gson.toJson(null, Object.class, json);
+        } else {
+            gson.toJson(value, value.getClass(), json);
+        }
+    }
+
+    /**
+     * Same lookup as gherkin's JSONFormatter: the first step without a match or result, or the last step.
+     */
+    private Map getCurrentStep(String target) {
+        Map lastWithValue = null;
+        for (Map stepOrHook : getSteps()) {
+            if (stepOrHook.get(target) == null) {
+                return stepOrHook;
+            }
+            lastWithValue = stepOrHook;
+        }
+        return lastWithValue;
+    }
+
+    private List<Map> getSteps() {
+        return getList(featureElement, "steps");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List getList(Map map, String key) {
+        List list = (List) map.get(key);
+        if (list == null) {
+            list = new ArrayList();
+            map.put(key, list);
+        }
+        return list;
+    }
+
+    private Map buildHookMap(Match match, Result result) {
+        Map<String, Object> hookMap = new HashMap<String, Object>();
+        hookMap.put("match", match.toMap());
+        hookMap.put("result", result.toMap());
+        return hookMap;
+    }
+
+    private static class AppendableWriter extends Writer {
+        private final Appendable out;
+
+        AppendableWriter(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            out.append(new String(chars, offset, length));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out instanceof Flushable) {
+                ((Flushable) out).flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out instanceof Closeable) {
+                ((Closeable) out).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package cucumber.runtime.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * The parts of a class file that tell whether a class declares glue, read straight from the bytes so the class
+ * doesn't have to be loaded. Classes whose constant pool doesn't mention any of the annotations are only read
+ * up to their super class.
+ */
+class ClassFile {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private final String className;
+    private final String superClassName;
+    private final boolean hasAnnotatedMethod;
+
+    private ClassFile(String className, String superClassName, boolean hasAnnotatedMethod) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.hasAnnotatedMethod = hasAnnotatedMethod;
+    }
+
+    /**
+     * @return the binary name of the class, such as {@code com.example.Outer$Inner}
+     */
+    String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the binary name of the super class, or null for {@link Object} itself
+     */
+    String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * @return whether one of the methods of the class has one of the annotations that were looked for
+     */
+    boolean hasAnnotatedMethod() {
+        return hasAnnotatedMethod;
+    }
+
+    /**
+     * Reads a class file, and closes the stream.
+     *
+     * @param classBytes           the class file
+     * @param annotationDescriptors the annotations to look for, as descriptors such as {@code Lcucumber/api/java/Before;}
+     * @return the class file
+     * @throws IOException if the stream can't be read, or isn't a class file
+     */
+    static ClassFile read(InputStream classBytes, Set<String> annotationDescriptors) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(classBytes));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a class file");
+            }
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+
+            int constantPoolCount = in.readUnsignedShort();
+            String[] utf8s = new String[constantPoolCount];
+            int[] classNameIndexes = new int[constantPoolCount];
+            boolean mentionsAnnotation = false;
+            for (int i = 1; i < constantPoolCount; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1: // Utf8
+                        utf8s[i] = in.readUTF();
+                        mentionsAnnotation |= annotationDescriptors.contains(utf8s[i]);
+                        break;
+                    case 7: // Class
+                        classNameIndexes[i] = in.readUnsignedShort();
+                        break;
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        in.skipBytes(2);
+                        break;
+                    case 15: // MethodHandle
+                        in.skipBytes(3);
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        in.skipBytes(4);
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        in.skipBytes(8);
+                        i++; // takes two entries
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag: " + tag);
+                }
+            }
+
+            in.readUnsignedShort(); // access flags
+            String className = binaryName(utf8s[classNameIndexes[in.readUnsignedShort()]]);
+            int superClassIndex = in.readUnsignedShort();
+            String superClassName = superClassIndex == 0 ? null : binaryName(utf8s[classNameIndexes[superClassIndex]]);
+            if (!mentionsAnnotation) {
+                return new ClassFile(className, superClassName, false);
+            }
+
+            in.skipBytes(2 * in.readUnsignedShort()); // interfaces
+            skipMembers(in); // fields
+            int methodCount = in.readUnsignedShort();
+            for (int i = 0; i < methodCount; i++) {
+                in.skipBytes(6); // access flags, name, descriptor
+                int attributeCount = in.readUnsignedShort();
+                for (int j = 0; j < attributeCount; j++) {
+                    String attributeName = utf8s[in.readUnsignedShort()];
+                    int length = in.readInt();
+                    if ("RuntimeVisibleAnnotations".equals(attributeName)) {
+                        int annotationCount = in.readUnsignedShort();
+                        for (int k = 0; k < annotationCount; k++) {
+                            if (annotationDescriptors.contains(utf8s[in.readUnsignedShort()])) {
+                                return new ClassFile(className, superClassName, true);
+                            }
+                            skipElementValuePairs(in);
+                        }
+                    } else {
+                        skipFully(in, length);
+                    }
+                }
+            }
+            return new ClassFile(className, superClassName, false);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String binaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            in.skipBytes(6); // access flags, name, descriptor
+            int attributeCount = in.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                in.skipBytes(2); // name
+                skipFully(in, in.readInt());
+            }
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream in) throws IOException {
+        int pairCount = in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            in.skipBytes(2); // name
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                in.skipBytes(4); // type name, constant name
+                break;
+            case '@':
+                in.skipBytes(2); // type
+                skipElementValuePairs(in);
+                break;
+            case '[':
+                int count = in.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue(in);
+                }
+                break;
+            default:
+                in.skipBytes(2); // constant or class
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of class file");
+            }
+            remaining -= skipped;
+        }
+    }
+}
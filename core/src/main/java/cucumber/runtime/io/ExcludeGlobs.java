@@ -0,0 +1,78 @@
+package cucumber.runtime.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Glob patterns for files and directories to leave out when walking a directory. Excluded directories aren't
+ * walked at all.
+ * <ul>
+ * <li>{@code *} matches any part of a name, {@code **} any part of a path and {@code ?} one character</li>
+ * <li>a pattern ending with {@code /}, such as {@code target/}, only matches directories</li>
+ * <li>a pattern without any other {@code /}, such as {@code *.bak}, matches names at any depth</li>
+ * <li>a pattern with a {@code /}, such as {@code src/generated/}, matches paths relative to where the walk started</li>
+ * </ul>
+ */
+public class ExcludeGlobs {
+    public static final ExcludeGlobs NONE = new ExcludeGlobs(Collections.<String>emptyList());
+
+    private final List<Glob> globs = new ArrayList<Glob>();
+
+    public ExcludeGlobs(List<String> globs) {
+        for (String glob : globs) {
+            this.globs.add(new Glob(glob));
+        }
+    }
+
+    public boolean isEmpty() {
+        return globs.isEmpty();
+    }
+
+    /**
+     * @param relativePath the path relative to where the walk started, with {@code /} as separator
+     * @param directory    whether the path is a directory
+     * @return whether the file or directory should be left out
+     */
+    public boolean excludes(String relativePath, boolean directory) {
+        String name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+        for (Glob glob : globs) {
+            if ((directory || !glob.directoriesOnly) && glob.pattern.matcher(glob.matchesName ? name : relativePath).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Glob {
+        private final Pattern pattern;
+        private final boolean directoriesOnly;
+        private final boolean matchesName;
+
+        Glob(String glob) {
+            directoriesOnly = glob.endsWith("/");
+            String path = directoriesOnly ? glob.substring(0, glob.length() - 1) : glob;
+            matchesName = path.indexOf('/') == -1;
+            pattern = toRegexp(path.startsWith("/") ? path.substring(1) : path);
+        }
+    }
+
+    private static Pattern toRegexp(String glob) {
+        StringBuilder regexp = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                regexp.append(".*");
+                i++;
+            } else if (c == '*') {
+                regexp.append("[^/]*");
+            } else if (c == '?') {
+                regexp.append("[^/]");
+            } else {
+                regexp.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regexp.toString());
+    }
+}
@@ -7,15 +7,31 @@ public class FileResourceIterable implements Iterable<Resource> {
     private final File root;
     private final File file;
     private final String suffix;
+    private final ExcludeGlobs excludes;
+    private final int threads;
 
     public FileResourceIterable(File root, File file, String suffix) {
+        this(root, file, suffix, ExcludeGlobs.NONE, 1);
+    }
+
+    /**
+     * @param excludes the files and directories to leave out
+     * @param threads  the number of threads to list directories on. With more than one thread the whole tree is
+     *                 walked when the iterator is created.
+     */
+    public FileResourceIterable(File root, File file, String suffix, ExcludeGlobs excludes, int threads) {
         this.root = root;
         this.file = file;
         this.suffix = suffix;
+        this.excludes = excludes;
+        this.threads = threads;
     }
 
     @Override
     public Iterator<Resource> iterator() {
-        return new FileResourceIterator(root, file, suffix);
+        if (threads > 1 && file.isDirectory()) {
+            return ParallelFileWalker.walk(new FileWalk(root, suffix, excludes), file, threads).iterator();
+        }
+        return new FileResourceIterator(root, file, suffix, excludes);
     }
 }
@@ -1,23 +1,26 @@
 package cucumber.runtime.io;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-import static cucumber.runtime.io.ClasspathIterable.hasSuffix;
 import static java.util.Arrays.asList;
 
 public class FileResourceIterator implements Iterator<Resource> {
     private final FlatteningIterator flatteningIterator = new FlatteningIterator();
 
-    public FileResourceIterator(File root, File file, final String suffix) {
-        FileFilter filter = new FileFilter() {
-            @Override
-            public boolean accept(File file) {
-                return file.isDirectory() || hasSuffix(suffix, file.getPath());
-            }
-        };
-        flatteningIterator.push(new FileIterator(root, file, filter));
+    public FileResourceIterator(File root, File file, String suffix) {
+        this(root, file, suffix, ExcludeGlobs.NONE);
+    }
+
+    public FileResourceIterator(File root, File file, String suffix, ExcludeGlobs excludes) {
+        if (file.isDirectory()) {
+            flatteningIterator.push(new FileIterator(new FileWalk(root, suffix, excludes), file));
+        } else if (file.isFile()) {
+            flatteningIterator.push(asList(new FileResource(root, file)).iterator());
+        } else {
+            throw new IllegalArgumentException("Not a file or directory: " + file.getAbsolutePath());
+        }
     }
 
     @Override
@@ -37,44 +40,55 @@ public class FileResourceIterator implements Iterator<Resource> {
 
     /**
      * Iterator to iterate over all the files contained in a directory. It returns
-     * a File object for non directories or a new FileIterator obejct for directories.
+     * a Resource for files and a new FileIterator for directories.
      */
     private static class FileIterator implements Iterator<Object> {
-        private final Iterator<File> files;
-        private final FileFilter filter;
-        private final File root;
+        private final FileWalk walk;
+        private final File directory;
+        private final String[] names;
+        private int index = 0;
+        private Object next;
 
-        FileIterator(File root, File file, FileFilter filter) {
-            this.root = root;
-            if (file.isDirectory()) {
-                this.files = asList(file.listFiles(filter)).iterator();
-            } else if (file.isFile()) {
-                this.files = asList(file).iterator();
-            } else {
-                throw new IllegalArgumentException("Not a file or directory: " + file.getAbsolutePath());
+        FileIterator(FileWalk walk, File directory) {
+            this.walk = walk;
+            this.directory = directory;
+            this.names = walk.list(directory);
+            moveToNext();
+        }
+
+        private void moveToNext() {
+            next = null;
+            while (next == null && index < names.length) {
+                File file = new File(directory, names[index++]);
+                // The only stat call for each file
+                if (file.isDirectory()) {
+                    if (walk.isIncludedDirectory(file)) {
+                        next = new FileIterator(walk, file);
+                    }
+                } else if (walk.isIncludedFile(file)) {
+                    next = new FileResource(walk.root, file);
+                }
             }
-            this.filter = filter;
         }
 
         @Override
         public Object next() {
-            File next = files.next();
-
-            if (next.isDirectory()) {
-                return new FileIterator(root, next, filter);
-            } else {
-                return new FileResource(root, next);
+            if (next == null) {
+                throw new NoSuchElementException();
             }
+            Object result = next;
+            moveToNext();
+            return result;
         }
 
         @Override
         public boolean hasNext() {
-            return files.hasNext();
+            return next != null;
         }
 
         @Override
         public void remove() {
-            files.remove();
+            throw new UnsupportedOperationException();
         }
     }
-}
\ No newline at end of file
+}
@@ -3,9 +3,25 @@ package cucumber.runtime.io;
 import java.io.File;
 
 public class FileResourceLoader implements ResourceLoader {
+    private final ExcludeGlobs excludes;
+    private final int threads;
+
+    public FileResourceLoader() {
+        this(ExcludeGlobs.NONE, 1);
+    }
+
+    /**
+     * @param excludes the files and directories to leave out
+     * @param threads  the number of threads to list directories on
+     */
+    public FileResourceLoader(ExcludeGlobs excludes, int threads) {
+        this.excludes = excludes;
+        this.threads = threads;
+    }
+
     @Override
     public Iterable<Resource> resources(String path, String suffix) {
         File root = new File(path);
-        return new FileResourceIterable(root, root, suffix);
+        return new FileResourceIterable(root, root, suffix, excludes, threads);
     }
 }
@@ -0,0 +1,47 @@
+package cucumber.runtime.io;
+
+import java.io.File;
+
+import static cucumber.runtime.io.ClasspathIterable.hasSuffix;
+
+/**
+ * Decides which files and directories a walk of a directory tree visits. Entries are told apart by their name
+ * first, so each file and directory is only stat'ed once.
+ */
+class FileWalk {
+    private static final String[] NO_NAMES = new String[0];
+
+    final File root;
+    private final String rootPath;
+    private final String suffix;
+    private final ExcludeGlobs excludes;
+
+    FileWalk(File root, String suffix, ExcludeGlobs excludes) {
+        this.root = root;
+        this.rootPath = root.getAbsolutePath();
+        this.suffix = suffix;
+        this.excludes = excludes;
+    }
+
+    /**
+     * @return the names in a directory. Unlike {@link File#listFiles()}, this doesn't create a File for each of them.
+     */
+    String[] list(File directory) {
+        String[] names = directory.list();
+        // Null when the directory went away, or can't be read
+        return names == null ? NO_NAMES : names;
+    }
+
+    boolean isIncludedDirectory(File directory) {
+        return excludes.isEmpty() || !excludes.excludes(relativePath(directory), true);
+    }
+
+    boolean isIncludedFile(File file) {
+        return hasSuffix(suffix, file.getName()) && (excludes.isEmpty() || !excludes.excludes(relativePath(file), false));
+    }
+
+    private String relativePath(File file) {
+        String path = file.getAbsolutePath();
+        return path.substring(Math.min(rootPath.length() + 1, path.length())).replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,96 @@
+package cucumber.runtime.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The entries of a jar, sorted by name so the entries under a path can be found without walking the whole jar.
+ * Each jar is opened and indexed once per process, and indexed again when its modification time or size changes.
+ */
+class JarIndex {
+    private static final Map<String, JarIndex> INDEXES = new HashMap<String, JarIndex>();
+    private static final Comparator<ZipEntry> BY_NAME = new Comparator<ZipEntry>() {
+        @Override
+        public int compare(ZipEntry a, ZipEntry b) {
+            return a.getName().compareTo(b.getName());
+        }
+    };
+
+    private final ZipFile jarFile;
+    private final long lastModified;
+    private final long length;
+    private final String[] names;
+    private final ZipEntry[] entries;
+
+    private JarIndex(File file) throws IOException {
+        // Read the modification time and size first, so a jar that changes while it is indexed is indexed again
+        this.lastModified = file.lastModified();
+        this.length = file.length();
+        this.jarFile = new ZipFile(file);
+
+        List<ZipEntry> entryList = new ArrayList<ZipEntry>(jarFile.size());
+        Enumeration<? extends ZipEntry> jarEntries = jarFile.entries();
+        while (jarEntries.hasMoreElements()) {
+            entryList.add(jarEntries.nextElement());
+        }
+        Collections.sort(entryList, BY_NAME);
+        this.entries = entryList.toArray(new ZipEntry[entryList.size()]);
+        this.names = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            names[i] = entries[i].getName();
+        }
+    }
+
+    /**
+     * @param jarPath the path of the jar
+     * @return the index of the jar, shared with everyone else who asks for the same jar
+     * @throws IOException if the jar can't be opened
+     */
+    static JarIndex get(String jarPath) throws IOException {
+        File file = new File(jarPath).getAbsoluteFile();
+        synchronized (INDEXES) {
+            JarIndex index = INDEXES.get(file.getPath());
+            if (index == null || index.isStale(file)) {
+                // The replaced index isn't closed, because resources handed out earlier may still be reading from
+                // it. The ZipFile is closed when it is garbage collected.
+                index = new JarIndex(file);
+                INDEXES.put(file.getPath(), index);
+            }
+            return index;
+        }
+    }
+
+    private boolean isStale(File file) {
+        return file.lastModified() != lastModified || file.length() != length;
+    }
+
+    ZipFile getJarFile() {
+        return jarFile;
+    }
+
+    /**
+     * @param prefix the start of the entry names, such as {@code cucumber/runtime/}
+     * @return the entries whose names start with the prefix, in name order
+     */
+    List<ZipEntry> entriesStartingWith(String prefix) {
+        int from = Arrays.binarySearch(names, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < names.length && names[to].startsWith(prefix)) {
+            to++;
+        }
+        return Arrays.asList(entries).subList(from, to);
+    }
+}
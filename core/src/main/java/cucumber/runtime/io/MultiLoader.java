@@ -7,8 +7,12 @@ public class MultiLoader implements ResourceLoader {
     private final FileResourceLoader fs;
 
     public MultiLoader(ClassLoader classLoader) {
+        this(classLoader, new FileResourceLoader());
+    }
+
+    public MultiLoader(ClassLoader classLoader, FileResourceLoader fileResourceLoader) {
         classpath = new ClasspathResourceLoader(classLoader);
-        fs = new FileResourceLoader();
+        fs = fileResourceLoader;
     }
 
     @Override
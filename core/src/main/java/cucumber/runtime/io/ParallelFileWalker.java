@@ -0,0 +1,108 @@
+package cucumber.runtime.io;
+
+import cucumber.runtime.CucumberException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Walks a directory tree with a thread pool, listing each directory on its own task. This pays off when listing
+ * directories and stat'ing files is slow, such as on network file systems. The resources are returned sorted by
+ * path, so the result doesn't depend on which thread was faster.
+ */
+class ParallelFileWalker {
+    private static final Comparator<Resource> BY_PATH = new Comparator<Resource>() {
+        @Override
+        public int compare(Resource a, Resource b) {
+            return a.getAbsolutePath().compareTo(b.getAbsolutePath());
+        }
+    };
+
+    private final FileWalk walk;
+    private final ExecutorService executor;
+    private final List<Resource> resources = new ArrayList<Resource>();
+    private int pending = 0;
+    private RuntimeException failure;
+
+    private ParallelFileWalker(FileWalk walk, int threads) {
+        this.walk = walk;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    static List<Resource> walk(FileWalk walk, File directory, int threads) {
+        ParallelFileWalker walker = new ParallelFileWalker(walk, threads);
+        try {
+            return walker.walk(directory);
+        } finally {
+            walker.executor.shutdownNow();
+        }
+    }
+
+    private List<Resource> walk(File directory) {
+        submit(directory);
+        synchronized (this) {
+            try {
+                while (pending > 0 && failure == null) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CucumberException("Interrupted while listing " + directory, e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            Collections.sort(resources, BY_PATH);
+            return resources;
+        }
+    }
+
+    private synchronized void submit(final File directory) {
+        pending++;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    visit(directory);
+                } catch (RuntimeException e) {
+                    failed(e);
+                } finally {
+                    done();
+                }
+            }
+        });
+    }
+
+    private void visit(File directory) {
+        List<Resource> found = new ArrayList<Resource>();
+        for (String name : walk.list(directory)) {
+            File file = new File(directory, name);
+            if (file.isDirectory()) {
+                if (walk.isIncludedDirectory(file)) {
+                    submit(file);
+                }
+            } else if (walk.isIncludedFile(file)) {
+                found.add(new FileResource(walk.root, file));
+            }
+        }
+        synchronized (this) {
+            resources.addAll(found);
+        }
+    }
+
+    private synchronized void failed(RuntimeException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private synchronized void done() {
+        pending--;
+        notifyAll();
+    }
+}
@@ -3,8 +3,16 @@ package cucumber.runtime.io;
 import cucumber.runtime.ClassFinder;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ResourceLoaderClassFinder implements ClassFinder {
     private final ResourceLoader resourceLoader;
@@ -18,8 +26,7 @@ public class ResourceLoaderClassFinder implements ClassFinder {
     @Override
     public <T> Collection<Class<? extends T>> getDescendants(Class<T> parentType, String packageName) {
         Collection<Class<? extends T>> result = new HashSet<Class<? extends T>>();
-        String packagePath = "classpath:" + packageName.replace('.', '/').replace(File.separatorChar, '/');
-        for (Resource classResource : resourceLoader.resources(packagePath, ".class")) {
+        for (Resource classResource : resourceLoader.resources(packagePath(packageName), ".class")) {
             String className = classResource.getClassName(".class");
             Class<?> clazz = loadClass(className, classLoader);
             if (clazz != null && !parentType.equals(clazz) && parentType.isAssignableFrom(clazz)) {
@@ -29,6 +36,128 @@ public class ResourceLoaderClassFinder implements ClassFinder {
         return result;
     }
 
+    /**
+     * Finds the classes in a package that have a method with one of the annotations, or that extend such a class.
+     * Unlike {@link #getDescendants(Class, String)} this reads the class files instead of loading the classes, so
+     * only the classes that are found get loaded.
+     *
+     * @param packageName     where to look
+     * @param annotationTypes the method annotations to look for
+     * @return the classes that were found
+     */
+    public Collection<Class<?>> getClassesWithAnnotatedMethods(String packageName, Collection<Class<? extends Annotation>> annotationTypes) {
+        return getClassesWithAnnotatedMethods(packageName, annotationTypes, null);
+    }
+
+    /**
+     * Like {@link #getClassesWithAnnotatedMethods(String, Collection)}, but leaves out the classes in directories
+     * and jars that have a resource at {@code indexPath}, for callers that get those classes from the index.
+     *
+     * @param packageName     where to look
+     * @param annotationTypes the method annotations to look for
+     * @param indexPath       the path of the index in a directory or jar, such as {@code META-INF/foo.index}, or null
+     * @return the classes that were found
+     */
+    public Collection<Class<?>> getClassesWithAnnotatedMethods(String packageName, Collection<Class<? extends Annotation>> annotationTypes, String indexPath) {
+        Set<String> annotationDescriptors = new HashSet<String>();
+        for (Class<? extends Annotation> annotationType : annotationTypes) {
+            annotationDescriptors.add("L" + annotationType.getName().replace('.', '/') + ";");
+        }
+
+        List<String> classNames = new ArrayList<String>();
+        Map<String, ClassFile> classFiles = new HashMap<String, ClassFile>();
+        Map<String, Boolean> indexedRoots = new HashMap<String, Boolean>();
+        for (Resource classResource : resourceLoader.resources(packagePath(packageName), ".class")) {
+            if (indexPath != null && isIndexed(classResource, indexPath, indexedRoots)) {
+                continue;
+            }
+            String className = classResource.getClassName(".class");
+            classNames.add(className);
+            try {
+                ClassFile classFile = ClassFile.read(classResource.getInputStream(), annotationDescriptors);
+                classFiles.put(classFile.getClassName(), classFile);
+            } catch (IOException ignore) {
+                // Can't tell without loading it
+            }
+        }
+
+        Collection<Class<?>> result = new HashSet<Class<?>>();
+        Map<String, Boolean> declaresGlue = new HashMap<String, Boolean>();
+        for (String className : classNames) {
+            // Classes that couldn't be read are loaded to be on the safe side
+            if (classFiles.get(className) == null || declaresGlue(className, classFiles, annotationDescriptors, declaresGlue)) {
+                Class<?> clazz = loadClass(className, classLoader);
+                if (clazz != null) {
+                    result.add(clazz);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tells whether a class or one of its super classes has an annotated method. Super classes outside the
+     * package are read from the class loader, but not loaded.
+     */
+    private boolean declaresGlue(String className, Map<String, ClassFile> classFiles, Set<String> annotationDescriptors, Map<String, Boolean> declaresGlue) {
+        if (className == null || className.startsWith("java.")) {
+            return false;
+        }
+        Boolean known = declaresGlue.get(className);
+        if (known != null) {
+            return known;
+        }
+        ClassFile classFile = classFiles.get(className);
+        if (classFile == null) {
+            classFile = readClassFile(className, annotationDescriptors);
+        }
+        boolean result = classFile != null &&
+                (classFile.hasAnnotatedMethod() || declaresGlue(classFile.getSuperClassName(), classFiles, annotationDescriptors, declaresGlue));
+        declaresGlue.put(className, result);
+        return result;
+    }
+
+    /**
+     * Tells whether the directory or jar a class file is in has the index. Other kinds of resources never have it.
+     */
+    private static boolean isIndexed(Resource classResource, String indexPath, Map<String, Boolean> indexedRoots) {
+        String root;
+        if (classResource instanceof FileResource) {
+            String absolutePath = classResource.getAbsolutePath();
+            root = absolutePath.substring(0, absolutePath.length() - classResource.getPath().length());
+        } else if (classResource instanceof ZipResource) {
+            root = ((ZipResource) classResource).getJarFile().getName();
+        } else {
+            return false;
+        }
+        Boolean indexed = indexedRoots.get(root);
+        if (indexed == null) {
+            if (classResource instanceof FileResource) {
+                indexed = new File(root, indexPath).isFile();
+            } else {
+                indexed = ((ZipResource) classResource).getJarFile().getEntry(indexPath) != null;
+            }
+            indexedRoots.put(root, indexed);
+        }
+        return indexed;
+    }
+
+    private ClassFile readClassFile(String className, Set<String> annotationDescriptors) {
+        InputStream classBytes = classLoader.getResourceAsStream(className.replace('.', '/') + ".class");
+        if (classBytes == null) {
+            return null;
+        }
+        try {
+            return ClassFile.read(classBytes, annotationDescriptors);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String packagePath(String packageName) {
+        return "classpath:" + packageName.replace('.', '/').replace(File.separatorChar, '/');
+    }
+
     private Class<?> loadClass(String className, ClassLoader classLoader) {
         try {
             return classLoader.loadClass(className);
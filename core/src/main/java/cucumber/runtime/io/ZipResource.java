@@ -14,6 +14,10 @@ public class ZipResource implements Resource {
         this.jarEntry = jarEntry;
     }
 
+    ZipFile getJarFile() {
+        return jarFile;
+    }
+
     @Override
     public String getPath() {
         return jarEntry.getName();
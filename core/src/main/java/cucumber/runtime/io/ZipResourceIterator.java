@@ -1,24 +1,22 @@
 package cucumber.runtime.io;
 
 import java.io.IOException;
-import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 public class ZipResourceIterator implements Iterator<Resource> {
-    private final String path;
     private final String suffix;
     private final ZipFile jarFile;
-    private final Enumeration<? extends ZipEntry> entries;
+    private final Iterator<ZipEntry> entries;
     private Resource next;
 
     public ZipResourceIterator(String zipPath, String path, String suffix) throws IOException {
-        this.path = path;
         this.suffix = suffix;
-        jarFile = new ZipFile(zipPath);
-        entries = jarFile.entries();
+        JarIndex jarIndex = JarIndex.get(zipPath);
+        jarFile = jarIndex.getJarFile();
+        entries = jarIndex.entriesStartingWith(path).iterator();
 
         moveToNext();
     }
@@ -47,10 +45,9 @@ public class ZipResourceIterator implements Iterator<Resource> {
 
     private void moveToNext() {
         next = null;
-        while (entries.hasMoreElements()) {
-            ZipEntry jarEntry = entries.nextElement();
-            String entryName = jarEntry.getName();
-            if (entryName.startsWith(path) && ClasspathIterable.hasSuffix(suffix, entryName)) {
+        while (entries.hasNext()) {
+            ZipEntry jarEntry = entries.next();
+            if (ClasspathIterable.hasSuffix(suffix, jarEntry.getName())) {
                 next = new ZipResource(jarFile, jarEntry);
                 break;
             }
@@ -0,0 +1,75 @@
+package cucumber.runtime.model;
+
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.FeatureBuilder;
+import cucumber.runtime.FeatureCache;
+import cucumber.runtime.io.Resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parses feature resources on a thread pool, as soon as they are found. Each resource gets its own
+ * {@link FeatureBuilder}, so nothing is shared between the threads. The results are merged into one
+ * builder in the order the resources were found, which keeps duplicate detection and error reporting
+ * the same as when parsing one resource after the other.
+ */
+class ConcurrentFeatureBuilder {
+    private final FeatureBuilder builder;
+    private final FeatureCache featureCache;
+    private final ExecutorService executor;
+    private final List<Future<FeatureBuilder>> parsed = new ArrayList<Future<FeatureBuilder>>();
+
+    ConcurrentFeatureBuilder(List<CucumberFeature> cucumberFeatures, FeatureCache featureCache) {
+        this(cucumberFeatures, featureCache, Runtime.getRuntime().availableProcessors());
+    }
+
+    ConcurrentFeatureBuilder(List<CucumberFeature> cucumberFeatures, FeatureCache featureCache, int threads) {
+        this.builder = new FeatureBuilder(cucumberFeatures);
+        this.featureCache = featureCache;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    String read(Resource resource) {
+        return builder.read(resource);
+    }
+
+    void parse(final Resource resource, final List<Object> filters) {
+        parsed.add(executor.submit(new Callable<FeatureBuilder>() {
+            @Override
+            public FeatureBuilder call() {
+                FeatureBuilder resourceBuilder = new FeatureBuilder(new ArrayList<CucumberFeature>(), featureCache);
+                resourceBuilder.parse(resource, filters);
+                return resourceBuilder;
+            }
+        }));
+    }
+
+    /**
+     * Waits for all the resources to be parsed and adds their features.
+     */
+    void finish() {
+        try {
+            for (Future<FeatureBuilder> resourceBuilder : parsed) {
+                builder.merge(resourceBuilder.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CucumberException("Interrupted while parsing features", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CucumberException(e.getCause());
+        }
+    }
+
+    void close() {
+        executor.shutdownNow();
+    }
+}
@@ -1,6 +1,6 @@
 package cucumber.runtime.model;
 
-import cucumber.runtime.FeatureBuilder;
+import cucumber.runtime.FeatureCache;
 import cucumber.runtime.Runtime;
 import cucumber.runtime.io.MultiLoader;
 import cucumber.runtime.io.Resource;
@@ -31,7 +31,11 @@ public class CucumberFeature {
     private CucumberScenarioOutline currentScenarioOutline;
 
     public static List<CucumberFeature> load(ResourceLoader resourceLoader, List<String> featurePaths, final List<Object> filters, PrintStream out) {
-        final List<CucumberFeature> cucumberFeatures = load(resourceLoader, featurePaths, filters);
+        return load(resourceLoader, featurePaths, filters, null, out);
+    }
+
+    public static List<CucumberFeature> load(ResourceLoader resourceLoader, List<String> featurePaths, final List<Object> filters, FeatureCache featureCache, PrintStream out) {
+        final List<CucumberFeature> cucumberFeatures = load(resourceLoader, featurePaths, filters, featureCache);
         if (cucumberFeatures.isEmpty()) {
             if (featurePaths.isEmpty()) {
                 out.println(String.format("Got no path to feature directory or feature file"));
@@ -45,20 +49,32 @@ public class CucumberFeature {
     }
 
     public static List<CucumberFeature> load(ResourceLoader resourceLoader, List<String> featurePaths, final List<Object> filters) {
+        return load(resourceLoader, featurePaths, filters, (FeatureCache) null);
+    }
+
+    /**
+     * @param featureCache where parsed features are kept between runs, or null to parse every feature
+     */
+    public static List<CucumberFeature> load(ResourceLoader resourceLoader, List<String> featurePaths, final List<Object> filters, FeatureCache featureCache) {
         final List<CucumberFeature> cucumberFeatures = new ArrayList<CucumberFeature>();
-        final FeatureBuilder builder = new FeatureBuilder(cucumberFeatures);
-        for (String featurePath : featurePaths) {
-            if (featurePath.startsWith("@")) {
-                loadFromRerunFile(builder, resourceLoader, featurePath.substring(1), filters);
-            } else {
-                loadFromFeaturePath(builder, resourceLoader, featurePath, filters);
+        final ConcurrentFeatureBuilder builder = new ConcurrentFeatureBuilder(cucumberFeatures, featureCache);
+        try {
+            for (String featurePath : featurePaths) {
+                if (featurePath.startsWith("@")) {
+                    loadFromRerunFile(builder, resourceLoader, featurePath.substring(1), filters);
+                } else {
+                    loadFromFeaturePath(builder, resourceLoader, featurePath, filters);
+                }
             }
+            builder.finish();
+        } finally {
+            builder.close();
         }
         Collections.sort(cucumberFeatures, new CucumberFeatureUriComparator());
         return cucumberFeatures;
     }
 
-    private static void loadFromRerunFile(FeatureBuilder builder, ResourceLoader resourceLoader, String rerunPath, final List<Object> filters) {
+    private static void loadFromRerunFile(ConcurrentFeatureBuilder builder, ResourceLoader resourceLoader, String rerunPath, final List<Object> filters) {
         Iterable<Resource> resources = resourceLoader.resources(rerunPath, null);
         for (Resource resource : resources) {
             String source = builder.read(resource);
@@ -68,7 +84,7 @@ public class CucumberFeature {
         }
     }
 
-    private static void loadFromFileSystemOrClasspath(FeatureBuilder builder, ResourceLoader resourceLoader, String featurePath, final List<Object> filters) {
+    private static void loadFromFileSystemOrClasspath(ConcurrentFeatureBuilder builder, ResourceLoader resourceLoader, String featurePath, final List<Object> filters) {
         try {
             loadFromFeaturePath(builder, resourceLoader, featurePath, filters);
         } catch (IllegalArgumentException originalException) {
@@ -84,7 +100,7 @@ public class CucumberFeature {
         }
     }
 
-    private static void loadFromFeaturePath(FeatureBuilder builder, ResourceLoader resourceLoader, String featurePath, final List<Object> filters) {
+    private static void loadFromFeaturePath(ConcurrentFeatureBuilder builder, ResourceLoader resourceLoader, String featurePath, final List<Object> filters) {
         PathWithLines pathWithLines = new PathWithLines(featurePath);
         ArrayList<Object> filtersForPath = new ArrayList<Object>(filters);
         filtersForPath.addAll(pathWithLines.lines);
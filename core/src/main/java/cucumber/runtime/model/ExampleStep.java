@@ -8,7 +8,7 @@ import gherkin.formatter.model.Step;
 import java.util.List;
 import java.util.Set;
 
-class ExampleStep extends Step {
+public class ExampleStep extends Step {
     // TODO: Use this to colour columns in associated Example row with our associated status.
     private final Set<Integer> matchedColumns;
 
@@ -16,4 +16,11 @@ class ExampleStep extends Step {
         super(comments, keyword, name, line, rows, docString);
         this.matchedColumns = matchedColumns;
     }
+
+    /**
+     * @return the columns of the example row whose values are in the name, table or doc string of this step
+     */
+    public Set<Integer> getMatchedColumns() {
+        return matchedColumns;
+    }
 }
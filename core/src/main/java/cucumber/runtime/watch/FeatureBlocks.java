@@ -0,0 +1,174 @@
+package cucumber.runtime.watch;
+
+import cucumber.runtime.io.FileResourceLoader;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberTagStatement;
+import gherkin.formatter.model.Tag;
+import gherkin.formatter.model.TagStatement;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The text of a feature file cut into the part before the first scenario (the feature and its background) and
+ * one block per scenario or scenario outline, so an edited file can be compared with the previous version.
+ */
+class FeatureBlocks {
+    private final String header;
+    private final List<Block> blocks;
+
+    private FeatureBlocks(String header, List<Block> blocks) {
+        this.header = header;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Parses a feature file.
+     *
+     * @param file    the feature file
+     * @param filters the tag and name filters of the run. Scenarios they leave out are never run.
+     * @return the blocks of the file
+     */
+    static FeatureBlocks read(File file, List<Object> filters) throws IOException {
+        List<String> lines = readLines(file);
+        List<String> paths = Collections.singletonList(file.getPath());
+        FileResourceLoader resourceLoader = new FileResourceLoader();
+
+        Set<Integer> selected = new HashSet<Integer>();
+        for (CucumberFeature feature : CucumberFeature.load(resourceLoader, paths, filters)) {
+            for (CucumberTagStatement statement : feature.getFeatureElements()) {
+                selected.add(statement.getGherkinModel().getLine());
+            }
+        }
+
+        List<Block> blocks = new ArrayList<Block>();
+        for (CucumberFeature feature : CucumberFeature.load(resourceLoader, paths, Collections.<Object>emptyList())) {
+            for (CucumberTagStatement statement : feature.getFeatureElements()) {
+                TagStatement gherkinModel = statement.getGherkinModel();
+                int start = gherkinModel.getLine();
+                for (Tag tag : gherkinModel.getTags()) {
+                    start = Math.min(start, tag.getLine());
+                }
+                blocks.add(new Block(start, gherkinModel.getLine(), selected.contains(gherkinModel.getLine())));
+            }
+        }
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            block.end = i + 1 < blocks.size() ? blocks.get(i + 1).start : lines.size() + 1;
+            block.text = text(lines, block.start, block.end);
+        }
+        String header = text(lines, 1, blocks.isEmpty() ? lines.size() + 1 : blocks.get(0).start);
+        return new FeatureBlocks(header, blocks);
+    }
+
+    /**
+     * @return the lines of the selected scenarios, for a file that wasn't there before
+     */
+    List<Integer> selectedLines() {
+        List<Integer> lines = new ArrayList<Integer>();
+        for (Block block : blocks) {
+            if (block.selected) {
+                lines.add(block.line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Compares this version of a file with the previous one. Scenarios whose text didn't change may have moved.
+     *
+     * @param previous the previous version
+     * @param moves    receives the line ranges of unchanged scenarios, and how far they moved
+     * @return the lines of the selected scenarios that are new or changed
+     */
+    List<Integer> changedLines(FeatureBlocks previous, List<Move> moves) {
+        if (!header.equals(previous.header)) {
+            // The background or the feature itself changed, which affects every scenario
+            return selectedLines();
+        }
+        Map<String, LinkedList<Block>> previousBlocks = new HashMap<String, LinkedList<Block>>();
+        for (Block block : previous.blocks) {
+            LinkedList<Block> sameText = previousBlocks.get(block.text);
+            if (sameText == null) {
+                sameText = new LinkedList<Block>();
+                previousBlocks.put(block.text, sameText);
+            }
+            sameText.add(block);
+        }
+
+        List<Integer> changed = new ArrayList<Integer>();
+        for (Block block : blocks) {
+            LinkedList<Block> sameText = previousBlocks.get(block.text);
+            if (sameText != null && !sameText.isEmpty()) {
+                Block previousBlock = sameText.removeFirst();
+                moves.add(new Move(previousBlock.start, previousBlock.end, block.start - previousBlock.start));
+            } else if (block.selected) {
+                changed.add(block.line);
+            }
+        }
+        return changed;
+    }
+
+    private static String text(List<String> lines, int start, int end) {
+        StringBuilder text = new StringBuilder();
+        for (int line = start; line < end; line++) {
+            // Trailing blank lines belong to neither block
+            text.append(lines.get(line - 1).trim()).append('\n');
+        }
+        return text.toString().trim();
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    private static class Block {
+        private final int start;
+        private final int line;
+        private final boolean selected;
+        private int end;
+        private String text;
+
+        Block(int start, int line, boolean selected) {
+            this.start = start;
+            this.line = line;
+            this.selected = selected;
+        }
+    }
+
+    /**
+     * Lines {@code [start, end)} of the previous version are now {@code delta} lines further down.
+     */
+    static class Move {
+        final int start;
+        final int end;
+        final int delta;
+
+        Move(int start, int end, int delta) {
+            this.start = start;
+            this.end = end;
+            this.delta = delta;
+        }
+    }
+}
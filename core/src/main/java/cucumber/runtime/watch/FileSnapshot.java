@@ -0,0 +1,65 @@
+package cucumber.runtime.watch;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The modification times and sizes of the files under some directories, to tell which files changed between two
+ * snapshots.
+ */
+class FileSnapshot {
+    private final Map<File, String> signatures = new HashMap<File, String>();
+
+    /**
+     * @param roots  directories to walk, or single files
+     * @param suffix the suffix of the files to include
+     * @return a snapshot of the files
+     */
+    static FileSnapshot take(List<File> roots, String suffix) {
+        FileSnapshot snapshot = new FileSnapshot();
+        for (File root : roots) {
+            snapshot.add(root.getAbsoluteFile(), suffix);
+        }
+        return snapshot;
+    }
+
+    private void add(File file, String suffix) {
+        String[] names = file.list();
+        if (names != null) {
+            for (String name : names) {
+                add(new File(file, name), suffix);
+            }
+        } else if (file.getName().endsWith(suffix) && file.exists()) {
+            signatures.put(file, file.lastModified() + ":" + file.length());
+        }
+    }
+
+    /**
+     * @return the files that were added or changed since the previous snapshot
+     */
+    List<File> changedSince(FileSnapshot previous) {
+        List<File> changed = new ArrayList<File>();
+        for (Map.Entry<File, String> signature : signatures.entrySet()) {
+            if (!signature.getValue().equals(previous.signatures.get(signature.getKey()))) {
+                changed.add(signature.getKey());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the files that were in the previous snapshot, but not in this one
+     */
+    List<File> removedSince(FileSnapshot previous) {
+        List<File> removed = new ArrayList<File>();
+        for (File file : previous.signatures.keySet()) {
+            if (!signatures.containsKey(file)) {
+                removed.add(file);
+            }
+        }
+        return removed;
+    }
+}
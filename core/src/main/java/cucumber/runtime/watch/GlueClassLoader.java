@@ -0,0 +1,64 @@
+package cucumber.runtime.watch;
+
+import cucumber.runtime.CucumberException;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+/**
+ * Loads the classes in some directories itself, even when its parent could load them too, so glue that was
+ * recompiled can be loaded again. Cucumber, JUnit and the JDK always come from the parent.
+ */
+class GlueClassLoader extends URLClassLoader {
+    private static final String[] PARENT_FIRST = {
+            "java.", "javax.", "sun.", "gherkin.", "junit.", "org.junit.",
+            "cucumber.api.", "cucumber.runtime.", "cucumber.deps."
+    };
+
+    GlueClassLoader(List<File> classDirectories, ClassLoader parent) {
+        super(urls(classDirectories), parent);
+    }
+
+    private static URL[] urls(List<File> directories) {
+        URL[] urls = new URL[directories.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = directories.get(i).toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new CucumberException(e);
+            }
+        }
+        return urls;
+    }
+
+    @Override
+    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (isParentFirst(name)) {
+            return super.loadClass(name, resolve);
+        }
+        Class<?> clazz = findLoadedClass(name);
+        if (clazz == null) {
+            try {
+                clazz = findClass(name);
+            } catch (ClassNotFoundException e) {
+                return super.loadClass(name, resolve);
+            }
+        }
+        if (resolve) {
+            resolveClass(clazz);
+        }
+        return clazz;
+    }
+
+    private static boolean isParentFirst(String name) {
+        for (String prefix : PARENT_FIRST) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,239 @@
+package cucumber.runtime.watch;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Examples;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.ScenarioOutline;
+import gherkin.formatter.model.Step;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers which step definitions the steps of each scenario matched, so the scenarios that use changed glue
+ * can be run again. Scenarios are identified by the absolute path of their feature file and their line.
+ */
+class StepUsage implements Formatter, Reporter {
+    private final List<File> featureRoots;
+    private final Map<ScenarioLocation, Set<String>> stepDefinitions = new HashMap<ScenarioLocation, Set<String>>();
+    private final Set<ScenarioLocation> undefined = new HashSet<ScenarioLocation>();
+    private File featureFile;
+    private ScenarioLocation current;
+
+    /**
+     * @param featureRoots the feature files and directories that uris are relative to
+     */
+    StepUsage(List<File> featureRoots) {
+        this.featureRoots = featureRoots;
+    }
+
+    /**
+     * Adds what another run recorded, replacing what was known about the scenarios it ran.
+     */
+    void addAll(StepUsage run) {
+        for (ScenarioLocation scenario : run.stepDefinitions.keySet()) {
+            undefined.remove(scenario);
+        }
+        stepDefinitions.putAll(run.stepDefinitions);
+        undefined.addAll(run.undefined);
+    }
+
+    /**
+     * @param simpleClassNames simple names of classes that changed
+     * @return the scenarios that use step definitions in those classes or have undefined steps, or null if one of
+     *         the classes isn't used by any step, which means the changed classes can't be told apart from code
+     *         that every scenario may depend on
+     */
+    Collection<ScenarioLocation> scenariosUsing(Set<String> simpleClassNames) {
+        Set<String> usedClassNames = new HashSet<String>();
+        Set<ScenarioLocation> scenarios = new HashSet<ScenarioLocation>(undefined);
+        for (Map.Entry<ScenarioLocation, Set<String>> scenario : stepDefinitions.entrySet()) {
+            for (String location : scenario.getValue()) {
+                String className = location.substring(0, Math.max(0, location.lastIndexOf('.', location.indexOf('('))));
+                if (simpleClassNames.contains(className)) {
+                    usedClassNames.add(className);
+                    scenarios.add(scenario.getKey());
+                }
+            }
+        }
+        return usedClassNames.containsAll(simpleClassNames) ? scenarios : null;
+    }
+
+    /**
+     * Forgets the scenarios of a feature file that was removed.
+     */
+    void remove(File file) {
+        Iterator<ScenarioLocation> scenarios = stepDefinitions.keySet().iterator();
+        while (scenarios.hasNext()) {
+            ScenarioLocation scenario = scenarios.next();
+            if (scenario.file.equals(file)) {
+                scenarios.remove();
+                undefined.remove(scenario);
+            }
+        }
+    }
+
+    /**
+     * Keeps the scenarios of an edited feature file whose text didn't change, at their new lines, and forgets the
+     * others.
+     *
+     * @param file  the feature file
+     * @param moves the line ranges of the scenarios that didn't change, and how far they moved
+     */
+    void move(File file, List<FeatureBlocks.Move> moves) {
+        Map<ScenarioLocation, Set<String>> moved = new HashMap<ScenarioLocation, Set<String>>();
+        Set<ScenarioLocation> movedUndefined = new HashSet<ScenarioLocation>();
+        for (FeatureBlocks.Move move : moves) {
+            for (Map.Entry<ScenarioLocation, Set<String>> scenario : stepDefinitions.entrySet()) {
+                ScenarioLocation location = scenario.getKey();
+                if (location.file.equals(file) && location.line >= move.start && location.line < move.end) {
+                    ScenarioLocation movedLocation = new ScenarioLocation(file, location.line + move.delta);
+                    moved.put(movedLocation, scenario.getValue());
+                    if (undefined.contains(location)) {
+                        movedUndefined.add(movedLocation);
+                    }
+                }
+            }
+        }
+        remove(file);
+        stepDefinitions.putAll(moved);
+        undefined.addAll(movedUndefined);
+    }
+
+    @Override
+    public void uri(String uri) {
+        featureFile = resolve(uri);
+    }
+
+    private File resolve(String uri) {
+        File file = new File(uri);
+        if (!file.isAbsolute()) {
+            for (File root : featureRoots) {
+                if (root.isDirectory() && new File(root, uri).isFile()) {
+                    return new File(root, uri).getAbsoluteFile();
+                }
+            }
+        }
+        return file.getAbsoluteFile();
+    }
+
+    @Override
+    public void startOfScenarioLifeCycle(Scenario scenario) {
+        current = new ScenarioLocation(featureFile, scenario.getLine());
+        stepDefinitions.put(current, new HashSet<String>());
+    }
+
+    @Override
+    public void match(Match match) {
+        if (current != null) {
+            if (match.getLocation() == null) {
+                undefined.add(current);
+            } else {
+                stepDefinitions.get(current).add(match.getLocation());
+            }
+        }
+    }
+
+    @Override
+    public void endOfScenarioLifeCycle(Scenario scenario) {
+        current = null;
+    }
+
+    @Override
+    public void feature(Feature feature) {
+    }
+
+    @Override
+    public void background(Background background) {
+    }
+
+    @Override
+    public void scenario(Scenario scenario) {
+    }
+
+    @Override
+    public void scenarioOutline(ScenarioOutline scenarioOutline) {
+    }
+
+    @Override
+    public void examples(Examples examples) {
+    }
+
+    @Override
+    public void step(Step step) {
+    }
+
+    @Override
+    public void eof() {
+    }
+
+    @Override
+    public void syntaxError(String state, String event, List<String> legalEvents, String uri, Integer line) {
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void before(Match match, Result result) {
+    }
+
+    @Override
+    public void result(Result result) {
+    }
+
+    @Override
+    public void after(Match match, Result result) {
+    }
+
+    @Override
+    public void embedding(String mimeType, byte[] data) {
+    }
+
+    @Override
+    public void write(String text) {
+    }
+
+    /**
+     * A scenario, or an example of a scenario outline.
+     */
+    static class ScenarioLocation {
+        final File file;
+        final int line;
+
+        ScenarioLocation(File file, int line) {
+            this.file = file;
+            this.line = line;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ScenarioLocation)) {
+                return false;
+            }
+            ScenarioLocation other = (ScenarioLocation) o;
+            return file.equals(other.file) && line == other.line;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * file.hashCode() + line;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package cucumber.runtime.watch;
+
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.Runtime;
+import cucumber.runtime.RuntimeOptions;
+import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.io.ResourceLoaderClassFinder;
+import cucumber.runtime.model.PathWithLines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Runs the features, and then keeps polling the feature files and the class directories for changes. When a
+ * feature file changes, only its new and changed scenarios are run. When classes change, the glue is loaded again
+ * and the scenarios that used step definitions in those classes, or had undefined steps, are run.
+ * <p/>
+ * Features on the class path aren't watched.
+ */
+public class Watcher {
+    private static final String FEATURE_SUFFIX = ".feature";
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final List<String> argv;
+    private final ClassLoader parent;
+    private final List<File> classDirectories;
+    private final long intervalMillis;
+    private final List<File> featureRoots = new ArrayList<File>();
+    private final List<Object> filters;
+    private final StepUsage stepUsage;
+    private final Map<File, FeatureBlocks> featureBlocks = new HashMap<File, FeatureBlocks>();
+
+    private FileSnapshot features;
+    private FileSnapshot classes;
+    private ClassLoader classLoader;
+    private Runtime warm;
+    private boolean glueChanged;
+
+    /**
+     * @param argv             the command line options of every run
+     * @param parent           the class loader with Cucumber and its backends
+     * @param classDirectories the directories with the compiled glue. Classes in these are loaded again when they
+     *                         change, even when they are also on the class path of the parent.
+     * @param intervalMillis   how long to wait between two looks at the files
+     */
+    public Watcher(List<String> argv, ClassLoader parent, List<File> classDirectories, long intervalMillis) {
+        this.argv = argv;
+        this.parent = parent;
+        this.classDirectories = classDirectories;
+        this.intervalMillis = intervalMillis;
+
+        RuntimeOptions runtimeOptions = new RuntimeOptions(new ArrayList<String>(argv));
+        for (String featurePath : runtimeOptions.getFeaturePaths()) {
+            if (!featurePath.startsWith("classpath:")) {
+                featureRoots.add(new File(new PathWithLines(featurePath).path));
+            }
+        }
+        filters = runtimeOptions.getFilters();
+        stepUsage = new StepUsage(featureRoots);
+    }
+
+    /**
+     * Runs all the features, and then the affected scenarios after every change, until the thread is interrupted.
+     */
+    public void watch() {
+        runAll();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(intervalMillis);
+                check();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs all the features, and takes the snapshots later changes are compared with.
+     */
+    void runAll() {
+        features = FileSnapshot.take(featureRoots, FEATURE_SUFFIX);
+        classes = FileSnapshot.take(classDirectories, CLASS_SUFFIX);
+        for (File file : features.changedSince(new FileSnapshot())) {
+            readFeatureBlocks(file);
+        }
+        run(new RuntimeOptions(new ArrayList<String>(argv)), true);
+    }
+
+    /**
+     * Looks for changes once, and runs the affected scenarios.
+     *
+     * @return whether anything was run
+     */
+    boolean check() {
+        FileSnapshot currentFeatures = FileSnapshot.take(featureRoots, FEATURE_SUFFIX);
+        FileSnapshot currentClasses = FileSnapshot.take(classDirectories, CLASS_SUFFIX);
+        Map<File, SortedSet<Integer>> scenarios = new TreeMap<File, SortedSet<Integer>>();
+
+        for (File file : currentFeatures.removedSince(features)) {
+            featureBlocks.remove(file);
+            stepUsage.remove(file);
+        }
+        for (File file : currentFeatures.changedSince(features)) {
+            FeatureBlocks previous = featureBlocks.get(file);
+            FeatureBlocks current = readFeatureBlocks(file);
+            if (current == null) {
+                continue;
+            }
+            if (previous == null) {
+                stepUsage.remove(file);
+                add(scenarios, file, current.selectedLines());
+            } else {
+                List<FeatureBlocks.Move> moves = new ArrayList<FeatureBlocks.Move>();
+                add(scenarios, file, current.changedLines(previous, moves));
+                stepUsage.move(file, moves);
+            }
+        }
+        features = currentFeatures;
+
+        List<File> changedClasses = currentClasses.changedSince(classes);
+        changedClasses.addAll(currentClasses.removedSince(classes));
+        classes = currentClasses;
+        if (!changedClasses.isEmpty()) {
+            glueChanged = true;
+            Collection<StepUsage.ScenarioLocation> affected = stepUsage.scenariosUsing(simpleClassNames(changedClasses));
+            if (affected == null) {
+                System.out.println("Glue changed. Running all features.");
+                run(new RuntimeOptions(new ArrayList<String>(argv)), true);
+                return true;
+            }
+            for (StepUsage.ScenarioLocation scenario : affected) {
+                add(scenarios, scenario.file, Collections.singletonList(scenario.line));
+            }
+        }
+
+        if (scenarios.isEmpty()) {
+            return false;
+        }
+        RuntimeOptions runtimeOptions = new RuntimeOptions(new ArrayList<String>(argv));
+        // Line filters can't be combined with other filters, which were applied when the lines were picked
+        runtimeOptions.getFilters().clear();
+        runtimeOptions.getFeaturePaths().clear();
+        for (Map.Entry<File, SortedSet<Integer>> file : scenarios.entrySet()) {
+            StringBuilder featurePath = new StringBuilder(file.getKey().getPath());
+            for (Integer line : file.getValue()) {
+                featurePath.append(':').append(line);
+            }
+            runtimeOptions.getFeaturePaths().add(featurePath.toString());
+        }
+        System.out.println("Running " + runtimeOptions.getFeaturePaths());
+        run(runtimeOptions, glueChanged);
+        return true;
+    }
+
+    private void run(RuntimeOptions runtimeOptions, boolean reloadGlue) {
+        StepUsage runStepUsage = new StepUsage(featureRoots);
+        runtimeOptions.addFormatter(runStepUsage);
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            Runtime runtime;
+            if (warm == null || reloadGlue) {
+                classLoader = new GlueClassLoader(classDirectories, parent);
+                Thread.currentThread().setContextClassLoader(classLoader);
+                ResourceLoader resourceLoader = runtimeOptions.resourceLoader(classLoader);
+                runtime = new Runtime(resourceLoader, new ResourceLoaderClassFinder(resourceLoader, classLoader), classLoader, runtimeOptions);
+                warm = runtime;
+                glueChanged = false;
+            } else {
+                Thread.currentThread().setContextClassLoader(classLoader);
+                runtime = new Runtime(warm, runtimeOptions.resourceLoader(classLoader), runtimeOptions);
+            }
+            runtime.run();
+            stepUsage.addAll(runStepUsage);
+        } catch (IOException e) {
+            System.err.println("Run failed: " + e.getMessage());
+        } catch (CucumberException e) {
+            // Such as a feature that doesn't parse. Keep watching, the next change may fix it.
+            System.err.println("Run failed: " + e.getMessage());
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private FeatureBlocks readFeatureBlocks(File file) {
+        try {
+            FeatureBlocks blocks = FeatureBlocks.read(file, filters);
+            featureBlocks.put(file, blocks);
+            return blocks;
+        } catch (IOException e) {
+            System.err.println("Couldn't read " + file + ": " + e.getMessage());
+        } catch (CucumberException e) {
+            System.err.println("Couldn't parse " + file + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static void add(Map<File, SortedSet<Integer>> scenarios, File file, List<Integer> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        SortedSet<Integer> fileLines = scenarios.get(file);
+        if (fileLines == null) {
+            fileLines = new TreeSet<Integer>();
+            scenarios.put(file, fileLines);
+        }
+        fileLines.addAll(lines);
+    }
+
+    /**
+     * @return the names of the classes as they appear in step definition locations, leaving out nested classes
+     *         that changed along with their outer class
+     */
+    private static Set<String> simpleClassNames(List<File> classFiles) {
+        Set<String> names = new HashSet<String>();
+        for (File classFile : classFiles) {
+            String name = classFile.getName();
+            names.add(name.substring(0, name.length() - CLASS_SUFFIX.length()));
+        }
+        Set<String> result = new HashSet<String>();
+        for (String name : names) {
+            int nested = name.indexOf('$');
+            if (nested == -1 || !names.contains(name.substring(0, nested))) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,98 @@
+package cucumber.runtime;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Result;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class AsyncFormatterTest {
+    @Test
+    public void passes_events_on_in_order() {
+        Formatter formatter = mock(Formatter.class);
+        Reporter reporter = mock(Reporter.class);
+        Result result = mock(Result.class);
+        AsyncFormatter async = new AsyncFormatter(formatter, reporter);
+
+        async.uri("some.feature");
+        async.result(result);
+        async.eof();
+        async.done();
+
+        InOrder inOrder = inOrder(formatter, reporter);
+        inOrder.verify(formatter).uri("some.feature");
+        inOrder.verify(reporter).result(result);
+        inOrder.verify(formatter).eof();
+        inOrder.verify(formatter).done();
+    }
+
+    @Test
+    public void rethrows_formatter_errors_when_done() {
+        Formatter formatter = mock(Formatter.class);
+        RuntimeException error = new RuntimeException("disk full");
+        doThrow(error).when(formatter).uri("some.feature");
+        AsyncFormatter async = new AsyncFormatter(formatter, mock(Reporter.class));
+
+        async.uri("some.feature");
+        async.eof();
+        try {
+            async.done();
+            fail();
+        } catch (CucumberException expected) {
+            assertEquals(error, expected.getCause());
+        }
+        verify(formatter, never()).eof();
+        async.close();
+    }
+
+    @Test
+    public void waits_for_room_when_the_formatters_cant_keep_up() throws Exception {
+        final CountDownLatch formatterBlocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Formatter formatter = mock(Formatter.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                formatterBlocked.countDown();
+                release.await();
+                return null;
+            }
+        }).when(formatter).uri("first.feature");
+        final AsyncFormatter async = new AsyncFormatter(formatter, mock(Reporter.class), 1);
+
+        async.uri("first.feature");
+        assertTrue(formatterBlocked.await(5, TimeUnit.SECONDS));
+        async.uri("second.feature");
+
+        final CountDownLatch sent = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                async.uri("third.feature");
+                sent.countDown();
+            }
+        }).start();
+        assertFalse(sent.await(100, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        async.close();
+        verify(formatter).uri("third.feature");
+    }
+}
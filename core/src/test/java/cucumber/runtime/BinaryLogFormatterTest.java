@@ -0,0 +1,142 @@
+package cucumber.runtime;
+
+import cucumber.api.cli.Render;
+import cucumber.runtime.formatter.TempDir;
+import cucumber.runtime.io.ClasspathResourceLoader;
+import cucumber.runtime.snippets.FunctionNameGenerator;
+import gherkin.deps.com.google.gson.JsonParser;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Scanner;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BinaryLogFormatterTest {
+
+    @Test
+    public void renders_the_same_reports_as_the_run() throws IOException {
+        File dir = TempDir.createTempDirectory();
+        File log = new File(dir, "run.binlog");
+        runFeatures("--format", "json:" + new File(dir, "run.json"), "--format", "junit:" + new File(dir, "run.xml"),
+                "--format", "binlog:" + log, "cucumber/runtime/formatter/JSONPrettyFormatterTest.feature");
+
+        Render.run(new String[]{"--format", "json:" + new File(dir, "rendered.json"), "--format", "junit:" + new File(dir, "rendered.xml"), log.getPath()},
+                Thread.currentThread().getContextClassLoader());
+
+        JsonParser parser = new JsonParser();
+        assertEquals(parser.parse(read(new File(dir, "run.json"))), parser.parse(read(new File(dir, "rendered.json"))));
+        assertEquals(read(new File(dir, "run.xml")), read(new File(dir, "rendered.xml")));
+    }
+
+    @Test
+    public void keeps_embeddings_out_of_the_log() throws IOException {
+        File log = new File(TempDir.createTempDirectory(), "run.binlog");
+        byte[] screenshot = new byte[10000];
+        Arrays.fill(screenshot, (byte) 42);
+
+        BinaryLogFormatter formatter = new BinaryLogFormatter(log);
+        formatter.embedding("image/png", screenshot);
+        formatter.embedding("text/plain", new byte[]{1, 2, 3});
+        formatter.done();
+        formatter.close();
+
+        assertTrue(log.length() < 100);
+        assertEquals(10003, BinaryLogFormatter.embeddingsFile(log).length());
+
+        Formatter replayedFormatter = mock(Formatter.class);
+        Reporter replayedReporter = mock(Reporter.class);
+        new BinaryLogReader(log).replay(replayedFormatter, replayedReporter);
+
+        InOrder order = inOrder(replayedReporter);
+        order.verify(replayedReporter).embedding(eq("image/png"), eq(screenshot));
+        order.verify(replayedReporter).embedding(eq("text/plain"), eq(new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    public void replays_the_complete_events_of_a_log_that_was_cut_off() throws IOException {
+        File log = new File(TempDir.createTempDirectory(), "run.binlog");
+        BinaryLogFormatter formatter = new BinaryLogFormatter(log);
+        formatter.uri("first.feature");
+        formatter.uri("second.feature");
+        formatter.flush();
+        long complete = log.length();
+        formatter.uri("third.feature");
+        formatter.close();
+        truncate(log, complete + 3);
+
+        Formatter replayedFormatter = mock(Formatter.class);
+        new BinaryLogReader(log).replay(replayedFormatter, mock(Reporter.class));
+
+        InOrder order = inOrder(replayedFormatter);
+        order.verify(replayedFormatter).uri("first.feature");
+        order.verify(replayedFormatter).uri("second.feature");
+        order.verify(replayedFormatter).done();
+        order.verify(replayedFormatter).close();
+        verify(replayedFormatter, never()).uri("third.feature");
+    }
+
+    @Test(expected = CucumberException.class)
+    public void refuses_files_that_are_not_binary_logs() throws IOException {
+        File notALog = new File(TempDir.createTempDirectory(), "report.json");
+        OutputStream out = new FileOutputStream(notALog);
+        out.write("[{\"uri\": \"first.feature\"}]".getBytes("UTF-8"));
+        out.close();
+
+        new BinaryLogReader(notALog).replay(mock(Formatter.class), mock(Reporter.class));
+    }
+
+    private void runFeatures(String... args) throws IOException {
+        HookDefinition hook = mock(HookDefinition.class);
+        when(hook.matches(anyListOf(Tag.class))).thenReturn(true);
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        ClasspathResourceLoader resourceLoader = new ClasspathResourceLoader(classLoader);
+        Backend backend = mock(Backend.class);
+        when(backend.getSnippet(any(Step.class), any(FunctionNameGenerator.class))).thenReturn("TEST SNIPPET");
+
+        Runtime runtime = new Runtime(resourceLoader, classLoader, asList(backend), new RuntimeOptions(asList(args)), new StopWatch.Stub(1234), null);
+        runtime.getGlue().addBeforeHook(hook);
+        runtime.run();
+    }
+
+    private String read(File file) throws IOException {
+        return new Scanner(file, "UTF-8").useDelimiter("\\A").next();
+    }
+
+    private void truncate(File file, long length) throws IOException {
+        InputStream in = new FileInputStream(file);
+        byte[] bytes = new byte[(int) length];
+        try {
+            assertEquals(length, in.read(bytes));
+        } finally {
+            in.close();
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+}
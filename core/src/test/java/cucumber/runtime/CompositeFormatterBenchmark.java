@@ -0,0 +1,68 @@
+package cucumber.runtime;
+
+import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Step;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Measures how many events per second reach three formatters through {@link CompositeFormatter} and
+ * {@link CompositeReporter}, compared with the {@link Proxy} based dispatch they replaced. Run with
+ * {@code main}; this isn't part of the test suite.
+ */
+public class CompositeFormatterBenchmark {
+    private static final int EVENTS = 5000000;
+
+    public static void main(String[] args) throws Throwable {
+        final RuntimeOptions runtimeOptions = new RuntimeOptions(asList("--format", "null", "--format", "null", "--format", "null"));
+        ClassLoader classLoader = CompositeFormatterBenchmark.class.getClassLoader();
+        Formatter proxyFormatter = (Formatter) Proxy.newProxyInstance(classLoader, new Class<?>[]{Formatter.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+                for (Formatter formatter : runtimeOptions.getFormatters()) {
+                    Utils.invoke(formatter, method, 0, args);
+                }
+                return null;
+            }
+        });
+        Reporter proxyReporter = (Reporter) Proxy.newProxyInstance(classLoader, new Class<?>[]{Reporter.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+                for (Formatter formatter : runtimeOptions.getFormatters()) {
+                    if (formatter instanceof Reporter) {
+                        Utils.invoke(formatter, method, 0, args);
+                    }
+                }
+                return null;
+            }
+        });
+        Formatter compositeFormatter = runtimeOptions.formatter(classLoader);
+        Reporter compositeReporter = runtimeOptions.reporter(classLoader);
+        Step step = new Step(Collections.<Comment>emptyList(), "Given ", "a step", 1, null, null);
+        Result result = new Result(Result.PASSED, 1L, null);
+
+        for (int round = 0; round < 5; round++) {
+            long proxy = run(proxyFormatter, proxyReporter, step, result);
+            long composite = run(compositeFormatter, compositeReporter, step, result);
+            System.out.println(String.format("proxy: %d events/ms, composite: %d events/ms",
+                    EVENTS * 1000000L / proxy, EVENTS * 1000000L / composite));
+        }
+    }
+
+    private static long run(Formatter formatter, Reporter reporter, Step step, Result result) {
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS / 2; i++) {
+            formatter.step(step);
+            reporter.result(result);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,318 @@
+package cucumber.runtime;
+
+import cucumber.runtime.daemon.StubBackend;
+import cucumber.runtime.formatter.TempDir;
+import cucumber.runtime.model.CucumberFeature;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.PrettyFormatter;
+import gherkin.formatter.Reporter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+public class CoordinatorTest {
+    private File features;
+    private Coordinator coordinator;
+
+    @Before
+    public void writeFeatures() throws IOException {
+        features = TempDir.createTempDirectory();
+        for (int i = 0; i < 4; i++) {
+            write(new File(features, "feature_" + i + ".feature"), "" +
+                    "Feature: feature " + i + "\n" +
+                    "  Scenario: first scenario\n" +
+                    "    Given a step\n" +
+                    "  Scenario Outline: outline\n" +
+                    "    Given a <thing>\n" +
+                    "    Examples: examples\n" +
+                    "      | thing |\n" +
+                    "      | foo   |\n" +
+                    "      | bar   |\n");
+        }
+    }
+
+    @After
+    public void closeCoordinator() {
+        if (coordinator != null) {
+            coordinator.close();
+        }
+    }
+
+    @Test
+    public void reports_the_same_as_a_sequential_run() throws Exception {
+        RuntimeOptions sequentialOptions = options();
+        Runtime sequentialRuntime = createRuntime(sequentialOptions);
+        StringBuilder sequential = new StringBuilder();
+        PrettyFormatter sequentialFormatter = new PrettyFormatter(sequential, true, true);
+        for (CucumberFeature feature : loadFeatures(sequentialOptions)) {
+            feature.run(sequentialFormatter, sequentialFormatter, sequentialRuntime);
+        }
+        sequentialFormatter.done();
+
+        RuntimeOptions coordinatorOptions = options();
+        Runtime coordinatorRuntime = createRuntime(coordinatorOptions);
+        coordinator = new Coordinator(coordinatorRuntime, new InetSocketAddress("localhost", 0), 10000);
+        List<Thread> workers = startWorkers(2);
+        StringBuilder coordinated = new StringBuilder();
+        PrettyFormatter coordinatedFormatter = new PrettyFormatter(coordinated, true, true);
+        coordinator.run(loadFeatures(coordinatorOptions), coordinatedFormatter, coordinatedFormatter);
+        coordinatedFormatter.done();
+        join(workers);
+
+        assertEquals(sequential.toString(), coordinated.toString());
+        assertThat(stats(coordinatorRuntime), startsWith(String.format(
+                "12 Scenarios (12 undefined)%n" +
+                "12 Steps (12 undefined)%n")));
+        assertEquals(asList("snippet for a step", "snippet for a foo", "snippet for a bar"), coordinatorRuntime.getSnippets());
+    }
+
+    @Test
+    public void hands_out_the_scenarios_of_a_silent_worker_again() throws Exception {
+        RuntimeOptions runtimeOptions = options();
+        Runtime runtime = createRuntime(runtimeOptions);
+        coordinator = new Coordinator(runtime, new InetSocketAddress("localhost", 0), 300);
+
+        // Takes a batch, then neither sends anything nor closes the connection
+        final Socket silentWorker = new Socket();
+        Thread silent = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    silentWorker.connect(new InetSocketAddress("localhost", coordinator.getPort()));
+                    DataOutputStream out = new DataOutputStream(silentWorker.getOutputStream());
+                    out.writeInt(Coordinator.MAGIC);
+                    out.writeInt(Coordinator.VERSION);
+                    DataInputStream in = new DataInputStream(silentWorker.getInputStream());
+                    in.readLong();
+                    in.readInt();
+                    startWorkers(1);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        silent.start();
+        coordinator.run(loadFeatures(runtimeOptions), mock(Formatter.class), mock(Reporter.class));
+        silentWorker.close();
+
+        assertEquals(Collections.<Throwable>emptyList(), runtime.getErrors());
+        assertThat(stats(runtime), startsWith(String.format("12 Scenarios (12 undefined)%n")));
+    }
+
+    @Test
+    public void drops_a_worker_that_sends_too_many_bytes_for_a_scenario() throws Exception {
+        RuntimeOptions runtimeOptions = options();
+        Runtime runtime = createRuntime(runtimeOptions);
+        coordinator = new Coordinator(runtime, new InetSocketAddress("localhost", 0), 10000);
+
+        final Socket badWorker = new Socket();
+        Thread bad = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    badWorker.connect(new InetSocketAddress("localhost", coordinator.getPort()));
+                    DataOutputStream out = new DataOutputStream(badWorker.getOutputStream());
+                    out.writeInt(Coordinator.MAGIC);
+                    out.writeInt(Coordinator.VERSION);
+                    DataInputStream in = new DataInputStream(badWorker.getInputStream());
+                    in.readLong();
+                    in.readInt();
+                    out.writeByte(Coordinator.SCENARIO);
+                    out.writeUTF(in.readUTF());
+                    out.writeInt(Coordinator.MAX_EVENTS_LENGTH + 1);
+                    out.flush();
+                    startWorkers(1);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        bad.start();
+        coordinator.run(loadFeatures(runtimeOptions), mock(Formatter.class), mock(Reporter.class));
+        badWorker.close();
+
+        assertEquals(Collections.<Throwable>emptyList(), runtime.getErrors());
+        assertThat(stats(runtime), startsWith(String.format("12 Scenarios (12 undefined)%n")));
+    }
+
+    @Test
+    public void runs_with_worker_processes() throws Exception {
+        String classPath = System.getProperty("java.class.path");
+        File classes = TempDir.createTempDirectory();
+        write(new File(classes, "META-INF/services/" + Backend.class.getName()), SlowStubBackend.class.getName() + "\n");
+
+        // The workers start first and keep trying to connect until the coordinator listens
+        int port = freePort();
+        List<Process> workers = new ArrayList<Process>();
+        for (int i = 0; i < 2; i++) {
+            workers.add(new ProcessBuilder(
+                    System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                    "-cp", classPath + File.pathSeparator + classes.getPath(),
+                    "cucumber.api.cli.Main", "--worker", "localhost:" + port, features.getPath())
+                    .redirectErrorStream(true).start());
+        }
+        RuntimeOptions runtimeOptions = options();
+        Runtime runtime = createRuntime(runtimeOptions);
+        coordinator = new Coordinator(runtime, new InetSocketAddress("localhost", port), 10000);
+        coordinator.run(loadFeatures(runtimeOptions), mock(Formatter.class), mock(Reporter.class));
+
+        for (Process worker : workers) {
+            assertEquals(0, worker.waitFor());
+        }
+        assertTrue(runtime.getErrors().isEmpty());
+        assertThat(stats(runtime), startsWith(String.format("12 Scenarios (12 undefined)%n")));
+    }
+
+    @Test
+    public void worker_waits_for_the_coordinator_to_listen() throws Exception {
+        int port = freePort();
+        final RuntimeOptions workerOptions = options();
+        final RemoteWorker worker = new RemoteWorker(createRuntime(workerOptions), loadFeatures(workerOptions));
+        final InetSocketAddress address = new InetSocketAddress("localhost", port);
+        final List<IOException> failures = Collections.synchronizedList(new ArrayList<IOException>());
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    worker.run(address, 10000);
+                } catch (IOException e) {
+                    failures.add(e);
+                }
+            }
+        });
+        thread.start();
+        Thread.sleep(2 * RemoteWorker.CONNECT_RETRY_MILLIS);
+
+        RuntimeOptions runtimeOptions = options();
+        Runtime runtime = createRuntime(runtimeOptions);
+        coordinator = new Coordinator(runtime, address, 10000);
+        coordinator.run(loadFeatures(runtimeOptions), mock(Formatter.class), mock(Reporter.class));
+        thread.join();
+
+        assertEquals(Collections.<IOException>emptyList(), failures);
+        assertThat(stats(runtime), startsWith(String.format("12 Scenarios (12 undefined)%n")));
+    }
+
+    @Test
+    public void worker_gives_up_on_a_silent_coordinator() throws Exception {
+        // Hands out a lease, then neither sends anything nor closes the connection
+        final ServerSocket silentCoordinator = new ServerSocket(0, 1, InetAddress.getByName("localhost"));
+        Thread silent = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Socket socket = silentCoordinator.accept();
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    in.readInt();
+                    in.readInt();
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    out.writeLong(300);
+                    out.flush();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        silent.start();
+        RuntimeOptions runtimeOptions = options();
+        RemoteWorker worker = new RemoteWorker(createRuntime(runtimeOptions), loadFeatures(runtimeOptions));
+        try {
+            worker.run(new InetSocketAddress("localhost", silentCoordinator.getLocalPort()));
+            fail();
+        } catch (IOException expected) {
+            // Timed out, or the heartbeat closed the socket
+        } finally {
+            silentCoordinator.close();
+        }
+    }
+
+    private List<Thread> startWorkers(int count) {
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int i = 0; i < count; i++) {
+            final RuntimeOptions runtimeOptions = options();
+            final RemoteWorker worker = new RemoteWorker(createRuntime(runtimeOptions), loadFeatures(runtimeOptions));
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        worker.run(new InetSocketAddress("localhost", coordinator.getPort()));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            thread.start();
+            workers.add(thread);
+        }
+        return workers;
+    }
+
+    private static int freePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static void join(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private RuntimeOptions options() {
+        return new RuntimeOptions(asList("--monochrome", features.getPath()));
+    }
+
+    private List<CucumberFeature> loadFeatures(RuntimeOptions runtimeOptions) {
+        return runtimeOptions.cucumberFeatures(runtimeOptions.resourceLoader(getClass().getClassLoader()));
+    }
+
+    private Runtime createRuntime(RuntimeOptions runtimeOptions) {
+        ClassLoader classLoader = getClass().getClassLoader();
+        return new Runtime(runtimeOptions.resourceLoader(classLoader), classLoader, Collections.singletonList(new StubBackend(null)), runtimeOptions);
+    }
+
+    private static String stats(Runtime runtime) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        runtime.printStats(new PrintStream(baos));
+        return baos.toString();
+    }
+
+    private static void write(File file, String text) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+    }
+}
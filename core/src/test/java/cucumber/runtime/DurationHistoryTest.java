@@ -0,0 +1,118 @@
+package cucumber.runtime;
+
+import cucumber.runtime.formatter.TempDir;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DurationHistoryTest {
+    private File file;
+
+    @Before
+    public void createDirectory() throws IOException {
+        file = new File(TempDir.createTempDirectory(), DurationHistory.FILE_NAME);
+    }
+
+    @Test
+    public void reads_the_durations_that_were_saved() {
+        DurationHistory history = new DurationHistory(file);
+        history.record("a.feature:3", 10);
+        history.record("a.feature:3", 30);
+        history.record("a.feature:3", 20);
+        history.save();
+
+        DurationHistory read = new DurationHistory(file);
+        assertEquals(Long.valueOf(20), read.median("a.feature:3"));
+        assertNull(read.median("a.feature:9"));
+    }
+
+    @Test
+    public void keeps_only_the_last_durations_of_a_scenario() {
+        DurationHistory history = new DurationHistory(file);
+        for (long duration : new long[]{1000, 1000, 1000, 1, 2, 3, 4, 5}) {
+            history.record("a.feature:3", duration);
+        }
+        history.save();
+
+        assertEquals(Long.valueOf(3), new DurationHistory(file).median("a.feature:3"));
+    }
+
+    @Test
+    public void appends_new_durations_and_compacts_when_the_file_grows() {
+        DurationHistory history = new DurationHistory(file);
+        history.record("a.feature:3", 1);
+        history.save();
+        long compacted = file.length();
+
+        DurationHistory second = new DurationHistory(file);
+        second.record("a.feature:3", 2);
+        second.save();
+        assertTrue(file.length() > compacted);
+
+        for (int run = 0; run < 20; run++) {
+            DurationHistory next = new DurationHistory(file);
+            next.record("a.feature:3", 3);
+            next.save();
+        }
+        assertTrue(file.length() < 20 * compacted);
+        assertEquals(Long.valueOf(3), new DurationHistory(file).median("a.feature:3"));
+    }
+
+    @Test
+    public void ignores_a_record_that_was_cut_off() throws IOException {
+        DurationHistory history = new DurationHistory(file);
+        history.record("a.feature:3", 5);
+        history.save();
+        FileOutputStream out = new FileOutputStream(file, true);
+        out.write(new byte[]{0, 11, 'a'});
+        out.close();
+
+        assertEquals(Long.valueOf(5), new DurationHistory(file).median("a.feature:3"));
+    }
+
+    @Test
+    public void sorts_longest_first_with_unknown_scenarios_as_the_median() {
+        DurationHistory history = new DurationHistory(file);
+        history.record("a.feature:3", 10);
+        history.record("a.feature:6", 30);
+        history.record("a.feature:9", 20);
+
+        assertEquals(asList("a.feature:6", "a.feature:9", "new.feature:2", "a.feature:3"),
+                history.longestFirst(asList("a.feature:3", "a.feature:6", "a.feature:9", "new.feature:2")));
+    }
+
+    @Test
+    public void calls_a_duration_slow_when_it_is_more_than_twice_the_median() {
+        DurationHistory history = new DurationHistory(file);
+        history.record("a.feature:3", 10);
+        history.record("a.feature:3", 10);
+        assertFalse("too few durations", history.isSlow("a.feature:3", 100));
+
+        history.record("a.feature:3", 10);
+        assertTrue(history.isSlow("a.feature:3", 21));
+        assertFalse(history.isSlow("a.feature:3", 20));
+        assertFalse(history.isSlow("other.feature:3", 100));
+    }
+
+    @Test
+    public void lives_in_a_dotcucumber_directory_on_the_file_system() throws IOException {
+        File dotCucumber = TempDir.createTempDirectory();
+        DurationHistory history = DurationHistory.inDotCucumber(Utils.toURL(dotCucumber.getPath()));
+        history.record("a.feature:3", 5);
+        history.save();
+
+        assertTrue(new File(dotCucumber, DurationHistory.FILE_NAME).isFile());
+        assertNull(DurationHistory.inDotCucumber(new URL("http://localhost/dotcucumber/")));
+        assertNull(DurationHistory.inDotCucumber(null));
+    }
+}
@@ -0,0 +1,50 @@
+package cucumber.runtime;
+
+import cucumber.runtime.formatter.TempDir;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Tag;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class DurationRecorderTest {
+    @Test
+    public void records_hooks_and_steps_of_each_scenario() throws IOException {
+        DurationHistory history = new DurationHistory(new File(TempDir.createTempDirectory(), "durations"));
+        DurationRecorder recorder = new DurationRecorder(history);
+
+        runScenario(recorder, 3, 1000000L);
+
+        assertEquals(Long.valueOf(3000000L), history.median("path/test.feature:3"));
+    }
+
+    @Test
+    public void lists_scenarios_that_took_a_lot_longer_than_usual() throws IOException {
+        DurationHistory history = new DurationHistory(new File(TempDir.createTempDirectory(), "durations"));
+        for (int i = 0; i < 3; i++) {
+            history.record("path/test.feature:3", 3000000L);
+        }
+        DurationRecorder recorder = new DurationRecorder(history);
+
+        runScenario(recorder, 3, 5000000L);
+
+        assertEquals(Collections.singletonList("path/test.feature:3 took 15 ms, usually 3 ms"), recorder.getSlowScenarios());
+    }
+
+    private static void runScenario(DurationRecorder recorder, int line, long stepDuration) {
+        Scenario scenario = new Scenario(Collections.<Comment>emptyList(), Collections.<Tag>emptyList(), "Scenario", "name", "", line, "id");
+        recorder.uri("path/test.feature");
+        recorder.startOfScenarioLifeCycle(scenario);
+        recorder.before(null, new Result(Result.PASSED, stepDuration, null));
+        recorder.result(new Result(Result.PASSED, stepDuration, null));
+        recorder.result(new Result("skipped", null, null));
+        recorder.after(null, new Result(Result.PASSED, stepDuration, null));
+        recorder.endOfScenarioLifeCycle(scenario);
+    }
+}
@@ -0,0 +1,186 @@
+package cucumber.runtime;
+
+import cucumber.api.PendingException;
+import gherkin.formatter.Argument;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.PrettyFormatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Background;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.DataTableRow;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Result;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class EventWriterTest {
+    private static final Comment COMMENT = new Comment("# comment", 1);
+    private static final Tag TAG = new Tag("@tag", 2);
+    private static final List<Comment> NO_COMMENTS = Collections.emptyList();
+
+    @Test
+    public void replays_to_the_same_output() throws IOException {
+        StringBuilder direct = new StringBuilder();
+        PrettyFormatter directFormatter = new PrettyFormatter(direct, true, true);
+        writeEvents(directFormatter, directFormatter);
+        directFormatter.done();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(bytes);
+        writeEvents(writer, writer);
+        writer.flush();
+
+        StringBuilder replayed = new StringBuilder();
+        PrettyFormatter replayedFormatter = new PrettyFormatter(replayed, true, true);
+        EventReader reader = new EventReader(new ByteArrayInputStream(bytes.toByteArray()));
+        while (reader.read(replayedFormatter, replayedFormatter) != -1) {
+            // all events
+        }
+        replayedFormatter.done();
+
+        assertEquals(direct.toString(), replayed.toString());
+    }
+
+    @Test
+    public void writes_repeated_strings_once() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(bytes);
+        writer.uri("path/to/some/very/long/name.feature");
+        writer.flush();
+        int first = bytes.size();
+        writer.uri("path/to/some/very/long/name.feature");
+        writer.flush();
+
+        assertEquals(2, bytes.size() - first);
+    }
+
+    @Test
+    public void reads_back_step_definition_matches_and_errors() throws Exception {
+        Step step = new Step(null, "Given ", "I have 4 cukes", 3, null, null);
+        StubStepDefinition stepDefinition = new StubStepDefinition(new Object(), Object.class.getMethod("toString"), "I have (\\d+) cukes");
+        StepDefinitionMatch match = new StepDefinitionMatch(asList(new Argument(7, "4")), stepDefinition, "path/test.feature", step, null);
+        IllegalStateException error = new IllegalStateException("boom", new IllegalArgumentException("cause"));
+        Result original = new Result(Result.FAILED, 12L, error, null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(bytes);
+        writer.match(match);
+        writer.result(original);
+        writer.result(Result.SKIPPED);
+        writer.flush();
+
+        Reporter reporter = mock(Reporter.class);
+        EventReader reader = new EventReader(new ByteArrayInputStream(bytes.toByteArray()));
+        while (reader.read(mock(Formatter.class), reporter) != -1) {
+            // all events
+        }
+
+        ArgumentCaptor<Match> matchCaptor = ArgumentCaptor.forClass(Match.class);
+        verify(reporter).match(matchCaptor.capture());
+        StepDefinitionMatch readMatch = (StepDefinitionMatch) matchCaptor.getValue();
+        assertEquals("I have (\\d+) cukes", readMatch.getPattern());
+        assertEquals("I have 4 cukes", readMatch.getStepName());
+        assertEquals(step.getStackTraceElement("path/test.feature"), readMatch.getStepLocation());
+        assertEquals("toString", readMatch.getLocation());
+        assertEquals(Integer.valueOf(7), readMatch.getArguments().get(0).getOffset());
+
+        ArgumentCaptor<Result> resultCaptor = ArgumentCaptor.forClass(Result.class);
+        verify(reporter, times(2)).result(resultCaptor.capture());
+        Result failed = resultCaptor.getAllValues().get(0);
+        assertEquals(Result.FAILED, failed.getStatus());
+        assertEquals(Long.valueOf(12), failed.getDuration());
+        assertTrue(failed.getError() instanceof CucumberException);
+        assertEquals("boom", failed.getError().getMessage());
+        assertEquals("java.lang.IllegalStateException: boom", failed.getError().toString());
+        assertArrayEquals(error.getStackTrace(), failed.getError().getStackTrace());
+        assertEquals(original.getErrorMessage(), failed.getErrorMessage());
+        assertSame(Result.SKIPPED, resultCaptor.getAllValues().get(1));
+    }
+
+    @Test
+    public void reads_back_pending_errors_as_pending_exceptions() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(bytes);
+        writer.result(new Result("pending", 1L, new PendingException("later"), null));
+        writer.flush();
+
+        Reporter reporter = mock(Reporter.class);
+        new EventReader(new ByteArrayInputStream(bytes.toByteArray())).read(mock(Formatter.class), reporter);
+
+        ArgumentCaptor<Result> resultCaptor = ArgumentCaptor.forClass(Result.class);
+        verify(reporter).result(resultCaptor.capture());
+        assertTrue(resultCaptor.getValue().getError() instanceof PendingException);
+        assertEquals("later", resultCaptor.getValue().getError().getMessage());
+    }
+
+    @Test(expected = IOException.class)
+    public void refuses_lengths_that_are_too_big() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(bytes);
+        writer.getOutput().writeByte(EventWriter.URI);
+        writer.writeVarint(1);
+        writer.writeVarint(Integer.MAX_VALUE + 1L);
+        writer.flush();
+
+        new EventReader(new ByteArrayInputStream(bytes.toByteArray())).read(mock(Formatter.class), mock(Reporter.class));
+    }
+
+    @Test
+    public void leaves_other_tags_to_the_caller() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EventWriter writer = new EventWriter(bytes);
+        writer.getOutput().writeByte(EventWriter.FIRST_FREE_TAG);
+        writer.writeString("path/test.feature:3");
+        writer.eof();
+        writer.flush();
+
+        Formatter formatter = mock(Formatter.class);
+        EventReader reader = new EventReader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(EventWriter.FIRST_FREE_TAG, reader.read(formatter, mock(Reporter.class)));
+        assertEquals("path/test.feature:3", reader.readString());
+        assertEquals(EventWriter.EOF, reader.read(formatter, mock(Reporter.class)));
+        verify(formatter).eof();
+        verify(formatter, never()).uri(any(String.class));
+    }
+
+    private static void writeEvents(Formatter formatter, Reporter reporter) {
+        Step step = new Step(Collections.singletonList(COMMENT), "Given ", "a table", 6,
+                asList(new DataTableRow(NO_COMMENTS, asList("a", "b"), 7), new DataTableRow(NO_COMMENTS, asList("1", "2"), 8)), null);
+        Scenario scenario = new Scenario(NO_COMMENTS, Collections.singletonList(TAG), "Scenario", "scenario", "", 5, "feature;scenario");
+
+        formatter.uri("path/test.feature");
+        formatter.feature(new Feature(Collections.singletonList(COMMENT), Collections.singletonList(TAG), "Feature", "feature", "A description", 3, "feature"));
+        formatter.startOfScenarioLifeCycle(scenario);
+        formatter.background(new Background(NO_COMMENTS, "Background", "", "", 4));
+        formatter.scenario(scenario);
+        formatter.step(step);
+        reporter.before(new Match(Collections.<Argument>emptyList(), "Hooks.before()"), new Result(Result.PASSED, 1L, (String) null));
+        reporter.match(Match.UNDEFINED);
+        reporter.result(Result.UNDEFINED);
+        reporter.write("Some text");
+        reporter.embedding("text/plain", new byte[]{1, 2, 3});
+        formatter.endOfScenarioLifeCycle(scenario);
+        formatter.eof();
+    }
+}
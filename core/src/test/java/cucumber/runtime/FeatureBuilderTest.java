@@ -60,10 +60,41 @@ public class FeatureBuilderTest {
         assertEquals("path/foo.feature", features.get(0).getPath());
     }
 
+    @Test
+    public void merge_ignores_features_already_parsed() throws IOException {
+        List<CucumberFeature> features = new ArrayList<CucumberFeature>();
+        FeatureBuilder builder = new FeatureBuilder(features);
+        builder.parse(createResourceMock("foo.feature"), NO_FILTERS);
+
+        FeatureBuilder duplicate = new FeatureBuilder(new ArrayList<CucumberFeature>());
+        duplicate.parse(createResourceMock("bar/foo.feature"), NO_FILTERS);
+        builder.merge(duplicate);
+        FeatureBuilder other = new FeatureBuilder(new ArrayList<CucumberFeature>());
+        other.parse(createResourceMock("baz.feature", "Feature: baz"), NO_FILTERS);
+        builder.merge(other);
+
+        assertEquals(2, features.size());
+        assertEquals("foo.feature", features.get(0).getPath());
+        assertEquals("baz.feature", features.get(1).getPath());
+    }
+
+    @Test
+    public void reads_resource_in_the_encoding_of_its_header() throws IOException {
+        String source = "# encoding: iso-8859-1\nFeature: f\u00f6\u00f6";
+        Resource resource = mock(Resource.class);
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(source.getBytes("ISO-8859-1")));
+
+        assertEquals(source, new FeatureBuilder(new ArrayList<CucumberFeature>()).read(resource));
+    }
+
     private Resource createResourceMock(String featurePath) throws IOException {
+        return createResourceMock(featurePath, "Feature: foo");
+    }
+
+    private Resource createResourceMock(String featurePath, String source) throws IOException {
         Resource resource = mock(Resource.class);
         when(resource.getPath()).thenReturn(featurePath);
-        ByteArrayInputStream feature = new ByteArrayInputStream("Feature: foo".getBytes("UTF-8"));
+        ByteArrayInputStream feature = new ByteArrayInputStream(source.getBytes("UTF-8"));
         when(resource.getInputStream()).thenReturn(feature);
         return resource;
     }
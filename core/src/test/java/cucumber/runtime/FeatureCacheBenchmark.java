@@ -0,0 +1,76 @@
+package cucumber.runtime;
+
+import cucumber.runtime.formatter.TempDir;
+import cucumber.runtime.io.FileResourceLoader;
+import cucumber.runtime.model.CucumberFeature;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measures how long it takes to load features without a feature cache, with an empty one (cold) and with
+ * one that has all the features (warm). Run with {@code main}; this isn't part of the test suite.
+ */
+public class FeatureCacheBenchmark {
+    private static final int FEATURES = 2000;
+    private static final int SCENARIOS = 10;
+
+    public static void main(String[] args) throws IOException {
+        File features = TempDir.createTempDirectory();
+        for (int i = 0; i < FEATURES; i++) {
+            writeFeature(new File(features, "feature" + i + ".feature"), i);
+        }
+        List<String> featurePaths = Collections.singletonList(features.getPath());
+        List<Object> filters = Collections.emptyList();
+        FileResourceLoader resourceLoader = new FileResourceLoader();
+
+        for (int round = 0; round < 3; round++) {
+            FeatureCache featureCache = new FeatureCache(TempDir.createTempDirectory());
+
+            long start = System.nanoTime();
+            CucumberFeature.load(resourceLoader, featurePaths, filters);
+            long withoutCache = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            CucumberFeature.load(resourceLoader, featurePaths, filters, featureCache);
+            long cold = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            CucumberFeature.load(resourceLoader, featurePaths, filters, featureCache);
+            long warm = System.nanoTime() - start;
+
+            System.out.println(String.format("%d features: without cache %d ms, cold cache %d ms, warm cache %d ms",
+                    FEATURES, withoutCache / 1000000, cold / 1000000, warm / 1000000));
+        }
+    }
+
+    private static void writeFeature(File file, int number) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write("@feature" + number + "\n");
+            out.write("Feature: Feature " + number + "\n");
+            out.write("  Background:\n");
+            out.write("    Given a background step\n");
+            for (int i = 0; i < SCENARIOS; i++) {
+                out.write("\n  @scenario" + i + "\n");
+                out.write("  Scenario Outline: Scenario " + i + "\n");
+                out.write("    Given I have <count> cukes in my belly\n");
+                out.write("    When I wait 1 hour\n");
+                out.write("    Then my belly should growl\n");
+                out.write("      | sound | volume |\n");
+                out.write("      | grrr  | loud   |\n");
+                out.write("\n    Examples:\n");
+                out.write("      | count |\n");
+                out.write("      | 1     |\n");
+                out.write("      | 2     |\n");
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
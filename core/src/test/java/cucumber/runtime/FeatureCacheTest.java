@@ -0,0 +1,123 @@
+package cucumber.runtime;
+
+import cucumber.runtime.formatter.TempDir;
+import cucumber.runtime.io.Resource;
+import cucumber.runtime.model.CucumberFeature;
+import gherkin.I18n;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.JSONFormatter;
+import gherkin.parser.Parser;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FeatureCacheTest {
+    private static final List<Object> NO_FILTERS = emptyList();
+    private static final String FEATURE = "" +
+            "# language: en\n" +
+            "# a comment\n" +
+            "@feature-tag\n" +
+            "Feature: Everything\n" +
+            "  A description\n" +
+            "\n" +
+            "  Background: Set up\n" +
+            "    Given a table\n" +
+            "      | a | b |\n" +
+            "      # a row comment\n" +
+            "      | 1 | 2 |\n" +
+            "\n" +
+            "  @scenario-tag\n" +
+            "  Scenario: A scenario\n" +
+            "    When a doc string\n" +
+            "      \"\"\"text/plain\n" +
+            "      lots of text\n" +
+            "      \"\"\"\n" +
+            "    Then nothing\n" +
+            "\n" +
+            "  Scenario Outline: An outline\n" +
+            "    Given <x>\n" +
+            "\n" +
+            "    @examples-tag\n" +
+            "    Examples: Some examples\n" +
+            "      | x |\n" +
+            "      | 1 |\n" +
+            "      | 2 |\n";
+
+    private File directory;
+    private FeatureCache featureCache;
+
+    @Before
+    public void createCache() throws IOException {
+        directory = TempDir.createTempDirectory();
+        featureCache = new FeatureCache(directory);
+    }
+
+    @Test
+    public void replays_the_same_events_as_the_parser() {
+        StringBuilder parsed = new StringBuilder();
+        Formatter recorder = featureCache.recorder(new JSONFormatter(parsed));
+        Parser parser = new Parser(recorder);
+        parser.parse(FEATURE, "path/everything.feature", 0);
+        recorder.done();
+        featureCache.store("checksum", recorder, parser.getI18nLanguage());
+
+        StringBuilder replayed = new StringBuilder();
+        JSONFormatter formatter = new JSONFormatter(replayed);
+        I18n i18n = featureCache.replay("checksum", "path/everything.feature", formatter);
+        formatter.done();
+
+        assertEquals("en", i18n.getIsoCode());
+        assertEquals(parsed.toString(), replayed.toString());
+    }
+
+    @Test
+    public void misses_features_that_are_not_cached() {
+        assertNull(featureCache.replay("checksum", "path/everything.feature", mock(Formatter.class)));
+    }
+
+    @Test
+    public void misses_files_that_are_not_in_the_cache_format() throws IOException {
+        FileOutputStream out = new FileOutputStream(new File(directory, "checksum.feature.bin"));
+        out.write("not a cached feature".getBytes("UTF-8"));
+        out.close();
+
+        assertNull(featureCache.replay("checksum", "path/everything.feature", mock(Formatter.class)));
+    }
+
+    @Test
+    public void applies_filters_to_cached_features() throws IOException {
+        List<CucumberFeature> features = new ArrayList<CucumberFeature>();
+        new FeatureBuilder(features, featureCache).parse(resource("path/everything.feature"), asList((Object) "@scenario-tag"));
+        List<CucumberFeature> cachedFeatures = new ArrayList<CucumberFeature>();
+        new FeatureBuilder(cachedFeatures, featureCache).parse(resource("path/everything.feature"), NO_FILTERS);
+        List<CucumberFeature> filteredCachedFeatures = new ArrayList<CucumberFeature>();
+        new FeatureBuilder(filteredCachedFeatures, featureCache).parse(resource("path/everything.feature"), asList((Object) "@examples-tag"));
+
+        assertEquals(1, directory.list().length);
+        assertEquals(1, features.get(0).getFeatureElements().size());
+        assertEquals(2, cachedFeatures.get(0).getFeatureElements().size());
+        assertEquals(1, filteredCachedFeatures.get(0).getFeatureElements().size());
+        assertEquals("Scenario Outline: An outline", filteredCachedFeatures.get(0).getFeatureElements().get(0).getVisualName());
+        assertEquals("en", filteredCachedFeatures.get(0).getI18n().getIsoCode());
+    }
+
+    private Resource resource(String path) throws IOException {
+        Resource resource = mock(Resource.class);
+        when(resource.getPath()).thenReturn(path);
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(FEATURE.getBytes("UTF-8")));
+        return resource;
+    }
+}
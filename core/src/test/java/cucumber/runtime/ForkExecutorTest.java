@@ -0,0 +1,170 @@
+package cucumber.runtime;
+
+import cucumber.runtime.formatter.TempDir;
+import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.snippets.FunctionNameGenerator;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.PrettyFormatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Step;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ForkExecutorTest {
+    private final String classPath = System.getProperty("java.class.path");
+    private File features;
+
+    @Before
+    public void writeFeaturesAndBackend() throws IOException {
+        // The forks find the backend in a services file that only their class path has
+        File classes = TempDir.createTempDirectory();
+        write(new File(classes, "META-INF/services/" + Backend.class.getName()), ForkBackend.class.getName() + "\n");
+        System.setProperty("java.class.path", classPath + File.pathSeparator + classes.getPath());
+
+        features = TempDir.createTempDirectory();
+        for (int i = 0; i < 3; i++) {
+            write(new File(features, "feature_" + i + ".feature"), "" +
+                    "Feature: feature " + i + "\n" +
+                    "  Scenario: first scenario\n" +
+                    "    Given a step\n" +
+                    "    And another step\n" +
+                    "  Scenario Outline: outline\n" +
+                    "    Given a <thing>\n" +
+                    "    Examples: examples\n" +
+                    "      | thing |\n" +
+                    "      | foo   |\n" +
+                    "      | bar   |\n");
+        }
+    }
+
+    @After
+    public void restoreClassPath() {
+        System.setProperty("java.class.path", classPath);
+    }
+
+    @Test
+    public void reports_the_same_as_a_sequential_run() throws IOException {
+        RuntimeOptions sequentialOptions = new RuntimeOptions(asList("--monochrome", features.getPath()));
+        Runtime sequentialRuntime = createRuntime(sequentialOptions);
+        StringBuilder sequential = new StringBuilder();
+        PrettyFormatter sequentialFormatter = new PrettyFormatter(sequential, true, true);
+        for (CucumberFeature feature : loadFeatures(sequentialOptions)) {
+            feature.run(sequentialFormatter, sequentialFormatter, sequentialRuntime);
+        }
+        sequentialFormatter.done();
+
+        RuntimeOptions forkedOptions = new RuntimeOptions(asList("--monochrome", "--forks", "2", features.getPath()));
+        Runtime forkedRuntime = createRuntime(forkedOptions);
+        StringBuilder forked = new StringBuilder();
+        PrettyFormatter forkedFormatter = new PrettyFormatter(forked, true, true);
+        new ForkExecutor(forkedRuntime, forkedOptions).run(loadFeatures(forkedOptions), forkedFormatter, forkedFormatter);
+        forkedFormatter.done();
+
+        assertEquals(sequential.toString(), forked.toString());
+        assertThat(stats(forkedRuntime), startsWith(String.format(
+                "9 Scenarios (9 undefined)%n" +
+                "12 Steps (12 undefined)%n")));
+        assertEquals(asList("snippet for a step", "snippet for another step", "snippet for a foo", "snippet for a bar"), forkedRuntime.getSnippets());
+    }
+
+    @Test
+    public void fails_scenarios_that_keep_crashing_forks() throws IOException {
+        RuntimeOptions runtimeOptions = new RuntimeOptions(asList("--monochrome", "--forks", "2", "--glue", ForkBackend.CRASH, features.getPath()));
+        Runtime runtime = createRuntime(runtimeOptions);
+        new ForkExecutor(runtime, runtimeOptions).run(loadFeatures(runtimeOptions), mock(Formatter.class), mock(Reporter.class));
+
+        // Each scenario got a second chance
+        assertEquals(9, runtime.getErrors().size());
+        for (Throwable error : runtime.getErrors()) {
+            assertThat(error.getMessage(), startsWith("Fork crashed while running "));
+        }
+    }
+
+    @Test
+    public void passes_on_what_forks_need_to_load_the_same_glue_and_features() {
+        RuntimeOptions runtimeOptions = new RuntimeOptions(asList("--forks", "2", "--glue", "glue", "--tags", "@foo",
+                "--format", "pretty", "--dry-run", "--exclude", "target/", "features"));
+
+        assertEquals(asList("--glue", "glue", "--dry-run", "--exclude", "target/", "features"), ForkExecutor.workerArguments(runtimeOptions));
+    }
+
+    private List<CucumberFeature> loadFeatures(RuntimeOptions runtimeOptions) {
+        return runtimeOptions.cucumberFeatures(runtimeOptions.resourceLoader(getClass().getClassLoader()));
+    }
+
+    private Runtime createRuntime(RuntimeOptions runtimeOptions) {
+        ClassLoader classLoader = getClass().getClassLoader();
+        return new Runtime(runtimeOptions.resourceLoader(classLoader), classLoader, Collections.singletonList(new ForkBackend(null)), runtimeOptions);
+    }
+
+    private static String stats(Runtime runtime) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        runtime.printStats(new PrintStream(baos));
+        return baos.toString();
+    }
+
+    private static void write(File file, String text) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * A backend without glue. With the {@link #CRASH} glue path, the fork dies when a scenario starts.
+     */
+    public static class ForkBackend implements Backend {
+        static final String CRASH = "crash";
+
+        private boolean crash;
+
+        public ForkBackend(ResourceLoader resourceLoader) {
+        }
+
+        @Override
+        public void loadGlue(Glue glue, List<String> gluePaths) {
+            crash = gluePaths.contains(CRASH);
+        }
+
+        @Override
+        public void setUnreportedStepExecutor(UnreportedStepExecutor executor) {
+        }
+
+        @Override
+        public void buildWorld() {
+            if (crash) {
+                java.lang.Runtime.getRuntime().halt(1);
+            }
+        }
+
+        @Override
+        public void disposeWorld() {
+        }
+
+        @Override
+        public String getSnippet(Step step, FunctionNameGenerator functionNameGenerator) {
+            return "snippet for " + step.getName();
+        }
+    }
+}
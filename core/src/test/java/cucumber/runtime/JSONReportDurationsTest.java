@@ -0,0 +1,52 @@
+package cucumber.runtime;
+
+import cucumber.runtime.formatter.TempDir;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class JSONReportDurationsTest {
+    @Test
+    public void adds_up_steps_hooks_and_background_of_each_scenario() throws IOException {
+        File report = new File(TempDir.createTempDirectory(), "cucumber.json");
+        write(report, "" +
+                "[{\"id\": \"test\", \"elements\": [\n" +
+                "  {\"type\": \"background\", \"line\": 2, \"steps\": [{\"result\": {\"status\": \"passed\", \"duration\": 1}}]},\n" +
+                "  {\"type\": \"scenario\", \"line\": 5,\n" +
+                "   \"before\": [{\"result\": {\"duration\": 10}}],\n" +
+                "   \"steps\": [{\"name\": \"a\", \"result\": {\"duration\": 100}}, {\"result\": {\"status\": \"skipped\"}}],\n" +
+                "   \"after\": [{\"result\": {\"duration\": 1000}}]},\n" +
+                "  {\"type\": \"background\", \"line\": 2, \"steps\": [{\"result\": {\"duration\": 2}}]},\n" +
+                "  {\"type\": \"scenario\", \"line\": 12, \"tags\": [{\"name\": \"@slow\"}], \"steps\": [{\"result\": {\"duration\": 20}}]}\n" +
+                " ], \"uri\": \"path/test.feature\"}]");
+
+        Map<String, Long> expected = new HashMap<String, Long>();
+        expected.put("path/test.feature:5", 1111L);
+        expected.put("path/test.feature:12", 22L);
+        assertEquals(expected, JSONReportDurations.read(report));
+    }
+
+    @Test(expected = CucumberException.class)
+    public void fails_for_a_file_that_is_not_a_report() throws IOException {
+        File report = new File(TempDir.createTempDirectory(), "cucumber.json");
+        write(report, "{\"not\": \"a report\"}");
+        JSONReportDurations.read(report);
+    }
+
+    private static void write(File file, String text) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(text);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cucumber.runtime;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compares invoking a glue method the way {@link Utils#invoke} used to (a new {@link Timeout.Callback} and
+ * an access check on every call) with a {@link MethodInvoker} bound once. Run with {@code main}; this isn't part of
+ * the test suite.
+ */
+public class MethodInvokerBenchmark {
+    private static final int ITERATIONS = 10000000;
+
+    public static void main(String[] args) throws Throwable {
+        final Glue glue = new Glue();
+        final Method method = Glue.class.getMethod("step", String.class);
+        MethodInvoker invoker = new MethodInvoker(Glue.class.getMethod("step", String.class));
+        final Object[] stepArgs = new Object[]{"cukes"};
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                Timeout.timeout(new Timeout.Callback<Object>() {
+                    @Override
+                    public Object call() throws Throwable {
+                        return Utils.invokeNow(glue, method, stepArgs);
+                    }
+                }, 0);
+            }
+            long unbound = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                invoker.invoke(glue, 0, stepArgs);
+            }
+            long bound = System.nanoTime() - start;
+
+            System.out.println(String.format("per call callback: %d ns/call, MethodInvoker: %d ns/call (%d)",
+                    unbound / ITERATIONS, bound / ITERATIONS, glue.calls));
+        }
+    }
+
+    public static class Glue {
+        int calls;
+
+        public void step(String arg) {
+            calls++;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package cucumber.runtime;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MethodInvokerTest {
+    @Test
+    public void invokes_the_method_with_the_arguments() throws Throwable {
+        MethodInvoker invoker = new MethodInvoker(Glue.class.getMethod("add", int.class, int.class));
+        assertEquals(5, invoker.invoke(new Glue(), 0, 2, 3));
+    }
+
+    @Test
+    public void throws_the_exception_thrown_by_the_method() throws Throwable {
+        MethodInvoker invoker = new MethodInvoker(Glue.class.getMethod("fail"));
+        try {
+            invoker.invoke(new Glue(), 0);
+            fail();
+        } catch (IllegalStateException expected) {
+            assertEquals("boom", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void times_out() throws Throwable {
+        MethodInvoker invoker = new MethodInvoker(Glue.class.getMethod("sleep"));
+        try {
+            invoker.invoke(new Glue(), 10);
+            fail();
+        } catch (TimeoutException expected) {
+            assertEquals("Timed out after 10ms.", expected.getMessage());
+        }
+    }
+
+    @Test(expected = CucumberException.class)
+    public void wraps_wrong_arguments() throws Throwable {
+        MethodInvoker invoker = new MethodInvoker(Glue.class.getMethod("add", int.class, int.class));
+        invoker.invoke(new Glue(), 0, "two", 3);
+    }
+
+    public static class Glue {
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public void fail() {
+            throw new IllegalStateException("boom");
+        }
+
+        public void sleep() throws InterruptedException {
+            Thread.sleep(5000);
+        }
+    }
+}
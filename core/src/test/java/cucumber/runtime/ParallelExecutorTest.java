@@ -0,0 +1,146 @@
+package cucumber.runtime;
+
+import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.snippets.FunctionNameGenerator;
+import gherkin.formatter.Formatter;
+import gherkin.formatter.PrettyFormatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Step;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static cucumber.runtime.TestHelper.feature;
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ParallelExecutorTest {
+
+    @Test
+    public void reports_features_in_the_same_order_as_a_sequential_run() throws Exception {
+        List<CucumberFeature> features = features(6);
+
+        StringBuilder sequential = new StringBuilder();
+        PrettyFormatter sequentialFormatter = new PrettyFormatter(sequential, true, true);
+        Runtime sequentialRuntime = createRuntime("--monochrome");
+        for (CucumberFeature feature : features) {
+            feature.run(sequentialFormatter, sequentialFormatter, sequentialRuntime);
+        }
+        sequentialFormatter.done();
+
+        StringBuilder parallel = new StringBuilder();
+        PrettyFormatter parallelFormatter = new PrettyFormatter(parallel, true, true);
+        Runtime parallelRuntime = createRuntime("--monochrome", "--threads", "3");
+        new ParallelExecutor(parallelRuntime, 3).run(features, parallelFormatter, parallelFormatter);
+        parallelFormatter.done();
+
+        assertEquals(sequential.toString(), parallel.toString());
+    }
+
+    @Test
+    public void aggregates_stats_from_all_workers() throws Exception {
+        Runtime runtime = createRuntime("--monochrome", "--threads", "4");
+        new ParallelExecutor(runtime, 4).run(features(8), mock(Formatter.class), mock(Reporter.class));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        runtime.printStats(new PrintStream(baos));
+        assertThat(baos.toString(), startsWith(String.format(
+                "24 Scenarios (24 undefined)%n" +
+                "48 Steps (48 undefined)%n")));
+    }
+
+    @Test
+    public void runs_scenarios_of_the_same_feature_on_different_threads() throws Exception {
+        // Both scenarios must have started before either of them can finish
+        StubBackend.barrier = new CyclicBarrier(2);
+        try {
+            Runtime runtime = createRuntime("--monochrome", "--threads", "2");
+            new ParallelExecutor(runtime, 2).run(asList(feature("path/test.feature", "" +
+                    "Feature: feature\n" +
+                    "  Scenario: first scenario\n" +
+                    "    Given a step\n" +
+                    "  Scenario: second scenario\n" +
+                    "    Given a step\n")), mock(Formatter.class), mock(Reporter.class));
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            runtime.printStats(new PrintStream(baos));
+            assertThat(baos.toString(), startsWith(String.format("2 Scenarios (2 undefined)%n")));
+        } finally {
+            StubBackend.barrier = null;
+        }
+    }
+
+    private List<CucumberFeature> features(int count) throws Exception {
+        List<CucumberFeature> features = new ArrayList<CucumberFeature>();
+        for (int i = 0; i < count; i++) {
+            features.add(feature("path/feature_" + i + ".feature", "" +
+                    "Feature: feature " + i + "\n" +
+                    "  Scenario: first scenario\n" +
+                    "    Given a step\n" +
+                    "    Then another step\n" +
+                    "  Scenario Outline: outline\n" +
+                    "    Given a <thing>\n" +
+                    "    Then another step\n" +
+                    "    Examples: examples\n" +
+                    "      | thing |\n" +
+                    "      | foo   |\n" +
+                    "      | bar   |\n"));
+        }
+        return features;
+    }
+
+    private Runtime createRuntime(String... runtimeArgs) {
+        ResourceLoader resourceLoader = mock(ResourceLoader.class);
+        ClassFinder classFinder = mock(ClassFinder.class);
+        when(classFinder.getDescendants(Backend.class, "cucumber.runtime")).thenReturn(
+                Collections.<Class<? extends Backend>>singletonList(StubBackend.class));
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return new Runtime(resourceLoader, classFinder, classLoader, new RuntimeOptions(asList(runtimeArgs)));
+    }
+
+    public static class StubBackend implements Backend {
+        static volatile CyclicBarrier barrier;
+
+        public StubBackend(ResourceLoader resourceLoader) {
+        }
+
+        @Override
+        public void loadGlue(Glue glue, List<String> gluePaths) {
+        }
+
+        @Override
+        public void setUnreportedStepExecutor(UnreportedStepExecutor executor) {
+        }
+
+        @Override
+        public void buildWorld() {
+            if (barrier != null) {
+                try {
+                    barrier.await(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+
+        @Override
+        public void disposeWorld() {
+        }
+
+        @Override
+        public String getSnippet(Step step, FunctionNameGenerator functionNameGenerator) {
+            return "snippet";
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package cucumber.runtime;
+
+import cucumber.runtime.formatter.TempDir;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReflectionsTest {
+    private static final Class[] CONSTRUCTOR_PARAMS = new Class[]{String.class};
+    private static final Object[] CONSTRUCTOR_ARGS = new Object[]{"arg"};
+
+    private final ClassFinder classFinder = mock(ClassFinder.class);
+
+    @Test
+    public void instantiates_the_services_without_scanning_when_scanning_is_turned_off() throws IOException {
+        ClassLoader classLoader = classLoaderWithServices(
+                "# Comment\n" + ServiceOne.class.getName() + "\n\n  " + ServiceTwo.class.getName() + "  # Another one\n",
+                ServiceOne.class.getName() + "\n" + NotAService.class.getName() + "\ncucumber.runtime.NoSuchClass\n");
+
+        Collection<? extends Service> services = new Reflections(classFinder, classLoader, Reflections.Scan.NEVER)
+                .instantiateSubclasses(Service.class, "cucumber.runtime", CONSTRUCTOR_PARAMS, CONSTRUCTOR_ARGS);
+
+        assertEquals(asList(ServiceOne.class, ServiceTwo.class), sortedClasses(services));
+        verify(classFinder, never()).getDescendants(eq(Service.class), anyString());
+    }
+
+    @Test
+    public void does_not_scan_the_package_when_there_are_services() throws IOException {
+        ClassLoader classLoader = classLoaderWithServices(ServiceOne.class.getName() + "\n");
+
+        Collection<? extends Service> services = new Reflections(classFinder, classLoader, Reflections.Scan.FALLBACK)
+                .instantiateSubclasses(Service.class, "cucumber.runtime", CONSTRUCTOR_PARAMS, CONSTRUCTOR_ARGS);
+
+        assertEquals(Collections.<Class<?>>singletonList(ServiceOne.class), sortedClasses(services));
+        verify(classFinder, never()).getDescendants(eq(Service.class), anyString());
+    }
+
+    @Test
+    public void instantiates_the_services_and_the_scanned_classes_once_each_when_always_scanning() throws IOException {
+        ClassLoader classLoader = classLoaderWithServices(ServiceOne.class.getName() + "\n");
+        when(classFinder.getDescendants(Service.class, "cucumber.runtime")).thenReturn(Arrays.<Class<? extends Service>>asList(ServiceOne.class, ServiceTwo.class));
+
+        Collection<? extends Service> services = new Reflections(classFinder, classLoader, Reflections.Scan.ALWAYS)
+                .instantiateSubclasses(Service.class, "cucumber.runtime", CONSTRUCTOR_PARAMS, CONSTRUCTOR_ARGS);
+
+        assertEquals(asList(ServiceOne.class, ServiceTwo.class), sortedClasses(services));
+    }
+
+    @Test
+    public void scans_the_package_when_there_are_no_services() throws IOException {
+        ClassLoader classLoader = classLoaderWithServices();
+        when(classFinder.getDescendants(Service.class, "cucumber.runtime")).thenReturn(Collections.<Class<? extends Service>>singletonList(ServiceTwo.class));
+
+        Collection<? extends Service> services = new Reflections(classFinder, classLoader, Reflections.Scan.FALLBACK)
+                .instantiateSubclasses(Service.class, "cucumber.runtime", CONSTRUCTOR_PARAMS, CONSTRUCTOR_ARGS);
+
+        assertEquals(Collections.<Class<?>>singletonList(ServiceTwo.class), sortedClasses(services));
+    }
+
+    @Test
+    public void does_not_scan_the_package_when_scanning_is_turned_off() throws IOException {
+        ClassLoader classLoader = classLoaderWithServices();
+
+        Collection<? extends Service> services = new Reflections(classFinder, classLoader, Reflections.Scan.NEVER)
+                .instantiateSubclasses(Service.class, "cucumber.runtime", CONSTRUCTOR_PARAMS, CONSTRUCTOR_ARGS);
+
+        assertTrue(services.isEmpty());
+        verify(classFinder, never()).getDescendants(eq(Service.class), anyString());
+    }
+
+    @Test
+    public void reads_the_scan_setting() {
+        assertEquals(Reflections.Scan.FALLBACK, Reflections.scan(null));
+        assertEquals(Reflections.Scan.ALWAYS, Reflections.scan("always"));
+        assertEquals(Reflections.Scan.NEVER, Reflections.scan("false"));
+    }
+
+    @Test(expected = CucumberException.class)
+    public void rejects_an_unknown_scan_setting() {
+        Reflections.scan("sometimes");
+    }
+
+    private ClassLoader classLoaderWithServices(String... servicesFiles) throws IOException {
+        List<URL> urls = new ArrayList<URL>();
+        for (String servicesFile : servicesFiles) {
+            File dir = TempDir.createTempDirectory();
+            File services = new File(dir, "META-INF/services/" + Service.class.getName());
+            services.getParentFile().mkdirs();
+            Writer out = new OutputStreamWriter(new FileOutputStream(services), "UTF-8");
+            try {
+                out.write(servicesFile);
+            } finally {
+                out.close();
+            }
+            urls.add(dir.toURI().toURL());
+        }
+        return new URLClassLoader(urls.toArray(new URL[urls.size()]), getClass().getClassLoader());
+    }
+
+    private List<Class<?>> sortedClasses(Collection<?> instances) {
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        for (Object instance : instances) {
+            classes.add(instance.getClass());
+        }
+        Collections.sort(classes, new Comparator<Class<?>>() {
+            @Override
+            public int compare(Class<?> a, Class<?> b) {
+                return a.getName().compareTo(b.getName());
+            }
+        });
+        return classes;
+    }
+
+    public interface Service {
+    }
+
+    public static class ServiceOne implements Service {
+        public ServiceOne(String arg) {
+        }
+    }
+
+    public static class ServiceTwo implements Service {
+        public ServiceTwo(String arg) {
+        }
+    }
+
+    public static class NotAService {
+        public NotAService(String arg) {
+        }
+    }
+}
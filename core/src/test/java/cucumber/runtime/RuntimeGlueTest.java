@@ -1,11 +1,22 @@
 package cucumber.runtime;
 
 import cucumber.runtime.xstream.LocalizedXStreams;
+import gherkin.I18n;
+import gherkin.formatter.Argument;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Step;
 import org.junit.Test;
 
+import java.util.Collections;
+
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RuntimeGlueTest {
@@ -29,4 +40,78 @@ public class RuntimeGlueTest {
         }
     }
 
+    @Test
+    public void remembers_matches_of_the_same_step_name() {
+        RuntimeGlue glue = new RuntimeGlue(new UndefinedStepsTracker(), new LocalizedXStreams(Thread.currentThread().getContextClassLoader()));
+        StepDefinition stepDefinition = stepDefinition("^I have (\\d+) cukes$");
+        when(stepDefinition.matchedArguments(any(Step.class))).thenReturn(asList(new Argument(7, "4")));
+        glue.addStepDefinition(stepDefinition);
+
+        Step first = step("I have 4 cukes", 1);
+        Step second = step("I have 4 cukes", 2);
+        StepDefinitionMatch firstMatch = glue.stepDefinitionMatch("foo.feature", first, new I18n("en"));
+        StepDefinitionMatch secondMatch = glue.stepDefinitionMatch("foo.feature", second, new I18n("en"));
+
+        verify(stepDefinition, times(1)).matchedArguments(any(Step.class));
+        assertEquals(1, firstMatch.getStepLocation().getLineNumber());
+        assertEquals(2, secondMatch.getStepLocation().getLineNumber());
+        assertEquals("4", secondMatch.getArguments().get(0).getVal());
+        assertEquals(1, glue.getStepMatchCache().getHits());
+        assertEquals(1, glue.getStepMatchCache().getMisses());
+    }
+
+    @Test
+    public void remembers_undefined_steps_per_language() {
+        RuntimeGlue glue = new RuntimeGlue(new UndefinedStepsTracker(), new LocalizedXStreams(Thread.currentThread().getContextClassLoader()));
+
+        assertNull(glue.stepDefinitionMatch("foo.feature", step("some step", 1), new I18n("en")));
+        assertNull(glue.stepDefinitionMatch("foo.feature", step("some step", 2), new I18n("en")));
+        assertNull(glue.stepDefinitionMatch("foo.feature", step("some step", 3), new I18n("fr")));
+
+        assertEquals(1, glue.getStepMatchCache().getHits());
+        assertEquals(2, glue.getStepMatchCache().getMisses());
+    }
+
+    @Test
+    public void forgets_matches_when_a_step_definition_is_added() {
+        RuntimeGlue glue = new RuntimeGlue(new UndefinedStepsTracker(), new LocalizedXStreams(Thread.currentThread().getContextClassLoader()));
+        StepDefinition a = stepDefinition("^I have (.*) cukes$");
+        when(a.matchedArguments(any(Step.class))).thenReturn(Collections.<Argument>emptyList());
+        glue.addStepDefinition(a);
+        glue.stepDefinitionMatch("foo.feature", step("I have 4 cukes", 1), new I18n("en"));
+
+        StepDefinition b = stepDefinition("^I have 4 cukes$");
+        when(b.matchedArguments(any(Step.class))).thenReturn(Collections.<Argument>emptyList());
+        glue.addStepDefinition(b);
+        try {
+            glue.stepDefinitionMatch("foo.feature", step("I have 4 cukes", 1), new I18n("en"));
+            fail("should have been ambiguous");
+        } catch (AmbiguousStepDefinitionsException expected) {
+            assertEquals(2, expected.getMatches().size());
+        }
+        assertEquals(0, glue.getStepMatchCache().getHits());
+    }
+
+    @Test
+    public void evicts_the_least_recently_used_step_names() {
+        StepMatchCache cache = new StepMatchCache(2);
+        cache.put("a", "en", Collections.<StepMatchCache.CachedMatch>emptyList());
+        cache.put("b", "en", Collections.<StepMatchCache.CachedMatch>emptyList());
+        cache.get("a", "en");
+        cache.put("c", "en", Collections.<StepMatchCache.CachedMatch>emptyList());
+
+        assertEquals(2, cache.size());
+        assertEquals(Collections.<StepMatchCache.CachedMatch>emptyList(), cache.get("a", "en"));
+        assertNull(cache.get("b", "en"));
+    }
+
+    private StepDefinition stepDefinition(String pattern) {
+        StepDefinition stepDefinition = mock(StepDefinition.class);
+        when(stepDefinition.getPattern()).thenReturn(pattern);
+        return stepDefinition;
+    }
+
+    private Step step(String name, int line) {
+        return new Step(Collections.<Comment>emptyList(), "Given ", name, line, null, null);
+    }
 }
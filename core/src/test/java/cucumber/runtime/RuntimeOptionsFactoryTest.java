@@ -7,6 +7,7 @@ import gherkin.formatter.JSONFormatter;
 import gherkin.formatter.PrettyFormatter;
 import org.junit.Test;
 
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Iterator;
@@ -18,6 +19,7 @@ import static cucumber.runtime.RuntimeOptionsFactory.packagePath;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class RuntimeOptionsFactoryTest {
@@ -97,6 +99,50 @@ public class RuntimeOptionsFactoryTest {
         assertEquals(SnippetType.CAMELCASE, runtimeOptions.getSnippetType());
     }
 
+    @Test
+    public void create_with_threads() {
+        RuntimeOptionsFactory runtimeOptionsFactory = new RuntimeOptionsFactory(Threads.class, new Class[]{CucumberOptions.class});
+        RuntimeOptions runtimeOptions = runtimeOptionsFactory.create();
+        assertEquals(4, runtimeOptions.getThreads());
+    }
+
+    @Test
+    public void create_with_async_formatters() {
+        RuntimeOptionsFactory runtimeOptionsFactory = new RuntimeOptionsFactory(AsyncFormatters.class, new Class[]{CucumberOptions.class});
+        RuntimeOptions runtimeOptions = runtimeOptionsFactory.create();
+        assertTrue(runtimeOptions.isAsyncFormatters());
+    }
+
+    @Test
+    public void create_with_feature_cache() {
+        RuntimeOptionsFactory runtimeOptionsFactory = new RuntimeOptionsFactory(WithFeatureCache.class, new Class[]{CucumberOptions.class});
+        RuntimeOptions runtimeOptions = runtimeOptionsFactory.create();
+        assertEquals(new File("target/feature-cache"), runtimeOptions.getFeatureCache().getDirectory());
+    }
+
+    @Test
+    public void create_without_feature_cache() {
+        RuntimeOptionsFactory runtimeOptionsFactory = new RuntimeOptionsFactory(Threads.class, new Class[]{CucumberOptions.class});
+        RuntimeOptions runtimeOptions = runtimeOptionsFactory.create();
+        assertNull(runtimeOptions.getFeatureCache());
+    }
+
+    @Test
+    public void create_with_excludes_and_scan_threads() {
+        RuntimeOptionsFactory runtimeOptionsFactory = new RuntimeOptionsFactory(WithExcludes.class, new Class[]{CucumberOptions.class});
+        RuntimeOptions runtimeOptions = runtimeOptionsFactory.create();
+        assertEquals(asList("target/", "**/*.wip.feature"), runtimeOptions.getExcludes());
+        assertEquals(4, runtimeOptions.getScanThreads());
+    }
+
+    @Test
+    public void create_with_shard() {
+        RuntimeOptionsFactory runtimeOptionsFactory = new RuntimeOptionsFactory(WithShard.class, new Class[]{CucumberOptions.class});
+        RuntimeOptions runtimeOptions = runtimeOptionsFactory.create();
+        assertEquals("3/40", runtimeOptions.getShard().toString());
+        assertEquals(new File("target/cucumber.json"), runtimeOptions.getShardDurations());
+    }
+
     private String getRegexpPattern(Object pattern) {
         return ((Pattern) pattern).pattern();
     }
@@ -136,6 +182,31 @@ public class RuntimeOptionsFactoryTest {
         // empty
     }
 
+    @CucumberOptions(threads = 4)
+    static class Threads {
+        // empty
+    }
+
+    @CucumberOptions(asyncFormatters = true)
+    static class AsyncFormatters {
+        // empty
+    }
+
+    @CucumberOptions(featureCache = "target/feature-cache")
+    static class WithFeatureCache {
+        // empty
+    }
+
+    @CucumberOptions(exclude = {"target/", "**/*.wip.feature"}, scanThreads = 4)
+    static class WithExcludes {
+        // empty
+    }
+
+    @CucumberOptions(shard = "3/40", shardDurations = "target/cucumber.json")
+    static class WithShard {
+        // empty
+    }
+
     @CucumberOptions(strict = true)
     static class Strict {
         // empty
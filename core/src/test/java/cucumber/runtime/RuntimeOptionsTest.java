@@ -4,13 +4,17 @@ import cucumber.api.SnippetType;
 import cucumber.runtime.formatter.ColorAware;
 import cucumber.runtime.formatter.FormatterFactory;
 import cucumber.runtime.formatter.StrictAware;
+import cucumber.runtime.formatter.TempDir;
 import cucumber.runtime.io.Resource;
 import cucumber.runtime.io.ResourceLoader;
 import cucumber.runtime.model.CucumberFeature;
 import gherkin.formatter.Formatter;
+import gherkin.formatter.Reporter;
+import gherkin.formatter.model.Result;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
@@ -24,6 +28,8 @@ import java.util.regex.Pattern;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -42,6 +48,23 @@ public class RuntimeOptionsTest {
         assertTrue(RuntimeOptions.USAGE.startsWith("Usage"));
     }
 
+    @Test
+    public void records_help_and_version_instead_of_exiting() {
+        RuntimeOptions help = new RuntimeOptions(new Env(new Properties()), new FormatterFactory(), asList("--glue", "somewhere", "-h"), false);
+        assertTrue(help.isHelpRequested());
+        assertFalse(help.isVersionRequested());
+
+        RuntimeOptions version = new RuntimeOptions(new Env(new Properties()), new FormatterFactory(), asList("--version"), false);
+        assertTrue(version.isVersionRequested());
+    }
+
+    @Test
+    public void does_not_take_option_values_for_help_or_version() {
+        RuntimeOptions options = new RuntimeOptions(new Env(new Properties()), new FormatterFactory(), asList("--name", "-h", "--glue", "-v"), false);
+        assertFalse(options.isHelpRequested());
+        assertFalse(options.isVersionRequested());
+    }
+
     @Test
     public void assigns_feature_paths() {
         RuntimeOptions options = new RuntimeOptions("--glue somewhere somewhere_else");
@@ -243,6 +266,34 @@ public class RuntimeOptionsTest {
         verify((StrictAware) strictAwareFormatter).setStrict(true);
     }
 
+    @Test
+    public void passes_formatter_events_to_all_formatters() {
+        FormatterFactory factory = mock(FormatterFactory.class);
+        Formatter progress = mock(Formatter.class);
+        when(factory.create("progress")).thenReturn(progress);
+        RuntimeOptions options = new RuntimeOptions(new Env(), factory, asList("--format", "progress"));
+        Formatter added = mock(Formatter.class);
+        options.addFormatter(added);
+
+        options.formatter(Thread.currentThread().getContextClassLoader()).uri("some.feature");
+
+        verify(progress).uri("some.feature");
+        verify(added).uri("some.feature");
+    }
+
+    @Test
+    public void passes_reporter_events_to_formatters_that_are_reporters() {
+        RuntimeOptions options = new RuntimeOptions(new Env(), asList("--format", "null"));
+        Reporter reporter = mock(Reporter.class, withSettings().extraInterfaces(Formatter.class));
+        Result result = mock(Result.class);
+
+        Reporter composite = options.reporter(Thread.currentThread().getContextClassLoader());
+        options.addFormatter((Formatter) reporter);
+        composite.result(result);
+
+        verify(reporter).result(result);
+    }
+
     @Test
     public void ensure_default_snippet_type_is_underscore() {
         Properties properties = new Properties();
@@ -258,6 +309,122 @@ public class RuntimeOptionsTest {
         assertEquals(SnippetType.CAMELCASE, runtimeOptions.getSnippetType());
     }
 
+    @Test
+    public void default_threads() {
+        RuntimeOptions options = new RuntimeOptions("--glue somewhere");
+        assertEquals(1, options.getThreads());
+    }
+
+    @Test
+    public void assigns_threads() {
+        RuntimeOptions options = new RuntimeOptions("--threads 4 --glue somewhere");
+        assertEquals(4, options.getThreads());
+    }
+
+    @Test
+    public void assigns_forks() {
+        RuntimeOptions options = new RuntimeOptions("--forks 3 --glue somewhere");
+        assertEquals(3, options.getForks());
+    }
+
+    @Test(expected = CucumberException.class)
+    public void rejects_less_than_one_fork() {
+        new RuntimeOptions("--forks 0 --glue somewhere");
+    }
+
+    @Test
+    public void assigns_coordinator_worker_and_lease_timeout() {
+        RuntimeOptions coordinator = new RuntimeOptions("--coordinator 4567 --lease-timeout 30 --glue somewhere");
+        assertEquals(4567, coordinator.getCoordinator().getPort());
+        assertTrue(coordinator.getCoordinator().getAddress().isLoopbackAddress());
+        assertEquals(30, coordinator.getLeaseTimeout());
+
+        RuntimeOptions worker = new RuntimeOptions("--worker localhost:4567 --glue somewhere");
+        assertEquals("localhost", worker.getWorker().getHostName());
+        assertEquals(4567, worker.getWorker().getPort());
+        assertEquals(60, worker.getLeaseTimeout());
+    }
+
+    @Test(expected = CucumberException.class)
+    public void worker_needs_the_host_of_the_coordinator() {
+        new RuntimeOptions("--worker 4567 --glue somewhere");
+    }
+
+    @Test
+    public void runs_formatters_on_the_calling_thread_by_default() {
+        RuntimeOptions options = new RuntimeOptions("--glue somewhere");
+        assertFalse(options.isAsyncFormatters());
+        assertFalse(options.formatter(Thread.currentThread().getContextClassLoader()) instanceof AsyncFormatter);
+    }
+
+    @Test
+    public void sends_formatter_and_reporter_events_through_the_same_async_formatter() {
+        RuntimeOptions options = new RuntimeOptions("--async-formatters --glue somewhere");
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        assertTrue(options.isAsyncFormatters());
+        assertTrue(options.formatter(classLoader) instanceof AsyncFormatter);
+        assertSame(options.formatter(classLoader), options.reporter(classLoader));
+    }
+
+    @Test
+    public void has_no_feature_cache_by_default() {
+        RuntimeOptions options = new RuntimeOptions("--glue somewhere");
+        assertNull(options.getFeatureCache());
+    }
+
+    @Test
+    public void assigns_feature_cache() {
+        RuntimeOptions options = new RuntimeOptions("--feature-cache .cucumber/cache --glue somewhere");
+        assertEquals(new File(".cucumber/cache"), options.getFeatureCache().getDirectory());
+    }
+
+    @Test
+    public void assigns_excludes_and_scan_threads() {
+        RuntimeOptions options = new RuntimeOptions("--exclude target/ --exclude node_modules/ --scan-threads 8 --glue somewhere");
+        assertEquals(asList("target/", "node_modules/"), options.getExcludes());
+        assertEquals(8, options.getScanThreads());
+    }
+
+    @Test
+    public void scans_without_excludes_on_one_thread_by_default() {
+        RuntimeOptions options = new RuntimeOptions("--glue somewhere");
+        assertEquals(Collections.<String>emptyList(), options.getExcludes());
+        assertEquals(1, options.getScanThreads());
+    }
+
+    @Test
+    public void assigns_shard() {
+        RuntimeOptions options = new RuntimeOptions("--shard 2/5 --shard-durations target/cucumber.json --glue somewhere");
+        assertEquals(2, options.getShard().getIndex());
+        assertEquals(5, options.getShard().getCount());
+        assertEquals(new File("target/cucumber.json"), options.getShardDurations());
+    }
+
+    @Test
+    public void does_not_balance_shards_with_the_durations_in_dotcucumber() throws IOException {
+        File dotCucumber = TempDir.createTempDirectory();
+        RuntimeOptions options = new RuntimeOptions(asList("--shard", "1/2", "--dotcucumber", dotCucumber.getPath(), "--glue", "somewhere"));
+        options.getDurationHistory().record("features/slow.feature:3", 60000000000L);
+
+        assertEquals(Collections.<String, Long>emptyMap(), options.shardDurations());
+    }
+
+    @Test
+    public void runs_all_scenarios_without_shard() {
+        assertNull(new RuntimeOptions("--glue somewhere").getShard());
+    }
+
+    @Test(expected = CucumberException.class)
+    public void rejects_a_shard_outside_the_shard_count() {
+        new RuntimeOptions("--shard 6/5 --glue somewhere");
+    }
+
+    @Test
+    public void assigns_watch() {
+        assertTrue(new RuntimeOptions("--watch --glue somewhere").isWatch());
+        assertFalse(new RuntimeOptions("--glue somewhere").isWatch());
+    }
+
     @Test
     public void applies_line_filters_only_to_own_feature() throws Exception {
         String featurePath1 = "path/bar.feature";
@@ -0,0 +1,147 @@
+package cucumber.runtime;
+
+import cucumber.runtime.model.CucumberExamples;
+import cucumber.runtime.model.CucumberFeature;
+import cucumber.runtime.model.CucumberScenarioOutline;
+import cucumber.runtime.model.CucumberTagStatement;
+import gherkin.formatter.model.ExamplesTableRow;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static cucumber.runtime.TestHelper.feature;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShardTest {
+    private static final Map<String, Long> NO_DURATIONS = Collections.emptyMap();
+
+    @Test
+    public void runs_every_scenario_and_example_on_exactly_one_shard() throws IOException {
+        List<Integer> lines = new ArrayList<Integer>();
+        for (int i = 1; i <= 3; i++) {
+            lines.addAll(lines(new Shard(i, 3).select(features(), NO_DURATIONS)));
+        }
+
+        Collections.sort(lines);
+        assertEquals(asList(2, 5, 12, 13, 14), lines);
+    }
+
+    @Test
+    public void gives_the_same_scenarios_to_a_shard_every_time() throws IOException {
+        assertEquals(lines(new Shard(2, 3).select(features(), NO_DURATIONS)), lines(new Shard(2, 3).select(features(), NO_DURATIONS)));
+    }
+
+    @Test
+    public void balances_shards_by_duration_longest_first() throws IOException {
+        Map<String, Long> durations = new HashMap<String, Long>();
+        durations.put("path/test.feature:2", 10L);
+        durations.put("path/test.feature:5", 4L);
+        durations.put("path/test.feature:12", 3L);
+        durations.put("path/test.feature:13", 2L);
+        durations.put("path/test.feature:14", 1L);
+
+        assertEquals(asList(2), lines(new Shard(1, 2).select(features(), durations)));
+        assertEquals(asList(5, 12, 13, 14), lines(new Shard(2, 2).select(features(), durations)));
+    }
+
+    @Test
+    public void keeps_the_header_of_split_examples_tables() throws IOException {
+        Map<String, Long> durations = new HashMap<String, Long>();
+        durations.put("path/test.feature:2", 5L);
+        durations.put("path/test.feature:5", 1L);
+        durations.put("path/test.feature:12", 5L);
+        durations.put("path/test.feature:13", 1L);
+        durations.put("path/test.feature:14", 5L);
+
+        List<CucumberFeature> features = new Shard(1, 2).select(features(), durations);
+
+        CucumberScenarioOutline outline = (CucumberScenarioOutline) features.get(0).getFeatureElements().get(1);
+        List<ExamplesTableRow> rows = outline.getCucumberExamplesList().get(0).getExamples().getRows();
+        assertEquals(asList(11, 12), asList(rows.get(0).getLine(), rows.get(1).getLine()));
+    }
+
+    @Test
+    public void leaves_out_features_without_scenarios_on_the_shard() throws IOException {
+        List<CucumberFeature> features = new ArrayList<CucumberFeature>();
+        features.add(feature("path/a.feature", "" +
+                "Feature: A\n" +
+                "  Scenario: one\n" +
+                "    Given a\n"));
+        features.add(feature("path/b.feature", "" +
+                "Feature: B\n" +
+                "  Scenario: one\n" +
+                "    Given a\n"));
+        Map<String, Long> durations = new HashMap<String, Long>();
+        durations.put("path/a.feature:2", 2L);
+        durations.put("path/b.feature:2", 1L);
+
+        List<CucumberFeature> selected = new Shard(2, 2).select(features, durations);
+
+        assertEquals(1, selected.size());
+        assertEquals("path/b.feature", selected.get(0).getPath());
+    }
+
+    @Test
+    public void parses_index_and_count() {
+        Shard shard = Shard.parse("3/40");
+        assertEquals(3, shard.getIndex());
+        assertEquals(40, shard.getCount());
+    }
+
+    @Test(expected = CucumberException.class)
+    public void rejects_shard_zero() {
+        Shard.parse("0/40");
+    }
+
+    @Test(expected = CucumberException.class)
+    public void rejects_a_shard_without_count() {
+        Shard.parse("3");
+    }
+
+    private static List<CucumberFeature> features() throws IOException {
+        List<CucumberFeature> features = new ArrayList<CucumberFeature>();
+        features.add(feature("path/test.feature", "" +
+                "Feature: Test\n" +
+                "  Scenario: one\n" +
+                "    Given a\n" +
+                "\n" +
+                "  Scenario: two\n" +
+                "    Given b\n" +
+                "\n" +
+                "  Scenario Outline: three\n" +
+                "    Given <c>\n" +
+                "    Examples:\n" +
+                "      | c |\n" +
+                "      | 1 |\n" +
+                "      | 2 |\n" +
+                "      | 3 |\n"));
+        return features;
+    }
+
+    private static List<Integer> lines(List<CucumberFeature> features) {
+        List<Integer> lines = new ArrayList<Integer>();
+        for (CucumberFeature feature : features) {
+            for (CucumberTagStatement statement : feature.getFeatureElements()) {
+                if (statement instanceof CucumberScenarioOutline) {
+                    for (CucumberExamples examples : ((CucumberScenarioOutline) statement).getCucumberExamplesList()) {
+                        List<ExamplesTableRow> rows = examples.getExamples().getRows();
+                        assertTrue(rows.size() > 1);
+                        for (ExamplesTableRow row : rows.subList(1, rows.size())) {
+                            lines.add(row.getLine());
+                        }
+                    }
+                } else {
+                    lines.add(statement.getGherkinModel().getLine());
+                }
+            }
+        }
+        return lines;
+    }
+}
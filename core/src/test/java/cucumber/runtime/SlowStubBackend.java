@@ -0,0 +1,42 @@
+package cucumber.runtime;
+
+import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.snippets.FunctionNameGenerator;
+import gherkin.formatter.model.Step;
+
+import java.util.List;
+
+/**
+ * A backend without glue whose scenarios take a while, so that every worker of a run gets some. Listed in
+ * META-INF/services by the tests.
+ */
+public class SlowStubBackend implements Backend {
+    public SlowStubBackend(ResourceLoader resourceLoader) {
+    }
+
+    @Override
+    public void loadGlue(Glue glue, List<String> gluePaths) {
+    }
+
+    @Override
+    public void setUnreportedStepExecutor(UnreportedStepExecutor executor) {
+    }
+
+    @Override
+    public void buildWorld() {
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void disposeWorld() {
+    }
+
+    @Override
+    public String getSnippet(Step step, FunctionNameGenerator functionNameGenerator) {
+        return "snippet for " + step.getName();
+    }
+}
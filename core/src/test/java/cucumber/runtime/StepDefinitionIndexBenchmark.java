@@ -0,0 +1,62 @@
+package cucumber.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares matching step names against all step definitions with matching them against the candidates
+ * of a {@link StepDefinitionIndex}. Run with {@code main}; this isn't part of the test suite.
+ */
+public class StepDefinitionIndexBenchmark {
+    private static final int STEP_DEFINITIONS = 2000;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        List<StepDefinition> stepDefinitions = new ArrayList<StepDefinition>();
+        List<Pattern> patterns = new ArrayList<Pattern>();
+        List<String> stepNames = new ArrayList<String>();
+        for (int i = 0; i < STEP_DEFINITIONS; i++) {
+            Pattern pattern = Pattern.compile("^the user" + i + " has (\\d+) items? in the basket" + i + "$");
+            JdkPatternStepDefinition stepDefinition = mock(JdkPatternStepDefinition.class);
+            when(stepDefinition.getCompiledPattern()).thenReturn(pattern);
+            stepDefinitions.add(stepDefinition);
+            patterns.add(pattern);
+            stepNames.add("the user" + i + " has 3 items in the basket" + i);
+        }
+        StepDefinitionIndex index = new StepDefinitionIndex(stepDefinitions);
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int matches = 0;
+            for (int n = 0; n < ITERATIONS; n++) {
+                for (String stepName : stepNames) {
+                    for (Pattern pattern : patterns) {
+                        if (pattern.matcher(stepName).lookingAt()) {
+                            matches++;
+                        }
+                    }
+                }
+            }
+            long scan = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int n = 0; n < ITERATIONS; n++) {
+                for (String stepName : stepNames) {
+                    for (StepDefinition candidate : index.candidates(stepName)) {
+                        if (((JdkPatternStepDefinition) candidate).getCompiledPattern().matcher(stepName).lookingAt()) {
+                            matches--;
+                        }
+                    }
+                }
+            }
+            long indexed = System.nanoTime() - start;
+
+            System.out.println(String.format("full scan: %d ms, indexed: %d ms (match difference: %d)",
+                    scan / 1000000, indexed / 1000000, matches));
+        }
+    }
+}
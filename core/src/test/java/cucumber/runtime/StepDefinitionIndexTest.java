@@ -0,0 +1,117 @@
+package cucumber.runtime;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StepDefinitionIndexTest {
+
+    @Test
+    public void finds_literals_around_groups() {
+        assertEquals(asList("I have ", " cukes in my belly"), StepDefinitionIndex.requiredLiterals("^I have (\\d+) cukes in my belly$"));
+    }
+
+    @Test
+    public void drops_optional_characters() {
+        assertEquals(asList("I have ", " cuke"), StepDefinitionIndex.requiredLiterals("^I have (\\d+) cukes?$"));
+        assertEquals(asList("a cuk", "s"), StepDefinitionIndex.requiredLiterals("^a cuke{0,2}s$"));
+        assertEquals(asList("a", "b"), StepDefinitionIndex.requiredLiterals("^a.*b$"));
+    }
+
+    @Test
+    public void keeps_escaped_punctuation() {
+        assertEquals(asList("it costs $5."), StepDefinitionIndex.requiredLiterals("^it costs \\$5\\.$"));
+    }
+
+    @Test
+    public void skips_character_classes() {
+        assertEquals(asList("a ", " b"), StepDefinitionIndex.requiredLiterals("^a []x] b$"));
+        assertEquals(asList("a ", " b"), StepDefinitionIndex.requiredLiterals("^a [^\\]x]+ b$"));
+    }
+
+    @Test
+    public void gives_up_on_alternation_and_flags() {
+        assertNull(StepDefinitionIndex.requiredLiterals("^a|b$"));
+        assertNull(StepDefinitionIndex.requiredLiterals("(?i)^hello$"));
+        assertNull(StepDefinitionIndex.requiredLiterals("^a \\Qb\\E$"));
+        assertNull(StepDefinitionIndex.requiredLiterals("^a (b$"));
+    }
+
+    @Test
+    public void only_indexes_whole_words() {
+        assertEquals("cukes", StepDefinitionIndex.longestWord(asList("I have ", " cukes in my belly")));
+        assertNull(StepDefinitionIndex.longestWord(asList("cukes")));
+    }
+
+    @Test
+    public void returns_candidates_in_the_original_order() {
+        StepDefinition first = stepDefinition("^I have (\\d+) cukes in my belly$");
+        StepDefinition second = stepDefinition("^I have (.*)$");
+        StepDefinition third = stepDefinition("^my belly is full$");
+        StepDefinition other = mock(StepDefinition.class);
+        StepDefinitionIndex index = new StepDefinitionIndex(asList(first, other, second, third));
+
+        assertEquals(asList(first, other, second), index.candidates("I have 4 cukes in my belly"));
+        assertEquals(asList(other, third), index.candidates("my belly is full"));
+    }
+
+    @Test
+    public void never_leaves_out_a_matching_step_definition() {
+        List<String> patterns = asList(
+                "^I have (\\d+) cukes in my belly$",
+                "^I have (\\d+) cukes? in my (\\w+)$",
+                "I have \\d+ cukes",
+                "^a (?:big|small) cuke$",
+                "^the cukes? (?:is|are) \"([^\"]*)\"$",
+                "^it costs \\$(\\d+)\\.$",
+                "^.*belly.*$",
+                "^my (belly|stomach) is full$",
+                "^x+ marks the spot$",
+                "^the [a-z]+ cuke_jar$");
+        List<String> stepNames = asList(
+                "I have 4 cukes in my belly",
+                "I have 1 cuke in my stomach",
+                "and I have 12 cukes",
+                "a big cuke",
+                "the cukes are \"green\"",
+                "the cuke is \"\"",
+                "it costs $5.",
+                "my belly is full",
+                "my stomach is full",
+                "xxx marks the spot",
+                "the glass cuke_jar",
+                "nothing matches this one");
+
+        List<StepDefinition> stepDefinitions = new ArrayList<StepDefinition>();
+        for (String pattern : patterns) {
+            stepDefinitions.add(stepDefinition(pattern));
+        }
+        StepDefinitionIndex index = new StepDefinitionIndex(stepDefinitions);
+
+        for (String stepName : stepNames) {
+            List<StepDefinition> candidates = index.candidates(stepName);
+            for (StepDefinition stepDefinition : stepDefinitions) {
+                if (Pattern.compile(stepDefinition.getPattern()).matcher(stepName).find()) {
+                    assertTrue(stepDefinition.getPattern() + " should be a candidate for " + stepName, candidates.contains(stepDefinition));
+                }
+            }
+        }
+        assertEquals(0, index.candidates("nothing matches this one").size());
+    }
+
+    private StepDefinition stepDefinition(String regex) {
+        JdkPatternStepDefinition stepDefinition = mock(JdkPatternStepDefinition.class);
+        when(stepDefinition.getPattern()).thenReturn(regex);
+        when(stepDefinition.getCompiledPattern()).thenReturn(Pattern.compile(regex));
+        return stepDefinition;
+    }
+}
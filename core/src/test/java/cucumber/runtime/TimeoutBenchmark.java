@@ -0,0 +1,40 @@
+package cucumber.runtime;
+
+/**
+ * Measures what a timeout adds to each call, and how many threads that takes. Run with {@code main};
+ * this isn't part of the test suite.
+ */
+public class TimeoutBenchmark {
+    private static final int ITERATIONS = 300000;
+
+    public static void main(String[] args) throws Throwable {
+        Timeout.Callback<Object> callback = new Timeout.Callback<Object>() {
+            @Override
+            public Object call() throws Throwable {
+                return null;
+            }
+        };
+        int initialThreads = Thread.activeCount();
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                Timeout.timeout(callback, 0);
+            }
+            long withoutTimeout = System.nanoTime() - start;
+
+            int peakThreads = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                Timeout.timeout(callback, 10000);
+                if (i % 1000 == 0) {
+                    peakThreads = Math.max(peakThreads, Thread.activeCount() - initialThreads);
+                }
+            }
+            long withTimeout = System.nanoTime() - start;
+
+            System.out.println(String.format("without timeout: %d ns/call, with timeout: %d ns/call, extra threads: %d",
+                    withoutTimeout / ITERATIONS, withTimeout / ITERATIONS, peakThreads));
+        }
+    }
+}
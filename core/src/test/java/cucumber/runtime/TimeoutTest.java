@@ -2,6 +2,13 @@ package cucumber.runtime;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
 import static java.lang.Thread.sleep;
@@ -45,6 +52,21 @@ public class TimeoutTest {
         fail();
     }
 
+    @Test
+    public void doesnt_leave_the_thread_interrupted_when_it_returns_after_the_timeout() throws Throwable {
+        String what = Timeout.timeout(new Timeout.Callback<String>() {
+            @Override
+            public String call() throws Throwable {
+                while (!Thread.currentThread().isInterrupted()) {
+                    // Busy, and doesn't clear the interrupt
+                }
+                return "done";
+            }
+        }, 10);
+        assertEquals("done", what);
+        assertFalse(Thread.interrupted());
+    }
+
     @Test
     public void doesnt_leak_threads() throws Throwable {
 
@@ -71,6 +93,63 @@ public class TimeoutTest {
                    cleanedUp);
     }
 
+    @Test
+    public void times_out_threads_independently() throws Throwable {
+        final Slow slow = new Slow();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 4; i++) {
+                final boolean tooSlow = i % 2 == 0;
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        try {
+                            return Timeout.timeout(new Timeout.Callback<String>() {
+                                @Override
+                                public String call() throws Throwable {
+                                    return tooSlow ? slow.slower() : slow.slow();
+                                }
+                            }, 50);
+                        } catch (Throwable t) {
+                            throw new Exception(t);
+                        }
+                    }
+                }));
+            }
+            for (int i = 0; i < 4; i++) {
+                try {
+                    assertEquals("slow", results.get(i).get());
+                    assertTrue(i % 2 == 1);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause().getCause() instanceof TimeoutException);
+                    assertTrue(i % 2 == 0);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void watches_all_threads_from_a_single_thread() throws Throwable {
+        for (int i = 0; i < 100; i++) {
+            Timeout.timeout(new Timeout.Callback<String>() {
+                @Override
+                public String call() throws Throwable {
+                    int watchdogs = 0;
+                    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                        if (thread.getName().equals("cucumber-timeout-watchdog")) {
+                            watchdogs++;
+                        }
+                    }
+                    assertEquals(1, watchdogs);
+                    return null;
+                }
+            }, 1000);
+        }
+    }
+
     public static class Slow {
         public String slow() throws InterruptedException {
             sleep(10);
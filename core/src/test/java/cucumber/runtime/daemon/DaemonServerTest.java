@@ -0,0 +1,195 @@
+package cucumber.runtime.daemon;
+
+import cucumber.runtime.RuntimeOptions;
+import cucumber.runtime.formatter.TempDir;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DaemonServerTest {
+    private static final String TOKEN = "secret";
+
+    private ServerSocket serverSocket;
+    private Thread daemon;
+    private File features;
+    private String out;
+    private String err;
+
+    @Before
+    public void startDaemon() throws IOException {
+        File classes = TempDir.createTempDirectory();
+        WarmRuntimeTest.writeServices(classes);
+        features = TempDir.createTempDirectory();
+        Writer feature = new OutputStreamWriter(new FileOutputStream(new File(features, "belly.feature")), "UTF-8");
+        try {
+            feature.write("Feature: Belly\n  Scenario: Cukes\n    Given I have 5 cukes in my belly\n");
+        } finally {
+            feature.close();
+        }
+        StubBackend.GLUE_LOADS.set(0);
+
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName(null));
+        final DaemonServer server = new DaemonServer(serverSocket, TOKEN, Collections.singletonList(classes), TempDir.createTempDirectory());
+        daemon = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    server.serve();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        daemon.start();
+    }
+
+    @After
+    public void stopDaemon() throws Exception {
+        if (!serverSocket.isClosed()) {
+            send(null);
+        }
+        daemon.join(10000);
+    }
+
+    @Test
+    public void runs_features_and_sends_the_output_and_exit_status() throws IOException {
+        byte exitStatus = send(asList("--glue", "glue", "--strict", "--monochrome", "--format", "progress", features.getPath()));
+
+        assertEquals(1, exitStatus);
+        assertTrue(out, out.contains("1 Scenarios (1 undefined)"));
+        assertTrue(out, out.contains("snippet for I have 5 cukes in my belly"));
+    }
+
+    @Test
+    public void keeps_the_glue_between_runs() throws IOException {
+        send(asList("--glue", "glue", "--monochrome", features.getPath()));
+        byte exitStatus = send(asList("--glue", "glue", "--monochrome", features.getPath()));
+
+        assertEquals(0, exitStatus);
+        assertTrue(out, out.contains("1 Scenarios (1 undefined)"));
+        assertEquals(1, StubBackend.GLUE_LOADS.get());
+    }
+
+    @Test
+    public void prints_usage_instead_of_exiting() throws IOException {
+        assertEquals(0, send(asList("--help")));
+        assertEquals(RuntimeOptions.USAGE.trim(), out.trim());
+    }
+
+    @Test
+    public void runs_when_an_option_value_looks_like_help_or_version() throws IOException {
+        assertEquals(0, send(asList("--glue", "glue", "--monochrome", "--name", "-h", features.getPath())));
+        assertTrue(out, out.contains("0 Scenarios"));
+        assertEquals(0, send(asList("--glue", "glue", "--monochrome", "--name", "-v", features.getPath())));
+        assertTrue(out, out.contains("0 Scenarios"));
+    }
+
+    @Test
+    public void prints_the_version_instead_of_exiting() throws IOException {
+        assertEquals(0, send(asList("--glue", "glue", "-v")));
+        assertEquals(RuntimeOptions.VERSION, out.trim());
+    }
+
+    @Test
+    public void reports_errors_and_keeps_serving() throws IOException {
+        assertEquals(2, send(asList("--no-such-option")));
+        assertTrue(err, err.contains("Unknown option: --no-such-option"));
+
+        assertEquals(0, send(asList("--glue", "glue", features.getPath())));
+    }
+
+    @Test
+    public void stops_when_asked_to() throws Exception {
+        assertEquals(0, send(null));
+        daemon.join(10000);
+
+        assertFalse(daemon.isAlive());
+        assertTrue(serverSocket.isClosed());
+    }
+
+    @Test
+    public void drops_clients_with_the_wrong_token() throws IOException {
+        try {
+            send("not the secret", asList("--glue", "glue", features.getPath()));
+            fail();
+        } catch (EOFException expected) {
+        }
+
+        assertEquals(0, StubBackend.GLUE_LOADS.get());
+        assertEquals(0, send(asList("--glue", "glue", features.getPath())));
+    }
+
+    @Test
+    public void drops_clients_that_send_a_bad_number_of_arguments() throws IOException {
+        Socket socket = new Socket(InetAddress.getByName(null), serverSocket.getLocalPort());
+        try {
+            DataOutputStream request = new DataOutputStream(socket.getOutputStream());
+            request.writeUTF(TOKEN);
+            request.writeInt(-2);
+            request.flush();
+            assertEquals(-1, socket.getInputStream().read());
+        } finally {
+            socket.close();
+        }
+
+        assertEquals(0, send(asList("--glue", "glue", features.getPath())));
+    }
+
+    @Test
+    public void writes_a_token_file() throws IOException {
+        File tokenFile = new File(TempDir.createTempDirectory(), "daemon/daemon.token");
+
+        String token = DaemonProtocol.createTokenFile(tokenFile);
+
+        assertEquals(32, token.length());
+        assertEquals(token, DaemonProtocol.readTokenFile(tokenFile));
+        assertFalse(token.equals(DaemonProtocol.createTokenFile(tokenFile)));
+    }
+
+    private byte send(List<String> args) throws IOException {
+        return send(TOKEN, args);
+    }
+
+    private byte send(String token, List<String> args) throws IOException {
+        Socket socket = new Socket(InetAddress.getByName(null), serverSocket.getLocalPort());
+        try {
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (args == null) {
+                DaemonProtocol.writeStop(request, token);
+            } else {
+                DaemonProtocol.writeRequest(request, token, args);
+            }
+            ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+            ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+            byte exitStatus = DaemonProtocol.readResponse(new DataInputStream(new BufferedInputStream(socket.getInputStream())), outBytes, errBytes);
+            out = outBytes.toString("UTF-8");
+            err = errBytes.toString("UTF-8");
+            return exitStatus;
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package cucumber.runtime.daemon;
+
+import cucumber.runtime.Backend;
+import cucumber.runtime.Glue;
+import cucumber.runtime.UnreportedStepExecutor;
+import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.snippets.FunctionNameGenerator;
+import gherkin.formatter.model.Step;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A backend without glue, which counts how often glue is loaded. Listed in META-INF/services by the tests.
+ */
+public class StubBackend implements Backend {
+    static final AtomicInteger GLUE_LOADS = new AtomicInteger();
+
+    public StubBackend(ResourceLoader resourceLoader) {
+    }
+
+    @Override
+    public void loadGlue(Glue glue, List<String> gluePaths) {
+        GLUE_LOADS.incrementAndGet();
+    }
+
+    @Override
+    public void setUnreportedStepExecutor(UnreportedStepExecutor executor) {
+    }
+
+    @Override
+    public void buildWorld() {
+    }
+
+    @Override
+    public void disposeWorld() {
+    }
+
+    @Override
+    public String getSnippet(Step step, FunctionNameGenerator functionNameGenerator) {
+        return "snippet for " + step.getName();
+    }
+}
@@ -0,0 +1,101 @@
+package cucumber.runtime.daemon;
+
+import cucumber.runtime.Backend;
+import cucumber.runtime.Runtime;
+import cucumber.runtime.RuntimeOptions;
+import cucumber.runtime.formatter.TempDir;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WarmRuntimeTest {
+    private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    private File classes;
+    private WarmRuntime warmRuntime;
+
+    @Before
+    public void createClasspath() throws IOException {
+        classes = TempDir.createTempDirectory();
+        writeServices(classes);
+        warmRuntime = new WarmRuntime(Collections.singletonList(classes), getClass().getClassLoader());
+        StubBackend.GLUE_LOADS.set(0);
+    }
+
+    @After
+    public void restoreContextClassLoader() {
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+    }
+
+    @Test
+    public void reuses_the_glue_when_nothing_changed() {
+        Runtime first = warmRuntime.runtime(new RuntimeOptions("--glue glue"));
+        ClassLoader classLoader = warmRuntime.getClassLoader();
+        Runtime second = warmRuntime.runtime(new RuntimeOptions("--glue glue --strict"));
+
+        assertEquals(1, StubBackend.GLUE_LOADS.get());
+        assertNotSame(first, second);
+        assertSame(first.getGlue(), second.getGlue());
+        assertSame(classLoader, warmRuntime.getClassLoader());
+    }
+
+    @Test
+    public void loads_the_glue_again_in_a_new_class_loader_when_a_class_file_changes() throws IOException {
+        Runtime first = warmRuntime.runtime(new RuntimeOptions("--glue glue"));
+        ClassLoader classLoader = warmRuntime.getClassLoader();
+
+        File classFile = new File(classes, "glue/Steps.class");
+        classFile.getParentFile().mkdirs();
+        classFile.createNewFile();
+        Runtime second = warmRuntime.runtime(new RuntimeOptions("--glue glue"));
+
+        assertEquals(2, StubBackend.GLUE_LOADS.get());
+        assertNotSame(first.getGlue(), second.getGlue());
+        assertNotSame(classLoader, warmRuntime.getClassLoader());
+        assertSame(warmRuntime.getClassLoader(), Thread.currentThread().getContextClassLoader());
+    }
+
+    @Test
+    public void loads_the_glue_again_for_other_glue_paths() {
+        warmRuntime.runtime(new RuntimeOptions("--glue glue"));
+        warmRuntime.runtime(new RuntimeOptions("--glue other/glue"));
+
+        assertEquals(2, StubBackend.GLUE_LOADS.get());
+    }
+
+    @Test
+    public void fingerprint_changes_when_a_file_is_added_or_changed() throws IOException {
+        long empty = warmRuntime.fingerprint();
+        File classFile = new File(classes, "Steps.class");
+        classFile.createNewFile();
+        long added = warmRuntime.fingerprint();
+        classFile.setLastModified(classFile.lastModified() + 2000);
+        long changed = warmRuntime.fingerprint();
+
+        assertTrue(empty != added);
+        assertTrue(added != changed);
+        assertEquals(changed, warmRuntime.fingerprint());
+    }
+
+    static void writeServices(File classes) throws IOException {
+        File services = new File(classes, "META-INF/services/" + Backend.class.getName());
+        services.getParentFile().mkdirs();
+        Writer out = new OutputStreamWriter(new FileOutputStream(services), "UTF-8");
+        try {
+            out.write(StubBackend.class.getName() + "\n");
+        } finally {
+            out.close();
+        }
+    }
+}
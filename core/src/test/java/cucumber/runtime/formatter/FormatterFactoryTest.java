@@ -39,6 +39,12 @@ public class FormatterFactoryTest {
         assertEquals(JUnitFormatter.class, formatter.getClass());
     }
 
+    @Test
+    public void instantiates_json_stream_formatter_with_file_arg() throws IOException {
+        Formatter formatter = fc.create("json-stream:" + File.createTempFile("cucumber", "json"));
+        assertEquals(StreamingJSONFormatter.class, formatter.getClass());
+    }
+
     @Test
     public void instantiates_html_formatter_with_dir_arg() throws IOException {
         Formatter formatter = fc.create("html:" + TempDir.createTempDirectory().getAbsolutePath());
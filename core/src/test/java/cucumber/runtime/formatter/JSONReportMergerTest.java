@@ -0,0 +1,91 @@
+package cucumber.runtime.formatter;
+
+import gherkin.deps.com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class JSONReportMergerTest {
+
+    @Test
+    public void merges_features_that_were_split_over_reports_by_uri_and_line() throws IOException {
+        File first = report("[" +
+                feature("a.feature", background(2) + "," + scenario(4) + "," + background(2) + "," + scenario(10)) + "," +
+                feature("c.feature", scenario(3)) +
+                "]");
+        File second = report("[" +
+                feature("a.feature", background(2) + "," + scenario(7)) + "," +
+                feature("b.feature", scenario(5)) +
+                "]");
+
+        String expected = "[" +
+                feature("a.feature", background(2) + "," + scenario(4) + "," + background(2) + "," + scenario(7) + "," + background(2) + "," + scenario(10)) + "," +
+                feature("b.feature", scenario(5)) + "," +
+                feature("c.feature", scenario(3)) +
+                "]";
+        assertJsonEquals(expected, merge(first, second));
+    }
+
+    @Test
+    public void merges_features_whose_uri_comes_after_the_elements() throws IOException {
+        File first = report("[{\"elements\": [" + scenario(8) + "], \"uri\": \"b.feature\", \"name\": \"b\"}]");
+        File second = report("[{\"elements\": [" + scenario(3) + "], \"uri\": \"b.feature\", \"name\": \"b\"}," +
+                "{\"elements\": [" + scenario(3) + "], \"uri\": \"a.feature\", \"name\": \"a\"}]");
+
+        String expected = "[{\"uri\": \"b.feature\", \"name\": \"b\", \"elements\": [" + scenario(3) + "," + scenario(8) + "]}," +
+                "{\"uri\": \"a.feature\", \"name\": \"a\", \"elements\": [" + scenario(3) + "]}]";
+        assertJsonEquals(expected, merge(first, second));
+    }
+
+    @Test
+    public void ignores_empty_reports() throws IOException {
+        File empty = report("");
+        File features = report("[" + feature("a.feature", scenario(3)) + "]");
+
+        assertJsonEquals("[" + feature("a.feature", scenario(3)) + "]", merge(empty, features));
+    }
+
+    private String merge(File... reports) throws IOException {
+        StringWriter out = new StringWriter();
+        new JSONReportMerger().merge(asList(reports), out);
+        return out.toString();
+    }
+
+    private void assertJsonEquals(String expected, String actual) {
+        JsonParser parser = new JsonParser();
+        assertEquals(parser.parse(expected), parser.parse(actual));
+    }
+
+    private String feature(String uri, String elements) {
+        return "{\"uri\": \"" + uri + "\", \"name\": \"" + uri + "\", \"keyword\": \"Feature\", \"elements\": [" + elements + "]}";
+    }
+
+    private String background(int line) {
+        return "{\"type\": \"background\", \"keyword\": \"Background\", \"line\": " + line + ", \"steps\": []}";
+    }
+
+    private String scenario(int line) {
+        return "{\"type\": \"scenario\", \"keyword\": \"Scenario\", \"line\": " + line + ", \"steps\": [" +
+                "{\"name\": \"a step\", \"line\": " + (line + 1) + ", \"result\": {\"status\": \"passed\", \"duration\": 1234}}]}";
+    }
+
+    private File report(String json) throws IOException {
+        File report = File.createTempFile("report", ".json");
+        report.deleteOnExit();
+        Writer out = new OutputStreamWriter(new FileOutputStream(report), "UTF-8");
+        try {
+            out.write(json);
+        } finally {
+            out.close();
+        }
+        return report;
+    }
+}
@@ -16,8 +16,11 @@ import gherkin.formatter.model.Step;
 import org.custommonkey.xmlunit.Diff;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import java.io.File;
@@ -34,6 +37,7 @@ import java.util.Map;
 import java.util.Scanner;
 
 import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -525,6 +529,29 @@ public class JUnitFormatterTest {
         assertXmlEqual(expected, actual);
     }
 
+    @Test
+    public void should_keep_line_breaks_and_cdata_end_markers_in_failures() throws Exception {
+        final File report = File.createTempFile("cucumber-jvm-junit", ".xml");
+        final JUnitFormatter junitFormatter = createJUnitFormatter(report);
+        Exception error = new Exception("first line\nsecond ]]> line");
+
+        junitFormatter.uri(uri());
+        junitFormatter.feature(feature("feature name"));
+        junitFormatter.scenario(scenario("scenario name"));
+        junitFormatter.step(step("keyword ", "step name"));
+        junitFormatter.match(match());
+        junitFormatter.result(new Result("failed", null, error, null));
+        junitFormatter.eof();
+        junitFormatter.done();
+        junitFormatter.close();
+
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(report);
+        Element failure = (Element) document.getElementsByTagName("failure").item(0);
+        assertEquals("1", document.getDocumentElement().getAttribute("failures"));
+        assertTrue(failure.getAttribute("message").startsWith("java.lang.Exception: first line\nsecond ]]> line\n"));
+        assertTrue(failure.getTextContent().contains("second ]]> line"));
+    }
+
     @Test
     public void should_add_dummy_testcase_if_no_scenarios_are_run_to_aviod_failed_jenkins_jobs() throws Throwable {
         CucumberFeature feature = TestHelper.feature("path/test.feature",
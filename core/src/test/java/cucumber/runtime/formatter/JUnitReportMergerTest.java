@@ -0,0 +1,117 @@
+package cucumber.runtime.formatter;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class JUnitReportMergerTest {
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n";
+
+    @Test
+    public void groups_test_cases_by_class_name_and_recounts_the_totals() throws IOException {
+        File first = report(HEADER +
+                "<testsuite failures=\"1\" name=\"cucumber.runtime.formatter.JUnitFormatter\" skipped=\"0\" tests=\"2\" time=\"1.5\">\n" +
+                "    <testcase classname=\"Feature A\" name=\"Scenario 1\" time=\"1\">\n" +
+                "        <failure message=\"two&#10;lines\"><![CDATA[Given a step......failed\n]]></failure>\n" +
+                "    </testcase>\n" +
+                "    <testcase classname=\"Feature C\" name=\"Scenario 1\" time=\"0.5\">\n" +
+                "        <system-out><![CDATA[Given a step......passed\n]]></system-out>\n" +
+                "    </testcase>\n" +
+                "</testsuite>\n");
+        File second = report(HEADER +
+                "<testsuite failures=\"0\" name=\"cucumber.runtime.formatter.JUnitFormatter\" skipped=\"1\" tests=\"2\" time=\"0.25\">\n" +
+                "    <testcase classname=\"Feature A\" name=\"Scenario 2\" time=\"0\">\n" +
+                "        <skipped><![CDATA[Given a step......undefined\n]]></skipped>\n" +
+                "    </testcase>\n" +
+                "    <testcase classname=\"Feature B\" name=\"Scenario 1\" time=\"0.25\">\n" +
+                "        <system-out><![CDATA[Given a step......passed\n]]></system-out>\n" +
+                "    </testcase>\n" +
+                "</testsuite>\n");
+        File empty = report(HEADER +
+                "<testsuite failures=\"0\" name=\"cucumber.runtime.formatter.JUnitFormatter\" skipped=\"0\" time=\"0\">\n" +
+                "    <testcase classname=\"dummy\" name=\"dummy\">\n" +
+                "        <skipped message=\"No features found\"/>\n" +
+                "    </testcase>\n" +
+                "</testsuite>\n");
+
+        String expected = HEADER +
+                "<testsuite failures=\"1\" name=\"cucumber.runtime.formatter.JUnitFormatter\" skipped=\"1\" tests=\"4\" time=\"1.75\">\n" +
+                "    <testcase classname=\"Feature A\" name=\"Scenario 1\" time=\"1\">\n" +
+                "        <failure message=\"two&#10;lines\"><![CDATA[Given a step......failed\n]]></failure>\n" +
+                "    </testcase>\n" +
+                "    <testcase classname=\"Feature A\" name=\"Scenario 2\" time=\"0\">\n" +
+                "        <skipped><![CDATA[Given a step......undefined\n]]></skipped>\n" +
+                "    </testcase>\n" +
+                "    <testcase classname=\"Feature C\" name=\"Scenario 1\" time=\"0.5\">\n" +
+                "        <system-out><![CDATA[Given a step......passed\n]]></system-out>\n" +
+                "    </testcase>\n" +
+                "    <testcase classname=\"Feature B\" name=\"Scenario 1\" time=\"0.25\">\n" +
+                "        <system-out><![CDATA[Given a step......passed\n]]></system-out>\n" +
+                "    </testcase>\n" +
+                "</testsuite>\n";
+        assertEquals(expected, merge(first, empty, second));
+    }
+
+    @Test
+    public void keeps_features_together_when_their_names_are_not_in_path_order() throws IOException {
+        // Zebra is a.feature and Apple is b.feature, and each shard has a scenario of both
+        File first = report(HEADER +
+                "<testsuite failures=\"0\" name=\"cucumber.runtime.formatter.JUnitFormatter\" skipped=\"0\" tests=\"2\" time=\"2\">\n" +
+                "    <testcase classname=\"Zebra\" name=\"Scenario 1\" time=\"1\"/>\n" +
+                "    <testcase classname=\"Apple\" name=\"Scenario 2\" time=\"1\"/>\n" +
+                "</testsuite>\n");
+        File second = report(HEADER +
+                "<testsuite failures=\"0\" name=\"cucumber.runtime.formatter.JUnitFormatter\" skipped=\"0\" tests=\"2\" time=\"2\">\n" +
+                "    <testcase classname=\"Zebra\" name=\"Scenario 2\" time=\"1\"/>\n" +
+                "    <testcase classname=\"Apple\" name=\"Scenario 1\" time=\"1\"/>\n" +
+                "</testsuite>\n");
+
+        String expected = HEADER +
+                "<testsuite failures=\"0\" name=\"cucumber.runtime.formatter.JUnitFormatter\" skipped=\"0\" tests=\"4\" time=\"4\">\n" +
+                "    <testcase classname=\"Zebra\" name=\"Scenario 1\" time=\"1\"/>\n" +
+                "    <testcase classname=\"Zebra\" name=\"Scenario 2\" time=\"1\"/>\n" +
+                "    <testcase classname=\"Apple\" name=\"Scenario 2\" time=\"1\"/>\n" +
+                "    <testcase classname=\"Apple\" name=\"Scenario 1\" time=\"1\"/>\n" +
+                "</testsuite>\n";
+        assertEquals(expected, merge(first, second));
+    }
+
+    @Test
+    public void writes_a_dummy_test_case_when_there_are_no_test_cases() throws IOException {
+        File empty = report("");
+
+        String expected = HEADER +
+                "<testsuite failures=\"0\" name=\"cucumber.runtime.formatter.JUnitFormatter\" skipped=\"0\" time=\"0\">\n" +
+                "    <testcase classname=\"dummy\" name=\"dummy\">\n" +
+                "        <skipped message=\"No features found\"/>\n" +
+                "    </testcase>\n" +
+                "</testsuite>\n";
+        assertEquals(expected, merge(empty));
+    }
+
+    private String merge(File... reports) throws IOException {
+        StringWriter out = new StringWriter();
+        new JUnitReportMerger().merge(asList(reports), out);
+        return out.toString();
+    }
+
+    private File report(String xml) throws IOException {
+        File report = File.createTempFile("report", ".xml");
+        report.deleteOnExit();
+        Writer out = new OutputStreamWriter(new FileOutputStream(report), "UTF-8");
+        try {
+            out.write(xml);
+        } finally {
+            out.close();
+        }
+        return report;
+    }
+}
@@ -0,0 +1,94 @@
+package cucumber.runtime.formatter;
+
+import cucumber.runtime.Backend;
+import cucumber.runtime.HookDefinition;
+import cucumber.runtime.Runtime;
+import cucumber.runtime.RuntimeOptions;
+import cucumber.runtime.StopWatch;
+import cucumber.runtime.io.ClasspathResourceLoader;
+import cucumber.runtime.snippets.FunctionNameGenerator;
+import gherkin.deps.com.google.gson.JsonParser;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Feature;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Step;
+import gherkin.formatter.model.Tag;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StreamingJSONFormatterTest {
+
+    @Test
+    public void writes_the_same_report_as_the_json_formatter() throws Exception {
+        File report = runFeaturesWithStreamingJSONFormatter(asList("cucumber/runtime/formatter/JSONPrettyFormatterTest.feature"));
+        String expected = new Scanner(getClass().getResourceAsStream("JSONPrettyFormatterTest.json"), "UTF-8").useDelimiter("\\A").next();
+        String actual = new Scanner(report, "UTF-8").useDelimiter("\\A").next();
+
+        JsonParser parser = new JsonParser();
+        assertEquals(parser.parse(expected), parser.parse(actual));
+    }
+
+    @Test
+    public void writes_features_before_the_run_is_done() throws Exception {
+        StringBuilder out = new StringBuilder();
+        StreamingJSONFormatter formatter = new StreamingJSONFormatter(out);
+        List<Comment> comments = Collections.emptyList();
+        List<Tag> tags = Collections.emptyList();
+
+        formatter.uri("first.feature");
+        formatter.feature(new Feature(comments, tags, "Feature", "first", "", 1, "first"));
+        formatter.startOfScenarioLifeCycle(new Scenario(comments, tags, "Scenario", "scenario", "", 2, "first;scenario"));
+        formatter.scenario(new Scenario(comments, tags, "Scenario", "scenario", "", 2, "first;scenario"));
+        formatter.step(new Step(comments, "Given ", "a step", 3, null, null));
+        formatter.eof();
+
+        assertTrue(out.toString().contains("\"uri\": \"first.feature\""));
+        assertTrue(out.toString().contains("\"name\": \"a step\""));
+
+        formatter.done();
+        assertEquals(1, new JsonParser().parse(out.toString()).getAsJsonArray().size());
+    }
+
+    @Test
+    public void writes_an_empty_array_when_there_are_no_features() {
+        StringBuilder out = new StringBuilder();
+        StreamingJSONFormatter formatter = new StreamingJSONFormatter(out);
+        formatter.done();
+        assertEquals(0, new JsonParser().parse(out.toString()).getAsJsonArray().size());
+    }
+
+    private File runFeaturesWithStreamingJSONFormatter(final List<String> featurePaths) throws IOException {
+        HookDefinition hook = mock(HookDefinition.class);
+        when(hook.matches(anyListOf(Tag.class))).thenReturn(true);
+        File report = File.createTempFile("cucumber-jvm-json-stream", ".json");
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final ClasspathResourceLoader resourceLoader = new ClasspathResourceLoader(classLoader);
+
+        List<String> args = new ArrayList<String>();
+        args.add("--format");
+        args.add("json-stream:" + report.getAbsolutePath());
+        args.addAll(featurePaths);
+
+        RuntimeOptions runtimeOptions = new RuntimeOptions(args);
+        Backend backend = mock(Backend.class);
+        when(backend.getSnippet(any(Step.class), any(FunctionNameGenerator.class))).thenReturn("TEST SNIPPET");
+        final Runtime runtime = new Runtime(resourceLoader, classLoader, asList(backend), runtimeOptions, new StopWatch.Stub(1234), null);
+        runtime.getGlue().addBeforeHook(hook);
+        runtime.run();
+        return report;
+    }
+}
@@ -0,0 +1,62 @@
+package cucumber.runtime.io;
+
+import cucumber.runtime.io.classfinder.Glue;
+import cucumber.runtime.io.classfinder.GlueMethod;
+import cucumber.runtime.io.classfinder.NotGlue;
+import cucumber.runtime.io.classfinder.SubclassOfGlue;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClassFileTest {
+    private static final Set<String> GLUE_METHOD = Collections.singleton("Lcucumber/runtime/io/classfinder/GlueMethod;");
+
+    @Test
+    public void finds_annotation_after_other_annotations_with_all_kinds_of_values() throws IOException {
+        ClassFile classFile = read(Glue.class);
+
+        assertEquals("cucumber.runtime.io.classfinder.Glue", classFile.getClassName());
+        assertEquals("java.lang.Object", classFile.getSuperClassName());
+        assertTrue(classFile.hasAnnotatedMethod());
+    }
+
+    @Test
+    public void does_not_find_annotation_on_class_without_it() throws IOException {
+        assertFalse(read(NotGlue.class).hasAnnotatedMethod());
+        assertFalse(read(SubclassOfGlue.class).hasAnnotatedMethod());
+        assertFalse(read(GlueMethod.class).hasAnnotatedMethod());
+    }
+
+    @Test
+    public void reads_super_class_and_nested_class_names() throws IOException {
+        assertEquals("cucumber.runtime.io.classfinder.Glue", read(SubclassOfGlue.class).getSuperClassName());
+        assertEquals("cucumber.runtime.io.ClassFileTest$Nested", read(Nested.class).getClassName());
+        assertNull(read(Object.class).getSuperClassName());
+    }
+
+    @Test
+    public void fails_on_anything_but_a_class_file() {
+        try {
+            ClassFile.read(new ByteArrayInputStream("not a class file".getBytes()), GLUE_METHOD);
+            fail();
+        } catch (IOException expected) {
+            assertEquals("Not a class file", expected.getMessage());
+        }
+    }
+
+    private ClassFile read(Class<?> clazz) throws IOException {
+        return ClassFile.read(clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class"), GLUE_METHOD);
+    }
+
+    private static class Nested {
+    }
+}
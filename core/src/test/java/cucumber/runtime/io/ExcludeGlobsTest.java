@@ -0,0 +1,46 @@
+package cucumber.runtime.io;
+
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExcludeGlobsTest {
+    @Test
+    public void matches_directory_names_at_any_depth() {
+        ExcludeGlobs excludes = new ExcludeGlobs(asList("target/"));
+
+        assertTrue(excludes.excludes("target", true));
+        assertTrue(excludes.excludes("module/target", true));
+        assertFalse(excludes.excludes("target", false));
+        assertFalse(excludes.excludes("targets", true));
+    }
+
+    @Test
+    public void matches_file_names_with_wildcards() {
+        ExcludeGlobs excludes = new ExcludeGlobs(asList("*.wip.feature", "draft?.feature"));
+
+        assertTrue(excludes.excludes("features/login.wip.feature", false));
+        assertTrue(excludes.excludes("draft1.feature", false));
+        assertFalse(excludes.excludes("features/login.feature", false));
+        assertFalse(excludes.excludes("draft12.feature", false));
+    }
+
+    @Test
+    public void matches_paths_relative_to_the_start_of_the_walk() {
+        ExcludeGlobs excludes = new ExcludeGlobs(asList("src/generated/", "/old/*.feature", "legacy/**/slow.feature"));
+
+        assertTrue(excludes.excludes("src/generated", true));
+        assertFalse(excludes.excludes("module/src/generated", true));
+        assertTrue(excludes.excludes("old/a.feature", false));
+        assertFalse(excludes.excludes("old/sub/a.feature", false));
+        assertTrue(excludes.excludes("legacy/a/b/slow.feature", false));
+    }
+
+    @Test
+    public void excludes_nothing_without_globs() {
+        assertTrue(ExcludeGlobs.NONE.isEmpty());
+        assertFalse(ExcludeGlobs.NONE.excludes("target", true));
+    }
+}
@@ -0,0 +1,78 @@
+package cucumber.runtime.io;
+
+import cucumber.runtime.formatter.TempDir;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class FileResourceLoaderTest {
+    private File root;
+
+    @Before
+    public void createTree() throws IOException {
+        root = TempDir.createTempDirectory();
+        touch("a.feature");
+        touch("notes.txt");
+        touch("sub/b.feature");
+        touch("sub/deeper/c.feature");
+        touch("sub/deeper/d.wip.feature");
+        touch("target/copied.feature");
+        touch("node_modules/module/e.feature");
+        new File(root, "empty").mkdirs();
+    }
+
+    @Test
+    public void finds_the_files_with_the_suffix_in_all_directories() {
+        assertEquals(
+                asList("a.feature", "node_modules/module/e.feature", "sub/b.feature", "sub/deeper/c.feature", "sub/deeper/d.wip.feature", "target/copied.feature"),
+                paths(new FileResourceLoader(), ".feature"));
+    }
+
+    @Test
+    public void leaves_out_excluded_files_and_directories() {
+        FileResourceLoader loader = new FileResourceLoader(new ExcludeGlobs(asList("target/", "node_modules/", "*.wip.feature")), 1);
+
+        assertEquals(asList("a.feature", "sub/b.feature", "sub/deeper/c.feature"), paths(loader, ".feature"));
+    }
+
+    @Test
+    public void finds_the_same_files_on_several_threads() {
+        ExcludeGlobs excludes = new ExcludeGlobs(asList("target/", "node_modules/", "*.wip.feature"));
+
+        assertEquals(paths(new FileResourceLoader(excludes, 1), ".feature"), paths(new FileResourceLoader(excludes, 4), ".feature"));
+        assertEquals(paths(new FileResourceLoader(), null), paths(new FileResourceLoader(ExcludeGlobs.NONE, 4), null));
+    }
+
+    @Test
+    public void finds_a_single_file() {
+        List<String> paths = new ArrayList<String>();
+        for (Resource resource : new FileResourceLoader(ExcludeGlobs.NONE, 4).resources(new File(root, "a.feature").getPath(), ".feature")) {
+            paths.add(resource.getAbsolutePath());
+        }
+
+        assertEquals(asList(new File(root, "a.feature").getAbsolutePath()), paths);
+    }
+
+    private void touch(String path) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        file.createNewFile();
+    }
+
+    private List<String> paths(FileResourceLoader loader, String suffix) {
+        List<String> paths = new ArrayList<String>();
+        for (Resource resource : loader.resources(root.getPath(), suffix)) {
+            paths.add(resource.getPath().replace(File.separatorChar, '/'));
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+}
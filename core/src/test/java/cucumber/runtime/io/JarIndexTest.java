@@ -0,0 +1,93 @@
+package cucumber.runtime.io;
+
+import cucumber.runtime.formatter.TempDir;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JarIndexTest {
+    @Test
+    public void finds_the_entries_starting_with_a_prefix() throws IOException {
+        File jar = writeJar("b/z.feature", "a/x.feature", "b/y.feature", "bb/x.feature", "c/x.feature");
+
+        JarIndex index = JarIndex.get(jar.getPath());
+
+        assertEquals(asList("b/y.feature", "b/z.feature"), names(index.entriesStartingWith("b/")));
+        assertEquals(asList("b/y.feature", "b/z.feature", "bb/x.feature"), names(index.entriesStartingWith("b")));
+        assertEquals(asList("a/x.feature"), names(index.entriesStartingWith("a/x.feature")));
+        assertEquals(5, index.entriesStartingWith("").size());
+        assertTrue(index.entriesStartingWith("d/").isEmpty());
+        assertTrue(index.entriesStartingWith("0").isEmpty());
+    }
+
+    @Test
+    public void shares_the_index_of_a_jar() throws IOException {
+        File jar = writeJar("a/x.feature");
+
+        assertSame(JarIndex.get(jar.getPath()), JarIndex.get(jar.getAbsolutePath()));
+    }
+
+    @Test
+    public void indexes_a_jar_again_when_it_changes() throws IOException {
+        File jar = writeJar("a/x.feature");
+        JarIndex before = JarIndex.get(jar.getPath());
+
+        writeJar(jar, "a/x.feature", "a/y.feature");
+        jar.setLastModified(jar.lastModified() + 2000);
+        JarIndex after = JarIndex.get(jar.getPath());
+
+        assertNotSame(before, after);
+        assertEquals(asList("a/x.feature", "a/y.feature"), names(after.entriesStartingWith("a/")));
+    }
+
+    @Test
+    public void iterates_over_resources_with_the_path_and_suffix() throws IOException {
+        File jar = writeJar("a/x.feature", "a/x.txt", "a/b/y.feature", "b/z.feature");
+
+        List<String> paths = new ArrayList<String>();
+        ZipResourceIterator iterator = new ZipResourceIterator(jar.getPath(), "a", ".feature");
+        while (iterator.hasNext()) {
+            paths.add(iterator.next().getPath());
+        }
+
+        assertEquals(asList("a/b/y.feature", "a/x.feature"), paths);
+    }
+
+    private File writeJar(String... entryNames) throws IOException {
+        return writeJar(new File(TempDir.createTempDirectory(), "test.jar"), entryNames);
+    }
+
+    private File writeJar(File jar, String... entryNames) throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+        try {
+            for (String entryName : entryNames) {
+                out.putNextEntry(new ZipEntry(entryName));
+                out.write(entryName.getBytes("UTF-8"));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return jar;
+    }
+
+    private List<String> names(List<ZipEntry> entries) {
+        List<String> names = new ArrayList<String>();
+        for (ZipEntry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,59 @@
+package cucumber.runtime.io;
+
+import cucumber.runtime.io.classfinder.ExtendsGlueFromAnotherPackage;
+import cucumber.runtime.io.classfinder.Glue;
+import cucumber.runtime.io.classfinder.GlueMethod;
+import cucumber.runtime.io.classfinder.NotGlue;
+import cucumber.runtime.io.classfinder.SubclassOfGlue;
+import org.junit.Test;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class ResourceLoaderClassFinderTest {
+    @Test
+    public void finds_classes_with_annotated_methods_and_their_subclasses_without_loading_other_classes() {
+        RecordingClassLoader classLoader = new RecordingClassLoader(getClass().getClassLoader());
+        ResourceLoaderClassFinder classFinder = new ResourceLoaderClassFinder(new MultiLoader(classLoader), classLoader);
+        Collection<Class<? extends Annotation>> annotationTypes = Collections.<Class<? extends Annotation>>singleton(GlueMethod.class);
+
+        Collection<Class<?>> classes = classFinder.getClassesWithAnnotatedMethods("cucumber.runtime.io.classfinder", annotationTypes);
+
+        assertEquals(new HashSet<Class<?>>(asList(Glue.class, SubclassOfGlue.class, ExtendsGlueFromAnotherPackage.class)), classes);
+        assertEquals(new HashSet<String>(asList(Glue.class.getName(), SubclassOfGlue.class.getName(), ExtendsGlueFromAnotherPackage.class.getName())),
+                new HashSet<String>(classLoader.loadedClassNames));
+    }
+
+    @Test
+    public void leaves_out_classes_in_directories_that_have_the_index() {
+        ClassLoader classLoader = getClass().getClassLoader();
+        ResourceLoaderClassFinder classFinder = new ResourceLoaderClassFinder(new MultiLoader(classLoader), classLoader);
+        Collection<Class<? extends Annotation>> annotationTypes = Collections.<Class<? extends Annotation>>singleton(GlueMethod.class);
+
+        // Any file in the test class directory will do as its index
+        String indexPath = NotGlue.class.getName().replace('.', '/') + ".class";
+        assertEquals(Collections.<Class<?>>emptySet(), classFinder.getClassesWithAnnotatedMethods("cucumber.runtime.io.classfinder", annotationTypes, indexPath));
+        assertEquals(3, classFinder.getClassesWithAnnotatedMethods("cucumber.runtime.io.classfinder", annotationTypes, "META-INF/no.index").size());
+    }
+
+    private static class RecordingClassLoader extends ClassLoader {
+        private final List<String> loadedClassNames = new ArrayList<String>();
+
+        RecordingClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        public Class<?> loadClass(String name) throws ClassNotFoundException {
+            loadedClassNames.add(name);
+            return super.loadClass(name);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package cucumber.runtime.io.classfinder;
+
+import cucumber.runtime.io.otherglue.BaseGlue;
+
+public class ExtendsGlueFromAnotherPackage extends BaseGlue {
+}
@@ -0,0 +1,20 @@
+package cucumber.runtime.io.classfinder;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+public class Glue {
+    private static final long LONG_CONSTANT = 42L;
+    private static final double DOUBLE_CONSTANT = 4.2;
+
+    @Deprecated
+    public void notGlue() {
+    }
+
+    @OtherAnnotation(names = {"a", "b"}, type = ElementType.FIELD, retention = @Retention(RetentionPolicy.CLASS), clazz = String.class, number = LONG_CONSTANT)
+    @GlueMethod("glue")
+    public double glue() {
+        return DOUBLE_CONSTANT;
+    }
+}
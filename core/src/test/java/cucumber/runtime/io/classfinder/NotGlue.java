@@ -0,0 +1,7 @@
+package cucumber.runtime.io.classfinder;
+
+public class NotGlue {
+    @OtherAnnotation
+    public void notGlue() {
+    }
+}
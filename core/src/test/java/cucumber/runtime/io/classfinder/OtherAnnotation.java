@@ -0,0 +1,20 @@
+package cucumber.runtime.io.classfinder;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface OtherAnnotation {
+    String[] names() default {};
+
+    ElementType type() default ElementType.METHOD;
+
+    Retention retention() default @Retention(RetentionPolicy.RUNTIME);
+
+    Class<?> clazz() default Object.class;
+
+    long number() default 0;
+}
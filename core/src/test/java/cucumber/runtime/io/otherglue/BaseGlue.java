@@ -0,0 +1,9 @@
+package cucumber.runtime.io.otherglue;
+
+import cucumber.runtime.io.classfinder.GlueMethod;
+
+public class BaseGlue {
+    @GlueMethod("base glue")
+    public void baseGlue() {
+    }
+}
@@ -0,0 +1,80 @@
+package cucumber.runtime.model;
+
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.io.Resource;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConcurrentFeatureBuilderTest {
+    private static final List<Object> NO_FILTERS = emptyList();
+
+    @Test
+    public void adds_features_in_the_order_the_resources_were_parsed() throws IOException {
+        List<CucumberFeature> features = new ArrayList<CucumberFeature>();
+        ConcurrentFeatureBuilder builder = new ConcurrentFeatureBuilder(features, null, 4);
+        try {
+            for (int i = 0; i < 100; i++) {
+                builder.parse(createResourceMock("feature" + i + ".feature", "Feature: feature " + i), NO_FILTERS);
+            }
+            builder.finish();
+        } finally {
+            builder.close();
+        }
+
+        assertEquals(100, features.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("feature" + i + ".feature", features.get(i).getPath());
+        }
+    }
+
+    @Test
+    public void keeps_the_first_of_duplicate_features() throws IOException {
+        List<CucumberFeature> features = new ArrayList<CucumberFeature>();
+        ConcurrentFeatureBuilder builder = new ConcurrentFeatureBuilder(features, null, 4);
+        try {
+            for (int i = 0; i < 20; i++) {
+                builder.parse(createResourceMock("path" + i + "/foo.feature", "Feature: foo"), NO_FILTERS);
+            }
+            builder.finish();
+        } finally {
+            builder.close();
+        }
+
+        assertEquals(1, features.size());
+        assertEquals("path0/foo.feature", features.get(0).getPath());
+    }
+
+    @Test
+    public void rethrows_the_error_of_the_first_resource_that_failed() throws IOException {
+        ConcurrentFeatureBuilder builder = new ConcurrentFeatureBuilder(new ArrayList<CucumberFeature>(), null, 4);
+        try {
+            builder.parse(createResourceMock("good.feature", "Feature: good"), NO_FILTERS);
+            builder.parse(createResourceMock("bad1.feature", "Feature: bad\nFeature: bad"), NO_FILTERS);
+            builder.parse(createResourceMock("bad2.feature", "Feature: bad\nFeature: bad"), NO_FILTERS);
+            builder.finish();
+            fail();
+        } catch (CucumberException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("bad1.feature"));
+        } finally {
+            builder.close();
+        }
+    }
+
+    private Resource createResourceMock(String featurePath, String source) throws IOException {
+        Resource resource = mock(Resource.class);
+        when(resource.getPath()).thenReturn(featurePath);
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(source.getBytes("UTF-8")));
+        return resource;
+    }
+}
@@ -0,0 +1,117 @@
+package cucumber.runtime.watch;
+
+import cucumber.runtime.formatter.TempDir;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class FeatureBlocksTest {
+    private static final List<Object> NO_FILTERS = Collections.emptyList();
+
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = new File(TempDir.createTempDirectory(), "test.feature");
+    }
+
+    @Test
+    public void selects_all_scenarios_of_a_new_file() throws IOException {
+        write("" +
+                "Feature: Test\n" +
+                "  Scenario: One\n" +
+                "    Given a\n" +
+                "\n" +
+                "  @tag\n" +
+                "  Scenario Outline: Two\n" +
+                "    Given <b>\n" +
+                "    Examples:\n" +
+                "      | b |\n" +
+                "      | c |\n");
+
+        assertEquals(asList(2, 6), FeatureBlocks.read(file, NO_FILTERS).selectedLines());
+    }
+
+    @Test
+    public void leaves_out_scenarios_that_the_filters_exclude() throws IOException {
+        write("" +
+                "Feature: Test\n" +
+                "  Scenario: One\n" +
+                "    Given a\n" +
+                "\n" +
+                "  @tag\n" +
+                "  Scenario: Two\n" +
+                "    Given b\n");
+
+        assertEquals(asList(6), FeatureBlocks.read(file, Collections.<Object>singletonList("@tag")).selectedLines());
+    }
+
+    @Test
+    public void finds_changed_and_added_scenarios_and_moves_of_unchanged_ones() throws IOException {
+        write("" +
+                "Feature: Test\n" +
+                "  Scenario: One\n" +
+                "    Given a\n" +
+                "\n" +
+                "  Scenario: Two\n" +
+                "    Given b\n");
+        FeatureBlocks previous = FeatureBlocks.read(file, NO_FILTERS);
+        write("" +
+                "Feature: Test\n" +
+                "  Scenario: One\n" +
+                "    Given a changed step\n" +
+                "\n" +
+                "  Scenario: New\n" +
+                "    Given c\n" +
+                "\n" +
+                "  Scenario: Two\n" +
+                "    Given b\n");
+
+        List<FeatureBlocks.Move> moves = new ArrayList<FeatureBlocks.Move>();
+        assertEquals(asList(2, 5), FeatureBlocks.read(file, NO_FILTERS).changedLines(previous, moves));
+        assertEquals(1, moves.size());
+        assertEquals(5, moves.get(0).start);
+        assertEquals(7, moves.get(0).end);
+        assertEquals(3, moves.get(0).delta);
+    }
+
+    @Test
+    public void selects_all_scenarios_when_the_background_changes() throws IOException {
+        write("" +
+                "Feature: Test\n" +
+                "  Background:\n" +
+                "    Given a\n" +
+                "  Scenario: One\n" +
+                "    Given b\n");
+        FeatureBlocks previous = FeatureBlocks.read(file, NO_FILTERS);
+        write("" +
+                "Feature: Test\n" +
+                "  Background:\n" +
+                "    Given another\n" +
+                "  Scenario: One\n" +
+                "    Given b\n");
+
+        List<FeatureBlocks.Move> moves = new ArrayList<FeatureBlocks.Move>();
+        assertEquals(asList(4), FeatureBlocks.read(file, NO_FILTERS).changedLines(previous, moves));
+    }
+
+    private void write(String gherkin) throws IOException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            out.write(gherkin);
+        } finally {
+            out.close();
+        }
+    }
+}
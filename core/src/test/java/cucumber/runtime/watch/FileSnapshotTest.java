@@ -0,0 +1,42 @@
+package cucumber.runtime.watch;
+
+import cucumber.runtime.formatter.TempDir;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class FileSnapshotTest {
+    @Test
+    public void tells_which_files_were_added_changed_and_removed() throws IOException {
+        File directory = TempDir.createTempDirectory();
+        File unchanged = createFile(new File(directory, "unchanged.feature"));
+        File changed = createFile(new File(directory, "sub/changed.feature"));
+        File removed = createFile(new File(directory, "removed.feature"));
+        createFile(new File(directory, "ignored.txt"));
+        List<File> roots = Collections.singletonList(directory);
+        FileSnapshot before = FileSnapshot.take(roots, ".feature");
+
+        changed.setLastModified(changed.lastModified() + 2000);
+        removed.delete();
+        File added = createFile(new File(directory, "added.feature"));
+        FileSnapshot after = FileSnapshot.take(roots, ".feature");
+
+        List<File> changedFiles = after.changedSince(before);
+        Collections.sort(changedFiles);
+        assertEquals(asList(added.getAbsoluteFile(), changed.getAbsoluteFile()), changedFiles);
+        assertEquals(asList(removed.getAbsoluteFile()), after.removedSince(before));
+        assertEquals(Collections.<File>emptyList(), FileSnapshot.take(asList(unchanged), ".feature").changedSince(FileSnapshot.take(asList(unchanged), ".feature")));
+    }
+
+    private static File createFile(File file) throws IOException {
+        file.getParentFile().mkdirs();
+        file.createNewFile();
+        return file;
+    }
+}
@@ -0,0 +1,91 @@
+package cucumber.runtime.watch;
+
+import cucumber.runtime.formatter.TempDir;
+import gherkin.formatter.Argument;
+import gherkin.formatter.model.Comment;
+import gherkin.formatter.model.Match;
+import gherkin.formatter.model.Scenario;
+import gherkin.formatter.model.Tag;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StepUsageTest {
+    private File feature;
+    private StepUsage stepUsage;
+
+    @Before
+    public void createFeature() throws IOException {
+        File root = TempDir.createTempDirectory();
+        feature = new File(root, "test.feature");
+        feature.createNewFile();
+        stepUsage = new StepUsage(Collections.singletonList(root));
+    }
+
+    @Test
+    public void finds_the_scenarios_using_step_definitions_of_a_class() {
+        run(3, "Steps.a()", "Other.b()");
+        run(7, "Other.b()");
+
+        assertEquals(new HashSet<Integer>(asList(3)), lines(stepUsage.scenariosUsing(names("Steps"))));
+        assertEquals(new HashSet<Integer>(asList(3, 7)), lines(stepUsage.scenariosUsing(names("Other"))));
+    }
+
+    @Test
+    public void finds_scenarios_with_undefined_steps_for_any_change() {
+        run(3, "Steps.a()");
+        run(7, (String) null);
+
+        assertEquals(new HashSet<Integer>(asList(3, 7)), lines(stepUsage.scenariosUsing(names("Steps"))));
+    }
+
+    @Test
+    public void finds_nothing_useful_for_a_class_that_no_step_uses() {
+        run(3, "Steps.a()");
+
+        assertNull(stepUsage.scenariosUsing(names("Steps", "Helper")));
+    }
+
+    @Test
+    public void moves_scenarios_whose_text_did_not_change_and_forgets_the_others() {
+        run(3, "Steps.a()");
+        run(7, "Steps.a()");
+
+        stepUsage.move(feature, Collections.singletonList(new FeatureBlocks.Move(6, 9, 4)));
+
+        assertEquals(new HashSet<Integer>(asList(11)), lines(stepUsage.scenariosUsing(names("Steps"))));
+    }
+
+    private void run(int line, String... locations) {
+        stepUsage.uri("test.feature");
+        Scenario scenario = new Scenario(Collections.<Comment>emptyList(), Collections.<Tag>emptyList(), "Scenario", "", "", line, "");
+        stepUsage.startOfScenarioLifeCycle(scenario);
+        for (String location : locations) {
+            stepUsage.match(new Match(Collections.<Argument>emptyList(), location));
+        }
+        stepUsage.endOfScenarioLifeCycle(scenario);
+    }
+
+    private static HashSet<String> names(String... names) {
+        return new HashSet<String>(asList(names));
+    }
+
+    private static HashSet<Integer> lines(Collection<StepUsage.ScenarioLocation> scenarios) {
+        List<Integer> lines = new ArrayList<Integer>();
+        for (StepUsage.ScenarioLocation scenario : scenarios) {
+            lines.add(scenario.line);
+        }
+        return new HashSet<Integer>(lines);
+    }
+}
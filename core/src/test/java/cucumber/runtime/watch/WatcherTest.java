@@ -0,0 +1,92 @@
+package cucumber.runtime.watch;
+
+import cucumber.runtime.Backend;
+import cucumber.runtime.daemon.StubBackend;
+import cucumber.runtime.formatter.TempDir;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.Collections;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WatcherTest {
+    private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    private final PrintStream systemOut = System.out;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private File classes;
+    private File feature;
+    private Watcher watcher;
+
+    @Before
+    public void createWatcher() throws IOException {
+        classes = TempDir.createTempDirectory();
+        write(new File(classes, "META-INF/services/" + Backend.class.getName()), StubBackend.class.getName() + "\n");
+        File features = TempDir.createTempDirectory();
+        feature = new File(features, "test.feature");
+        write(feature, "" +
+                "Feature: Test\n" +
+                "  Scenario: One\n" +
+                "    Given a\n");
+        System.setOut(new PrintStream(out, true));
+        watcher = new Watcher(asList("--glue", "glue", features.getPath()), getClass().getClassLoader(), Collections.singletonList(classes), 0);
+        watcher.runAll();
+    }
+
+    @After
+    public void restore() {
+        System.setOut(systemOut);
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+    }
+
+    @Test
+    public void runs_nothing_when_nothing_changed() {
+        assertFalse(watcher.check());
+        assertEquals(contextClassLoader, Thread.currentThread().getContextClassLoader());
+    }
+
+    @Test
+    public void runs_the_added_scenarios_of_a_changed_feature() throws IOException {
+        write(feature, "" +
+                "Feature: Test\n" +
+                "  Scenario: One\n" +
+                "    Given a\n" +
+                "\n" +
+                "  Scenario: Two\n" +
+                "    Given b\n");
+        feature.setLastModified(feature.lastModified() + 2000);
+
+        assertTrue(watcher.check());
+        assertTrue(out.toString(), out.toString().contains("Running [" + feature.getAbsolutePath() + ":5]"));
+        assertFalse(watcher.check());
+    }
+
+    @Test
+    public void runs_all_features_when_a_class_no_step_uses_changes() throws IOException {
+        write(new File(classes, "glue/Helper.class"), "");
+
+        assertTrue(watcher.check());
+        assertTrue(out.toString(), out.toString().contains("Glue changed. Running all features."));
+    }
+
+    private static void write(File file, String text) throws IOException {
+        file.getParentFile().mkdirs();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(text);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package cucumber.runtime.groovy;
 
 import cucumber.runtime.JdkPatternArgumentMatcher;
+import cucumber.runtime.JdkPatternStepDefinition;
 import cucumber.runtime.ParameterInfo;
-import cucumber.runtime.StepDefinition;
 import cucumber.runtime.Timeout;
 import gherkin.I18n;
 import gherkin.formatter.Argument;
@@ -14,7 +14,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
-public class GroovyStepDefinition implements StepDefinition {
+public class GroovyStepDefinition implements JdkPatternStepDefinition {
     private final Pattern pattern;
     private final long timeoutMillis;
     private final Closure body;
@@ -80,4 +80,9 @@ public class GroovyStepDefinition implements StepDefinition {
     public String getPattern() {
         return pattern.pattern();
     }
+
+    @Override
+    public Pattern getCompiledPattern() {
+        return pattern;
+    }
 }
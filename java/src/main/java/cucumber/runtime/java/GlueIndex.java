@@ -0,0 +1,262 @@
+package cucumber.runtime.java;
+
+import cucumber.runtime.CucumberException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * The step definitions and hooks listed in {@code META-INF/cucumber/glue.index} files, which are written at
+ * compile time by {@link GlueIndexProcessor}.
+ * <p/>
+ * Each line of an index describes one method. The fields are separated by tabs, and tabs, line breaks and
+ * backslashes in the fields are escaped with a backslash:
+ * <pre>
+ * step    CLASS METHOD PARAMETER_TYPES TIMEOUT PATTERN
+ * before  CLASS METHOD PARAMETER_TYPES TIMEOUT ORDER [TAG_EXPRESSION]*
+ * after   CLASS METHOD PARAMETER_TYPES TIMEOUT ORDER [TAG_EXPRESSION]*
+ * extends CLASS SUPER_CLASS
+ * </pre>
+ * CLASS is a binary class name, PARAMETER_TYPES the comma separated canonical names of the parameter types.
+ * An {@code extends} line tells that CLASS extends SUPER_CLASS, which has step definitions or hooks. That isn't
+ * allowed, and is reported when the glue is loaded, as it is when the class path is scanned.
+ * Lines starting with {@code #} are comments.
+ */
+class GlueIndex {
+    static final String PATH = "META-INF/cucumber/glue.index";
+
+    private final List<Entry> entries;
+
+    GlueIndex(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @return the entries of all the index files on the class path
+     */
+    static GlueIndex load(ClassLoader classLoader) {
+        List<Entry> entries = new ArrayList<Entry>();
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(PATH);
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), "UTF-8"));
+                try {
+                    entries.addAll(read(reader, index.toString()));
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new CucumberException("Failed to read " + PATH, e);
+        }
+        return new GlueIndex(entries);
+    }
+
+    static List<Entry> read(BufferedReader reader, String source) throws IOException {
+        List<Entry> entries = new ArrayList<Entry>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.length() > 0 && !line.startsWith("#")) {
+                entries.add(Entry.parse(line, source));
+            }
+        }
+        return entries;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * @param packageName a package, or "" for all packages
+     * @return the entries for classes in the package or its sub packages
+     */
+    List<Entry> entriesIn(String packageName) {
+        List<Entry> result = new ArrayList<Entry>();
+        for (Entry entry : entries) {
+            if (packageName.length() == 0 || entry.className.startsWith(packageName + ".")) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    static class Entry {
+        static final String STEP = "step";
+        static final String BEFORE = "before";
+        static final String AFTER = "after";
+        static final String EXTENDS = "extends";
+
+        final String kind;
+        final String className;
+        final String methodName;
+        final List<String> parameterTypes;
+        final long timeout;
+        final String pattern;
+        final int order;
+        final String[] tagExpressions;
+        final String superClassName;
+
+        private Entry(String kind, String className, String methodName, List<String> parameterTypes, long timeout, String pattern, int order, String[] tagExpressions, String superClassName) {
+            this.kind = kind;
+            this.className = className;
+            this.methodName = methodName;
+            this.parameterTypes = parameterTypes;
+            this.timeout = timeout;
+            this.pattern = pattern;
+            this.order = order;
+            this.tagExpressions = tagExpressions;
+            this.superClassName = superClassName;
+        }
+
+        static Entry step(String className, String methodName, List<String> parameterTypes, long timeout, String pattern) {
+            return new Entry(STEP, className, methodName, parameterTypes, timeout, pattern, 0, null, null);
+        }
+
+        static Entry hook(String kind, String className, String methodName, List<String> parameterTypes, long timeout, int order, String[] tagExpressions) {
+            return new Entry(kind, className, methodName, parameterTypes, timeout, null, order, tagExpressions, null);
+        }
+
+        static Entry extension(String className, String superClassName) {
+            return new Entry(EXTENDS, className, null, null, 0, null, 0, null, superClassName);
+        }
+
+        /**
+         * @return the public method this entry describes, or null if the class doesn't have it
+         */
+        Method findMethod(Class<?> glueCodeClass) {
+            for (Method method : glueCodeClass.getMethods()) {
+                if (method.getName().equals(methodName) && parameterTypes.equals(canonicalNames(method.getParameterTypes()))) {
+                    return method;
+                }
+            }
+            return null;
+        }
+
+        private static List<String> canonicalNames(Class<?>[] types) {
+            List<String> names = new ArrayList<String>(types.length);
+            for (Class<?> type : types) {
+                names.add(type.getCanonicalName());
+            }
+            return names;
+        }
+
+        String toLine() {
+            StringBuilder line = new StringBuilder();
+            line.append(kind);
+            appendField(line, className);
+            if (EXTENDS.equals(kind)) {
+                appendField(line, superClassName);
+                return line.toString();
+            }
+            appendField(line, methodName);
+            appendField(line, join(parameterTypes));
+            appendField(line, String.valueOf(timeout));
+            if (STEP.equals(kind)) {
+                appendField(line, pattern);
+            } else {
+                appendField(line, String.valueOf(order));
+                for (String tagExpression : tagExpressions) {
+                    appendField(line, tagExpression);
+                }
+            }
+            return line.toString();
+        }
+
+        static Entry parse(String line, String source) {
+            String[] fields = line.split("\t", -1);
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = unescape(fields[i]);
+            }
+            try {
+                String kind = fields[0];
+                if (EXTENDS.equals(kind) && fields.length == 3) {
+                    return extension(fields[1], fields[2]);
+                }
+                List<String> parameterTypes = fields[3].length() == 0 ? Collections.<String>emptyList() : Arrays.asList(fields[3].split(","));
+                long timeout = Long.parseLong(fields[4]);
+                if (STEP.equals(kind) && fields.length == 6) {
+                    return step(fields[1], fields[2], parameterTypes, timeout, fields[5]);
+                } else if (BEFORE.equals(kind) || AFTER.equals(kind)) {
+                    String[] tagExpressions = Arrays.copyOfRange(fields, 6, fields.length);
+                    return hook(kind, fields[1], fields[2], parameterTypes, timeout, Integer.parseInt(fields[5]), tagExpressions);
+                }
+            } catch (RuntimeException e) {
+                throw new CucumberException(String.format("Bad line in %s: %s", source, line), e);
+            }
+            throw new CucumberException(String.format("Bad line in %s: %s", source, line));
+        }
+
+        private static String join(List<String> strings) {
+            StringBuilder joined = new StringBuilder();
+            for (String string : strings) {
+                if (joined.length() > 0) {
+                    joined.append(',');
+                }
+                joined.append(string);
+            }
+            return joined.toString();
+        }
+
+        private static void appendField(StringBuilder line, String field) {
+            line.append('\t');
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                switch (c) {
+                    case '\\':
+                        line.append("\\\\");
+                        break;
+                    case '\t':
+                        line.append("\\t");
+                        break;
+                    case '\n':
+                        line.append("\\n");
+                        break;
+                    case '\r':
+                        line.append("\\r");
+                        break;
+                    default:
+                        line.append(c);
+                }
+            }
+        }
+
+        private static String unescape(String field) {
+            if (field.indexOf('\\') == -1) {
+                return field;
+            }
+            StringBuilder result = new StringBuilder(field.length());
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                if (c == '\\' && i + 1 < field.length()) {
+                    char escaped = field.charAt(++i);
+                    switch (escaped) {
+                        case 't':
+                            result.append('\t');
+                            break;
+                        case 'n':
+                            result.append('\n');
+                            break;
+                        case 'r':
+                            result.append('\r');
+                            break;
+                        default:
+                            result.append(escaped);
+                    }
+                } else {
+                    result.append(c);
+                }
+            }
+            return result.toString();
+        }
+    }
+}
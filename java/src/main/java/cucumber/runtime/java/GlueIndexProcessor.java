@@ -0,0 +1,229 @@
+package cucumber.runtime.java;
+
+import cucumber.api.java.After;
+import cucumber.api.java.Before;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the step definitions and hooks of the classes being compiled to {@code META-INF/cucumber/glue.index},
+ * so {@link JavaBackend} can load them without scanning the class path. Enable it with
+ * {@code -processor cucumber.runtime.java.GlueIndexProcessor}, or by listing it in the annotation processor
+ * configuration of your build tool.
+ * <p/>
+ * Only the classes being compiled are indexed. When only some classes are recompiled, their entries replace
+ * the old ones in the existing index, and the entries of the other classes are kept. Entries of classes that
+ * no longer exist are ignored at runtime.
+ */
+@SupportedAnnotationTypes("*")
+public class GlueIndexProcessor extends AbstractProcessor {
+    private final List<GlueIndex.Entry> entries = new ArrayList<GlueIndex.Entry>();
+    private final Set<String> compiledClassNames = new HashSet<String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        } else {
+            for (Element element : roundEnv.getRootElements()) {
+                if (element instanceof TypeElement) {
+                    index((TypeElement) element);
+                }
+            }
+        }
+        // Other processors may want the same annotations
+        return false;
+    }
+
+    private void index(TypeElement type) {
+        String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        compiledClassNames.add(className);
+        boolean instantiable = isInstantiable(type);
+        if (instantiable) {
+            TypeElement glueSuperClass = glueSuperClass(type);
+            if (glueSuperClass != null) {
+                entries.add(GlueIndex.Entry.extension(className, processingEnv.getElementUtils().getBinaryName(glueSuperClass).toString()));
+            }
+        }
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement) {
+                index((TypeElement) enclosed);
+            } else if (instantiable && enclosed.getKind() == ElementKind.METHOD && enclosed.getModifiers().contains(Modifier.PUBLIC)) {
+                index(className, (ExecutableElement) enclosed);
+            }
+        }
+    }
+
+    /**
+     * Same rule as {@link cucumber.runtime.Utils#isInstantiable(Class)}. Glue in other classes is ignored.
+     */
+    private boolean isInstantiable(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        boolean isNonStaticInnerClass = type.getNestingKind() != NestingKind.TOP_LEVEL && !modifiers.contains(Modifier.STATIC);
+        return type.getKind() == ElementKind.CLASS && modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.ABSTRACT) && !isNonStaticInnerClass;
+    }
+
+    /**
+     * @return the closest super class with step definitions or hooks, or null if there is none
+     */
+    private TypeElement glueSuperClass(TypeElement type) {
+        TypeMirror superClass = type.getSuperclass();
+        while (superClass.getKind() == TypeKind.DECLARED) {
+            TypeElement superType = (TypeElement) ((DeclaredType) superClass).asElement();
+            for (Element enclosed : superType.getEnclosedElements()) {
+                if (enclosed.getKind() == ElementKind.METHOD && enclosed.getModifiers().contains(Modifier.PUBLIC) && isGlue(enclosed)) {
+                    return superType;
+                }
+            }
+            superClass = superType.getSuperclass();
+        }
+        return null;
+    }
+
+    private boolean isGlue(Element method) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            String annotationName = annotationType.getQualifiedName().toString();
+            if (annotationName.equals(Before.class.getName()) || annotationName.equals(After.class.getName())
+                    || annotationType.getAnnotation(StepDefAnnotation.class) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void index(String className, ExecutableElement method) {
+        List<String> parameterTypes = new ArrayList<String>();
+        for (VariableElement parameter : method.getParameters()) {
+            parameterTypes.add(processingEnv.getTypeUtils().erasure(parameter.asType()).toString());
+        }
+        String methodName = method.getSimpleName().toString();
+
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            String annotationName = annotationType.getQualifiedName().toString();
+            if (annotationName.equals(Before.class.getName()) || annotationName.equals(After.class.getName())) {
+                String kind = annotationName.equals(Before.class.getName()) ? GlueIndex.Entry.BEFORE : GlueIndex.Entry.AFTER;
+                List<?> tagValues = (List<?>) value(annotation, "value");
+                String[] tagExpressions = new String[tagValues.size()];
+                for (int i = 0; i < tagExpressions.length; i++) {
+                    tagExpressions[i] = (String) ((AnnotationValue) tagValues.get(i)).getValue();
+                }
+                long timeout = ((Number) value(annotation, "timeout")).longValue();
+                int order = ((Number) value(annotation, "order")).intValue();
+                entries.add(GlueIndex.Entry.hook(kind, className, methodName, parameterTypes, timeout, order, tagExpressions));
+            } else if (annotationType.getAnnotation(StepDefAnnotation.class) != null) {
+                String pattern = (String) value(annotation, "value");
+                long timeout = ((Number) value(annotation, "timeout")).longValue();
+                entries.add(GlueIndex.Entry.step(className, methodName, parameterTypes, timeout, pattern));
+            }
+        }
+    }
+
+    private Object value(AnnotationMirror annotation, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv.getElementUtils().getElementValuesWithDefaults(annotation);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : values.entrySet()) {
+            if (value.getKey().getSimpleName().contentEquals(name)) {
+                return value.getValue().getValue();
+            }
+        }
+        throw new IllegalArgumentException(annotation + " has no " + name);
+    }
+
+    private void writeIndex() {
+        List<String> lines = new ArrayList<String>();
+        List<GlueIndex.Entry> existingEntries = readExistingIndex();
+        if (existingEntries == null && entries.isEmpty()) {
+            return;
+        }
+        if (existingEntries != null) {
+            for (GlueIndex.Entry entry : existingEntries) {
+                if (!isCompiled(entry.className)) {
+                    lines.add(entry.toLine());
+                }
+            }
+        }
+        for (GlueIndex.Entry entry : entries) {
+            lines.add(entry.toLine());
+        }
+        // Sorted, so the same classes always give the same index
+        Collections.sort(lines);
+
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", GlueIndex.PATH);
+            Writer out = new OutputStreamWriter(index.openOutputStream(), "UTF-8");
+            try {
+                out.write("# Written by " + GlueIndexProcessor.class.getName() + "\n");
+                for (String line : lines) {
+                    out.write(line);
+                    out.write("\n");
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + GlueIndex.PATH + ": " + e.getMessage());
+        }
+    }
+
+    private boolean isCompiled(String className) {
+        // Nested classes are always compiled with their top level class, even when they are gone
+        int nested = className.indexOf('$');
+        return compiledClassNames.contains(className) || (nested != -1 && compiledClassNames.contains(className.substring(0, nested)));
+    }
+
+    /**
+     * @return the entries of the index written by an earlier compilation, or null if there is none
+     */
+    private List<GlueIndex.Entry> readExistingIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", GlueIndex.PATH);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(index.openInputStream(), "UTF-8"));
+            try {
+                return GlueIndex.read(reader, index.toUri().toString());
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            // No index yet
+            return null;
+        } catch (RuntimeException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Ignoring the existing " + GlueIndex.PATH + ": " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import gherkin.formatter.model.Step;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -28,6 +29,7 @@ public class JavaBackend implements Backend {
     private SnippetGenerator snippetGenerator = new SnippetGenerator(new JavaSnippet());
     private final ObjectFactory objectFactory;
     private final ClassFinder classFinder;
+    private final ClassLoader classLoader;
 
     private final MethodScanner methodScanner;
     private Glue glue;
@@ -38,14 +40,14 @@ public class JavaBackend implements Backend {
      * @param resourceLoader
      */
     public JavaBackend(ResourceLoader resourceLoader) {
-        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        classLoader = Thread.currentThread().getContextClassLoader();
         classFinder = new ResourceLoaderClassFinder(resourceLoader, classLoader);
         methodScanner = new MethodScanner(classFinder);
-        objectFactory = loadObjectFactory(classFinder);
+        objectFactory = loadObjectFactory(classFinder, classLoader);
     }
 
     public JavaBackend(ObjectFactory objectFactory) {
-        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        classLoader = Thread.currentThread().getContextClassLoader();
         ResourceLoader resourceLoader = new MultiLoader(classLoader);
         classFinder = new ResourceLoaderClassFinder(resourceLoader, classLoader);
         methodScanner = new MethodScanner(classFinder);
@@ -53,15 +55,28 @@ public class JavaBackend implements Backend {
     }
 
     public JavaBackend(ObjectFactory objectFactory, ClassFinder classFinder) {
+        this(objectFactory, classFinder, Thread.currentThread().getContextClassLoader());
+    }
+
+    JavaBackend(ObjectFactory objectFactory, ClassFinder classFinder, ClassLoader classLoader) {
         this.objectFactory = objectFactory;
         this.classFinder = classFinder;
+        this.classLoader = classLoader;
         methodScanner = new MethodScanner(classFinder);
     }
 
     public static ObjectFactory loadObjectFactory(ClassFinder classFinder) {
+        return loadObjectFactory(classFinder, Thread.currentThread().getContextClassLoader());
+    }
+
+    /**
+     * Uses the ObjectFactory listed in {@code META-INF/services/cucumber.runtime.java.ObjectFactory}, or, when none
+     * is listed, the one found in the {@code cucumber.runtime} package.
+     */
+    public static ObjectFactory loadObjectFactory(ClassFinder classFinder, ClassLoader classLoader) {
         ObjectFactory objectFactory;
         try {
-            Reflections reflections = new Reflections(classFinder);
+            Reflections reflections = new Reflections(classFinder, classLoader);
             objectFactory = reflections.instantiateExactlyOneSubclass(ObjectFactory.class, "cucumber.runtime", new Class[0], new Object[0]);
         } catch (TooManyInstancesException e) {
             System.out.println(getMultipleObjectFactoryLogMessage());
@@ -72,10 +87,52 @@ public class JavaBackend implements Backend {
         return objectFactory;
     }
 
+    /**
+     * Loads the step definitions and hooks listed in the {@link GlueIndexProcessor glue index} files, and scans
+     * the directories and jars that have no index, such as ones built without the annotation processor.
+     */
     @Override
     public void loadGlue(Glue glue, List<String> gluePaths) {
         this.glue = glue;
-        methodScanner.scan(this, gluePaths);
+        GlueIndex glueIndex = GlueIndex.load(classLoader);
+        if (glueIndex.isEmpty() || !(classFinder instanceof ResourceLoaderClassFinder)) {
+            // Other class finders can't tell which directory or jar a class is in
+            methodScanner.scan(this, gluePaths);
+            return;
+        }
+        for (String gluePath : gluePaths) {
+            for (GlueIndex.Entry entry : glueIndex.entriesIn(MultiLoader.packageName(gluePath))) {
+                loadGlue(entry);
+            }
+            methodScanner.scan(this, Collections.singletonList(gluePath), GlueIndex.PATH);
+        }
+    }
+
+    private void loadGlue(GlueIndex.Entry entry) {
+        Class<?> glueCodeClass;
+        try {
+            glueCodeClass = classLoader.loadClass(entry.className);
+        } catch (ClassNotFoundException e) {
+            // Deleted since the index was written
+            return;
+        }
+        if (GlueIndex.Entry.EXTENDS.equals(entry.kind)) {
+            throw new CucumberException(String.format("You're not allowed to extend classes that define Step Definitions or hooks. %s extends %s", glueCodeClass, entry.superClassName));
+        }
+        Method method = entry.findMethod(glueCodeClass);
+        if (method == null) {
+            throw new CucumberException(String.format("%s has no public method %s(%s). Is %s out of date?",
+                    entry.className, entry.methodName, entry.parameterTypes, GlueIndex.PATH));
+        }
+        if (!glueCodeClass.equals(method.getDeclaringClass())) {
+            // Same check as when scanning
+            throw new CucumberException(String.format("You're not allowed to extend classes that define Step Definitions or hooks. %s extends %s", glueCodeClass, method.getDeclaringClass()));
+        }
+        if (GlueIndex.Entry.STEP.equals(entry.kind)) {
+            addStepDefinition(method, entry.pattern, entry.timeout);
+        } else {
+            addHook(method, GlueIndex.Entry.BEFORE.equals(entry.kind), entry.tagExpressions, entry.order, entry.timeout);
+        }
     }
 
     /**
@@ -113,19 +170,30 @@ public class JavaBackend implements Backend {
 
     void addStepDefinition(Annotation annotation, Method method) {
         try {
-            objectFactory.addClass(method.getDeclaringClass());
-            glue.addStepDefinition(new JavaStepDefinition(method, pattern(annotation), timeoutMillis(annotation), objectFactory));
+            addStepDefinition(method, pattern(annotation), timeoutMillis(annotation));
         } catch (DuplicateStepDefinitionException e) {
             throw e;
+        } catch (CucumberException e) {
+            throw e;
         } catch (Throwable e) {
             throw new CucumberException(e);
         }
     }
 
-    private Pattern pattern(Annotation annotation) throws Throwable {
+    private void addStepDefinition(Method method, String pattern, long timeoutMillis) {
+        try {
+            objectFactory.addClass(method.getDeclaringClass());
+            glue.addStepDefinition(new JavaStepDefinition(method, Pattern.compile(pattern), timeoutMillis, objectFactory));
+        } catch (DuplicateStepDefinitionException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new CucumberException(e);
+        }
+    }
+
+    private String pattern(Annotation annotation) throws Throwable {
         Method regexpMethod = annotation.getClass().getMethod("value");
-        String regexpString = (String) Utils.invoke(annotation, regexpMethod, 0);
-        return Pattern.compile(regexpString);
+        return (String) Utils.invoke(annotation, regexpMethod, 0);
     }
 
     private long timeoutMillis(Annotation annotation) throws Throwable {
@@ -134,16 +202,22 @@ public class JavaBackend implements Backend {
     }
 
     void addHook(Annotation annotation, Method method) {
-        objectFactory.addClass(method.getDeclaringClass());
-
         if (annotation.annotationType().equals(Before.class)) {
-            String[] tagExpressions = ((Before) annotation).value();
-            long timeout = ((Before) annotation).timeout();
-            glue.addBeforeHook(new JavaHookDefinition(method, tagExpressions, ((Before) annotation).order(), timeout, objectFactory));
+            Before before = (Before) annotation;
+            addHook(method, true, before.value(), before.order(), before.timeout());
+        } else {
+            After after = (After) annotation;
+            addHook(method, false, after.value(), after.order(), after.timeout());
+        }
+    }
+
+    private void addHook(Method method, boolean before, String[] tagExpressions, int order, long timeout) {
+        objectFactory.addClass(method.getDeclaringClass());
+        JavaHookDefinition hook = new JavaHookDefinition(method, tagExpressions, order, timeout, objectFactory);
+        if (before) {
+            glue.addBeforeHook(hook);
         } else {
-            String[] tagExpressions = ((After) annotation).value();
-            long timeout = ((After) annotation).timeout();
-            glue.addAfterHook(new JavaHookDefinition(method, tagExpressions, ((After) annotation).order(), timeout, objectFactory));
+            glue.addAfterHook(hook);
         }
     }
 
@@ -1,10 +1,10 @@
 package cucumber.runtime.java;
 
 import cucumber.runtime.JdkPatternArgumentMatcher;
+import cucumber.runtime.JdkPatternStepDefinition;
 import cucumber.runtime.MethodFormat;
+import cucumber.runtime.MethodInvoker;
 import cucumber.runtime.ParameterInfo;
-import cucumber.runtime.StepDefinition;
-import cucumber.runtime.Utils;
 import gherkin.I18n;
 import gherkin.formatter.Argument;
 import gherkin.formatter.model.Step;
@@ -14,8 +14,9 @@ import java.lang.reflect.Type;
 import java.util.List;
 import java.util.regex.Pattern;
 
-class JavaStepDefinition implements StepDefinition {
+class JavaStepDefinition implements JdkPatternStepDefinition {
     private final Method method;
+    private final MethodInvoker invoker;
     private final Pattern pattern;
     private final long timeout;
     private final JdkPatternArgumentMatcher argumentMatcher;
@@ -24,6 +25,7 @@ class JavaStepDefinition implements StepDefinition {
 
     public JavaStepDefinition(Method method, Pattern pattern, long timeoutMillis, ObjectFactory objectFactory) {
         this.method = method;
+        this.invoker = new MethodInvoker(method);
         this.parameterInfos = ParameterInfo.fromMethod(method);
         this.pattern = pattern;
         this.argumentMatcher = new JdkPatternArgumentMatcher(pattern);
@@ -32,7 +34,7 @@ class JavaStepDefinition implements StepDefinition {
     }
 
     public void execute(I18n i18n, Object[] args) throws Throwable {
-        Utils.invoke(objectFactory.getInstance(method.getDeclaringClass()), method, timeout, args);
+        invoker.invoke(objectFactory.getInstance(method.getDeclaringClass()), timeout, args);
     }
 
     public List<Argument> matchedArguments(Step step) {
@@ -62,4 +64,9 @@ class JavaStepDefinition implements StepDefinition {
     public String getPattern() {
         return pattern.pattern();
     }
+
+    @Override
+    public Pattern getCompiledPattern() {
+        return pattern;
+    }
 }
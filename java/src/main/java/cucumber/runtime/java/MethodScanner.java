@@ -5,9 +5,11 @@ import cucumber.api.java.Before;
 import cucumber.runtime.CucumberException;
 import cucumber.runtime.Utils;
 import cucumber.runtime.ClassFinder;
+import cucumber.runtime.io.ResourceLoaderClassFinder;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -15,12 +17,18 @@ import static cucumber.runtime.io.MultiLoader.packageName;
 
 class MethodScanner {
     private final Collection<Class<? extends Annotation>> cucumberAnnotationClasses;
+    private final Collection<Class<? extends Annotation>> glueAnnotationClasses = new ArrayList<Class<? extends Annotation>>();
 
     private final ClassFinder classFinder;
 
     public MethodScanner(ClassFinder classFinder) {
         this.classFinder = classFinder;
         cucumberAnnotationClasses = findCucumberAnnotationClasses();
+        for (Class<? extends Annotation> cucumberAnnotationClass : cucumberAnnotationClasses) {
+            if (isHookAnnotation(cucumberAnnotationClass) || isStepdefAnnotation(cucumberAnnotationClass)) {
+                glueAnnotationClasses.add(cucumberAnnotationClass);
+            }
+        }
     }
 
     /**
@@ -30,8 +38,19 @@ class MethodScanner {
      * @param gluePaths   where to look
      */
     public void scan(JavaBackend javaBackend, List<String> gluePaths) {
+        scan(javaBackend, gluePaths, null);
+    }
+
+    /**
+     * Registers step definitions and hooks, except the ones in directories and jars that have an index.
+     *
+     * @param javaBackend the backend where stepdefs and hooks will be registered
+     * @param gluePaths   where to look
+     * @param indexPath   the path of the index in a directory or jar, or null to scan them all
+     */
+    public void scan(JavaBackend javaBackend, List<String> gluePaths, String indexPath) {
         for (String gluePath : gluePaths) {
-            for (Class<?> glueCodeClass : classFinder.getDescendants(Object.class, packageName(gluePath))) {
+            for (Class<?> glueCodeClass : findGlueCodeClasses(packageName(gluePath), indexPath)) {
                 while (glueCodeClass != null && glueCodeClass != Object.class && !Utils.isInstantiable(glueCodeClass)) {
                     // those can't be instantiated without container class present.
                     glueCodeClass = glueCodeClass.getSuperclass();
@@ -71,17 +90,31 @@ class MethodScanner {
         }
     }
 
+    private Collection<Class<?>> findGlueCodeClasses(String packageName, String indexPath) {
+        if (classFinder instanceof ResourceLoaderClassFinder) {
+            // Only load the classes that have step definitions or hooks
+            return ((ResourceLoaderClassFinder) classFinder).getClassesWithAnnotatedMethods(packageName, glueAnnotationClasses, indexPath);
+        }
+        return classFinder.getDescendants(Object.class, packageName);
+    }
+
     private Collection<Class<? extends Annotation>> findCucumberAnnotationClasses() {
         return classFinder.getDescendants(Annotation.class, "cucumber.api");
     }
 
     private boolean isHookAnnotation(Annotation annotation) {
-        Class<? extends Annotation> annotationClass = annotation.annotationType();
+        return isHookAnnotation(annotation.annotationType());
+    }
+
+    private boolean isHookAnnotation(Class<? extends Annotation> annotationClass) {
         return annotationClass.equals(Before.class) || annotationClass.equals(After.class);
     }
 
     private boolean isStepdefAnnotation(Annotation annotation) {
-        Class<? extends Annotation> annotationClass = annotation.annotationType();
+        return isStepdefAnnotation(annotation.annotationType());
+    }
+
+    private boolean isStepdefAnnotation(Class<? extends Annotation> annotationClass) {
         return annotationClass.getAnnotation(StepDefAnnotation.class) != null;
     }
 }
@@ -0,0 +1,149 @@
+package cucumber.runtime.java;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class GlueIndexProcessorTest {
+    private static final String STEPS = "" +
+            "package com.example;\n" +
+            "import cucumber.api.java.en.Given;\n" +
+            "import cucumber.api.java.Before;\n" +
+            "public class Steps {\n" +
+            "    @Given(value = \"^I have (\\\\d+) \\\"cukes\\\"$\", timeout = 100)\n" +
+            "    public void cukes(int count, java.util.List<String> names) {}\n" +
+            "    @Before(value = {\"@foo,@bar\", \"~@baz\"}, order = 5)\n" +
+            "    public void before() {}\n" +
+            "    @Given(\"private\")\n" +
+            "    void notPublic() {}\n" +
+            "    public static class Nested {\n" +
+            "        @cucumber.api.java.fr.Soit(\"nested\")\n" +
+            "        public void nested(String[] values) {}\n" +
+            "    }\n" +
+            "    public class Inner {\n" +
+            "        @Given(\"inner\")\n" +
+            "        public void inner() {}\n" +
+            "    }\n" +
+            "}\n";
+    private static final String HOOKS = "" +
+            "package com.example;\n" +
+            "public class Hooks {\n" +
+            "    @cucumber.api.java.After\n" +
+            "    public void after() {}\n" +
+            "}\n";
+
+    private JavaCompiler compiler;
+    private File output;
+
+    @Before
+    public void createOutputDirectory() throws IOException {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null);
+        output = File.createTempFile("glue-index", "");
+        assertTrue(output.delete() && output.mkdir());
+    }
+
+    @Test
+    public void indexes_step_definitions_and_hooks_of_public_instantiable_classes() throws IOException {
+        compile(source("com/example/Steps.java", STEPS), source("com/example/Hooks.java", HOOKS));
+
+        assertEquals(asList(
+                "# Written by cucumber.runtime.java.GlueIndexProcessor",
+                "after\tcom.example.Hooks\tafter\t\t0\t10000",
+                "before\tcom.example.Steps\tbefore\t\t0\t5\t@foo,@bar\t~@baz",
+                "step\tcom.example.Steps\tcukes\tint,java.util.List\t100\t^I have (\\\\d+) \"cukes\"$",
+                "step\tcom.example.Steps$Nested\tnested\tjava.lang.String[]\t0\tnested"
+        ), readIndex());
+    }
+
+    @Test
+    public void replaces_the_entries_of_recompiled_classes_and_keeps_the_others() throws IOException {
+        compile(source("com/example/Steps.java", STEPS), source("com/example/Hooks.java", HOOKS));
+        compile(source("com/example/Steps.java", "" +
+                "package com.example;\n" +
+                "public class Steps {\n" +
+                "    @cucumber.api.java.en.When(\"changed\")\n" +
+                "    public void changed() {}\n" +
+                "}\n"));
+
+        assertEquals(asList(
+                "# Written by cucumber.runtime.java.GlueIndexProcessor",
+                "after\tcom.example.Hooks\tafter\t\t0\t10000",
+                "step\tcom.example.Steps\tchanged\t\t0\tchanged"
+        ), readIndex());
+    }
+
+    @Test
+    public void indexes_classes_that_extend_glue_classes() throws IOException {
+        compile(source("com/example/Hooks.java", HOOKS), source("com/example/MoreHooks.java", "" +
+                "package com.example;\n" +
+                "public class MoreHooks extends Hooks {}\n"));
+
+        assertEquals(asList(
+                "# Written by cucumber.runtime.java.GlueIndexProcessor",
+                "after\tcom.example.Hooks\tafter\t\t0\t10000",
+                "extends\tcom.example.MoreHooks\tcom.example.Hooks"
+        ), readIndex());
+    }
+
+    @Test
+    public void writes_no_index_without_glue() throws IOException {
+        compile(source("com/example/NoGlue.java", "package com.example;\npublic class NoGlue {}\n"));
+
+        assertFalse(new File(output, GlueIndex.PATH).exists());
+    }
+
+    private void compile(JavaFileObject... sources) throws IOException {
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        try {
+            List<String> options = asList("-d", output.getPath(), "-classpath", System.getProperty("java.class.path") + File.pathSeparator + output.getPath(),
+                    "-processor", GlueIndexProcessor.class.getName());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, asList(sources));
+            assertTrue(task.call());
+        } finally {
+            fileManager.close();
+        }
+    }
+
+    private List<String> readIndex() throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(new File(output, GlueIndex.PATH)), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    private static JavaFileObject source(String path, final String source) {
+        return new SimpleJavaFileObject(URI.create("string:///" + path), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package cucumber.runtime.java;
+
+import cucumber.runtime.CucumberException;
+import cucumber.runtime.java.stepdefs.Stepdefs;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class GlueIndexTest {
+    @Test
+    public void reads_the_lines_it_writes() throws IOException {
+        GlueIndex.Entry step = GlueIndex.Entry.step("com.example.Steps", "step", asList("java.lang.String", "int[]"), 100, "^a\t\"(.*)\"\\s+\n$");
+        GlueIndex.Entry hook = GlueIndex.Entry.hook(GlueIndex.Entry.AFTER, "com.example.Hooks$Nested", "hook", Collections.<String>emptyList(), 0, 5, new String[]{"@foo,@bar", "~@baz"});
+
+        List<GlueIndex.Entry> entries = GlueIndex.read(new BufferedReader(new StringReader("# comment\n" + step.toLine() + "\n\n" + hook.toLine() + "\n")), "test");
+
+        assertEquals(2, entries.size());
+        assertEquals(step.toLine(), entries.get(0).toLine());
+        assertEquals("^a\t\"(.*)\"\\s+\n$", entries.get(0).pattern);
+        assertEquals(asList("java.lang.String", "int[]"), entries.get(0).parameterTypes);
+        assertEquals(100, entries.get(0).timeout);
+        assertEquals(GlueIndex.Entry.AFTER, entries.get(1).kind);
+        assertEquals("com.example.Hooks$Nested", entries.get(1).className);
+        assertEquals(5, entries.get(1).order);
+        assertArrayEquals(new String[]{"@foo,@bar", "~@baz"}, entries.get(1).tagExpressions);
+    }
+
+    @Test
+    public void fails_on_bad_lines() throws IOException {
+        try {
+            GlueIndex.read(new BufferedReader(new StringReader("step\tcom.example.Steps\n")), "test");
+            fail();
+        } catch (CucumberException e) {
+            assertEquals("Bad line in test: step\tcom.example.Steps", e.getMessage());
+        }
+    }
+
+    @Test
+    public void selects_entries_by_package() {
+        GlueIndex.Entry steps = GlueIndex.Entry.step("com.example.Steps", "step", Collections.<String>emptyList(), 0, "a");
+        GlueIndex.Entry otherSteps = GlueIndex.Entry.step("com.examples.Steps", "step", Collections.<String>emptyList(), 0, "a");
+        GlueIndex index = new GlueIndex(asList(steps, otherSteps));
+
+        assertEquals(asList(steps), index.entriesIn("com.example"));
+        assertEquals(asList(steps, otherSteps), index.entriesIn(""));
+    }
+
+    @Test
+    public void finds_method_by_name_and_parameter_types() throws NoSuchMethodException {
+        GlueIndex.Entry entry = GlueIndex.Entry.step(Stepdefs.class.getName(), "test", Collections.<String>emptyList(), 0, "test");
+        GlueIndex.Entry otherParameters = GlueIndex.Entry.step(Stepdefs.class.getName(), "test", asList("java.lang.String"), 0, "test");
+
+        assertEquals(Stepdefs.class.getMethod("test"), entry.findMethod(Stepdefs.class));
+        assertNull(otherParameters.findMethod(Stepdefs.class));
+    }
+}
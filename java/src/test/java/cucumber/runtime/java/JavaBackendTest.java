@@ -5,18 +5,36 @@ import cucumber.runtime.Glue;
 import cucumber.runtime.HookDefinition;
 import cucumber.runtime.StepDefinition;
 import cucumber.runtime.StepDefinitionMatch;
+import cucumber.runtime.io.MultiLoader;
 import cucumber.runtime.io.ResourceLoader;
+import cucumber.runtime.io.ResourceLoaderClassFinder;
 import cucumber.runtime.java.stepdefs.Stepdefs;
 import gherkin.I18n;
 import gherkin.formatter.model.Step;
 import org.junit.Test;
 
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 public class JavaBackendTest {
     @Test
@@ -47,9 +65,107 @@ public class JavaBackendTest {
         backend.loadGlue(glue, asList("cucumber.runtime.java.stepdefs", "cucumber.runtime.java.incorrectlysubclassedstepdefs"));
     }
 
+    @Test
+    public void loads_the_glue_index_and_scans_the_directories_without_one() throws IOException {
+        // The index isn't in the directory with the step definitions, so that directory is scanned too
+        final File index = File.createTempFile("glue", ".index");
+        index.deleteOnExit();
+        Writer out = new OutputStreamWriter(new FileOutputStream(index), "UTF-8");
+        out.write(GlueIndex.Entry.step(Stepdefs.class.getName(), "test", Collections.<String>emptyList(), 0, "from the index").toLine() + "\n");
+        out.write(GlueIndex.Entry.step("cucumber.runtime.java.stepdefs.Deleted", "test", Collections.<String>emptyList(), 0, "deleted").toLine() + "\n");
+        out.close();
+        ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                if (name.equals(GlueIndex.PATH)) {
+                    return Collections.enumeration(asList(index.toURI().toURL()));
+                }
+                return super.getResources(name);
+            }
+        };
+        ObjectFactory factory = new DefaultJavaObjectFactory();
+        JavaBackend backend = new JavaBackend(factory, new ResourceLoaderClassFinder(new MultiLoader(classLoader), classLoader), classLoader);
+        GlueStub glue = new GlueStub();
+
+        backend.loadGlue(glue, asList("cucumber.runtime.java.stepdefs"));
+
+        assertEquals(asList("from the index", "test"), glue.patterns());
+    }
+
+    @Test
+    public void does_not_scan_directories_with_a_glue_index() throws IOException {
+        File classes = compile("com/example/Steps.java", "" +
+                "package com.example;\n" +
+                "public class Steps {\n" +
+                "    @cucumber.api.java.en.Given(\"compiled\")\n" +
+                "    public void compiled() {}\n" +
+                "}\n");
+        Writer out = new OutputStreamWriter(new FileOutputStream(new File(classes, GlueIndex.PATH)), "UTF-8");
+        out.write(GlueIndex.Entry.step("com.example.Steps", "compiled", Collections.<String>emptyList(), 0, "from the index").toLine() + "\n");
+        out.close();
+        ClassLoader classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader());
+        JavaBackend backend = new JavaBackend(new DefaultJavaObjectFactory(), new ResourceLoaderClassFinder(new MultiLoader(classLoader), classLoader), classLoader);
+        GlueStub glue = new GlueStub();
+
+        backend.loadGlue(glue, asList("com.example"));
+
+        assertEquals(asList("from the index"), glue.patterns());
+    }
+
+    @Test(expected = CucumberException.class)
+    public void detects_subclassed_glue_in_the_glue_index() throws IOException {
+        File classes = compile("com/example/Steps.java", "" +
+                "package com.example;\n" +
+                "public class Steps {\n" +
+                "    @cucumber.api.java.en.Given(\"compiled\")\n" +
+                "    public void compiled() {}\n" +
+                "    public static class MoreSteps extends Steps {}\n" +
+                "}\n");
+        ClassLoader classLoader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader());
+        JavaBackend backend = new JavaBackend(new DefaultJavaObjectFactory(), new ResourceLoaderClassFinder(new MultiLoader(classLoader), classLoader), classLoader);
+
+        backend.loadGlue(new GlueStub(), asList("com.example"));
+    }
+
+    /**
+     * Compiles a class with {@link GlueIndexProcessor}.
+     *
+     * @return the directory with the class files and the index
+     */
+    private File compile(String path, final String source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(compiler != null);
+        File output = File.createTempFile("glue-index", "");
+        assertTrue(output.delete() && output.mkdir());
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        try {
+            List<String> options = asList("-d", output.getPath(), "-classpath", System.getProperty("java.class.path"),
+                    "-processor", GlueIndexProcessor.class.getName());
+            JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + path), JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                    return source;
+                }
+            };
+            assertTrue(compiler.getTask(null, fileManager, null, options, null, asList(sourceFile)).call());
+        } finally {
+            fileManager.close();
+        }
+        return output;
+    }
+
     private class GlueStub implements Glue {
         public final List<StepDefinition> stepDefinitions = new ArrayList<StepDefinition>();
 
+        List<String> patterns() {
+            List<String> patterns = new ArrayList<String>();
+            for (StepDefinition stepDefinition : stepDefinitions) {
+                patterns.add(stepDefinition.getPattern());
+            }
+            Collections.sort(patterns);
+            return patterns;
+        }
+
         @Override
         public void addStepDefinition(StepDefinition stepDefinition) {
             stepDefinitions.add(stepDefinition);
@@ -6,7 +6,6 @@ import cucumber.runtime.ClassFinder;
 import cucumber.runtime.Runtime;
 import cucumber.runtime.RuntimeOptions;
 import cucumber.runtime.RuntimeOptionsFactory;
-import cucumber.runtime.io.MultiLoader;
 import cucumber.runtime.io.ResourceLoader;
 import cucumber.runtime.io.ResourceLoaderClassFinder;
 import cucumber.runtime.junit.Assertions;
@@ -57,7 +56,7 @@ public class Cucumber extends ParentRunner<FeatureRunner> {
         RuntimeOptionsFactory runtimeOptionsFactory = new RuntimeOptionsFactory(clazz, new Class[]{CucumberOptions.class, Options.class});
         RuntimeOptions runtimeOptions = runtimeOptionsFactory.create();
 
-        ResourceLoader resourceLoader = new MultiLoader(classLoader);
+        ResourceLoader resourceLoader = runtimeOptions.resourceLoader(classLoader);
         runtime = createRuntime(resourceLoader, classLoader, runtimeOptions);
 
         final List<CucumberFeature> cucumberFeatures = runtimeOptions.cucumberFeatures(resourceLoader);